@@ -0,0 +1,41 @@
+package ru.grooz.benchmark;
+
+import ru.grooz.util.VirtualThreads;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Точка входа benchmarks.jar: запускает JMH с переданными аргументами.
+ * На JVM без виртуальных потоков, если параметр scheduler не задан явно, BlockingSchedulerBenchmark
+ * ограничивается режимом bounded-elastic, а virtual пропускается.
+ */
+public final class BenchmarkMain {
+
+    private BenchmarkMain() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        List<String> jmhArgs = new ArrayList<>(Arrays.asList(args));
+        if (!VirtualThreads.isSupported() && !hasParam(jmhArgs, "scheduler")) {
+            System.err.println("Virtual threads require Java 21+, running on " + Runtime.version()
+                    + ": skipping scheduler=virtual");
+            jmhArgs.add("-p");
+            jmhArgs.add("scheduler=bounded-elastic");
+        }
+        org.openjdk.jmh.Main.main(jmhArgs.toArray(String[]::new));
+    }
+
+    private static boolean hasParam(List<String> args, String name) {
+        for (int i = 0; i < args.size(); i++) {
+            String arg = args.get(i);
+            String value = "-p".equals(arg) && i + 1 < args.size() ? args.get(i + 1)
+                    : arg.startsWith("-p") ? arg.substring(2) : "";
+            if (value.startsWith(name + "=")) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
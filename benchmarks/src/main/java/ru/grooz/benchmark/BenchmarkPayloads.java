@@ -0,0 +1,50 @@
+package ru.grooz.benchmark;
+
+import ru.grooz.dto.SourceWeatherData;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+/**
+ * Генерация ответов источников в форматах, которые отдает mock-сервис.
+ */
+final class BenchmarkPayloads {
+
+    private static final String[] FORMATS = {"flat-short", "flat-long", "nested"};
+
+    private BenchmarkPayloads() {
+    }
+
+    static String payload(String format, double temperature, double humidity) {
+        return switch (format) {
+            case "flat-short" -> String.format(Locale.ENGLISH,
+                    "{ \"temp\": %.1f, \"hum\": %.0f }", temperature, humidity);
+            case "flat-long" -> String.format(Locale.ENGLISH,
+                    "{ \"temperature\": \"%.1f\", \"humidity\": \"%.0f\" }", temperature, humidity);
+            case "nested" -> String.format(Locale.ENGLISH,
+                    "{ \"weather\": { \"t\": %.1f, \"h\": %.1f } }", temperature, humidity);
+            case "malformed" -> "{ \"temperature\": \"warm\", \"humidity\": ";
+            default -> throw new IllegalArgumentException("Unknown payload format: " + format);
+        };
+    }
+
+    /**
+     * Ответы источников 1..size вперемешку во всех трех форматах; каждый malformedEvery-й ответ некорректен
+     * (0 — без некорректных).
+     */
+    static List<SourceWeatherData> sourceResponses(int size, int malformedEvery, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        List<SourceWeatherData> responses = new ArrayList<>(size);
+        for (int sourceId = 1; sourceId <= size; sourceId++) {
+            String format = malformedEvery > 0 && sourceId % malformedEvery == 0
+                    ? "malformed"
+                    : FORMATS[sourceId % FORMATS.length];
+            double temperature = 15 + random.nextDouble() * 10;
+            double humidity = 30 + random.nextDouble() * 10;
+            responses.add(new SourceWeatherData(sourceId, payload(format, temperature, humidity)));
+        }
+        return responses;
+    }
+}
@@ -0,0 +1,85 @@
+package ru.grooz.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import ru.grooz.util.VirtualThreads;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Сравнение планировщиков блокирующей записи (weather.persistence.blocking-scheduler) при веерной нагрузке:
+ * tasks блокирующих операций по queryMs, из них одновременно запускается до fanOut, а работу с БД
+ * ограничивает пул из poolSize соединений (Semaphore вместо HikariCP).
+ * Режим virtual требует запуска на Java 21+ (mvn -Pjava21 install); на Java 17 BenchmarkMain его пропускает.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class BlockingSchedulerBenchmark {
+
+    private static final int TASKS = 2000;
+    private static final long QUERY_NANOS = TimeUnit.MILLISECONDS.toNanos(2);
+
+    @Param({"bounded-elastic", "virtual"})
+    public String scheduler;
+
+    @Param({"10", "100"})
+    public int poolSize;
+
+    @Param({"64", "1024"})
+    public int fanOut;
+
+    private Scheduler blockingScheduler;
+    private Semaphore connections;
+
+    @Setup
+    public void setUp() {
+        blockingScheduler = "virtual".equals(scheduler)
+                ? Schedulers.fromExecutorService(VirtualThreads.newThreadPerTaskExecutor("bench-"), "bench")
+                : Schedulers.newBoundedElastic(Schedulers.DEFAULT_BOUNDED_ELASTIC_SIZE,
+                Schedulers.DEFAULT_BOUNDED_ELASTIC_QUEUESIZE, "bench");
+        connections = new Semaphore(poolSize, true);
+    }
+
+    @TearDown
+    public void tearDown() {
+        blockingScheduler.dispose();
+    }
+
+    @Benchmark
+    public Long fanOut() {
+        return Flux.range(0, TASKS)
+                .flatMap(i -> Mono.fromCallable(this::blockingQuery).subscribeOn(blockingScheduler), fanOut)
+                .count()
+                .block();
+    }
+
+    private int blockingQuery() throws InterruptedException {
+        connections.acquire();
+        try {
+            LockSupport.parkNanos(QUERY_NANOS);
+            return 1;
+        } finally {
+            connections.release();
+        }
+    }
+}
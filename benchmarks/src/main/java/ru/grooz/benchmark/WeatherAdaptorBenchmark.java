@@ -0,0 +1,55 @@
+package ru.grooz.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.grooz.dto.SourceWeatherData;
+import ru.grooz.dto.WeatherDataBatch;
+import ru.grooz.service.WeatherBatchPreparer;
+import ru.grooz.util.WeatherDataParser;
+import ru.grooz.util.WeatherFormatRegistry;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Построение сущностей RawWeatherData / NormalizedWeatherData для пачки ответов
+ * ({@link WeatherBatchPreparer#prepare}) без обращения к базе.
+ * Логирование некорректных ответов отключено в logback.xml модуля, чтобы не мерить вывод в консоль.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WeatherAdaptorBenchmark {
+
+    @Param({"100", "1000"})
+    public int batchSize;
+
+    @Param({"0", "10"})
+    public int malformedEvery;
+
+    private WeatherBatchPreparer batchPreparer;
+    private List<SourceWeatherData> batch;
+
+    @Setup
+    public void setUp() {
+        batchPreparer = new WeatherBatchPreparer(new WeatherDataParser(new WeatherFormatRegistry()));
+        batch = BenchmarkPayloads.sourceResponses(batchSize, malformedEvery, 42);
+    }
+
+    @Benchmark
+    public WeatherDataBatch prepareBatch() {
+        return batchPreparer.prepare(batch);
+    }
+}
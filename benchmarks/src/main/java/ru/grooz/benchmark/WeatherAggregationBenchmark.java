@@ -0,0 +1,92 @@
+package ru.grooz.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.grooz.dto.AggregatedWeatherResponse;
+import ru.grooz.dto.WeatherAggregateState;
+import ru.grooz.dto.WeatherDataBatch;
+import ru.grooz.model.NormalizedWeatherData;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Расчет средних: суммирование большого списка показаний так же, как при сохранении пачки,
+ * и округление результата в {@link AggregatedWeatherResponse#of}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WeatherAggregationBenchmark {
+
+    private static final int STATES = 1024;
+
+    @Param({"1000", "100000"})
+    public int readings;
+
+    private WeatherDataBatch batch;
+    private WeatherAggregateState[] states;
+
+    @Setup
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        LocalDateTime now = LocalDateTime.now();
+        List<NormalizedWeatherData> normalized = new ArrayList<>(readings);
+        for (int i = 0; i < readings; i++) {
+            NormalizedWeatherData data = new NormalizedWeatherData();
+            data.setSourceId(i % 100 + 1);
+            data.setTemperature(15 + random.nextDouble() * 10);
+            data.setHumidity(30 + random.nextDouble() * 10);
+            data.setTimestamp(now);
+            normalized.add(data);
+        }
+        batch = new WeatherDataBatch(List.of(), normalized);
+
+        states = new WeatherAggregateState[STATES];
+        for (int i = 0; i < STATES; i++) {
+            long count = 1 + random.nextInt(readings);
+            states[i] = new WeatherAggregateState(count,
+                    count * (15 + random.nextDouble() * 10),
+                    count * (30 + random.nextDouble() * 10));
+        }
+    }
+
+    @Benchmark
+    public AggregatedWeatherResponse averageOfList() {
+        WeatherAggregateState state = WeatherAggregateState.EMPTY
+                .plus(batch.normalizedData().size(), batch.temperatureSum(), batch.humiditySum());
+        return AggregatedWeatherResponse.of(state);
+    }
+
+    /**
+     * Только округление: STATES разных состояний за вызов, чтобы JIT не свернул константу;
+     * время приводится к одному состоянию.
+     */
+    @Benchmark
+    @OperationsPerInvocation(STATES)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public double roundAverages() {
+        double checksum = 0.0;
+        for (WeatherAggregateState state : states) {
+            AggregatedWeatherResponse response = AggregatedWeatherResponse.of(state);
+            checksum += response.getAverageTemperature() + response.getAverageHumidity();
+        }
+        return checksum;
+    }
+}
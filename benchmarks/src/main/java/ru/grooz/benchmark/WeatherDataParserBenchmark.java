@@ -0,0 +1,65 @@
+package ru.grooz.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.grooz.dto.WeatherData;
+import ru.grooz.util.WeatherDataParser;
+import ru.grooz.util.WeatherFormatRegistry;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Парсинг ответа источника для каждого из известных форматов и для некорректного payload.
+ * knownSource — быстрый путь с запомненным форматом источника, detect — определение формата заново.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WeatherDataParserBenchmark {
+
+    private static final int SOURCE_ID = 1;
+
+    @Param({"flat-short", "flat-long", "nested", "malformed"})
+    public String format;
+
+    private WeatherDataParser parser;
+    private String payload;
+
+    @Setup
+    public void setUp() {
+        parser = new WeatherDataParser(new WeatherFormatRegistry());
+        payload = BenchmarkPayloads.payload(format, 21.7, 58);
+        // Запоминаем формат источника, чтобы knownSource измерял быстрый путь
+        parseQuietly(SOURCE_ID);
+    }
+
+    @Benchmark
+    public WeatherData knownSource() {
+        return parseQuietly(SOURCE_ID);
+    }
+
+    @Benchmark
+    public WeatherData detect() {
+        return parseQuietly(-1);
+    }
+
+    private WeatherData parseQuietly(int sourceId) {
+        try {
+            return parser.parse(sourceId, payload);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -1,20 +1,80 @@
 package ru.mockweather.controller;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.mockweather.service.MockLoadProfile;
 import ru.mockweather.service.MockWeatherService;
 
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
 @RestController
 @RequiredArgsConstructor
 public class MockWeatherController {
 
     private final MockWeatherService mockWeatherService;
+    private final MockLoadProfile loadProfile;
 
+    /**
+     * Отдает ответ источника с задержкой, ошибками и таймаутами из профиля нагрузки (mock.*).
+     * Ответ несет ETag (хэш payload), а при mock.payload.change-interval-ms — и Last-Modified (начало интервала).
+     * Если показание не изменилось с указанного в If-None-Match или, без него, в If-Modified-Since,
+     * возвращается 304 без тела.
+     */
     @GetMapping("/source/{id}")
-    public String getSourceData(@PathVariable int id) {
-        return mockWeatherService.getSourceData(id);
+    public CompletableFuture<ResponseEntity<String>> getSourceData(
+            @PathVariable int id,
+            @RequestHeader HttpHeaders headers) {
+        List<String> ifNoneMatch = headers.getIfNoneMatch();
+        long ifModifiedSince = headers.getIfModifiedSince();
+        return loadProfile.respond(() -> {
+            long readingSince = loadProfile.readingSince(System.currentTimeMillis());
+            String payload = mockWeatherService.getSourceData(id, readingSince);
+            String eTag = MockWeatherService.eTagOf(payload);
+            boolean notModified = !ifNoneMatch.isEmpty()
+                    ? matches(ifNoneMatch, eTag)
+                    // Last-Modified передается с точностью до секунды
+                    : ifModifiedSince >= 0 && readingSince >= 0 && readingSince / 1000 * 1000 <= ifModifiedSince;
+            ResponseEntity.BodyBuilder response = notModified
+                    ? ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    : ResponseEntity.ok();
+            response.eTag(eTag);
+            if (readingSince >= 0) {
+                response.lastModified(readingSince);
+            }
+            return notModified ? response.build() : response.body(payload);
+        });
+    }
+
+    private static boolean matches(List<String> ifNoneMatch, String eTag) {
+        return ifNoneMatch.stream()
+                .anyMatch(candidate -> candidate.equals("*") || candidate.equals(eTag) || candidate.equals("W/" + eTag));
+    }
+
+    /**
+     * Отдает данные источников from..to (включительно) потоком NDJSON: одна строка
+     * {"sourceId":..,"payload":".."} на источник. Строки пишутся и сбрасываются в ответ по мере генерации,
+     * поэтому клиент может обрабатывать их, не дожидаясь конца тела.
+     * Задержка, ошибка или таймаут профиля нагрузки применяются один раз ко всему запросу.
+     */
+    @GetMapping(value = "/source/batch", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public CompletableFuture<ResponseEntity<StreamingResponseBody>> getSourceDataBatch(@RequestParam int from,
+                                                                                      @RequestParam int to) {
+        if (from < 1 || to < from || to - from >= MockWeatherService.MAX_BATCH_SIZE) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().build());
+        }
+        return loadProfile.respond(() -> ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(outputStream -> mockWeatherService.writeSourceDataBatch(from, to, outputStream)));
     }
 
 }
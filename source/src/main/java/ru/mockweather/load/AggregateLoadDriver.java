@@ -0,0 +1,182 @@
+package ru.mockweather.load;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Нагрузочный драйвер для GET /weather/aggregate: concurrency потоков в замкнутом цикле отправляют запросы
+ * в течение duration (после прогрева warmup) и печатают пропускную способность и перцентили задержки.
+ * Каждый поток пишет задержки в собственный массив, поэтому измерение не синхронизируется между потоками.
+ * <p>
+ * Запуск из собранного jar mock-сервиса:
+ * <pre>
+ * java -cp source/target/source-1.0-SNAPSHOT.jar -Dloader.main=ru.mockweather.load.AggregateLoadDriver \
+ *      org.springframework.boot.loader.launch.PropertiesLauncher \
+ *      --url=http://localhost:8080/weather/aggregate --concurrency=32 --duration=30 --warmup=5
+ * </pre>
+ */
+public final class AggregateLoadDriver {
+
+    private static final double[] PERCENTILES = {0.50, 0.90, 0.99, 0.999};
+
+    private AggregateLoadDriver() {
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        Map<String, String> options = parseOptions(args);
+        URI uri = URI.create(options.getOrDefault("url", "http://localhost:8080/weather/aggregate"));
+        int concurrency = Integer.parseInt(options.getOrDefault("concurrency", "16"));
+        Duration warmup = Duration.ofSeconds(Long.parseLong(options.getOrDefault("warmup", "5")));
+        Duration duration = Duration.ofSeconds(Long.parseLong(options.getOrDefault("duration", "30")));
+        Duration timeout = Duration.ofMillis(Long.parseLong(options.getOrDefault("timeout-ms", "10000")));
+
+        HttpClient client = HttpClient.newBuilder()
+                .connectTimeout(timeout)
+                .version(HttpClient.Version.HTTP_1_1)
+                .build();
+        HttpRequest request = HttpRequest.newBuilder(uri).timeout(timeout).GET().build();
+
+        System.out.printf(Locale.ENGLISH, "Load: %s, concurrency=%d, warmup=%ds, duration=%ds%n",
+                uri, concurrency, warmup.toSeconds(), duration.toSeconds());
+
+        long startNanos = System.nanoTime();
+        long measureFromNanos = startNanos + warmup.toNanos();
+        long endNanos = measureFromNanos + duration.toNanos();
+
+        List<Worker> workers = new ArrayList<>(concurrency);
+        CountDownLatch done = new CountDownLatch(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            Worker worker = new Worker(client, request, measureFromNanos, endNanos, done);
+            workers.add(worker);
+            Thread thread = new Thread(worker, "load-" + i);
+            thread.setDaemon(true);
+            thread.start();
+        }
+        done.await();
+
+        report(workers, duration);
+    }
+
+    private static void report(List<Worker> workers, Duration duration) {
+        int total = 0;
+        long errors = 0;
+        Map<Integer, Long> statuses = new HashMap<>();
+        for (Worker worker : workers) {
+            total += worker.count;
+            errors += worker.errors;
+            worker.statuses.forEach((status, count) -> statuses.merge(status, count, Long::sum));
+        }
+
+        long[] latencies = new long[total];
+        int offset = 0;
+        for (Worker worker : workers) {
+            System.arraycopy(worker.latencies, 0, latencies, offset, worker.count);
+            offset += worker.count;
+        }
+        Arrays.sort(latencies);
+
+        double seconds = duration.toNanos() / 1e9;
+        System.out.printf(Locale.ENGLISH, "Requests: %d (%.1f req/s), statuses: %s, errors: %d%n",
+                total, total / seconds, statuses, errors);
+        if (total == 0) {
+            return;
+        }
+        StringBuilder line = new StringBuilder("Latency ms:");
+        for (double percentile : PERCENTILES) {
+            long value = latencies[Math.min(total - 1, (int) Math.ceil(percentile * total) - 1)];
+            line.append(String.format(Locale.ENGLISH, " p%s=%.2f", format(percentile * 100), value / 1e6));
+        }
+        line.append(String.format(Locale.ENGLISH, " max=%.2f", latencies[total - 1] / 1e6));
+        System.out.println(line);
+    }
+
+    private static String format(double percent) {
+        return percent == Math.rint(percent) ? Long.toString((long) percent) : Double.toString(percent);
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value, got: " + arg);
+            }
+            int separator = arg.indexOf('=');
+            options.put(arg.substring(2, separator), arg.substring(separator + 1));
+        }
+        return options;
+    }
+
+    /**
+     * Поток нагрузки: отправляет запросы один за другим и записывает задержки,
+     * начиная с конца прогрева.
+     */
+    private static final class Worker implements Runnable {
+
+        private final HttpClient client;
+        private final HttpRequest request;
+        private final long measureFromNanos;
+        private final long endNanos;
+        private final CountDownLatch done;
+
+        private long[] latencies = new long[1024];
+        private int count;
+        private long errors;
+        private final Map<Integer, Long> statuses = new HashMap<>();
+
+        private Worker(HttpClient client, HttpRequest request, long measureFromNanos, long endNanos,
+                       CountDownLatch done) {
+            this.client = client;
+            this.request = request;
+            this.measureFromNanos = measureFromNanos;
+            this.endNanos = endNanos;
+            this.done = done;
+        }
+
+        @Override
+        public void run() {
+            try {
+                long now;
+                while ((now = System.nanoTime()) < endNanos) {
+                    int status = send();
+                    long finished = System.nanoTime();
+                    if (now < measureFromNanos) {
+                        continue;
+                    }
+                    if (status < 0) {
+                        errors++;
+                    } else {
+                        statuses.merge(status, 1L, Long::sum);
+                    }
+                    if (count == latencies.length) {
+                        latencies = Arrays.copyOf(latencies, count * 2);
+                    }
+                    latencies[count++] = finished - now;
+                }
+            } finally {
+                done.countDown();
+            }
+        }
+
+        private int send() {
+            try {
+                return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+            } catch (IOException e) {
+                return -1;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return -1;
+            }
+        }
+    }
+}
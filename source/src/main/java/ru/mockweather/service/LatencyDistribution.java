@@ -0,0 +1,45 @@
+package ru.mockweather.service;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Распределение задержки ответа mock-источника.
+ */
+public enum LatencyDistribution {
+    /**
+     * Без задержки: ответ отдается сразу в потоке запроса.
+     */
+    NONE,
+    /**
+     * Постоянная задержка baseMs.
+     */
+    FIXED,
+    /**
+     * Нормальное распределение со средним baseMs и стандартным отклонением jitterMs.
+     */
+    NORMAL,
+    /**
+     * Нормальное распределение, к которому с вероятностью tailRatio добавляется
+     * экспоненциальный хвост со средним tailMs.
+     */
+    LONG_TAIL;
+
+    public long sampleMillis(ThreadLocalRandom random, long baseMs, long jitterMs, double tailRatio, long tailMs) {
+        return switch (this) {
+            case NONE -> 0;
+            case FIXED -> baseMs;
+            case NORMAL -> normal(random, baseMs, jitterMs);
+            case LONG_TAIL -> {
+                long latency = normal(random, baseMs, jitterMs);
+                if (random.nextDouble() < tailRatio) {
+                    latency += (long) (-tailMs * Math.log(1.0 - random.nextDouble()));
+                }
+                yield latency;
+            }
+        };
+    }
+
+    private static long normal(ThreadLocalRandom random, long meanMs, long stdDevMs) {
+        return Math.max(0, Math.round(meanMs + stdDevMs * random.nextGaussian()));
+    }
+}
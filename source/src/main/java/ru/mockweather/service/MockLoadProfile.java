@@ -0,0 +1,173 @@
+package ru.mockweather.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.random.RandomGenerator;
+
+/**
+ * Профиль нагрузки mock-источников (mock.*): распределение задержки, доля ошибок и таймаутов,
+ * размер payload, соотношение форматов по источникам и частота смены показаний.
+ * Случайные величины берутся из {@link ThreadLocalRandom}, поэтому потоки запросов не конкурируют
+ * за общий генератор. Задержка выдерживается через отложенное завершение CompletableFuture,
+ * поток запроса при этом не блокируется.
+ */
+@Component
+@Slf4j
+public class MockLoadProfile {
+
+    @Value("${mock.latency.distribution}")
+    private LatencyDistribution latencyDistribution;
+
+    @Value("${mock.latency.base-ms}")
+    private long baseMs;
+
+    @Value("${mock.latency.jitter-ms}")
+    private long jitterMs;
+
+    @Value("${mock.latency.tail-ratio}")
+    private double tailRatio;
+
+    @Value("${mock.latency.tail-ms}")
+    private long tailMs;
+
+    @Value("${mock.error-rate}")
+    private double errorRate;
+
+    @Value("${mock.timeout-rate}")
+    private double timeoutRate;
+
+    @Value("${mock.timeout-ms}")
+    private long timeoutMs;
+
+    @Value("${mock.payload.format-weights}")
+    private double[] formatWeights;
+
+    @Value("${mock.payload.sticky-format}")
+    private boolean stickyFormat;
+
+    @Value("${mock.payload.min-padding}")
+    private int minPadding;
+
+    @Value("${mock.payload.max-padding}")
+    private int maxPadding;
+
+    @Value("${mock.payload.change-interval-ms}")
+    private long changeIntervalMs;
+
+    /**
+     * Накопленные доли форматов: формат i выбирается, если случайное число меньше cumulativeWeights[i].
+     */
+    private double[] cumulativeWeights;
+
+    @PostConstruct
+    void init() {
+        if (formatWeights.length != MockWeatherService.FORMAT_COUNT) {
+            throw new IllegalStateException("mock.payload.format-weights must contain "
+                    + MockWeatherService.FORMAT_COUNT + " values");
+        }
+        if (minPadding < 0 || maxPadding < minPadding) {
+            throw new IllegalStateException("mock.payload padding range is invalid: " + minPadding + ".." + maxPadding);
+        }
+        double total = Arrays.stream(formatWeights).sum();
+        if (total <= 0) {
+            throw new IllegalStateException("mock.payload.format-weights must have a positive sum");
+        }
+        cumulativeWeights = new double[formatWeights.length];
+        double sum = 0.0;
+        for (int i = 0; i < formatWeights.length; i++) {
+            sum += formatWeights[i] / total;
+            cumulativeWeights[i] = sum;
+        }
+        log.info("Mock load profile: latency={} base={}ms jitter={}ms tail={}x{}ms, errors={}, timeouts={}, "
+                        + "formats={} sticky={}, padding={}..{}, change interval={}ms",
+                latencyDistribution, baseMs, jitterMs, tailRatio, tailMs, errorRate, timeoutRate,
+                Arrays.toString(formatWeights), stickyFormat, minPadding, maxPadding, changeIntervalMs);
+    }
+
+    /**
+     * Отдает ответ с учетом профиля: с долей timeoutRate — 504 через timeoutMs, с долей errorRate — 500,
+     * иначе ответ supplier после задержки из распределения. Без задержки ответ строится сразу.
+     */
+    public <T> CompletableFuture<ResponseEntity<T>> respond(Supplier<ResponseEntity<T>> response) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        double roll = random.nextDouble();
+        if (roll < timeoutRate) {
+            return delayed(timeoutMs, () -> ResponseEntity.status(HttpStatus.GATEWAY_TIMEOUT).build());
+        }
+
+        long latency = latencyDistribution.sampleMillis(random, baseMs, jitterMs, tailRatio, tailMs);
+        Supplier<ResponseEntity<T>> outcome = roll < timeoutRate + errorRate
+                ? () -> ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build()
+                : response;
+        return latency == 0 ? CompletableFuture.completedFuture(outcome.get()) : delayed(latency, outcome);
+    }
+
+    /**
+     * Формат ответа источника: при stickyFormat закреплен за sourceId, иначе выбирается заново на каждый ответ.
+     */
+    public int formatFor(int sourceId, RandomGenerator random) {
+        double point = stickyFormat ? unitHash(sourceId, 0x9E3779B97F4A7C15L) : random.nextDouble();
+        for (int i = 0; i < cumulativeWeights.length - 1; i++) {
+            if (point < cumulativeWeights[i]) {
+                return i;
+            }
+        }
+        return cumulativeWeights.length - 1;
+    }
+
+    /**
+     * Начало интервала, в котором показания источников не меняются (mock.payload.change-interval-ms).
+     *
+     * @return момент в миллисекундах эпохи или -1, если показание новое на каждый ответ.
+     */
+    public long readingSince(long nowMillis) {
+        return changeIntervalMs > 0 ? nowMillis - Math.floorMod(nowMillis, changeIntervalMs) : -1;
+    }
+
+    /**
+     * Генератор значений показания: для интервала неизменности он определяется источником и началом интервала,
+     * поэтому все ответы источника в интервале совпадают; без интервала — {@link ThreadLocalRandom}.
+     */
+    public RandomGenerator readingRandom(int sourceId, long readingSince) {
+        if (readingSince < 0) {
+            return ThreadLocalRandom.current();
+        }
+        return new SplittableRandom(sourceId * 0x9E3779B97F4A7C15L ^ readingSince);
+    }
+
+    /**
+     * Размер дополнительного поля payload; постоянен для источника, чтобы размер его ответов не менялся.
+     */
+    public int paddingFor(int sourceId) {
+        if (maxPadding == 0) {
+            return 0;
+        }
+        return minPadding + (int) (unitHash(sourceId, 0xC2B2AE3D27D4EB4FL) * (maxPadding - minPadding + 1));
+    }
+
+    private static <T> CompletableFuture<T> delayed(long delayMs, Supplier<T> supplier) {
+        return CompletableFuture.supplyAsync(supplier, CompletableFuture.delayedExecutor(delayMs, TimeUnit.MILLISECONDS));
+    }
+
+    /**
+     * Детерминированное число в [0, 1) для источника (финализатор SplitMix64).
+     */
+    private static double unitHash(int sourceId, long salt) {
+        long z = sourceId * 0xBF58476D1CE4E5B9L + salt;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        z = z ^ (z >>> 31);
+        return (z >>> 11) * 0x1.0p-53;
+    }
+}
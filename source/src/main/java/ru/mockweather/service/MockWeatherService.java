@@ -1,27 +1,116 @@
 package ru.mockweather.service;
 
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
-import org.springframework.web.bind.annotation.PathVariable;
 
-import java.util.Locale;
-import java.util.Random;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.random.RandomGenerator;
 
 @Service
+@RequiredArgsConstructor
 public class MockWeatherService {
 
-    private final Random random = new Random();
+    /**
+     * Максимальное количество источников в одном batch-запросе.
+     */
+    public static final int MAX_BATCH_SIZE = 10_000;
 
-    public String getSourceData(@PathVariable int id) {
+    private static final int FLUSH_EVERY = 64;
+
+    /**
+     * Количество форматов ответа: 0 — { "temp", "hum" }, 1 — { "temperature", "humidity" } строками,
+     * 2 — { "weather": { "t", "h" } }.
+     */
+    public static final int FORMAT_COUNT = 3;
+
+    private final JsonFactory jsonFactory = new JsonFactory();
+    private final MockLoadProfile loadProfile;
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    /**
+     * Генерирует текущий ответ источника (см. {@link #getSourceData(int, long)}).
+     */
+    public String getSourceData(int id) {
+        return getSourceData(id, loadProfile.readingSince(System.currentTimeMillis()));
+    }
+
+    /**
+     * Генерирует ответ источника в формате из профиля нагрузки.
+     * Значения форматируются вручную в StringBuilder (без String.format), случайные числа берутся
+     * из ThreadLocalRandom, поэтому параллельные запросы не конкурируют за общий генератор.
+     * При mock.payload.change-interval-ms ответ в пределах интервала одинаков.
+     *
+     * @param readingSince Начало интервала неизменности из {@link MockLoadProfile#readingSince(long)}.
+     */
+    public String getSourceData(int id, long readingSince) {
+        RandomGenerator random = loadProfile.readingRandom(id, readingSince);
         double temp = 15.0 + random.nextDouble() * 10.0; // Температура от 15
         double hum = 25.0 + random.nextDouble() * 20.0; // Влажность от 25
 
-        int format = random.nextInt(3); // Случайный формат: 0, 1 или 2
+        int format = loadProfile.formatFor(id, random);
+        int padding = loadProfile.paddingFor(id);
 
-        return switch (format) {
-            case 0 -> String.format(Locale.ENGLISH, "{ \"temp\": %.1f, \"hum\": %.0f }", temp, hum);
-            case 1 -> String.format(Locale.ENGLISH, "{ \"temperature\": \"%.1f\", \"humidity\": \"%.0f\" }", temp, hum);
-            case 2 -> String.format(Locale.ENGLISH, "{ \"weather\": { \"t\": %.1f, \"h\": %.1f } }", temp, hum);
+        StringBuilder payload = new StringBuilder(64 + padding).append("{ ");
+        if (padding > 0) {
+            payload.append("\"station\": \"");
+            for (int i = 0; i < padding; i++) {
+                payload.append('x');
+            }
+            payload.append("\", ");
+        }
+        switch (format) {
+            case 0 -> appendTenths(payload.append("\"temp\": "), temp)
+                    .append(", \"hum\": ").append(Math.round(hum)).append(" }");
+            case 1 -> appendTenths(payload.append("\"temperature\": \""), temp)
+                    .append("\", \"humidity\": \"").append(Math.round(hum)).append("\" }");
+            case 2 -> appendTenths(appendTenths(payload.append("\"weather\": { \"t\": "), temp)
+                    .append(", \"h\": "), hum).append(" } }");
             default -> throw new IllegalStateException("Unexpected format value: " + format);
-        };
+        }
+        return payload.toString();
+    }
+
+    /**
+     * Сильный ETag ответа: 64-битный хэш FNV-1a payload в кавычках.
+     */
+    public static String eTagOf(String payload) {
+        long hash = FNV_OFFSET_BASIS;
+        for (int i = 0; i < payload.length(); i++) {
+            hash = (hash ^ payload.charAt(i)) * FNV_PRIME;
+        }
+        return "\"" + Long.toHexString(hash) + "\"";
+    }
+
+    /**
+     * Пишет данные источников from..to в формате NDJSON, сбрасывая буфер каждые FLUSH_EVERY строк.
+     */
+    public void writeSourceDataBatch(int from, int to, OutputStream outputStream) throws IOException {
+        try (JsonGenerator generator = jsonFactory.createGenerator(outputStream, JsonEncoding.UTF8)) {
+            generator.setRootValueSeparator(null);
+            for (int id = from; id <= to; id++) {
+                generator.writeStartObject();
+                generator.writeNumberField("sourceId", id);
+                generator.writeStringField("payload", getSourceData(id));
+                generator.writeEndObject();
+                generator.writeRaw('\n');
+                if ((id - from + 1) % FLUSH_EVERY == 0) {
+                    generator.flush();
+                }
+            }
+        }
+    }
+
+    /**
+     * Дописывает неотрицательное значение с одним знаком после запятой.
+     */
+    private static StringBuilder appendTenths(StringBuilder builder, double value) {
+        long tenths = Math.round(value * 10);
+        return builder.append(tenths / 10).append('.').append(tenths % 10);
     }
-}
\ No newline at end of file
+}
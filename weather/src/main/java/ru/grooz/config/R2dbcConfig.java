@@ -0,0 +1,60 @@
+package ru.grooz.config;
+
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.r2dbc.connection.R2dbcTransactionManager;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.transaction.reactive.TransactionalOperator;
+
+/**
+ * Реактивный доступ к БД для weather.persistence.mode=r2dbc.
+ * Пул соединений намеренно не публикуется бином ConnectionFactory: при его наличии Spring Boot
+ * отключает DataSource и JPA, которые остаются нужны Liquibase и остальным сервисам.
+ * По той же причине R2dbcTransactionManager не регистрируется бином — @Transactional
+ * по-прежнему однозначно использует JPA.
+ */
+@Configuration
+@ConditionalOnProperty(name = "weather.persistence.mode", havingValue = "r2dbc")
+public class R2dbcConfig implements DisposableBean {
+
+    private final ConnectionPool connectionPool;
+
+    public R2dbcConfig(@Value("${weather.persistence.r2dbc.url}") String url,
+                       @Value("${weather.persistence.r2dbc.username}") String username,
+                       @Value("${weather.persistence.r2dbc.password}") String password,
+                       @Value("${weather.persistence.r2dbc.pool-size}") int poolSize) {
+        ConnectionFactory connectionFactory = ConnectionFactories.get(ConnectionFactoryOptions.parse(url)
+                .mutate()
+                .option(ConnectionFactoryOptions.USER, username)
+                .option(ConnectionFactoryOptions.PASSWORD, password)
+                .build());
+
+        this.connectionPool = new ConnectionPool(ConnectionPoolConfiguration.builder(connectionFactory)
+                .initialSize(Math.min(poolSize, 5))
+                .maxSize(poolSize)
+                .build());
+    }
+
+    @Bean
+    public DatabaseClient r2dbcDatabaseClient() {
+        return DatabaseClient.create(connectionPool);
+    }
+
+    @Bean
+    public TransactionalOperator r2dbcTransactionalOperator() {
+        return TransactionalOperator.create(new R2dbcTransactionManager(connectionPool));
+    }
+
+    @Override
+    public void destroy() {
+        connectionPool.dispose();
+    }
+}
@@ -0,0 +1,42 @@
+package ru.grooz.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import ru.grooz.service.BlockingSchedulerMode;
+import ru.grooz.util.VirtualThreads;
+
+/**
+ * Планировщик для блокирующей работы с БД (weather.persistence.blocking-scheduler).
+ * В режиме bounded-elastic используется общий Schedulers.boundedElastic, в режиме virtual —
+ * виртуальный поток на задачу (требует запуска на Java 21+, см. профиль сборки java21).
+ */
+@Configuration
+@Slf4j
+public class SchedulerConfig implements DisposableBean {
+
+    private Scheduler virtualScheduler;
+
+    @Bean
+    public Scheduler blockingScheduler(@Value("${weather.persistence.blocking-scheduler}") BlockingSchedulerMode mode) {
+        if (mode == BlockingSchedulerMode.VIRTUAL) {
+            virtualScheduler = Schedulers.fromExecutorService(
+                    VirtualThreads.newThreadPerTaskExecutor("weather-blocking-"), "weather-blocking");
+            log.info("Blocking persistence work runs on virtual threads");
+            return virtualScheduler;
+        }
+        return Schedulers.boundedElastic();
+    }
+
+    @Override
+    public void destroy() {
+        // Общий boundedElastic принадлежит Reactor и не освобождается здесь
+        if (virtualScheduler != null) {
+            virtualScheduler.dispose();
+        }
+    }
+}
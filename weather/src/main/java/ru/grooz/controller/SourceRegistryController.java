@@ -0,0 +1,76 @@
+package ru.grooz.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import ru.grooz.dto.WeatherSource;
+import ru.grooz.dto.WeatherSourceRequest;
+import ru.grooz.service.SourceRegistry;
+
+import java.util.List;
+
+/**
+ * Управление реестром источников (weather.sources.registry.enabled) без перезапуска:
+ * добавленные и измененные источники сразу попадают в опрос, удаленные и выключенные из него выходят.
+ */
+@RestController
+@RequestMapping("/weather/sources")
+@ConditionalOnProperty(name = "weather.sources.registry.enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class SourceRegistryController {
+
+    private final SourceRegistry sourceRegistry;
+    private final Scheduler blockingScheduler;
+
+    /**
+     * Страница реестра по возрастанию идентификатора.
+     */
+    @GetMapping
+    public List<WeatherSource> getSources(@RequestParam(defaultValue = "0") int offset,
+                                          @RequestParam(defaultValue = "100") int limit) {
+        if (offset < 0 || limit <= 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "offset must be >= 0 and limit > 0");
+        }
+        return sourceRegistry.list(offset, limit);
+    }
+
+    @GetMapping("/{id}")
+    public WeatherSource getSource(@PathVariable int id) {
+        WeatherSource source = sourceRegistry.get(id);
+        if (source == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Unknown source: " + id);
+        }
+        return source;
+    }
+
+    /**
+     * Добавляет или заменяет источник.
+     */
+    @PutMapping("/{id}")
+    public Mono<WeatherSource> putSource(@PathVariable int id, @RequestBody WeatherSourceRequest request) {
+        return Mono.fromCallable(() -> sourceRegistry.save(request.toSource(id)))
+                .subscribeOn(blockingScheduler)
+                .onErrorMap(IllegalArgumentException.class,
+                        e -> new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e));
+    }
+
+    @DeleteMapping("/{id}")
+    public Mono<Void> deleteSource(@PathVariable int id) {
+        return Mono.fromCallable(() -> sourceRegistry.delete(id))
+                .subscribeOn(blockingScheduler)
+                .flatMap(deleted -> deleted
+                        ? Mono.<Void>empty()
+                        : Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND, "Unknown source: " + id)));
+    }
+}
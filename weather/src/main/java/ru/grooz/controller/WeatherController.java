@@ -1,21 +1,225 @@
 package ru.grooz.controller;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import ru.grooz.dto.AggregateSnapshot;
 import ru.grooz.dto.AggregatedWeatherResponse;
+import ru.grooz.dto.AggregationBucket;
+import ru.grooz.dto.ExportFormat;
+import ru.grooz.dto.ExportTable;
+import ru.grooz.dto.RecentWeatherResponse;
+import ru.grooz.dto.WeatherReading;
+import ru.grooz.dto.WeatherStatisticsResponse;
+import ru.grooz.dto.WeatherStreamEvent;
+import ru.grooz.service.WeatherExportService;
+import ru.grooz.service.WeatherExportService.ExportLimitExceededException;
 import ru.grooz.service.WeatherService;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
 @RestController
 @RequestMapping("/weather")
 @RequiredArgsConstructor
 public class WeatherController {
 
     private final WeatherService weatherService;
+    private final WeatherExportService weatherExportService;
+
+    /**
+     * Возвращает агрегат из последнего снимка. Заголовки Age и Last-Modified показывают,
+     * насколько устарели данные; refresh=true принудительно запускает цикл сбора.
+     * С параметром deadlineMs ответ возвращается не позже указанного времени: если цикл сбора не успел
+     * завершиться, агрегат считается по уже сохраненным показаниям, а в ответе указываются
+     * количества учтенных, не успевших и упавших источников.
+     * <p>
+     * С любым из параметров from, to, sourceId, bucket (minute | hour | day) возвращается агрегат
+     * по сохраненной истории за интервал [from, to) без запуска сбора: по умолчанию to — текущий момент,
+     * from — час до to.
+     */
     @GetMapping("/aggregate")
-    public Mono<AggregatedWeatherResponse> getAggregatedWeather() {
-        return weatherService.getAggregatedWeatherData();
+    public Mono<ResponseEntity<AggregatedWeatherResponse>> getAggregatedWeather(
+            @RequestParam(defaultValue = "false") boolean refresh,
+            @RequestParam(required = false) Long deadlineMs,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) Integer sourceId,
+            @RequestParam(required = false) String bucket) {
+        if (from != null || to != null || sourceId != null || bucket != null) {
+            return getAggregatedWeatherRange(from, to, sourceId, bucket);
+        }
+        if (deadlineMs != null && deadlineMs <= 0) {
+            return Mono.just(ResponseEntity.badRequest().build());
+        }
+        Duration deadline = deadlineMs == null ? null : Duration.ofMillis(deadlineMs);
+        return weatherService.getAggregatedWeatherSnapshot(refresh, deadline)
+                .map(this::toResponseEntity);
+    }
+
+    private Mono<ResponseEntity<AggregatedWeatherResponse>> getAggregatedWeatherRange(LocalDateTime from,
+                                                                                     LocalDateTime to,
+                                                                                     Integer sourceId,
+                                                                                     String bucket) {
+        LocalDateTime rangeTo = to == null ? LocalDateTime.now() : to;
+        LocalDateTime rangeFrom = from == null ? rangeTo.minusHours(1) : from;
+        AggregationBucket aggregationBucket;
+        try {
+            aggregationBucket = bucket == null ? null : AggregationBucket.of(bucket);
+        } catch (IllegalArgumentException e) {
+            return Mono.error(new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown bucket: " + bucket));
+        }
+
+        return weatherService.getAggregatedWeatherRange(rangeFrom, rangeTo, sourceId, aggregationBucket)
+                .<ResponseEntity<AggregatedWeatherResponse>>map(ResponseEntity::ok)
+                .onErrorMap(IllegalArgumentException.class,
+                        e -> new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e));
+    }
+
+    /**
+     * Расширенная статистика по всем сохраненным показаниям: минимумы, максимумы, стандартные отклонения,
+     * медианы и p5 / p95 температуры и влажности, при необходимости по одному источнику. Статистика ведется
+     * в памяти при сохранении показаний; bucket (hour | day) добавляет статистику по корзинам за последние
+     * weather.statistics.bucket-hours часов, bySource=true — по источникам, что помогает найти источники
+     * с аномальными показаниями.
+     */
+    @GetMapping("/aggregate/statistics")
+    public WeatherStatisticsResponse getWeatherStatistics(@RequestParam(required = false) Integer sourceId,
+                                                          @RequestParam(required = false) String bucket,
+                                                          @RequestParam(defaultValue = "false") boolean bySource) {
+        AggregationBucket aggregationBucket;
+        try {
+            aggregationBucket = bucket == null ? null : AggregationBucket.of(bucket);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown bucket: " + bucket);
+        }
+        try {
+            return weatherService.getWeatherStatistics(sourceId, aggregationBucket, bySource);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Пересчитывает расширенную статистику проходом по всей сохраненной истории.
+     */
+    @PostMapping("/aggregate/statistics/rebuild")
+    public Mono<WeatherStatisticsResponse> rebuildWeatherStatistics() {
+        return weatherService.rebuildWeatherStatistics();
+    }
+
+    /**
+     * Поток Server-Sent Events с обновлениями агрегата по ходу цикла сбора: progress сразу после подключения,
+     * readings по мере сохранения показаний (бегущее среднее и сами показания), complete по завершении цикла.
+     * Все подключенные клиенты делят один цикл сбора.
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<WeatherStreamEvent>> streamAggregatedWeather() {
+        return weatherService.streamAggregatedWeather()
+                .map(event -> ServerSentEvent.builder(event)
+                        .event(event.type().eventName())
+                        .build());
+    }
+
+    /**
+     * Средние, минимумы и максимумы за последние minutes минут, при необходимости по одному источнику.
+     * Считается по последним показаниям в памяти, без запроса к базе; complete = false, если окно длиннее
+     * хранимой истории (weather.hot-window.capacity-per-source).
+     */
+    @GetMapping("/recent")
+    public ResponseEntity<RecentWeatherResponse> getRecentWeather(
+            @RequestParam(defaultValue = "15") long minutes,
+            @RequestParam(required = false) Integer sourceId) {
+        if (minutes <= 0) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            return ResponseEntity.ok(weatherService.getRecentWeather(Duration.ofMinutes(minutes), sourceId));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Последнее показание каждого источника (или одного sourceId) из памяти.
+     */
+    @GetMapping("/recent/latest")
+    public List<WeatherReading> getLatestReadings(@RequestParam(required = false) Integer sourceId) {
+        try {
+            return weatherService.getLatestReadings(sourceId);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Выгрузка сохраненной истории за интервал [from, to) в порядке времени: table — normalized (показания)
+     * или raw (ответы источников), format — ndjson или csv. Интервал по умолчанию — как у /aggregate.
+     * Строки читаются курсором по мере отправки клиенту, поэтому объем выгрузки не ограничен памятью;
+     * при превышении weather.export.max-concurrent одновременных выгрузок возвращается 429.
+     */
+    @GetMapping("/export")
+    public ResponseEntity<Flux<DataBuffer>> exportWeather(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) Integer sourceId,
+            @RequestParam(defaultValue = "normalized") String table,
+            @RequestParam(defaultValue = "ndjson") String format) {
+        LocalDateTime rangeTo = to == null ? LocalDateTime.now() : to;
+        LocalDateTime rangeFrom = from == null ? rangeTo.minusHours(1) : from;
+        ExportTable exportTable;
+        ExportFormat exportFormat;
+        try {
+            exportTable = ExportTable.of(table);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown table: " + table);
+        }
+        try {
+            exportFormat = ExportFormat.of(format);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown format: " + format);
+        }
+
+        Flux<DataBuffer> body = weatherExportService.export(exportTable, exportFormat, rangeFrom, rangeTo, sourceId)
+                .<DataBuffer>map(chunk -> DefaultDataBufferFactory.sharedInstance.wrap(chunk.getBytes(StandardCharsets.UTF_8)))
+                .onErrorMap(IllegalArgumentException.class,
+                        e -> new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e))
+                .onErrorMap(ExportLimitExceededException.class,
+                        e -> new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, e.getMessage(), e));
+        return ResponseEntity.ok()
+                .contentType(exportFormat.mediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("weather-" + exportTable.label() + "." + exportFormat.extension())
+                        .build().toString())
+                .body(body);
+    }
+
+    @PostMapping("/aggregate/rebuild")
+    public Mono<AggregatedWeatherResponse> rebuildAggregatedWeather() {
+        return weatherService.rebuildAggregatedWeatherData();
+    }
+
+    private ResponseEntity<AggregatedWeatherResponse> toResponseEntity(AggregateSnapshot snapshot) {
+        return ResponseEntity.ok()
+                .header(HttpHeaders.AGE, String.valueOf(snapshot.age().toSeconds()))
+                .lastModified(snapshot.collectedAt())
+                .body(snapshot.response());
     }
 }
@@ -0,0 +1,18 @@
+package ru.grooz.dto;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Неизменяемый снимок агрегата, опубликованный после завершения цикла сбора.
+ *
+ * @param response    Агрегированные средние значения.
+ * @param collectedAt Момент завершения цикла сбора, по итогам которого построен снимок.
+ */
+public record AggregateSnapshot(AggregatedWeatherResponse response, Instant collectedAt) {
+
+    public Duration age() {
+        Duration age = Duration.between(collectedAt, Instant.now());
+        return age.isNegative() ? Duration.ZERO : age;
+    }
+}
@@ -1,13 +1,56 @@
 package ru.grooz.dto;
 
-import lombok.AllArgsConstructor;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
 @Data
 @NoArgsConstructor
-@AllArgsConstructor
 public class AggregatedWeatherResponse {
     private double averageTemperature;
     private double averageHumidity;
+    /**
+     * Расширенная статистика температуры и влажности по всем сохраненным показаниям
+     * (см. {@link ru.grooz.service.WeatherStatisticsService}); не заполняется в агрегатах за интервал.
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private MetricStatistics temperature;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private MetricStatistics humidity;
+
+    public AggregatedWeatherResponse(double averageTemperature, double averageHumidity) {
+        this.averageTemperature = averageTemperature;
+        this.averageHumidity = averageHumidity;
+    }
+
+    /**
+     * Рассчитывает средние значения температуры и влажности по накопленным суммам и количеству показаний.
+     * Результаты округляются до двух знаков после запятой.
+     *
+     * @param state Количество показаний и суммы.
+     * @return AggregatedWeatherResponse с рассчитанными средними значениями.
+     * Возвращает дефолтный ответ (0.0, 0.0), если показаний нет.
+     */
+    public static AggregatedWeatherResponse of(WeatherAggregateState state) {
+        if (state.isEmpty()) {
+            return new AggregatedWeatherResponse(0.0, 0.0);
+        }
+
+        return new AggregatedWeatherResponse(round(state.averageTemperature()), round(state.averageHumidity()));
+    }
+
+    /**
+     * Округляет до двух знаков после запятой, половину — от нуля, по кратчайшему десятичному представлению
+     * числа, как прежнее форматирование через "%.2f" (-34.675 дает -34.68), но без построения и разбора строки.
+     * NaN и бесконечности возвращаются без изменений.
+     */
+    public static double round(double value) {
+        if (!Double.isFinite(value)) {
+            return value;
+        }
+        return BigDecimal.valueOf(value).setScale(2, RoundingMode.HALF_UP).doubleValue();
+    }
 }
@@ -0,0 +1,57 @@
+package ru.grooz.dto;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Locale;
+
+/**
+ * Размер корзины для агрегации по времени и таблица роллапа, из которой она читается.
+ * Роллапы ведутся поминутно и почасово; дневные корзины собираются из почасового роллапа.
+ */
+public enum AggregationBucket {
+    MINUTE("minute", "weather_rollup_minute", ChronoUnit.MINUTES),
+    HOUR("hour", "weather_rollup_hour", ChronoUnit.HOURS),
+    DAY("day", "weather_rollup_hour", ChronoUnit.DAYS);
+
+    /**
+     * Роллапы, которые обновляются при сохранении показаний.
+     */
+    public static final AggregationBucket[] MAINTAINED = {MINUTE, HOUR};
+
+    private final String unit;
+    private final String rollupTable;
+    private final ChronoUnit chronoUnit;
+
+    AggregationBucket(String unit, String rollupTable, ChronoUnit chronoUnit) {
+        this.unit = unit;
+        this.rollupTable = rollupTable;
+        this.chronoUnit = chronoUnit;
+    }
+
+    /**
+     * @throws IllegalArgumentException если значение не является minute, hour или day.
+     */
+    public static AggregationBucket of(String value) {
+        return valueOf(value.trim().toUpperCase(Locale.ROOT));
+    }
+
+    /**
+     * Единица для date_trunc в PostgreSQL.
+     */
+    public String unit() {
+        return unit;
+    }
+
+    public String rollupTable() {
+        return rollupTable;
+    }
+
+    public Duration duration() {
+        return chronoUnit.getDuration();
+    }
+
+    public LocalDateTime truncate(LocalDateTime timestamp) {
+        return timestamp.truncatedTo(chronoUnit);
+    }
+}
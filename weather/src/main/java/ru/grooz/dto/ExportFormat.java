@@ -0,0 +1,42 @@
+package ru.grooz.dto;
+
+import org.springframework.http.MediaType;
+
+import java.util.Locale;
+
+/**
+ * Формат выгрузки /weather/export.
+ */
+public enum ExportFormat {
+    /**
+     * JSON-объект на строку (application/x-ndjson).
+     */
+    NDJSON(MediaType.APPLICATION_NDJSON, "ndjson"),
+    /**
+     * CSV с заголовком (RFC 4180).
+     */
+    CSV(new MediaType("text", "csv"), "csv");
+
+    private final MediaType mediaType;
+    private final String extension;
+
+    ExportFormat(MediaType mediaType, String extension) {
+        this.mediaType = mediaType;
+        this.extension = extension;
+    }
+
+    /**
+     * @throws IllegalArgumentException если значение не является ndjson или csv.
+     */
+    public static ExportFormat of(String value) {
+        return valueOf(value.trim().toUpperCase(Locale.ROOT));
+    }
+
+    public MediaType mediaType() {
+        return mediaType;
+    }
+
+    public String extension() {
+        return extension;
+    }
+}
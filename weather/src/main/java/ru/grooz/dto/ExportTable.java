@@ -0,0 +1,37 @@
+package ru.grooz.dto;
+
+import java.util.Locale;
+
+/**
+ * История, которую выгружает /weather/export.
+ */
+public enum ExportTable {
+    /**
+     * Нормализованные показания: id, sourceId, timestamp, temperature, humidity.
+     */
+    NORMALIZED("normalized"),
+    /**
+     * Сырые ответы источников: id, sourceId, timestamp, payload (текст независимо от способа хранения).
+     */
+    RAW("raw");
+
+    private final String label;
+
+    ExportTable(String label) {
+        this.label = label;
+    }
+
+    /**
+     * @throws IllegalArgumentException если значение не является normalized или raw.
+     */
+    public static ExportTable of(String value) {
+        return valueOf(value.trim().toUpperCase(Locale.ROOT));
+    }
+
+    /**
+     * Имя в параметре запроса и в имени файла выгрузки.
+     */
+    public String label() {
+        return label;
+    }
+}
@@ -0,0 +1,33 @@
+package ru.grooz.dto;
+
+import ru.grooz.util.StreamingStatistics;
+
+import static ru.grooz.dto.AggregatedWeatherResponse.round;
+
+/**
+ * Статистика одного показателя (температуры или влажности), округленная до двух знаков.
+ * Квантили — оценки по скетчу t-digest, остальные значения точные.
+ *
+ * @param standardDeviation Стандартное отклонение генеральной совокупности.
+ * @param p05               5-й перцентиль.
+ * @param median            Медиана.
+ * @param p95               95-й перцентиль.
+ */
+public record MetricStatistics(double min,
+                               double max,
+                               double mean,
+                               double standardDeviation,
+                               double p05,
+                               double median,
+                               double p95) {
+
+    public static MetricStatistics of(StreamingStatistics statistics) {
+        return new MetricStatistics(round(statistics.min()),
+                round(statistics.max()),
+                round(statistics.mean()),
+                round(statistics.standardDeviation()),
+                round(statistics.quantile(0.05)),
+                round(statistics.quantile(0.5)),
+                round(statistics.quantile(0.95)));
+    }
+}
@@ -0,0 +1,36 @@
+package ru.grooz.dto;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+/**
+ * Агрегат, рассчитанный с ограничением по времени (deadlineMs).
+ * Если цикл сбора не успел завершиться, средние посчитаны по уже сохраненным показаниям,
+ * а незавершенные источники досчитываются в фоне и попадут в следующие ответы.
+ */
+@Data
+@NoArgsConstructor
+@EqualsAndHashCode(callSuper = true)
+@ToString(callSuper = true)
+public class PartialAggregatedWeatherResponse extends AggregatedWeatherResponse {
+    private boolean partial;
+    private int sourcesIncluded;
+    private int sourcesTimedOut;
+    private int sourcesFailed;
+
+    public PartialAggregatedWeatherResponse(AggregatedWeatherResponse response,
+                                            boolean partial,
+                                            int sourcesIncluded,
+                                            int sourcesTimedOut,
+                                            int sourcesFailed) {
+        super(response.getAverageTemperature(), response.getAverageHumidity());
+        setTemperature(response.getTemperature());
+        setHumidity(response.getHumidity());
+        this.partial = partial;
+        this.sourcesIncluded = sourcesIncluded;
+        this.sourcesTimedOut = sourcesTimedOut;
+        this.sourcesFailed = sourcesFailed;
+    }
+}
@@ -0,0 +1,47 @@
+package ru.grooz.dto;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import java.time.LocalDateTime;
+
+/**
+ * Агрегат показаний за последние minutes минут из памяти, при необходимости по одному источнику.
+ * complete = false означает, что окно длиннее истории, которую хранит память, и часть показаний не учтена.
+ */
+@Data
+@NoArgsConstructor
+@EqualsAndHashCode(callSuper = true)
+@ToString(callSuper = true)
+public class RecentWeatherResponse extends AggregatedWeatherResponse {
+    private LocalDateTime from;
+    private Integer sourceId;
+    private long readingCount;
+    private double minTemperature;
+    private double maxTemperature;
+    private double minHumidity;
+    private double maxHumidity;
+    private boolean complete;
+
+    public RecentWeatherResponse(AggregatedWeatherResponse averages,
+                                 LocalDateTime from,
+                                 Integer sourceId,
+                                 long readingCount,
+                                 double minTemperature,
+                                 double maxTemperature,
+                                 double minHumidity,
+                                 double maxHumidity,
+                                 boolean complete) {
+        super(averages.getAverageTemperature(), averages.getAverageHumidity());
+        this.from = from;
+        this.sourceId = sourceId;
+        this.readingCount = readingCount;
+        this.minTemperature = minTemperature;
+        this.maxTemperature = maxTemperature;
+        this.minHumidity = minHumidity;
+        this.maxHumidity = maxHumidity;
+        this.complete = complete;
+    }
+}
@@ -1,12 +1,42 @@
 package ru.grooz.dto;
 
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Ответ источника. Помимо payload может нести валидаторы HTTP-кэширования (ETag, Last-Modified),
+ * которые отправляются источнику в следующем цикле после сохранения показания,
+ * или быть отметкой {@link #notModified(int)} об ответе 304 без тела.
+ */
 public class SourceWeatherData {
     private final int sourceId;
     private final String payload;
+    private final String eTag;
+    private final String lastModified;
+    private final boolean notModified;
+
+    @JsonCreator
+    public SourceWeatherData(@JsonProperty("sourceId") int sourceId, @JsonProperty("payload") String payload) {
+        this(sourceId, payload, null, null, false);
+    }
 
-    public SourceWeatherData(int sourceId, String payload) {
+    public SourceWeatherData(int sourceId, String payload, String eTag, String lastModified) {
+        this(sourceId, payload, eTag, lastModified, false);
+    }
+
+    private SourceWeatherData(int sourceId, String payload, String eTag, String lastModified, boolean notModified) {
         this.sourceId = sourceId;
         this.payload = payload;
+        this.eTag = eTag;
+        this.lastModified = lastModified;
+        this.notModified = notModified;
+    }
+
+    /**
+     * Источник ответил 304 Not Modified: показание не изменилось с последнего сохраненного.
+     */
+    public static SourceWeatherData notModified(int sourceId) {
+        return new SourceWeatherData(sourceId, null, null, null, true);
     }
 
     public int getSourceId() {
@@ -17,8 +47,22 @@ public class SourceWeatherData {
         return payload;
     }
 
+    public String getETag() {
+        return eTag;
+    }
+
+    public String getLastModified() {
+        return lastModified;
+    }
+
+    public boolean isNotModified() {
+        return notModified;
+    }
+
     @Override
     public String toString() {
-        return "SourceWeatherData{sourceId=" + sourceId + ", payload='" + payload + "'}";
+        return notModified
+                ? "SourceWeatherData{sourceId=" + sourceId + ", notModified}"
+                : "SourceWeatherData{sourceId=" + sourceId + ", payload='" + payload + "'}";
     }
-}
\ No newline at end of file
+}
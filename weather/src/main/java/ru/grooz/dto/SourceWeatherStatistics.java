@@ -0,0 +1,10 @@
+package ru.grooz.dto;
+
+/**
+ * Статистика всех сохраненных показаний одного источника.
+ */
+public record SourceWeatherStatistics(int sourceId,
+                                      long readingCount,
+                                      MetricStatistics temperature,
+                                      MetricStatistics humidity) {
+}
@@ -0,0 +1,29 @@
+package ru.grooz.dto;
+
+/**
+ * Неизменяемое состояние бегущего агрегата: количество показаний и суммы температуры и влажности.
+ */
+public record WeatherAggregateState(long count, double temperatureSum, double humiditySum) {
+
+    public static final WeatherAggregateState EMPTY = new WeatherAggregateState(0, 0.0, 0.0);
+
+    public WeatherAggregateState plus(long count, double temperatureSum, double humiditySum) {
+        return new WeatherAggregateState(
+                this.count + count,
+                this.temperatureSum + temperatureSum,
+                this.humiditySum + humiditySum
+        );
+    }
+
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    public double averageTemperature() {
+        return isEmpty() ? 0.0 : temperatureSum / count;
+    }
+
+    public double averageHumidity() {
+        return isEmpty() ? 0.0 : humiditySum / count;
+    }
+}
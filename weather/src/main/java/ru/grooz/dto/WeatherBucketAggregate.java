@@ -0,0 +1,17 @@
+package ru.grooz.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Средние значения за одну корзину времени.
+ *
+ * @param bucketStart        Начало корзины.
+ * @param readingCount       Количество показаний в корзине.
+ * @param averageTemperature Средняя температура.
+ * @param averageHumidity    Средняя влажность.
+ */
+public record WeatherBucketAggregate(LocalDateTime bucketStart,
+                                     long readingCount,
+                                     double averageTemperature,
+                                     double averageHumidity) {
+}
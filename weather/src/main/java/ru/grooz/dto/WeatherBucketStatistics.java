@@ -0,0 +1,12 @@
+package ru.grooz.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Статистика показаний одной корзины времени по всем запрошенным источникам.
+ */
+public record WeatherBucketStatistics(LocalDateTime bucketStart,
+                                      long readingCount,
+                                      MetricStatistics temperature,
+                                      MetricStatistics humidity) {
+}
@@ -0,0 +1,29 @@
+package ru.grooz.dto;
+
+import ru.grooz.model.NormalizedWeatherData;
+import ru.grooz.model.RawWeatherData;
+
+import java.util.List;
+
+/**
+ * Пачка подготовленных к сохранению показаний: сырые данные всех ответов
+ * и нормализованные данные тех из них, которые удалось распарсить.
+ */
+public record WeatherDataBatch(List<RawWeatherData> rawData, List<NormalizedWeatherData> normalizedData) {
+
+    public double temperatureSum() {
+        double sum = 0.0;
+        for (NormalizedWeatherData data : normalizedData) {
+            sum += data.getTemperature();
+        }
+        return sum;
+    }
+
+    public double humiditySum() {
+        double sum = 0.0;
+        for (NormalizedWeatherData data : normalizedData) {
+            sum += data.getHumidity();
+        }
+        return sum;
+    }
+}
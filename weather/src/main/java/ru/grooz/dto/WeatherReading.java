@@ -0,0 +1,15 @@
+package ru.grooz.dto;
+
+import ru.grooz.model.NormalizedWeatherData;
+
+import java.time.LocalDateTime;
+
+/**
+ * Сохраненное показание источника в потоке /weather/stream и в ответе /weather/recent/latest.
+ */
+public record WeatherReading(int sourceId, double temperature, double humidity, LocalDateTime timestamp) {
+
+    public static WeatherReading of(NormalizedWeatherData data) {
+        return new WeatherReading(data.getSourceId(), data.getTemperature(), data.getHumidity(), data.getTimestamp());
+    }
+}
@@ -0,0 +1,52 @@
+package ru.grooz.dto;
+
+import ru.grooz.model.NormalizedWeatherData;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Прибавка к одной строке роллапа: показания одного источника за одну корзину.
+ */
+public record WeatherRollupIncrement(LocalDateTime bucketStart,
+                                     int sourceId,
+                                     long count,
+                                     double temperatureSum,
+                                     double humiditySum) {
+
+    private static final Comparator<WeatherRollupIncrement> LOCK_ORDER = Comparator
+            .comparing(WeatherRollupIncrement::bucketStart)
+            .thenComparingInt(WeatherRollupIncrement::sourceId);
+
+    /**
+     * Группирует показания по корзине и источнику. Результат отсортирован по ключу строки роллапа,
+     * чтобы параллельные транзакции блокировали строки в одном порядке и не взаимоблокировались.
+     */
+    public static List<WeatherRollupIncrement> of(List<NormalizedWeatherData> readings, AggregationBucket bucket) {
+        Map<RollupKey, WeatherRollupIncrement> increments = new HashMap<>();
+        for (NormalizedWeatherData reading : readings) {
+            RollupKey key = new RollupKey(bucket.truncate(reading.getTimestamp()), reading.getSourceId());
+            increments.merge(key,
+                    new WeatherRollupIncrement(key.bucketStart(), key.sourceId(), 1,
+                            reading.getTemperature(), reading.getHumidity()),
+                    WeatherRollupIncrement::plus);
+        }
+        List<WeatherRollupIncrement> sorted = new ArrayList<>(increments.values());
+        sorted.sort(LOCK_ORDER);
+        return sorted;
+    }
+
+    private WeatherRollupIncrement plus(WeatherRollupIncrement other) {
+        return new WeatherRollupIncrement(bucketStart, sourceId,
+                count + other.count,
+                temperatureSum + other.temperatureSum,
+                humiditySum + other.humiditySum);
+    }
+
+    private record RollupKey(LocalDateTime bucketStart, int sourceId) {
+    }
+}
@@ -0,0 +1,13 @@
+package ru.grooz.dto;
+
+/**
+ * Источник из реестра weather_source.
+ *
+ * @param sourceId       Идентификатор источника.
+ * @param url            Адрес источника или null для weather.sources.base-url + sourceId.
+ * @param pollIntervalMs Интервал опроса в режиме polling или null для weather.sources.registry.default-poll-interval-ms.
+ * @param priority       Приоритет: при нехватке fetch-concurrency первыми опрашиваются источники с большим значением.
+ * @param enabled        false — источник не опрашивается.
+ */
+public record WeatherSource(int sourceId, String url, Long pollIntervalMs, int priority, boolean enabled) {
+}
@@ -0,0 +1,18 @@
+package ru.grooz.dto;
+
+/**
+ * Тело PUT /weather/sources/{id}.
+ *
+ * @param url            Адрес источника или null для weather.sources.base-url + id.
+ * @param pollIntervalMs Интервал опроса или null для интервала по умолчанию.
+ * @param priority       Приоритет, по умолчанию 0.
+ * @param enabled        Признак включения, по умолчанию true.
+ */
+public record WeatherSourceRequest(String url, Long pollIntervalMs, Integer priority, Boolean enabled) {
+
+    public WeatherSource toSource(int sourceId) {
+        return new WeatherSource(sourceId, url, pollIntervalMs,
+                priority != null ? priority : 0,
+                enabled == null || enabled);
+    }
+}
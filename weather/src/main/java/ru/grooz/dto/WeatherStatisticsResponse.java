@@ -0,0 +1,43 @@
+package ru.grooz.dto;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import java.util.List;
+
+/**
+ * Расширенный агрегат по всем сохраненным показаниям (или показаниям одного источника): помимо средних
+ * родительского класса — минимумы, максимумы, стандартные отклонения и квантили температуры и влажности.
+ * При заданном bucket в buckets перечислена статистика по корзинам времени за последние часы,
+ * при bySource=true в sources — по источникам.
+ */
+@Data
+@NoArgsConstructor
+@EqualsAndHashCode(callSuper = true)
+@ToString(callSuper = true)
+public class WeatherStatisticsResponse extends AggregatedWeatherResponse {
+    private Integer sourceId;
+    private String bucket;
+    private long readingCount;
+    private List<WeatherBucketStatistics> buckets;
+    private List<SourceWeatherStatistics> sources;
+
+    public WeatherStatisticsResponse(Integer sourceId,
+                                     String bucket,
+                                     long readingCount,
+                                     MetricStatistics temperature,
+                                     MetricStatistics humidity,
+                                     List<WeatherBucketStatistics> buckets,
+                                     List<SourceWeatherStatistics> sources) {
+        super(temperature.mean(), humidity.mean());
+        setTemperature(temperature);
+        setHumidity(humidity);
+        this.sourceId = sourceId;
+        this.bucket = bucket;
+        this.readingCount = readingCount;
+        this.buckets = buckets;
+        this.sources = sources;
+    }
+}
@@ -0,0 +1,47 @@
+package ru.grooz.dto;
+
+import java.util.List;
+
+/**
+ * Событие потока /weather/stream.
+ *
+ * @param type               Тип события.
+ * @param cycleId            Номер цикла сбора, к которому подключен клиент.
+ * @param averageTemperature Средняя температура бегущего агрегата на момент события.
+ * @param averageHumidity    Средняя влажность бегущего агрегата на момент события.
+ * @param sourcesIncluded    Источники цикла, показания которых уже сохранены.
+ * @param sourcesPending     Источники цикла, которые еще не ответили или не сохранены.
+ * @param sourcesFailed      Источники цикла, не давшие показаний.
+ * @param readings           Показания, сохраненные с предыдущего события (только для READINGS).
+ */
+public record WeatherStreamEvent(Type type,
+                                 long cycleId,
+                                 double averageTemperature,
+                                 double averageHumidity,
+                                 int sourcesIncluded,
+                                 int sourcesPending,
+                                 int sourcesFailed,
+                                 List<WeatherReading> readings) {
+
+    public enum Type {
+        /**
+         * Первое событие после подключения: текущий агрегат и прогресс цикла.
+         */
+        PROGRESS,
+        /**
+         * Сохранены новые показания; агрегат уже их учитывает.
+         */
+        READINGS,
+        /**
+         * Цикл завершен, агрегат опубликован как снимок; после этого события поток закрывается.
+         */
+        COMPLETE;
+
+        /**
+         * @return имя события SSE (поле event).
+         */
+        public String eventName() {
+            return name().toLowerCase();
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package ru.grooz.dto;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Агрегат за интервал [from, to), при необходимости по одному источнику.
+ * Средние значения родительского класса относятся ко всему интервалу;
+ * при заданном bucket в buckets перечислены средние по корзинам времени.
+ */
+@Data
+@NoArgsConstructor
+@EqualsAndHashCode(callSuper = true)
+@ToString(callSuper = true)
+public class WeatherTimeSeriesResponse extends AggregatedWeatherResponse {
+    private LocalDateTime from;
+    private LocalDateTime to;
+    private Integer sourceId;
+    private String bucket;
+    private long readingCount;
+    private List<WeatherBucketAggregate> buckets;
+
+    public WeatherTimeSeriesResponse(AggregatedWeatherResponse total,
+                                     LocalDateTime from,
+                                     LocalDateTime to,
+                                     Integer sourceId,
+                                     String bucket,
+                                     long readingCount,
+                                     List<WeatherBucketAggregate> buckets) {
+        super(total.getAverageTemperature(), total.getAverageHumidity());
+        this.from = from;
+        this.to = to;
+        this.sourceId = sourceId;
+        this.bucket = bucket;
+        this.readingCount = readingCount;
+        this.buckets = buckets;
+    }
+}
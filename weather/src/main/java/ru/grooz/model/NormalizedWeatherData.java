@@ -10,7 +10,8 @@ import java.time.LocalDateTime;
 @Data
 public class NormalizedWeatherData {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "normalized_weather_data_seq")
+    @SequenceGenerator(name = "normalized_weather_data_seq", sequenceName = "normalized_weather_data_seq", allocationSize = 50)
     private long id;
     private int sourceId;
     private double temperature;
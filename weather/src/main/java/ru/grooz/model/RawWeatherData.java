@@ -2,6 +2,9 @@ package ru.grooz.model;
 
 import jakarta.persistence.*;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+import ru.grooz.util.WeatherPayloadCodec;
 
 import java.time.LocalDateTime;
 
@@ -10,10 +13,53 @@ import java.time.LocalDateTime;
 @Data
 public class RawWeatherData {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "raw_weather_data_seq")
+    @SequenceGenerator(name = "raw_weather_data_seq", sequenceName = "raw_weather_data_seq", allocationSize = 50)
     private long id;
     private int sourceId;
     @Column(columnDefinition = "TEXT")
     private String payload;
     private LocalDateTime timestamp;
-}
\ No newline at end of file
+
+    /**
+     * Хеш payload в weather_payload; заполняется вместо payload в режиме хранения DEDUP.
+     */
+    @Column(name = "payload_hash")
+    private byte[] payloadHash;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "payload_hash", referencedColumnName = "hash", insertable = false, updatable = false)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private WeatherPayload storedPayload;
+
+    @Transient
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private String decodedPayload;
+
+    /**
+     * Возвращает payload независимо от способа хранения: текст из строки или распакованный weather_payload.
+     */
+    public String getPayload() {
+        if (payload != null) {
+            return payload;
+        }
+        if (decodedPayload == null && storedPayload != null) {
+            decodedPayload = WeatherPayloadCodec.decode(storedPayload.getData());
+        }
+        return decodedPayload;
+    }
+
+    /**
+     * Переводит строку на хранение payload по ссылке: колонка payload остается пустой,
+     * а исходный текст по-прежнему доступен через {@link #getPayload()}.
+     *
+     * @param hash Хеш payload, уже сохраненного в weather_payload.
+     */
+    public void storeAsReference(byte[] hash) {
+        decodedPayload = getPayload();
+        payload = null;
+        payloadHash = hash;
+    }
+}
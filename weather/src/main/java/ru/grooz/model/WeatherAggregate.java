@@ -0,0 +1,20 @@
+package ru.grooz.model;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "weather_aggregate")
+@Data
+public class WeatherAggregate {
+    @Id
+    private int id;
+    private long readingCount;
+    private double temperatureSum;
+    private double humiditySum;
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,24 @@
+package ru.grooz.model;
+
+import jakarta.persistence.EmbeddedId;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Table;
+import lombok.Data;
+import org.hibernate.annotations.Immutable;
+
+import java.time.LocalDateTime;
+
+/**
+ * Уникальный payload источника, сохраненный один раз (см. WeatherPayloadCodec).
+ * Записывается только через WeatherPayloadRepository; для JPA доступен на чтение.
+ */
+@Entity
+@Table(name = "weather_payload")
+@Immutable
+@Data
+public class WeatherPayload {
+    @EmbeddedId
+    private WeatherPayloadHash hash;
+    private byte[] data;
+    private LocalDateTime createdAt;
+}
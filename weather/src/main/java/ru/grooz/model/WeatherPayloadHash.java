@@ -0,0 +1,43 @@
+package ru.grooz.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.HexFormat;
+
+/**
+ * Ключ weather_payload: хеш содержимого payload. Массив байтов сравнивается по содержимому,
+ * поэтому ключ можно использовать как идентификатор сущности и ключ в коллекциях.
+ */
+@Embeddable
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@AllArgsConstructor
+public class WeatherPayloadHash implements Serializable {
+
+    @Column(name = "hash")
+    private byte[] value;
+
+    public byte[] value() {
+        return value.clone();
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return this == other || other instanceof WeatherPayloadHash hash && Arrays.equals(value, hash.value);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(value);
+    }
+
+    @Override
+    public String toString() {
+        return HexFormat.of().formatHex(value);
+    }
+}
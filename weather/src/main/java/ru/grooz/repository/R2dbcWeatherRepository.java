@@ -0,0 +1,231 @@
+package ru.grooz.repository;
+
+import io.r2dbc.spi.Result;
+import io.r2dbc.spi.Statement;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ru.grooz.dto.AggregationBucket;
+import ru.grooz.dto.WeatherDataBatch;
+import ru.grooz.dto.WeatherRollupIncrement;
+import ru.grooz.model.NormalizedWeatherData;
+import ru.grooz.model.RawWeatherData;
+import ru.grooz.util.WeatherPayloadCodec.EncodedPayload;
+
+import java.nio.ByteBuffer;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Неблокирующая запись raw_weather_data и normalized_weather_data через R2DBC
+ * (weather.persistence.mode=r2dbc).
+ * Пачка записывается одной транзакцией; строки каждой таблицы отправляются одним пакетом привязок.
+ * Идентификаторы выделяются из тех же последовательностей, что и у JPA, блоками по {@link #ID_ALLOCATION_SIZE}
+ * по правилам pooled-оптимизатора Hibernate, поэтому обе реализации могут писать в одни таблицы.
+ */
+@Repository
+@ConditionalOnProperty(name = "weather.persistence.mode", havingValue = "r2dbc")
+@RequiredArgsConstructor
+public class R2dbcWeatherRepository {
+
+    /**
+     * Шаг последовательностей raw_weather_data_seq и normalized_weather_data_seq (allocationSize у JPA).
+     */
+    public static final int ID_ALLOCATION_SIZE = 50;
+
+    private static final String ALLOCATE_IDS = "SELECT nextval($1::regclass) FROM generate_series(1, $2)";
+    private static final String LOCK_PAYLOADS = "SELECT pg_advisory_xact_lock_shared($1)";
+    private static final String INSERT_PAYLOAD = """
+            INSERT INTO weather_payload (hash, data) VALUES ($1, $2)
+            ON CONFLICT (hash) DO NOTHING""";
+    private static final String INSERT_RAW = """
+            INSERT INTO raw_weather_data (id, source_id, payload, timestamp, payload_hash)
+            VALUES ($1, $2, $3, $4, $5)""";
+    private static final String INSERT_NORMALIZED = """
+            INSERT INTO normalized_weather_data (id, source_id, temperature, humidity, timestamp, raw_data_id)
+            VALUES ($1, $2, $3, $4, $5, $6)""";
+    private static final String INCREMENT_AGGREGATE = """
+            INSERT INTO weather_aggregate (id, reading_count, temperature_sum, humidity_sum, updated_at)
+            VALUES ($1, $2, $3, $4, now())
+            ON CONFLICT (id) DO UPDATE SET
+                reading_count = weather_aggregate.reading_count + excluded.reading_count,
+                temperature_sum = weather_aggregate.temperature_sum + excluded.temperature_sum,
+                humidity_sum = weather_aggregate.humidity_sum + excluded.humidity_sum,
+                updated_at = excluded.updated_at""";
+
+    private final DatabaseClient r2dbcDatabaseClient;
+    private final TransactionalOperator r2dbcTransactionalOperator;
+
+    /**
+     * Сохраняет пачку показаний и обновляет роллапы и строку бегущего агрегата в одной транзакции.
+     * Выделенные идентификаторы проставляются в сущности пачки.
+     *
+     * @param batch       Подготовленные показания.
+     * @param payloads    Уникальные payload, на которые ссылаются сырые данные (режим DEDUP), или пустой список.
+     * @param aggregateId Строка (полоса) weather_aggregate для инкремента.
+     * @return Mono<Void>, завершающийся после коммита.
+     */
+    public Mono<Void> saveBatch(WeatherDataBatch batch, Collection<EncodedPayload> payloads, int aggregateId) {
+        Mono<Void> save = insertPayloads(payloads)
+                .then(Mono.defer(() -> insertRawData(batch.rawData())))
+                .then(Mono.defer(() -> insertNormalizedData(batch.normalizedData())))
+                .then(Mono.defer(() -> incrementRollups(batch.normalizedData())))
+                .then(Mono.defer(() -> incrementAggregate(batch, aggregateId)));
+        return r2dbcTransactionalOperator.transactional(save);
+    }
+
+    /**
+     * См. {@link WeatherPayloadRepository}: разделяемая advisory-блокировка защищает payload от параллельной очистки.
+     */
+    private Mono<Void> insertPayloads(Collection<EncodedPayload> payloads) {
+        if (payloads.isEmpty()) {
+            return Mono.empty();
+        }
+        return r2dbcDatabaseClient.sql(LOCK_PAYLOADS)
+                .bind(0, WeatherPayloadRepository.PAYLOAD_LOCK_KEY)
+                .then()
+                .then(r2dbcDatabaseClient.inConnectionMany(connection -> {
+                            Statement statement = connection.createStatement(INSERT_PAYLOAD);
+                            boolean first = true;
+                            for (EncodedPayload payload : payloads) {
+                                if (!first) {
+                                    statement.add();
+                                }
+                                first = false;
+                                statement.bind(0, ByteBuffer.wrap(payload.hash()))
+                                        .bind(1, ByteBuffer.wrap(payload.data()));
+                            }
+                            return Flux.from(statement.execute()).concatMap(Result::getRowsUpdated);
+                        })
+                        .then());
+    }
+
+    private Mono<Void> insertRawData(List<RawWeatherData> rawData) {
+        if (rawData.isEmpty()) {
+            return Mono.empty();
+        }
+        return allocateIds("raw_weather_data_seq", rawData.size())
+                .flatMap(ids -> r2dbcDatabaseClient.inConnectionMany(connection -> {
+                            Statement statement = connection.createStatement(INSERT_RAW);
+                            for (int i = 0; i < rawData.size(); i++) {
+                                RawWeatherData data = rawData.get(i);
+                                data.setId(ids[i]);
+                                if (i > 0) {
+                                    statement.add();
+                                }
+                                bindRawData(statement, data);
+                            }
+                            return Flux.from(statement.execute()).concatMap(Result::getRowsUpdated);
+                        })
+                        .then());
+    }
+
+    /**
+     * Привязывает строку raw_weather_data. R2DBC не принимает null в bind, поэтому отсутствующие
+     * payload и payload_hash привязываются через bindNull.
+     */
+    static void bindRawData(Statement statement, RawWeatherData data) {
+        statement.bind(0, data.getId())
+                .bind(1, data.getSourceId())
+                .bind(3, data.getTimestamp());
+        if (data.getPayloadHash() != null) {
+            // getPayload() вернул бы распакованный текст: колонка payload у ссылки остается пустой
+            statement.bindNull(2, String.class)
+                    .bind(4, ByteBuffer.wrap(data.getPayloadHash()));
+        } else if (data.getPayload() == null) {
+            statement.bindNull(2, String.class)
+                    .bindNull(4, ByteBuffer.class);
+        } else {
+            statement.bind(2, data.getPayload())
+                    .bindNull(4, ByteBuffer.class);
+        }
+    }
+
+    private Mono<Void> insertNormalizedData(List<NormalizedWeatherData> normalizedData) {
+        if (normalizedData.isEmpty()) {
+            return Mono.empty();
+        }
+        return allocateIds("normalized_weather_data_seq", normalizedData.size())
+                .flatMap(ids -> r2dbcDatabaseClient.inConnectionMany(connection -> {
+                            Statement statement = connection.createStatement(INSERT_NORMALIZED);
+                            for (int i = 0; i < normalizedData.size(); i++) {
+                                NormalizedWeatherData data = normalizedData.get(i);
+                                data.setId(ids[i]);
+                                if (i > 0) {
+                                    statement.add();
+                                }
+                                statement.bind(0, data.getId())
+                                        .bind(1, data.getSourceId())
+                                        .bind(2, data.getTemperature())
+                                        .bind(3, data.getHumidity())
+                                        .bind(4, data.getTimestamp())
+                                        .bind(5, data.getRawData().getId());
+                            }
+                            return Flux.from(statement.execute()).concatMap(Result::getRowsUpdated);
+                        })
+                        .then());
+    }
+
+    /**
+     * Выделяет count идентификаторов: каждое значение V последовательности резервирует диапазон
+     * (V - ID_ALLOCATION_SIZE, V], как это делает pooled-оптимизатор Hibernate.
+     */
+    private Mono<long[]> allocateIds(String sequence, int count) {
+        int blocks = (count + ID_ALLOCATION_SIZE - 1) / ID_ALLOCATION_SIZE;
+        return r2dbcDatabaseClient.sql(ALLOCATE_IDS)
+                .bind(0, sequence)
+                .bind(1, blocks)
+                .map(row -> row.get(0, Long.class))
+                .all()
+                .collectList()
+                .map(blockEnds -> {
+                    long[] ids = new long[count];
+                    for (int i = 0; i < count; i++) {
+                        long blockEnd = blockEnds.get(i / ID_ALLOCATION_SIZE);
+                        ids[i] = blockEnd - ID_ALLOCATION_SIZE + 1 + i % ID_ALLOCATION_SIZE;
+                    }
+                    return ids;
+                });
+    }
+
+    private Mono<Void> incrementRollups(List<NormalizedWeatherData> normalizedData) {
+        if (normalizedData.isEmpty()) {
+            return Mono.empty();
+        }
+        return Flux.fromArray(AggregationBucket.MAINTAINED)
+                .concatMap(bucket -> r2dbcDatabaseClient.inConnectionMany(connection -> {
+                    Statement statement = connection.createStatement(WeatherHistoryRepository.incrementSql(
+                            bucket.rollupTable(), "$1", "$2", "$3", "$4", "$5"));
+                    List<WeatherRollupIncrement> increments = WeatherRollupIncrement.of(normalizedData, bucket);
+                    for (int i = 0; i < increments.size(); i++) {
+                        WeatherRollupIncrement increment = increments.get(i);
+                        if (i > 0) {
+                            statement.add();
+                        }
+                        statement.bind(0, increment.bucketStart())
+                                .bind(1, increment.sourceId())
+                                .bind(2, increment.count())
+                                .bind(3, increment.temperatureSum())
+                                .bind(4, increment.humiditySum());
+                    }
+                    return Flux.from(statement.execute()).concatMap(Result::getRowsUpdated);
+                }))
+                .then();
+    }
+
+    private Mono<Void> incrementAggregate(WeatherDataBatch batch, int aggregateId) {
+        if (batch.normalizedData().isEmpty()) {
+            return Mono.empty();
+        }
+        return r2dbcDatabaseClient.sql(INCREMENT_AGGREGATE)
+                .bind(0, aggregateId)
+                .bind(1, (long) batch.normalizedData().size())
+                .bind(2, batch.temperatureSum())
+                .bind(3, batch.humiditySum())
+                .then();
+    }
+}
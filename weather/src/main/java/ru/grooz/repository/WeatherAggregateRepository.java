@@ -0,0 +1,73 @@
+package ru.grooz.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+import ru.grooz.dto.WeatherAggregateState;
+import ru.grooz.model.WeatherAggregate;
+
+/**
+ * Бегущий агрегат хранится несколькими строками-полосами weather_aggregate (см. {@link #sum()}):
+ * параллельные транзакции инкрементируют разные строки и не ждут блокировки одной горячей строки.
+ */
+public interface WeatherAggregateRepository extends JpaRepository<WeatherAggregate, Integer> {
+
+    /**
+     * Атомарно прибавляет к полосе id сохраненного агрегата новые показания.
+     * Инкремент выполняется на стороне БД, поэтому параллельные записи не теряют обновления.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = """
+            INSERT INTO weather_aggregate (id, reading_count, temperature_sum, humidity_sum, updated_at)
+            VALUES (:id, :count, :temperatureSum, :humiditySum, now())
+            ON CONFLICT (id) DO UPDATE SET
+                reading_count = weather_aggregate.reading_count + excluded.reading_count,
+                temperature_sum = weather_aggregate.temperature_sum + excluded.temperature_sum,
+                humidity_sum = weather_aggregate.humidity_sum + excluded.humidity_sum,
+                updated_at = excluded.updated_at
+            """, nativeQuery = true)
+    int increment(@Param("id") int id,
+                  @Param("count") long count,
+                  @Param("temperatureSum") double temperatureSum,
+                  @Param("humiditySum") double humiditySum);
+
+    /**
+     * @return сохраненный агрегат: сумма всех полос.
+     */
+    @Query("""
+            SELECT new ru.grooz.dto.WeatherAggregateState(
+                coalesce(sum(a.readingCount), 0L), coalesce(sum(a.temperatureSum), 0.0), coalesce(sum(a.humiditySum), 0.0))
+            FROM WeatherAggregate a""")
+    WeatherAggregateState sum();
+
+    /**
+     * Удаляет все полосы, кроме id: перед пересчетом агрегата вся история записывается в одну полосу.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "DELETE FROM weather_aggregate WHERE id <> :id", nativeQuery = true)
+    int deleteOtherStripes(@Param("id") int id);
+
+    /**
+     * Пересчитывает агрегат по всей истории одним SQL-запросом, не загружая строки в JVM.
+     * Источник — почасовой роллап: в отличие от normalized_weather_data, он сохраняет историю
+     * и после удаления старых секций (см. WeatherRetentionService).
+     */
+    @Transactional
+    @Modifying
+    @Query(value = """
+            INSERT INTO weather_aggregate (id, reading_count, temperature_sum, humidity_sum, updated_at)
+            SELECT :id, coalesce(sum(r.reading_count), 0), coalesce(sum(r.temperature_sum), 0),
+                   coalesce(sum(r.humidity_sum), 0), now()
+            FROM weather_rollup_hour r
+            ON CONFLICT (id) DO UPDATE SET
+                reading_count = excluded.reading_count,
+                temperature_sum = excluded.temperature_sum,
+                humidity_sum = excluded.humidity_sum,
+                updated_at = excluded.updated_at
+            """, nativeQuery = true)
+    int rebuildFromHistory(@Param("id") int id);
+}
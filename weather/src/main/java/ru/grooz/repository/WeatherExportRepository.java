@@ -0,0 +1,206 @@
+package ru.grooz.repository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.SynchronousSink;
+import ru.grooz.dto.ExportFormat;
+import ru.grooz.dto.ExportTable;
+import ru.grooz.util.ExportRowWriter;
+import ru.grooz.util.WeatherPayloadCodec;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.function.LongConsumer;
+
+/**
+ * Потоковая выгрузка истории показаний курсором JDBC: строки читаются из ResultSet порциями fetch size
+ * и сразу форматируются в текст выгрузки, без загрузки сущностей и без накопления результата в памяти.
+ */
+@Repository
+@RequiredArgsConstructor
+@Slf4j
+public class WeatherExportRepository {
+
+    private static final String SELECT_NORMALIZED = """
+            SELECT id, source_id, timestamp, temperature, humidity
+            FROM normalized_weather_data
+            WHERE timestamp >= ? AND timestamp < ?%s
+            ORDER BY timestamp""";
+
+    private static final String SELECT_RAW = """
+            SELECT r.id, r.source_id, r.timestamp, r.payload, p.data
+            FROM raw_weather_data r
+            LEFT JOIN weather_payload p ON p.hash = r.payload_hash
+            WHERE r.timestamp >= ? AND r.timestamp < ?%s
+            ORDER BY r.timestamp""";
+
+    private static final String[] NORMALIZED_COLUMNS = {"id", "sourceId", "timestamp", "temperature", "humidity"};
+    private static final String[] RAW_COLUMNS = {"id", "sourceId", "timestamp", "payload"};
+
+    /**
+     * Сколько строк PostgreSQL отдает за одно обращение курсора.
+     */
+    private static final int FETCH_SIZE = 1000;
+
+    /**
+     * Примерный размер фрагмента выгрузки в символах: фрагмент отдается подписчику, когда достигает этого размера.
+     */
+    private static final int CHUNK_CHARS = 32 * 1024;
+
+    private final DataSource dataSource;
+
+    /**
+     * Открытый курсор выгрузки и ее соединение.
+     */
+    private static final class Cursor {
+        private final Connection connection;
+        private PreparedStatement statement;
+        private ResultSet resultSet;
+        private ExportRowWriter writer;
+        private StringBuilder chunk;
+        private boolean headerWritten;
+        private boolean exhausted;
+        private long rows;
+
+        private Cursor(Connection connection) {
+            this.connection = connection;
+        }
+    }
+
+    /**
+     * Выгрузка показаний за интервал [from, to) в порядке времени, фрагментами текста примерно по CHUNK_CHARS
+     * символов. Каждый фрагмент читается из курсора только по запросу подписчика, поэтому скорость чтения
+     * из базы ограничена скоростью потребителя, а память не зависит от количества строк.
+     * <p>
+     * Курсор держит отдельное соединение пула в читающей транзакции (без autocommit PostgreSQL отдает
+     * строки порциями FETCH_SIZE) до завершения или отмены выгрузки. Чтение и закрытие курсора блокирующие:
+     * подписываться и отменять подписку нужно на планировщике блокирующей работы (subscribeOn и cancelOn).
+     *
+     * @param sourceId Источник или null для всех источников.
+     * @param onRows   Вызывается по завершении или отмене выгрузки с количеством выгруженных строк.
+     */
+    public Flux<String> export(ExportTable table,
+                               ExportFormat format,
+                               LocalDateTime from,
+                               LocalDateTime to,
+                               Integer sourceId,
+                               LongConsumer onRows) {
+        String sql = (table == ExportTable.RAW ? SELECT_RAW : SELECT_NORMALIZED)
+                .formatted(sourceId == null ? "" : table == ExportTable.RAW ? " AND r.source_id = ?" : " AND source_id = ?");
+        String[] columns = table == ExportTable.RAW ? RAW_COLUMNS : NORMALIZED_COLUMNS;
+        return Flux.generate(
+                () -> open(sql, from, to, sourceId, format, columns),
+                (Cursor cursor, SynchronousSink<String> sink) -> {
+                    try {
+                        nextChunk(cursor, table, sink);
+                    } catch (SQLException e) {
+                        sink.error(e);
+                    }
+                    return cursor;
+                },
+                cursor -> {
+                    close(cursor);
+                    onRows.accept(cursor.rows);
+                });
+    }
+
+    private Cursor open(String sql,
+                        LocalDateTime from,
+                        LocalDateTime to,
+                        Integer sourceId,
+                        ExportFormat format,
+                        String[] columns) throws SQLException {
+        Cursor cursor = new Cursor(dataSource.getConnection());
+        try {
+            cursor.connection.setAutoCommit(false);
+            cursor.connection.setReadOnly(true);
+            cursor.statement = cursor.connection.prepareStatement(sql,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            cursor.statement.setFetchSize(FETCH_SIZE);
+            cursor.statement.setTimestamp(1, Timestamp.valueOf(from));
+            cursor.statement.setTimestamp(2, Timestamp.valueOf(to));
+            if (sourceId != null) {
+                cursor.statement.setInt(3, sourceId);
+            }
+            cursor.resultSet = cursor.statement.executeQuery();
+        } catch (SQLException e) {
+            close(cursor);
+            throw e;
+        }
+        cursor.chunk = new StringBuilder(CHUNK_CHARS + CHUNK_CHARS / 4);
+        cursor.writer = new ExportRowWriter(format, columns, cursor.chunk);
+        return cursor;
+    }
+
+    /**
+     * Читает строки курсора, пока фрагмент не наберет CHUNK_CHARS символов, и отдает его.
+     */
+    private void nextChunk(Cursor cursor, ExportTable table, SynchronousSink<String> sink) throws SQLException {
+        if (cursor.exhausted) {
+            sink.complete();
+            return;
+        }
+        StringBuilder chunk = cursor.chunk;
+        chunk.setLength(0);
+        if (!cursor.headerWritten) {
+            cursor.writer.header();
+            cursor.headerWritten = true;
+        }
+        ResultSet rs = cursor.resultSet;
+        while (chunk.length() < CHUNK_CHARS) {
+            if (!rs.next()) {
+                cursor.exhausted = true;
+                break;
+            }
+            writeRow(cursor.writer, table, rs);
+            cursor.rows++;
+        }
+        if (chunk.length() > 0) {
+            sink.next(chunk.toString());
+        } else {
+            sink.complete();
+        }
+    }
+
+    private static void writeRow(ExportRowWriter writer, ExportTable table, ResultSet rs) throws SQLException {
+        writer.startRow();
+        writer.value(rs.getLong(1));
+        writer.value(rs.getInt(2));
+        Timestamp timestamp = rs.getTimestamp(3);
+        writer.value(timestamp == null ? null : timestamp.toLocalDateTime());
+        if (table == ExportTable.RAW) {
+            String payload = rs.getString(4);
+            if (payload == null) {
+                byte[] data = rs.getBytes(5);
+                payload = data == null ? null : WeatherPayloadCodec.decode(data);
+            }
+            writer.value(payload);
+        } else {
+            writer.value(rs.getObject(4, Double.class));
+            writer.value(rs.getObject(5, Double.class));
+        }
+        writer.endRow();
+    }
+
+    private static void close(Cursor cursor) {
+        try (Connection connection = cursor.connection) {
+            if (cursor.resultSet != null) {
+                cursor.resultSet.close();
+            }
+            if (cursor.statement != null) {
+                cursor.statement.close();
+            }
+            connection.rollback();
+            connection.setAutoCommit(true);
+        } catch (SQLException e) {
+            log.warn("Failed to close export cursor: {}", e.getMessage());
+        }
+    }
+}
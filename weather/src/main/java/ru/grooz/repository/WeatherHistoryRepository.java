@@ -0,0 +1,234 @@
+package ru.grooz.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import ru.grooz.dto.AggregationBucket;
+import ru.grooz.dto.WeatherAggregateState;
+import ru.grooz.dto.WeatherReading;
+import ru.grooz.dto.WeatherRollupIncrement;
+import ru.grooz.model.NormalizedWeatherData;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * SQL-агрегация истории показаний без загрузки строк в JVM.
+ * Поддерживает роллапы weather_rollup_minute / weather_rollup_hour (количество и суммы по источнику и корзине),
+ * которые обновляются в транзакции сохранения показаний, и отвечает на запросы по интервалам времени:
+ * по корзинам — из роллапов, без корзин — по индексам normalized_weather_data.
+ * Для статистик, которые не сводятся к суммам (квантили), показания интервала читаются потоком.
+ */
+@Repository
+@RequiredArgsConstructor
+public class WeatherHistoryRepository {
+
+    private static final String INCREMENT_ROLLUP = """
+            INSERT INTO %s (bucket_start, source_id, reading_count, temperature_sum, humidity_sum)
+            VALUES (%s, %s, %s, %s, %s)
+            ON CONFLICT (bucket_start, source_id) DO UPDATE SET
+                reading_count = %1$s.reading_count + excluded.reading_count,
+                temperature_sum = %1$s.temperature_sum + excluded.temperature_sum,
+                humidity_sum = %1$s.humidity_sum + excluded.humidity_sum""";
+
+    private static final String SELECT_BUCKETS = """
+            SELECT date_trunc('%s', bucket_start) AS bucket,
+                   sum(reading_count) AS reading_count,
+                   sum(temperature_sum) AS temperature_sum,
+                   sum(humidity_sum) AS humidity_sum
+            FROM %s
+            WHERE bucket_start >= ? AND bucket_start < ?%s
+            GROUP BY 1
+            ORDER BY 1""";
+
+    private static final String SELECT_RANGE = """
+            SELECT count(*) AS reading_count,
+                   coalesce(sum(temperature), 0) AS temperature_sum,
+                   coalesce(sum(humidity), 0) AS humidity_sum
+            FROM normalized_weather_data
+            WHERE timestamp >= ? AND timestamp < ?%s""";
+
+    private static final String SELECT_RECENT = """
+            SELECT source_id, temperature, humidity, timestamp
+            FROM (SELECT source_id, temperature, humidity, timestamp,
+                         row_number() OVER (PARTITION BY source_id ORDER BY timestamp DESC) AS rn
+                  FROM normalized_weather_data
+                  WHERE timestamp >= ?) recent
+            WHERE rn <= ?
+            ORDER BY timestamp""";
+
+    private static final String SELECT_READINGS_AFTER = """
+            SELECT id, source_id, temperature, humidity, timestamp
+            FROM normalized_weather_data
+            WHERE id > ?""";
+    private static final String SELECT_READING_IDS = """
+            SELECT id FROM normalized_weather_data
+            WHERE id > ? AND id = ANY(?)""";
+
+    /**
+     * Сколько строк PostgreSQL отдает за одно обращение курсора при потоковом чтении показаний.
+     */
+    private static final int STREAM_FETCH_SIZE = 1000;
+
+    private static final String SELECT_ROLLUP_COUNT = """
+            SELECT coalesce(sum(reading_count), 0) FROM weather_rollup_hour""";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Прибавляет показания к поддерживаемым роллапам. Строки каждой таблицы отправляются одним JDBC-пакетом.
+     * Если вызов выполняется внутри транзакции, обновление роллапов фиксируется вместе с показаниями.
+     *
+     * @param readings Сохраненные нормализованные показания.
+     */
+    public void increment(List<NormalizedWeatherData> readings) {
+        if (readings.isEmpty()) {
+            return;
+        }
+        for (AggregationBucket bucket : AggregationBucket.MAINTAINED) {
+            List<Object[]> rows = new ArrayList<>();
+            for (WeatherRollupIncrement increment : WeatherRollupIncrement.of(readings, bucket)) {
+                rows.add(new Object[]{
+                        Timestamp.valueOf(increment.bucketStart()),
+                        increment.sourceId(),
+                        increment.count(),
+                        increment.temperatureSum(),
+                        increment.humiditySum()
+                });
+            }
+            jdbcTemplate.batchUpdate(incrementSql(bucket.rollupTable(), "?", "?", "?", "?", "?"), rows);
+        }
+    }
+
+    /**
+     * Количество и суммы по корзинам, начинающимся в [from, to).
+     *
+     * @param bucket   Размер корзины.
+     * @param from     Начало интервала (включительно).
+     * @param to       Конец интервала (не включительно).
+     * @param sourceId Источник или null для всех источников.
+     * @return состояния корзин в порядке времени; пустые корзины отсутствуют.
+     */
+    public Map<LocalDateTime, WeatherAggregateState> findBuckets(AggregationBucket bucket,
+                                                                 LocalDateTime from,
+                                                                 LocalDateTime to,
+                                                                 Integer sourceId) {
+        String sql = SELECT_BUCKETS.formatted(bucket.unit(), bucket.rollupTable(),
+                sourceId == null ? "" : " AND source_id = ?");
+        Object[] args = sourceId == null
+                ? new Object[]{Timestamp.valueOf(from), Timestamp.valueOf(to)}
+                : new Object[]{Timestamp.valueOf(from), Timestamp.valueOf(to), sourceId};
+
+        Map<LocalDateTime, WeatherAggregateState> buckets = new LinkedHashMap<>();
+        jdbcTemplate.query(sql, rs -> {
+            buckets.put(rs.getTimestamp("bucket").toLocalDateTime(), new WeatherAggregateState(
+                    rs.getLong("reading_count"),
+                    rs.getDouble("temperature_sum"),
+                    rs.getDouble("humidity_sum")));
+        }, args);
+        return buckets;
+    }
+
+    /**
+     * Точные количество и суммы показаний за [from, to) по индексам (source_id, timestamp) / (timestamp).
+     *
+     * @param sourceId Источник или null для всех источников.
+     */
+    public WeatherAggregateState aggregateRange(LocalDateTime from, LocalDateTime to, Integer sourceId) {
+        String sql = SELECT_RANGE.formatted(sourceId == null ? "" : " AND source_id = ?");
+        Object[] args = sourceId == null
+                ? new Object[]{Timestamp.valueOf(from), Timestamp.valueOf(to)}
+                : new Object[]{Timestamp.valueOf(from), Timestamp.valueOf(to), sourceId};
+
+        return jdbcTemplate.queryForObject(sql, (rs, rowNum) -> new WeatherAggregateState(
+                rs.getLong("reading_count"),
+                rs.getDouble("temperature_sum"),
+                rs.getDouble("humidity_sum")), args);
+    }
+
+    /**
+     * Передает не более perSource последних показаний каждого источника с временем не раньше since
+     * в порядке времени, не загружая их в список.
+     */
+    public void forEachRecent(LocalDateTime since,
+                              int perSource,
+                              Consumer<WeatherReading> consumer) {
+        RowCallbackHandler handler = rs -> consumer.accept(new WeatherReading(
+                rs.getInt("source_id"),
+                rs.getDouble("temperature"),
+                rs.getDouble("humidity"),
+                rs.getTimestamp("timestamp").toLocalDateTime()));
+        jdbcTemplate.query(SELECT_RECENT, handler, Timestamp.valueOf(since), perSource);
+    }
+
+    /**
+     * Передает в consumer сохраненные показания с id больше afterId (вместе с id) по мере чтения,
+     * не загружая их в список. Курсор PostgreSQL с fetch size работает только внутри транзакции, поэтому метод
+     * открывает читающую транзакцию или присоединяется к текущей; иначе драйвер прочитал бы весь результат в память.
+     */
+    @Transactional(readOnly = true)
+    public void forEachReadingAfter(long afterId, ObjLongConsumer<WeatherReading> consumer) {
+        RowCallbackHandler handler = rs -> consumer.accept(new WeatherReading(
+                rs.getInt("source_id"),
+                rs.getDouble("temperature"),
+                rs.getDouble("humidity"),
+                rs.getTimestamp("timestamp").toLocalDateTime()), rs.getLong("id"));
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(SELECT_READINGS_AFTER);
+            statement.setFetchSize(STREAM_FETCH_SIZE);
+            statement.setLong(1, afterId);
+            return statement;
+        }, handler);
+    }
+
+    /**
+     * @return те из ids, что больше afterId и видны текущей транзакции.
+     */
+    public Set<Long> findReadingIds(long afterId, Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return Set.of();
+        }
+        Set<Long> found = new HashSet<>();
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(SELECT_READING_IDS);
+            statement.setLong(1, afterId);
+            statement.setArray(2, connection.createArrayOf("bigint", ids.toArray()));
+            return statement;
+        }, (RowCallbackHandler) rs -> found.add(rs.getLong(1)));
+        return found;
+    }
+
+    /**
+     * @return количество показаний за всю историю по почасовому роллапу (включая удаленные секции).
+     */
+    public long countAllReadings() {
+        Long count = jdbcTemplate.queryForObject(SELECT_ROLLUP_COUNT, Long.class);
+        return count == null ? 0 : count;
+    }
+
+    /**
+     * SQL upsert строки роллапа. Плейсхолдеры параметров задаются вызывающим,
+     * поэтому тот же запрос используется и R2DBC-реализацией ($1..$5).
+     *
+     * @param table        Таблица роллапа.
+     * @param placeholders Плейсхолдеры bucket_start, source_id, reading_count, temperature_sum, humidity_sum.
+     */
+    public static String incrementSql(String table, String... placeholders) {
+        Object[] args = new Object[placeholders.length + 1];
+        args[0] = table;
+        System.arraycopy(placeholders, 0, args, 1, placeholders.length);
+        return INCREMENT_ROLLUP.formatted(args);
+    }
+}
@@ -0,0 +1,185 @@
+package ru.grooz.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Управление суточными секциями raw_weather_data и normalized_weather_data (см. changeset 007).
+ * Секции создаются и удаляются целиком DDL-командами, без построчного DELETE.
+ */
+@Repository
+@RequiredArgsConstructor
+public class WeatherPartitionRepository {
+
+    public static final String RAW_TABLE = "raw_weather_data";
+    public static final String NORMALIZED_TABLE = "normalized_weather_data";
+
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("'_p'yyyyMMdd");
+    private static final Pattern RANGE_BOUND = Pattern.compile(
+            "FROM \\((?:MINVALUE|'([^']+)')\\) TO \\((?:MAXVALUE|'([^']+)')\\)");
+
+    private static final String SELECT_PARTITIONS = """
+            SELECT c.relname AS name, pg_get_expr(c.relpartbound, c.oid) AS bound
+            FROM pg_inherits i
+                     JOIN pg_class c ON c.oid = i.inhrelid
+                     JOIN pg_class p ON p.oid = i.inhparent
+            WHERE p.relname = ?
+            ORDER BY c.relname""";
+
+    private static final String SELECT_DEFAULT_DAYS = """
+            SELECT DISTINCT date_trunc('day', timestamp) AS day FROM %s ORDER BY 1""";
+    private static final String SELECT_DEFAULT_HAS_ROWS = """
+            SELECT EXISTS (SELECT 1 FROM %s WHERE timestamp >= ? AND timestamp < ?)""";
+    private static final String MOVE_DEFAULT_ROWS = """
+            WITH moved AS (DELETE FROM %s WHERE timestamp >= ? AND timestamp < ? RETURNING *)
+            INSERT INTO %s SELECT * FROM moved""";
+
+    private static final String COMPACT_DELETE_HOUR = """
+            DELETE FROM weather_rollup_hour WHERE bucket_start < ?%s""";
+    private static final String COMPACT_INSERT_HOUR = """
+            INSERT INTO weather_rollup_hour (bucket_start, source_id, reading_count, temperature_sum, humidity_sum)
+            SELECT date_trunc('hour', timestamp), source_id, count(*), sum(temperature), sum(humidity)
+            FROM %s
+            GROUP BY 1, 2""";
+    private static final String COMPACT_DELETE_MINUTE = """
+            DELETE FROM weather_rollup_minute WHERE bucket_start < ?%s""";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Секция таблицы с диапазоном [from, to); null в границе означает MINVALUE / MAXVALUE.
+     * У секции по умолчанию (DEFAULT) обе границы null и isDefault = true.
+     */
+    public record TablePartition(String name, LocalDateTime from, LocalDateTime to, boolean isDefault) {
+
+        /**
+         * @param name  Имя секции.
+         * @param bound Граница секции в виде pg_get_expr(relpartbound): DEFAULT или FOR VALUES FROM (...) TO (...).
+         */
+        public static TablePartition of(String name, String bound) {
+            if ("DEFAULT".equals(bound)) {
+                return new TablePartition(name, null, null, true);
+            }
+            Matcher matcher = RANGE_BOUND.matcher(bound);
+            if (!matcher.find()) {
+                throw new IllegalStateException("Unexpected partition bound for " + name + ": " + bound);
+            }
+            return new TablePartition(name, toDateTime(matcher.group(1)), toDateTime(matcher.group(2)), false);
+        }
+
+        public boolean overlaps(LocalDateTime rangeFrom, LocalDateTime rangeTo) {
+            return !isDefault
+                    && (from == null || from.isBefore(rangeTo))
+                    && (to == null || to.isAfter(rangeFrom));
+        }
+
+        private static LocalDateTime toDateTime(String value) {
+            return value == null ? null : Timestamp.valueOf(value).toLocalDateTime();
+        }
+    }
+
+    /**
+     * @return имя суточной секции table за сутки day, например normalized_weather_data_p20240301.
+     */
+    public static String dailyPartitionName(String table, LocalDate day) {
+        return table + PARTITION_SUFFIX.format(day);
+    }
+
+    /**
+     * @param table Секционированная таблица.
+     * @return секции таблицы с их диапазонами.
+     */
+    public List<TablePartition> findPartitions(String table) {
+        return jdbcTemplate.query(SELECT_PARTITIONS, (rs, rowNum) -> TablePartition.of(
+                rs.getString("name"), rs.getString("bound")), table);
+    }
+
+    /**
+     * @param defaultPartition Секция DEFAULT таблицы.
+     * @return сутки, строки за которые лежат в секции DEFAULT.
+     */
+    public List<LocalDate> findDefaultPartitionDays(TablePartition defaultPartition) {
+        return jdbcTemplate.query(SELECT_DEFAULT_DAYS.formatted(quote(defaultPartition.name())),
+                (rs, rowNum) -> rs.getTimestamp("day").toLocalDateTime().toLocalDate());
+    }
+
+    /**
+     * Создает секцию table за сутки day. Пересечение с существующими секциями проверяет вызывающий.
+     * Если строки за эти сутки уже попали в секцию DEFAULT, PostgreSQL не даст создать секцию поверх них:
+     * тогда секция создается отдельной таблицей, строки переносятся в нее из DEFAULT и она подключается
+     * к таблице — все в одной транзакции, так что строки не бывают видны дважды или пропадают.
+     *
+     * @param defaultPartition Секция DEFAULT таблицы или null, если ее нет.
+     * @return имя созданной секции.
+     */
+    @Transactional
+    public String createDailyPartition(String table, LocalDate day, TablePartition defaultPartition) {
+        String partition = dailyPartitionName(table, day);
+        Timestamp from = Timestamp.valueOf(day.atStartOfDay());
+        Timestamp to = Timestamp.valueOf(day.plusDays(1).atStartOfDay());
+        String bounds = "FOR VALUES FROM ('%s') TO ('%s')".formatted(from, to);
+
+        if (defaultPartition == null || !Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                SELECT_DEFAULT_HAS_ROWS.formatted(quote(defaultPartition.name())), Boolean.class, from, to))) {
+            jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS %s PARTITION OF %s %s"
+                    .formatted(quote(partition), quote(table), bounds));
+            return partition;
+        }
+        jdbcTemplate.execute("CREATE TABLE %s (LIKE %s INCLUDING DEFAULTS INCLUDING CONSTRAINTS)"
+                .formatted(quote(partition), quote(table)));
+        jdbcTemplate.update(MOVE_DEFAULT_ROWS.formatted(quote(defaultPartition.name()), quote(partition)), from, to);
+        jdbcTemplate.execute("ALTER TABLE %s ATTACH PARTITION %s %s"
+                .formatted(quote(table), quote(partition), bounds));
+        return partition;
+    }
+
+    /**
+     * Удаляет секции целиком (DROP TABLE) в одной транзакции.
+     * При compact данные удаляемых секций normalized_weather_data предварительно сжимаются в роллапы:
+     * почасовой роллап за диапазон секции пересчитывается из самих показаний, а поминутный удаляется,
+     * поэтому почасовая история переживает удаление показаний.
+     *
+     * @param normalizedPartitions Секции normalized_weather_data.
+     * @param rawPartitions        Секции raw_weather_data за тот же диапазон.
+     * @param compact              Сжать нормализованные данные в роллапы перед удалением.
+     */
+    @Transactional
+    public void dropPartitions(List<TablePartition> normalizedPartitions,
+                               List<TablePartition> rawPartitions,
+                               boolean compact) {
+        if (compact) {
+            normalizedPartitions.forEach(this::compactNormalizedPartition);
+        }
+        for (TablePartition partition : normalizedPartitions) {
+            jdbcTemplate.execute("DROP TABLE " + quote(partition.name()));
+        }
+        for (TablePartition partition : rawPartitions) {
+            jdbcTemplate.execute("DROP TABLE " + quote(partition.name()));
+        }
+    }
+
+    private void compactNormalizedPartition(TablePartition partition) {
+        String fromFilter = partition.from() == null ? "" : " AND bucket_start >= ?";
+        Object[] args = partition.from() == null
+                ? new Object[]{Timestamp.valueOf(partition.to())}
+                : new Object[]{Timestamp.valueOf(partition.to()), Timestamp.valueOf(partition.from())};
+
+        jdbcTemplate.update(COMPACT_DELETE_HOUR.formatted(fromFilter), args);
+        jdbcTemplate.update(COMPACT_INSERT_HOUR.formatted(quote(partition.name())));
+        jdbcTemplate.update(COMPACT_DELETE_MINUTE.formatted(fromFilter), args);
+    }
+
+    private static String quote(String identifier) {
+        return '"' + identifier.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,66 @@
+package ru.grooz.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.grooz.util.WeatherPayloadCodec.EncodedPayload;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Запись уникальных payload в weather_payload и удаление тех, на которые больше не ссылается raw_weather_data.
+ * <p>
+ * Запись и очистка согласуются advisory-блокировкой {@link #PAYLOAD_LOCK_KEY}: транзакции записи берут ее
+ * в разделяемом режиме, очистка — в исключительном. Иначе очистка могла бы удалить payload, который
+ * параллельная транзакция уже сочла существующим (ON CONFLICT DO NOTHING), но еще не сослалась на него.
+ */
+@Repository
+@RequiredArgsConstructor
+public class WeatherPayloadRepository {
+
+    public static final long PAYLOAD_LOCK_KEY = 7_310_013L;
+
+    private static final String LOCK_SHARED = "SELECT pg_advisory_xact_lock_shared(?)";
+    private static final String LOCK_EXCLUSIVE = "SELECT pg_advisory_xact_lock(?)";
+    private static final String INSERT_PAYLOAD = """
+            INSERT INTO weather_payload (hash, data) VALUES (?, ?)
+            ON CONFLICT (hash) DO NOTHING""";
+    private static final String DELETE_ORPHANS = """
+            DELETE FROM weather_payload p
+            WHERE NOT EXISTS (SELECT 1 FROM raw_weather_data r WHERE r.payload_hash = p.hash)""";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Сохраняет payload, которых еще нет в таблице. Должен вызываться в транзакции, которая затем
+     * записывает ссылающиеся на них строки raw_weather_data.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void storeAll(Collection<EncodedPayload> payloads) {
+        if (payloads.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.queryForList(LOCK_SHARED, PAYLOAD_LOCK_KEY);
+
+        List<Object[]> rows = new ArrayList<>(payloads.size());
+        for (EncodedPayload payload : payloads) {
+            rows.add(new Object[]{payload.hash(), payload.data()});
+        }
+        jdbcTemplate.batchUpdate(INSERT_PAYLOAD, rows);
+    }
+
+    /**
+     * Удаляет payload без ссылок из raw_weather_data (например, после удаления старых секций).
+     *
+     * @return количество удаленных payload.
+     */
+    @Transactional
+    public int deleteOrphans() {
+        jdbcTemplate.queryForList(LOCK_EXCLUSIVE, PAYLOAD_LOCK_KEY);
+        return jdbcTemplate.update(DELETE_ORPHANS);
+    }
+}
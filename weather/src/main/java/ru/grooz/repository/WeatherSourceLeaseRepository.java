@@ -0,0 +1,110 @@
+package ru.grooz.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Аренды шардов источников (weather_source_lease) и живые экземпляры сервиса (weather_instance).
+ * Все сроки считаются по часам базы (now()), поэтому расхождение часов экземпляров на аренды не влияет.
+ * Каждый метод — один автокоммитный запрос.
+ */
+@Repository
+@RequiredArgsConstructor
+public class WeatherSourceLeaseRepository {
+
+    private static final String INSERT_SHARDS = """
+            INSERT INTO weather_source_lease (shard)
+            SELECT generate_series(0, ? - 1)
+            ON CONFLICT (shard) DO NOTHING""";
+    private static final String DELETE_EXTRA_SHARDS = "DELETE FROM weather_source_lease WHERE shard >= ?";
+    private static final String UPSERT_INSTANCE = """
+            INSERT INTO weather_instance (instance_id, heartbeat_at) VALUES (?, now())
+            ON CONFLICT (instance_id) DO UPDATE SET heartbeat_at = excluded.heartbeat_at""";
+    private static final String COUNT_LIVE_INSTANCES = """
+            SELECT count(*) FROM weather_instance
+            WHERE heartbeat_at > now() - ? * interval '1 millisecond'""";
+    private static final String DELETE_INSTANCE = "DELETE FROM weather_instance WHERE instance_id = ?";
+    private static final String DELETE_STALE_INSTANCES = """
+            DELETE FROM weather_instance
+            WHERE heartbeat_at < now() - ? * interval '1 millisecond'""";
+    private static final String RENEW = """
+            UPDATE weather_source_lease SET expires_at = now() + ? * interval '1 millisecond'
+            WHERE owner = ? AND expires_at > now()
+            RETURNING shard""";
+    private static final String ACQUIRE = """
+            UPDATE weather_source_lease SET owner = ?, expires_at = now() + ? * interval '1 millisecond'
+            WHERE shard IN (
+                SELECT shard FROM weather_source_lease
+                WHERE owner IS NULL OR expires_at <= now()
+                ORDER BY shard
+                LIMIT ?
+                FOR UPDATE SKIP LOCKED)
+            RETURNING shard""";
+    private static final String RELEASE = """
+            UPDATE weather_source_lease SET owner = NULL, expires_at = NULL
+            WHERE owner = ? AND shard = ANY (?)""";
+    private static final String RELEASE_ALL = """
+            UPDATE weather_source_lease SET owner = NULL, expires_at = NULL
+            WHERE owner = ?""";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Создает строки шардов 0..shardCount-1 и удаляет шарды за пределами shardCount
+     * (после уменьшения weather.sharding.shard-count).
+     */
+    public void initShards(int shardCount) {
+        jdbcTemplate.update(INSERT_SHARDS, shardCount);
+        jdbcTemplate.update(DELETE_EXTRA_SHARDS, shardCount);
+    }
+
+    public void heartbeat(String instanceId) {
+        jdbcTemplate.update(UPSERT_INSTANCE, instanceId);
+    }
+
+    /**
+     * @return количество экземпляров, отметившихся не позже ttlMs назад (включая вызывающий).
+     */
+    public int countLiveInstances(long ttlMs) {
+        Integer count = jdbcTemplate.queryForObject(COUNT_LIVE_INSTANCES, Integer.class, ttlMs);
+        return count == null ? 0 : count;
+    }
+
+    public void removeInstance(String instanceId) {
+        jdbcTemplate.update(DELETE_INSTANCE, instanceId);
+    }
+
+    public void removeStaleInstances(long olderThanMs) {
+        jdbcTemplate.update(DELETE_STALE_INSTANCES, olderThanMs);
+    }
+
+    /**
+     * Продлевает еще не истекшие аренды владельца.
+     *
+     * @return шарды, аренды которых продлены.
+     */
+    public List<Integer> renew(String owner, long ttlMs) {
+        return jdbcTemplate.queryForList(RENEW, Integer.class, ttlMs, owner);
+    }
+
+    /**
+     * Захватывает до limit свободных или истекших шардов. Шарды, которые одновременно захватывает
+     * другой экземпляр, пропускаются (SKIP LOCKED), поэтому шард достается только одному владельцу.
+     *
+     * @return захваченные шарды.
+     */
+    public List<Integer> acquire(String owner, int limit, long ttlMs) {
+        return jdbcTemplate.queryForList(ACQUIRE, Integer.class, owner, ttlMs, limit);
+    }
+
+    public void release(String owner, List<Integer> shards) {
+        jdbcTemplate.update(RELEASE, owner, shards.toArray(Integer[]::new));
+    }
+
+    public void releaseAll(String owner) {
+        jdbcTemplate.update(RELEASE_ALL, owner);
+    }
+}
@@ -0,0 +1,75 @@
+package ru.grooz.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+import ru.grooz.dto.WeatherSource;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Реестр источников weather_source. Каждый метод — один автокоммитный запрос.
+ */
+@Repository
+@RequiredArgsConstructor
+public class WeatherSourceRepository {
+
+    private static final String SEED = """
+            INSERT INTO weather_source (source_id)
+            SELECT generate_series(1, ?)
+            WHERE NOT EXISTS (SELECT 1 FROM weather_source)""";
+    private static final String SELECT_ALL = """
+            SELECT source_id, url, poll_interval_ms, priority, enabled FROM weather_source ORDER BY source_id""";
+    private static final String SELECT_ONE = """
+            SELECT source_id, url, poll_interval_ms, priority, enabled FROM weather_source WHERE source_id = ?""";
+    private static final String UPSERT = """
+            INSERT INTO weather_source (source_id, url, poll_interval_ms, priority, enabled, updated_at)
+            VALUES (?, ?, ?, ?, ?, now())
+            ON CONFLICT (source_id) DO UPDATE SET
+                url = excluded.url,
+                poll_interval_ms = excluded.poll_interval_ms,
+                priority = excluded.priority,
+                enabled = excluded.enabled,
+                updated_at = excluded.updated_at""";
+    private static final String DELETE = "DELETE FROM weather_source WHERE source_id = ?";
+
+    private static final RowMapper<WeatherSource> ROW_MAPPER = (rs, rowNum) -> new WeatherSource(
+            rs.getInt("source_id"),
+            rs.getString("url"),
+            rs.getObject("poll_interval_ms", Long.class),
+            rs.getInt("priority"),
+            rs.getBoolean("enabled"));
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Заполняет пустой реестр источниками 1..sourceCount с параметрами по умолчанию.
+     *
+     * @return количество добавленных источников (0, если реестр уже не пуст).
+     */
+    public int seed(int sourceCount) {
+        return jdbcTemplate.update(SEED, sourceCount);
+    }
+
+    public List<WeatherSource> findAll() {
+        return jdbcTemplate.query(SELECT_ALL, ROW_MAPPER);
+    }
+
+    public Optional<WeatherSource> find(int sourceId) {
+        return jdbcTemplate.query(SELECT_ONE, ROW_MAPPER, sourceId).stream().findFirst();
+    }
+
+    public void save(WeatherSource source) {
+        jdbcTemplate.update(UPSERT, source.sourceId(), source.url(), source.pollIntervalMs(),
+                source.priority(), source.enabled());
+    }
+
+    /**
+     * @return true, если источник был в реестре.
+     */
+    public boolean delete(int sourceId) {
+        return jdbcTemplate.update(DELETE, sourceId) > 0;
+    }
+}
@@ -0,0 +1,48 @@
+package ru.grooz.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+/**
+ * Контрольная точка расширенной статистики (weather_statistics_checkpoint): сериализованные скетчи
+ * и наибольший id учтенного в них показания.
+ */
+@Repository
+@RequiredArgsConstructor
+public class WeatherStatisticsCheckpointRepository {
+
+    private static final int CHECKPOINT_ID = 1;
+
+    private static final String SELECT_CHECKPOINT = """
+            SELECT last_reading_id, data FROM weather_statistics_checkpoint WHERE id = ?""";
+    private static final String UPSERT_CHECKPOINT = """
+            INSERT INTO weather_statistics_checkpoint (id, last_reading_id, data, updated_at) VALUES (?, ?, ?, now())
+            ON CONFLICT (id) DO UPDATE SET
+                last_reading_id = excluded.last_reading_id,
+                data = excluded.data,
+                updated_at = excluded.updated_at""";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * @param lastReadingId Наибольший id показания normalized_weather_data, учтенного в data.
+     * @param data          Сериализованное состояние статистики.
+     */
+    public record StatisticsCheckpoint(long lastReadingId, byte[] data) {
+    }
+
+    public Optional<StatisticsCheckpoint> find() {
+        return jdbcTemplate.query(SELECT_CHECKPOINT,
+                        (rs, rowNum) -> new StatisticsCheckpoint(rs.getLong("last_reading_id"), rs.getBytes("data")),
+                        CHECKPOINT_ID)
+                .stream()
+                .findFirst();
+    }
+
+    public void save(long lastReadingId, byte[] data) {
+        jdbcTemplate.update(UPSERT_CHECKPOINT, CHECKPOINT_ID, lastReadingId, data);
+    }
+}
@@ -0,0 +1,37 @@
+package ru.grooz.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+/**
+ * Позиция локального WAL (weather_wal_checkpoint), до которой показания уже сохранены в базе.
+ */
+@Repository
+@RequiredArgsConstructor
+public class WeatherWalCheckpointRepository {
+
+    private static final String SELECT_LSN = "SELECT lsn FROM weather_wal_checkpoint WHERE wal_id = ?";
+    private static final String UPSERT_LSN = """
+            INSERT INTO weather_wal_checkpoint (wal_id, lsn, updated_at) VALUES (?, ?, now())
+            ON CONFLICT (wal_id) DO UPDATE SET lsn = excluded.lsn, updated_at = excluded.updated_at""";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public Optional<Long> find(String walId) {
+        return jdbcTemplate.query(SELECT_LSN, (rs, rowNum) -> rs.getLong(1), walId).stream().findFirst();
+    }
+
+    /**
+     * Сохраняет позицию журнала. Должен вызываться в транзакции, которая записывает показания до этой позиции:
+     * тогда после падения показания не теряются и не сохраняются повторно.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void save(String walId, long lsn) {
+        jdbcTemplate.update(UPSERT_LSN, walId, lsn);
+    }
+}
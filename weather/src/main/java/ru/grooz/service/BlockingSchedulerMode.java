@@ -0,0 +1,16 @@
+package ru.grooz.service;
+
+/**
+ * Планировщик для блокирующей работы с БД (JPA / JDBC).
+ */
+public enum BlockingSchedulerMode {
+    /**
+     * Schedulers.boundedElastic: не более 10 × число ядер потоков, остальные задачи ждут в очереди.
+     */
+    BOUNDED_ELASTIC,
+    /**
+     * Виртуальный поток на задачу (Java 21+): количество потоков не ограничено,
+     * одновременную работу с БД ограничивает только пул соединений.
+     */
+    VIRTUAL
+}
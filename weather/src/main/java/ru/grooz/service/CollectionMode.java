@@ -0,0 +1,20 @@
+package ru.grooz.service;
+
+/**
+ * Режим сбора данных с источников.
+ */
+public enum CollectionMode {
+    /**
+     * Сбор запускается каждым запросом агрегата.
+     */
+    ON_DEMAND,
+    /**
+     * Сбор выполняется в фоне по расписанию, запросы обслуживаются из последнего снимка.
+     */
+    SCHEDULED,
+    /**
+     * Каждый источник реестра опрашивается по своему интервалу ({@link SourcePollScheduler}),
+     * запросы агрегата обслуживаются из бегущего агрегата.
+     */
+    POLLING
+}
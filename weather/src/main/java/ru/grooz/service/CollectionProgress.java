@@ -0,0 +1,82 @@
+package ru.grooz.service;
+
+import ru.grooz.dto.WeatherSource;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Прогресс одного цикла сбора по источникам. Счетчики обновляются конвейером сбора по мере
+ * сохранения ответов и могут читаться в любой момент, в том числе до завершения цикла.
+ * Источники цикла задает {@link SourceAssignment}: при шардировании это только шарды этого экземпляра.
+ * С реестром источников (weather.sources.registry) цикл собирает снимок включенных источников реестра.
+ */
+public final class CollectionProgress {
+
+    private final SourceAssignment assignment;
+    private final List<WeatherSource> sources;
+    private final int totalSources;
+    private final AtomicInteger includedSources = new AtomicInteger();
+    private final AtomicInteger failedSources = new AtomicInteger();
+
+    public CollectionProgress(int totalSources) {
+        this(SourceAssignment.all(totalSources));
+    }
+
+    public CollectionProgress(SourceAssignment assignment) {
+        this.assignment = assignment;
+        this.sources = null;
+        this.totalSources = assignment.sourceCount();
+    }
+
+    public CollectionProgress(List<WeatherSource> sources) {
+        this.assignment = SourceAssignment.all(0);
+        this.sources = List.copyOf(sources);
+        this.totalSources = sources.size();
+    }
+
+    /**
+     * Отмечает источники, ответы которых сохранены и уже учтены в агрегате.
+     */
+    void sourcesIncluded(int count) {
+        includedSources.addAndGet(count);
+    }
+
+    /**
+     * Отмечает источники, данные которых в этом цикле не будут получены или сохранены
+     * (ошибка запроса, открытый выключатель, ошибка разбора или сохранения).
+     */
+    void sourcesFailed(int count) {
+        failedSources.addAndGet(count);
+    }
+
+    public SourceAssignment assignment() {
+        return assignment;
+    }
+
+    /**
+     * @return источники реестра для цикла или null, если источники задает {@link #assignment()}.
+     */
+    public List<WeatherSource> sources() {
+        return sources;
+    }
+
+    public int totalSources() {
+        return totalSources;
+    }
+
+    public int includedSources() {
+        return includedSources.get();
+    }
+
+    public int failedSources() {
+        return failedSources.get();
+    }
+
+    /**
+     * @return источники, которые еще не завершились ни успехом, ни ошибкой.
+     */
+    public int pendingSources() {
+        return Math.max(0, totalSources - includedSources.get() - failedSources.get());
+    }
+}
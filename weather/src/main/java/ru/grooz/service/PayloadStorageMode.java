@@ -0,0 +1,15 @@
+package ru.grooz.service;
+
+/**
+ * Способ хранения payload сырых данных.
+ */
+public enum PayloadStorageMode {
+    /**
+     * payload хранится текстом в каждой строке raw_weather_data.
+     */
+    INLINE,
+    /**
+     * Уникальные payload хранятся один раз в weather_payload (сжатыми), строки raw_weather_data ссылаются на хеш.
+     */
+    DEDUP
+}
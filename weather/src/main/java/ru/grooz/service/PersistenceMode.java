@@ -0,0 +1,15 @@
+package ru.grooz.service;
+
+/**
+ * Способ записи показаний в БД.
+ */
+public enum PersistenceMode {
+    /**
+     * Блокирующий Spring Data JPA, вынесенный на отдельный пул потоков.
+     */
+    JPA,
+    /**
+     * Неблокирующий R2DBC: цепочка запрос → парсинг → запись → агрегат остается реактивной.
+     */
+    R2DBC
+}
@@ -0,0 +1,58 @@
+package ru.grooz.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Источники, которые собирает цикл: диапазоны идентификаторов и шарды, из которых они получены.
+ * Без шардирования (weather.sharding.enabled=false) — один диапазон 1..sourceCount без шардов.
+ *
+ * @param shards Номера шардов, аренды которых держит экземпляр.
+ * @param ranges Диапазоны идентификаторов источников по возрастанию, соседние диапазоны объединены.
+ */
+public record SourceAssignment(List<Integer> shards, List<Range> ranges) {
+
+    /**
+     * Диапазон идентификаторов источников [from, to] включительно.
+     */
+    public record Range(int from, int to) {
+
+        public int size() {
+            return to - from + 1;
+        }
+    }
+
+    public static SourceAssignment all(int sourceCount) {
+        return new SourceAssignment(List.of(), sourceCount > 0 ? List.of(new Range(1, sourceCount)) : List.of());
+    }
+
+    /**
+     * Источники шардов: пространство 1..sourceCount делится на shardCount равных непрерывных диапазонов.
+     *
+     * @param shards      Номера шардов по возрастанию.
+     * @param shardCount  Общее количество шардов.
+     * @param sourceCount Количество источников.
+     */
+    public static SourceAssignment ofShards(List<Integer> shards, int shardCount, int sourceCount) {
+        int shardSize = (sourceCount + shardCount - 1) / shardCount;
+        List<Range> ranges = new ArrayList<>(shards.size());
+        for (int shard : shards) {
+            int from = shard * shardSize + 1;
+            int to = Math.min(from + shardSize - 1, sourceCount);
+            if (from > to) {
+                continue;
+            }
+            Range last = ranges.isEmpty() ? null : ranges.get(ranges.size() - 1);
+            if (last != null && last.to() + 1 == from) {
+                ranges.set(ranges.size() - 1, new Range(last.from(), to));
+            } else {
+                ranges.add(new Range(from, to));
+            }
+        }
+        return new SourceAssignment(List.copyOf(shards), List.copyOf(ranges));
+    }
+
+    public int sourceCount() {
+        return ranges.stream().mapToInt(Range::size).sum();
+    }
+}
@@ -0,0 +1,192 @@
+package ru.grooz.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import ru.grooz.repository.WeatherSourceLeaseRepository;
+
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Распределение источников между экземплярами сервиса (weather.sharding.enabled).
+ * Пространство 1..sourceCount делится на shard-count шардов, каждый шард экземпляр собирает,
+ * только пока держит его аренду в weather_source_lease. Раз в heartbeat-ms экземпляр отмечается в weather_instance,
+ * продлевает свои аренды и выравнивает их количество до ceil(shard-count / живые экземпляры):
+ * лишние шарды отдает, недостающие захватывает из свободных и истекших. Поэтому при подключении экземпляра
+ * шарды перераспределяются за пару heartbeat, а шарды упавшего экземпляра подхватываются после истечения
+ * его аренд (lease-ttl-ms).
+ * <p>
+ * Шард, который нужно отдать, сразу исключается из новых циклов, а аренда освобождается на следующем heartbeat,
+ * когда его не собирает ни один выполняющийся цикл: так один источник не собирается двумя экземплярами
+ * одновременно. Если аренды не удалось продлить дольше lease-ttl-ms (например, база недоступна),
+ * экземпляр перестает собирать свои шарды, потому что их уже мог захватить другой.
+ * Heartbeat выполняется в собственном потоке: общий пул @Scheduled занимает блокирующий цикл сбора
+ * (weather.collection.mode=scheduled), и аренды истекали бы, пока он идет.
+ */
+@Service
+@ConditionalOnProperty(name = "weather.sharding.enabled", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class SourceLeaseService {
+
+    /**
+     * Во сколько раз дольше lease-ttl-ms хранится строка экземпляра без heartbeat.
+     */
+    private static final int STALE_INSTANCE_TTLS = 10;
+
+    private final WeatherSourceLeaseRepository leaseRepository;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${weather.sources.count}")
+    private int sourceCount;
+    @Value("${weather.sharding.shard-count}")
+    private int shardCount;
+    @Value("${weather.sharding.lease-ttl-ms}")
+    private long leaseTtlMs;
+    @Value("${weather.sharding.heartbeat-ms}")
+    private long heartbeatMs;
+    @Value("${weather.sharding.instance-id:}")
+    private String instanceId;
+
+    /**
+     * Шарды для новых циклов.
+     */
+    private volatile List<Integer> collecting = List.of();
+    /**
+     * Шарды, которые экземпляр отдает: аренда еще продлевается, но новые циклы их не собирают.
+     */
+    private final TreeSet<Integer> draining = new TreeSet<>();
+    /**
+     * Количество выполняющихся циклов, собирающих шард.
+     */
+    private final Map<Integer, Integer> inUse = new ConcurrentHashMap<>();
+    private volatile long leaseDeadlineNanos;
+    private ScheduledExecutorService heartbeatExecutor;
+
+    @PostConstruct
+    void init() {
+        if (instanceId == null || instanceId.isBlank()) {
+            instanceId = hostName() + "-" + UUID.randomUUID().toString().substring(0, 8);
+        }
+        Gauge.builder("weather.sharding.shards", this, service -> service.collecting.size())
+                .description("Source shards collected by this instance")
+                .register(meterRegistry);
+        leaseRepository.initShards(shardCount);
+        rebalance();
+        heartbeatExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "weather-source-lease");
+            thread.setDaemon(true);
+            return thread;
+        });
+        heartbeatExecutor.scheduleWithFixedDelay(this::heartbeat, heartbeatMs, heartbeatMs, TimeUnit.MILLISECONDS);
+        log.info("Source sharding enabled: instance {}, {} shards over {} sources", instanceId, shardCount, sourceCount);
+    }
+
+    void heartbeat() {
+        try {
+            rebalance();
+        } catch (Exception e) {
+            log.error("Source lease heartbeat failed: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Источники для нового цикла. Шарды остаются за экземпляром, пока для них не вызван {@link #end(SourceAssignment)}.
+     *
+     * @return источники шардов, аренды которых действительны; пустое назначение, если аренды истекли.
+     */
+    public SourceAssignment begin() {
+        List<Integer> shards;
+        synchronized (this) {
+            shards = System.nanoTime() - leaseDeadlineNanos < 0 ? collecting : List.of();
+            shards.forEach(shard -> inUse.merge(shard, 1, Integer::sum));
+        }
+        if (shards.isEmpty()) {
+            log.debug("Instance {} holds no valid source leases, nothing to collect", instanceId);
+        }
+        return SourceAssignment.ofShards(shards, shardCount, sourceCount);
+    }
+
+    /**
+     * Отмечает завершение цикла, начатого {@link #begin()}.
+     */
+    public void end(SourceAssignment assignment) {
+        assignment.shards().forEach(shard -> inUse.computeIfPresent(shard, (key, count) -> count > 1 ? count - 1 : null));
+    }
+
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        heartbeatExecutor.shutdownNow();
+        heartbeatExecutor.awaitTermination(heartbeatMs, TimeUnit.MILLISECONDS);
+        try {
+            leaseRepository.releaseAll(instanceId);
+            leaseRepository.removeInstance(instanceId);
+            log.info("Instance {} released its source leases", instanceId);
+        } catch (Exception e) {
+            log.warn("Failed to release source leases of instance {}: {}", instanceId, e.getMessage());
+        }
+    }
+
+    private synchronized void rebalance() {
+        long startNanos = System.nanoTime();
+        leaseRepository.heartbeat(instanceId);
+        List<Integer> held = new ArrayList<>(leaseRepository.renew(instanceId, leaseTtlMs));
+        leaseDeadlineNanos = startNanos + TimeUnit.MILLISECONDS.toNanos(leaseTtlMs);
+        draining.retainAll(held);
+
+        List<Integer> releasable = draining.stream().filter(shard -> !inUse.containsKey(shard)).toList();
+        if (!releasable.isEmpty()) {
+            leaseRepository.release(instanceId, releasable);
+            releasable.forEach(draining::remove);
+            held.removeAll(releasable);
+            log.info("Instance {} released shards {}", instanceId, releasable);
+        }
+
+        int liveInstances = Math.max(1, leaseRepository.countLiveInstances(leaseTtlMs));
+        int fairShare = (shardCount + liveInstances - 1) / liveInstances;
+        TreeSet<Integer> active = new TreeSet<>(held);
+        active.removeAll(draining);
+
+        while (active.size() > fairShare) {
+            draining.add(active.pollLast());
+        }
+        if (held.size() < fairShare) {
+            List<Integer> acquired = leaseRepository.acquire(instanceId, fairShare - held.size(), leaseTtlMs);
+            if (!acquired.isEmpty()) {
+                active.addAll(acquired);
+                log.info("Instance {} acquired shards {}", instanceId, acquired);
+            }
+        }
+
+        List<Integer> next = new ArrayList<>(active);
+        if (!next.equals(collecting)) {
+            log.info("Instance {} collects {} of {} shards ({} live instances, {} draining)",
+                    instanceId, next.size(), shardCount, liveInstances, draining.size());
+        }
+        collecting = List.copyOf(next);
+        leaseRepository.removeStaleInstances(leaseTtlMs * STALE_INSTANCE_TTLS);
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            return "weather";
+        }
+    }
+}
@@ -0,0 +1,276 @@
+package ru.grooz.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+import ru.grooz.dto.WeatherSource;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Опрос источников реестра по их собственным интервалам (weather.collection.mode=polling).
+ * <p>
+ * Сроки опроса хранятся в колесе времени (hashed timing wheel): wheel-size ячеек по tick-ms, источник со сроком
+ * через N тиков лежит в ячейке (текущий тик + N) mod wheel-size. Каждый тик просматривается одна ячейка, поэтому
+ * постановка и снятие стоят O(1), а работа на тик не зависит от общего числа источников — 100 тыс.
+ * зарегистрированных источников дают лишь несколько сотен записей на ячейку. Сроки источника лежат на его сетке:
+ * тики, сдвинутые на детерминированную долю интервала (фазу), поэтому источники с одинаковым интервалом
+ * опрашиваются равномерно, а не все в один тик, и не сбиваются в кучу после задержки тиков (например, при старте).
+ * После завершения запроса назначается ближайший срок сетки не раньше чем через половину интервала:
+ * запрос, не уложившийся в интервал, пропускает сроки, а не опрашивает источник подряд.
+ * <p>
+ * Наступившие сроки попадают в очередь с приоритетом (больший приоритет, затем более ранний срок), из которой
+ * источники передаются в {@link WeatherCollectorService#pollSources} по мере освобождения fetch-concurrency:
+ * при перегрузке первыми опрашиваются приоритетные источники. Новые и измененные источники реестра ставятся
+ * в колесо сразу, а записи удаленных, выключенных и замененных источников отбрасываются, когда наступает их срок.
+ * Если конвейер опроса завершается ошибкой, он перезапускается через секунду, а источники, переданные
+ * в него и не дождавшиеся запроса, снова ставятся в колесо.
+ */
+@Component
+@ConditionalOnProperty(name = "weather.collection.mode", havingValue = "polling")
+@Slf4j
+public class SourcePollScheduler {
+
+    private static final Duration RESTART_DELAY = Duration.ofSeconds(1);
+
+    private static final Comparator<Scheduled> READY_ORDER = Comparator
+            .comparingInt((Scheduled scheduled) -> scheduled.source().priority()).reversed()
+            .thenComparingLong(Scheduled::deadlineTick);
+
+    private final SourceRegistry sourceRegistry;
+    private final WeatherCollectorService weatherCollectorService;
+    private final MeterRegistry meterRegistry;
+    private final long tickMs;
+    private final int mask;
+
+    private final Object lock = new Object();
+    private final ArrayDeque<Scheduled>[] wheel;
+    private final PriorityQueue<Scheduled> ready = new PriorityQueue<>(READY_ORDER);
+    /**
+     * Источники, переданные конвейеру опроса, для которых еще не вызван {@link #polled(WeatherSource)}.
+     */
+    private final Set<WeatherSource> inFlight = ConcurrentHashMap.newKeySet();
+    private long currentTick;
+    private int scheduledCount;
+    private long startNanos;
+
+    private volatile FluxSink<WeatherSource> dueSink;
+    private ScheduledExecutorService ticker;
+    private Disposable polling;
+
+    /**
+     * Срок опроса версии источника. Запись устарела, если реестр уже держит для источника другой объект.
+     */
+    private record Scheduled(WeatherSource source, long deadlineTick) {
+    }
+
+    @SuppressWarnings("unchecked")
+    public SourcePollScheduler(ObjectProvider<SourceRegistry> sourceRegistry,
+                               WeatherCollectorService weatherCollectorService,
+                               MeterRegistry meterRegistry,
+                               @Value("${weather.polling.tick-ms}") long tickMs,
+                               @Value("${weather.polling.wheel-size}") int wheelSize) {
+        this.sourceRegistry = sourceRegistry.getIfAvailable();
+        if (this.sourceRegistry == null) {
+            throw new IllegalStateException("weather.collection.mode=polling requires weather.sources.registry.enabled=true");
+        }
+        this.weatherCollectorService = weatherCollectorService;
+        this.meterRegistry = meterRegistry;
+        this.tickMs = tickMs;
+        int slots = wheelSize <= 1 ? 1 : Integer.highestOneBit(wheelSize - 1) << 1;
+        this.mask = slots - 1;
+        this.wheel = new ArrayDeque[slots];
+        for (int i = 0; i < slots; i++) {
+            wheel[i] = new ArrayDeque<>();
+        }
+    }
+
+    @PostConstruct
+    void start() {
+        startNanos = System.nanoTime();
+        sourceRegistry.addListener(this::scheduleFirst);
+        sourceRegistry.enabledSources().forEach(this::scheduleFirst);
+
+        Gauge.builder("weather.polling.scheduled", this, scheduler -> scheduler.scheduledCount)
+                .description("Source polls waiting on the timing wheel")
+                .register(meterRegistry);
+        Gauge.builder("weather.polling.ready", this, scheduler -> scheduler.readyCount())
+                .description("Due source polls waiting for a free fetch slot")
+                .register(meterRegistry);
+
+        Flux<WeatherSource> dueSources = Flux.create(sink -> {
+            dueSink = sink;
+            sink.onRequest(requested -> drain());
+        });
+        polling = Mono.defer(() -> {
+                    rescheduleInFlight();
+                    return weatherCollectorService.pollSources(dueSources, this::polled);
+                })
+                .retryWhen(Retry.fixedDelay(Long.MAX_VALUE, RESTART_DELAY)
+                        .doBeforeRetry(signal -> log.error("Source polling failed, restarting: {}",
+                                signal.failure().getMessage(), signal.failure())))
+                .subscribe();
+
+        ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "weather-source-poll");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ticker.scheduleAtFixedRate(this::tick, tickMs, tickMs, TimeUnit.MILLISECONDS);
+        log.info("Source polling started: {} sources scheduled, tick {} ms, wheel of {} slots",
+                scheduledCount, tickMs, mask + 1);
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        ticker.shutdownNow();
+        ticker.awaitTermination(tickMs * 10, TimeUnit.MILLISECONDS);
+        polling.dispose();
+    }
+
+    /**
+     * Продвигает колесо до текущего момента (с догоном пропущенных тиков) и передает наступившие сроки в очередь.
+     */
+    void tick() {
+        try {
+            long targetTick = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos) / tickMs;
+            synchronized (lock) {
+                while (currentTick < targetTick) {
+                    currentTick++;
+                    Iterator<Scheduled> slot = wheel[(int) (currentTick & mask)].iterator();
+                    while (slot.hasNext()) {
+                        Scheduled scheduled = slot.next();
+                        if (scheduled.deadlineTick() > currentTick) {
+                            continue;
+                        }
+                        slot.remove();
+                        scheduledCount--;
+                        if (isCurrent(scheduled.source())) {
+                            ready.add(scheduled);
+                        }
+                    }
+                }
+            }
+            drain();
+        } catch (Exception e) {
+            log.error("Source poll tick failed: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Передает источники из очереди, пока конвейер опроса готов их принять.
+     * Источник, пойманный между проверкой спроса и передачей, буферизуется FluxSink.
+     */
+    private void drain() {
+        FluxSink<WeatherSource> sink = dueSink;
+        while (sink != null) {
+            Scheduled next;
+            synchronized (lock) {
+                if (sink.requestedFromDownstream() == 0 || ready.isEmpty()) {
+                    return;
+                }
+                next = ready.poll();
+            }
+            if (isCurrent(next.source())) {
+                inFlight.add(next.source());
+                sink.next(next.source());
+            }
+        }
+    }
+
+    /**
+     * Первый срок нового или измененного источника: ближайший срок его сетки.
+     */
+    private void scheduleFirst(WeatherSource source) {
+        if (!source.enabled()) {
+            return;
+        }
+        synchronized (lock) {
+            schedule(source, nextDeadline(source, 1));
+        }
+    }
+
+    /**
+     * Запрос к источнику завершен: следующий срок сетки не раньше чем через половину интервала,
+     * если источник не изменился за это время.
+     */
+    private void polled(WeatherSource source) {
+        if (!inFlight.remove(source) || !isCurrent(source)) {
+            return;
+        }
+        synchronized (lock) {
+            schedule(source, nextDeadline(source, Math.max(1, intervalTicks(source) / 2)));
+        }
+    }
+
+    /**
+     * Источники, переданные упавшему конвейеру и оставшиеся в буфере FluxSink, ставятся на ближайший срок сетки.
+     */
+    private void rescheduleInFlight() {
+        for (WeatherSource source : List.copyOf(inFlight)) {
+            if (inFlight.remove(source)) {
+                scheduleFirst(source);
+            }
+        }
+    }
+
+    /**
+     * @return первый тик сетки источника (тики, равные фазе по модулю интервала) не раньше currentTick + minDelay.
+     */
+    private long nextDeadline(WeatherSource source, long minDelay) {
+        long intervalTicks = intervalTicks(source);
+        long phase = Math.floorMod(mix(source.sourceId()), intervalTicks);
+        long earliest = currentTick + minDelay;
+        return earliest + Math.floorMod(phase - earliest, intervalTicks);
+    }
+
+    private void schedule(WeatherSource source, long deadlineTick) {
+        wheel[(int) (deadlineTick & mask)].add(new Scheduled(source, deadlineTick));
+        scheduledCount++;
+    }
+
+    private boolean isCurrent(WeatherSource source) {
+        return source.enabled() && sourceRegistry.get(source.sourceId()) == source;
+    }
+
+    private long intervalTicks(WeatherSource source) {
+        return Math.max(1, (sourceRegistry.pollIntervalOf(source) + tickMs - 1) / tickMs);
+    }
+
+    private int readyCount() {
+        synchronized (lock) {
+            return ready.size();
+        }
+    }
+
+    /**
+     * Перемешивание идентификатора (финализатор SplitMix64), чтобы сдвиги соседних источников не шли подряд.
+     */
+    private static long mix(int sourceId) {
+        long z = sourceId * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,205 @@
+package ru.grooz.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import ru.grooz.dto.WeatherSource;
+import ru.grooz.repository.WeatherSourceRepository;
+
+import java.net.URI;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Реестр источников (weather.sources.registry.enabled): вместо неявных 1..weather.sources.count с адресом
+ * base-url + id источники берутся из таблицы weather_source со своими адресом, интервалом опроса, приоритетом
+ * и признаком включения. Пустая таблица при первом старте заполняется источниками 1..count.
+ * <p>
+ * Реестр держится в памяти. Изменения через {@link #save(WeatherSource)} и {@link #delete(int)} применяются сразу,
+ * а изменения, сделанные другими экземплярами или прямо в таблице, подхватываются перечитыванием раз в refresh-ms.
+ * О новых и измененных источниках сообщается слушателям (планировщику опроса); удаленные и замененные записи
+ * слушатели распознают сами: {@link #get(int)} для них возвращает другой объект или null.
+ * Идентификаторы источников — любые положительные числа, не обязательно подряд.
+ * Шардирование (weather.sharding) делит на шарды диапазон 1..count и с реестром не поддерживается.
+ */
+@Service
+@ConditionalOnProperty(name = "weather.sources.registry.enabled", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class SourceRegistry {
+
+    private static final Comparator<WeatherSource> BY_PRIORITY = Comparator
+            .comparingInt(WeatherSource::priority).reversed()
+            .thenComparingInt(WeatherSource::sourceId);
+
+    private final WeatherSourceRepository weatherSourceRepository;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${weather.sources.base-url}")
+    private String baseUrl;
+    @Value("${weather.sources.count}")
+    private int sourceCount;
+    @Value("${weather.sources.registry.default-poll-interval-ms}")
+    private long defaultPollIntervalMs;
+    @Value("${weather.sharding.enabled}")
+    private boolean shardingEnabled;
+    @Value("${weather.sources.batch-fetch.enabled}")
+    private boolean batchFetchEnabled;
+
+    private final Map<Integer, WeatherSource> sources = new ConcurrentHashMap<>();
+    private final List<Consumer<WeatherSource>> listeners = new CopyOnWriteArrayList<>();
+
+    @PostConstruct
+    void init() {
+        if (shardingEnabled) {
+            throw new IllegalStateException("weather.sources.registry cannot be combined with weather.sharding");
+        }
+        if (batchFetchEnabled) {
+            log.warn("weather.sources.batch-fetch is ignored: sources are fetched one by one from the registry");
+        }
+        int seeded = weatherSourceRepository.seed(sourceCount);
+        if (seeded > 0) {
+            log.info("Seeded source registry with sources 1..{}", seeded);
+        }
+        refresh();
+        Gauge.builder("weather.sources.registered", sources, Map::size)
+                .description("Sources in the registry")
+                .register(meterRegistry);
+        log.info("Source registry loaded: {} sources", sources.size());
+    }
+
+    @Scheduled(initialDelayString = "${weather.sources.registry.refresh-ms}",
+            fixedDelayString = "${weather.sources.registry.refresh-ms}")
+    public void scheduledRefresh() {
+        try {
+            refresh();
+        } catch (Exception e) {
+            log.error("Source registry refresh failed: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Перечитывает реестр из базы. Неизменившиеся записи остаются прежними объектами,
+     * о новых и измененных сообщается слушателям.
+     */
+    public synchronized void refresh() {
+        List<WeatherSource> loaded = weatherSourceRepository.findAll();
+        Set<Integer> present = new HashSet<>(loaded.size() * 2);
+        int changed = 0;
+        for (WeatherSource source : loaded) {
+            present.add(source.sourceId());
+            if (!source.equals(sources.get(source.sourceId()))) {
+                put(source);
+                changed++;
+            }
+        }
+        int removed = sources.size() - present.size();
+        if (removed > 0) {
+            sources.keySet().retainAll(present);
+        }
+        if (changed > 0 || removed > 0) {
+            log.debug("Source registry refreshed: {} added or changed, {} removed", changed, removed);
+        }
+    }
+
+    public void addListener(Consumer<WeatherSource> listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * @return текущая запись источника или null, если источника нет в реестре.
+     */
+    public WeatherSource get(int sourceId) {
+        return sources.get(sourceId);
+    }
+
+    public int size() {
+        return sources.size();
+    }
+
+    /**
+     * @return включенные источники по убыванию приоритета.
+     */
+    public List<WeatherSource> enabledSources() {
+        return sources.values().stream()
+                .filter(WeatherSource::enabled)
+                .sorted(BY_PRIORITY)
+                .toList();
+    }
+
+    /**
+     * @return страница реестра по возрастанию идентификатора.
+     */
+    public List<WeatherSource> list(int offset, int limit) {
+        return sources.values().stream()
+                .sorted(Comparator.comparingInt(WeatherSource::sourceId))
+                .skip(offset)
+                .limit(limit)
+                .toList();
+    }
+
+    /**
+     * Добавляет или заменяет источник. Операция блокирующая (JDBC).
+     *
+     * @throws IllegalArgumentException при неположительном идентификаторе, некорректном адресе или интервале.
+     */
+    public WeatherSource save(WeatherSource source) {
+        if (source.sourceId() < 1) {
+            throw new IllegalArgumentException("Source id must be positive");
+        }
+        if (source.pollIntervalMs() != null && source.pollIntervalMs() <= 0) {
+            throw new IllegalArgumentException("Poll interval must be positive");
+        }
+        if (source.url() != null) {
+            String scheme = URI.create(source.url()).getScheme();
+            if (!"http".equals(scheme) && !"https".equals(scheme)) {
+                throw new IllegalArgumentException("Source URL must be http or https: " + source.url());
+            }
+        }
+        synchronized (this) {
+            weatherSourceRepository.save(source);
+            put(source);
+        }
+        log.info("Source {} saved to the registry", source.sourceId());
+        return source;
+    }
+
+    /**
+     * Удаляет источник. Операция блокирующая (JDBC).
+     *
+     * @return true, если источник был в реестре.
+     */
+    public synchronized boolean delete(int sourceId) {
+        boolean deleted = weatherSourceRepository.delete(sourceId);
+        sources.remove(sourceId);
+        if (deleted) {
+            log.info("Source {} removed from the registry", sourceId);
+        }
+        return deleted;
+    }
+
+    public String urlOf(WeatherSource source) {
+        return source.url() != null ? source.url() : baseUrl + source.sourceId();
+    }
+
+    public long pollIntervalOf(WeatherSource source) {
+        return source.pollIntervalMs() != null ? source.pollIntervalMs() : defaultPollIntervalMs;
+    }
+
+    private void put(WeatherSource source) {
+        sources.put(source.sourceId(), source);
+        listeners.forEach(listener -> listener.accept(source));
+    }
+}
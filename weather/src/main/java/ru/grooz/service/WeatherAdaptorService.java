@@ -1,18 +1,40 @@
 package ru.grooz.service;
 
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import reactor.core.publisher.Mono;
 import ru.grooz.dto.SourceWeatherData;
 import ru.grooz.dto.WeatherData;
+import ru.grooz.dto.WeatherDataBatch;
 import ru.grooz.model.NormalizedWeatherData;
 import ru.grooz.model.RawWeatherData;
 import ru.grooz.repository.NormalizedWeatherRepository;
+import ru.grooz.repository.R2dbcWeatherRepository;
 import ru.grooz.repository.RawWeatherRepository;
+import ru.grooz.repository.WeatherHistoryRepository;
+import ru.grooz.repository.WeatherPayloadRepository;
+import ru.grooz.util.RecentWeatherStore;
 import ru.grooz.util.WeatherDataParser;
+import ru.grooz.util.WeatherMetrics;
+import ru.grooz.util.WeatherPayloadCodec;
+import ru.grooz.util.WeatherPayloadCodec.EncodedPayload;
 
+import java.nio.ByteBuffer;
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 
 @Service
@@ -23,37 +45,221 @@ public class WeatherAdaptorService {
     private final RawWeatherRepository rawWeatherRepository;
     private final NormalizedWeatherRepository normalizedWeatherRepository;
     private final WeatherDataParser weatherDataParser;
+    private final WeatherBatchPreparer weatherBatchPreparer;
+    private final WeatherAggregateService weatherAggregateService;
+    private final WeatherStatisticsService weatherStatisticsService;
+    private final WeatherHistoryRepository weatherHistoryRepository;
+    private final WeatherPayloadRepository weatherPayloadRepository;
+    private final ObjectProvider<R2dbcWeatherRepository> r2dbcWeatherRepository;
+    private final WeatherMetrics weatherMetrics;
+    private final WeatherReadingPublisher weatherReadingPublisher;
+    private final RecentWeatherStore recentWeatherStore;
 
-    public void processAndSaveWeatherData(SourceWeatherData sourceData) {
-        log.info("Starting to process data for sourceId: {}", sourceData.getSourceId());
+    @Value("${weather.persistence.payload-storage}")
+    private PayloadStorageMode payloadStorageMode;
+    @Value("${weather.hot-window.warmup-minutes}")
+    private long hotWindowWarmupMinutes;
+
+    /**
+     * Заполняет {@link RecentWeatherStore} последними показаниями из базы до начала сбора.
+     */
+    @PostConstruct
+    void warmUpRecentReadings() {
+        long startNanos = System.nanoTime();
+        AtomicInteger loaded = new AtomicInteger();
+        weatherHistoryRepository.forEachRecent(LocalDateTime.now().minusMinutes(hotWindowWarmupMinutes),
+                recentWeatherStore.capacityPerSource(), reading -> {
+                    recentWeatherStore.record(reading.sourceId(), reading.temperature(), reading.humidity(),
+                            reading.timestamp());
+                    loaded.incrementAndGet();
+                });
+        log.info("Recent weather store warmed up with {} readings in {} ms",
+                loaded.get(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+    }
+
+    /**
+     * Сохраняет ответ одного источника в одной транзакции: сырые и нормализованные данные, роллапы по времени
+     * и бегущий агрегат фиксируются вместе, так что ошибка записи не оставляет роллап или агрегат
+     * с показанием, которого нет в истории. Ответ, который не удалось распарсить, сохраняется только в сыром виде.
+     *
+     * @param sourceData Ответ источника.
+     * @return true, если ответ сохранен в виде нормализованного показания.
+     */
+    @Transactional
+    public boolean processAndSaveWeatherData(SourceWeatherData sourceData) {
+        log.debug("Starting to process data for sourceId: {}", sourceData.getSourceId());
 
         RawWeatherData savedRawData = saveRawData(sourceData);
-        WeatherData weatherData = parseData(sourceData, savedRawData);
+        WeatherData weatherData = parseData(sourceData);
+        if (weatherData == null) {
+            return false;
+        }
         NormalizedWeatherData normalizedData = createNormalizedData(sourceData, weatherData, savedRawData);
         saveNormalizedData(normalizedData, sourceData);
+        weatherHistoryRepository.increment(List.of(normalizedData));
+        weatherAggregateService.record(normalizedData.getTemperature(), normalizedData.getHumidity());
+        onCommittedAfterCommit(List.of(normalizedData));
+        return true;
+    }
+
+    /**
+     * Сохраняет пачку ответов источников в одной транзакции: сырые и нормализованные данные
+     * записываются через saveAll, что вместе с идентификаторами из последовательностей
+     * (allocationSize = 50) и hibernate.jdbc.batch_size позволяет Hibernate отправлять их
+     * пакетными INSERT вместо 2×N отдельных запросов. В той же транзакции обновляются роллапы
+     * по времени и бегущий агрегат. Сырые и нормализованные данные сбрасываются в базу сразу после saveAll,
+     * чтобы время их записи попадало в метрику weather.persistence.write, а не в коммит.
+     * Ответы, которые не удалось распарсить, сохраняются только в сыром виде.
+     *
+     * @param batch Ответы источников.
+     * @return число ответов, сохраненных в виде нормализованных показаний.
+     */
+    @Transactional
+    public int processAndSaveWeatherDataBatch(List<SourceWeatherData> batch) {
+        return processAndSaveWeatherDataBatch(batch, null);
+    }
+
+    /**
+     * То же, что {@link #processAndSaveWeatherDataBatch(List)}, но с временем получения каждого ответа:
+     * для показаний, сохраняемых позже получения (write-behind и восстановление из WAL).
+     *
+     * @param batch      Ответы источников.
+     * @param receivedAt Время получения ответов в порядке batch; null — текущее время.
+     * @return число ответов, сохраненных в виде нормализованных показаний.
+     */
+    @Transactional
+    public int processAndSaveWeatherDataBatch(List<SourceWeatherData> batch, List<LocalDateTime> receivedAt) {
+        log.debug("Starting to process batch of {} source responses", batch.size());
+
+        WeatherDataBatch dataBatch = weatherBatchPreparer.prepare(batch, receivedAt);
+        long startNanos = System.nanoTime();
+        weatherPayloadRepository.storeAll(detachPayloads(dataBatch.rawData()));
+        rawWeatherRepository.saveAllAndFlush(dataBatch.rawData());
+        long rawSavedNanos = System.nanoTime();
+        weatherMetrics.written("raw", rawSavedNanos - startNanos);
+        normalizedWeatherRepository.saveAllAndFlush(dataBatch.normalizedData());
+        weatherMetrics.written("normalized", System.nanoTime() - rawSavedNanos);
+        weatherHistoryRepository.increment(dataBatch.normalizedData());
+        weatherAggregateService.record(
+                dataBatch.normalizedData().size(), dataBatch.temperatureSum(), dataBatch.humiditySum());
+        onCommittedAfterCommit(dataBatch.normalizedData());
+
+        log.debug("Batch saved: {} raw, {} normalized",
+                dataBatch.rawData().size(), dataBatch.normalizedData().size());
+        return dataBatch.normalizedData().size();
+    }
+
+    /**
+     * Реактивный вариант {@link #processAndSaveWeatherDataBatch(List)} для weather.persistence.mode=r2dbc:
+     * парсинг выполняется в вызывающем потоке, запись — неблокирующе через R2DBC в одной транзакции.
+     *
+     * @param batch Ответы источников.
+     * @return Mono с числом ответов, сохраненных в виде нормализованных показаний,
+     * завершающийся после коммита и обновления агрегата в памяти.
+     */
+    public Mono<Integer> processAndSaveWeatherDataReactive(List<SourceWeatherData> batch) {
+        R2dbcWeatherRepository repository = r2dbcWeatherRepository.getObject();
+        return Mono.fromCallable(() -> weatherBatchPreparer.prepare(batch))
+                .flatMap(dataBatch -> timed("batch", repository.saveBatch(
+                                dataBatch, detachPayloads(dataBatch.rawData()), weatherAggregateService.nextStripe()))
+                        .then(Mono.fromRunnable(() -> {
+                            weatherAggregateService.applyCommitted(
+                                    dataBatch.normalizedData().size(),
+                                    dataBatch.temperatureSum(),
+                                    dataBatch.humiditySum());
+                            onCommitted(dataBatch.normalizedData());
+                        }))
+                        .thenReturn(dataBatch.normalizedData().size()));
+    }
+
+    /**
+     * В режиме хранения DEDUP кодирует payload строк, переводит строки на хранение по ссылке
+     * и возвращает уникальные payload для записи в weather_payload (в порядке хеша, чтобы параллельные
+     * транзакции вставляли одинаковые payload в одном порядке). В режиме INLINE ничего не делает.
+     *
+     * @param rawData Несохраненные сырые данные.
+     * @return уникальные закодированные payload.
+     */
+    private Collection<EncodedPayload> detachPayloads(List<RawWeatherData> rawData) {
+        if (payloadStorageMode != PayloadStorageMode.DEDUP) {
+            return List.of();
+        }
+        Map<ByteBuffer, EncodedPayload> unique = new TreeMap<>();
+        for (RawWeatherData data : rawData) {
+            if (data.getPayload() == null) {
+                continue;
+            }
+            EncodedPayload encoded = WeatherPayloadCodec.encode(data.getPayload());
+            unique.putIfAbsent(ByteBuffer.wrap(encoded.hash()), encoded);
+            data.storeAsReference(encoded.hash());
+        }
+        return unique.values();
+    }
+
+    /**
+     * Вызывает {@link #onCommitted(List)} после коммита текущей транзакции
+     * (синхронизация регистрируется после синхронизации бегущего агрегата и выполняется вслед за ней).
+     */
+    private void onCommittedAfterCommit(List<NormalizedWeatherData> saved) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            onCommitted(saved);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                onCommitted(saved);
+            }
+        });
+    }
+
+    /**
+     * Добавляет сохраненные показания в {@link RecentWeatherStore} и расширенную статистику
+     * и публикует их в поток /weather/stream.
+     */
+    private void onCommitted(List<NormalizedWeatherData> saved) {
+        weatherStatisticsService.record(saved);
+        for (NormalizedWeatherData data : saved) {
+            recentWeatherStore.record(data.getSourceId(), data.getTemperature(), data.getHumidity(), data.getTimestamp());
+        }
+        weatherReadingPublisher.publish(saved);
+    }
+
+    /**
+     * Замеряет время записи от подписки до успешного завершения.
+     */
+    private <T> Mono<T> timed(String stage, Mono<T> write) {
+        return Mono.defer(() -> {
+            long startNanos = System.nanoTime();
+            return write.doOnSuccess(result -> weatherMetrics.written(stage, System.nanoTime() - startNanos));
+        });
     }
 
     private RawWeatherData saveRawData(SourceWeatherData sourceData) {
-        RawWeatherData rawData = new RawWeatherData();
-        rawData.setSourceId(sourceData.getSourceId());
-        rawData.setPayload(sourceData.getPayload());
-        rawData.setTimestamp(LocalDateTime.now());
+        RawWeatherData rawData = weatherBatchPreparer.rawData(sourceData, LocalDateTime.now());
 
         try {
-            return rawWeatherRepository.save(rawData);
+            long startNanos = System.nanoTime();
+            weatherPayloadRepository.storeAll(detachPayloads(List.of(rawData)));
+            RawWeatherData saved = rawWeatherRepository.save(rawData);
+            weatherMetrics.written("raw", System.nanoTime() - startNanos);
+            return saved;
         } catch (Exception e) {
             log.error("Failed to save raw data for sourceId {}: {}", sourceData.getSourceId(), e.getMessage(), e);
             throw new RuntimeException("Failed to save raw data for source " + sourceData.getSourceId(), e);
         }
     }
 
-    private WeatherData parseData(SourceWeatherData sourceData, RawWeatherData savedRawData) {
+    /**
+     * @return распарсенные данные или null, если payload не удалось распарсить.
+     */
+    private WeatherData parseData(SourceWeatherData sourceData) {
         try {
-            return weatherDataParser.parse(sourceData.getPayload());
+            return weatherDataParser.parse(sourceData.getSourceId(), sourceData.getPayload());
         } catch (Exception e) {
-            log.error("Failed to parse weather data for sourceId {}. Payload: '{}'. Error: {}",
-                    sourceData.getSourceId(), sourceData.getPayload(), e.getMessage(), e);
-            throw new RuntimeException("Parsing failed for source " + sourceData.getSourceId(), e);
+            log.error("Failed to parse weather data for sourceId {} (payload length {}): {}",
+                    sourceData.getSourceId(), sourceData.getPayload().length(), e.getMessage());
+            return null;
         }
     }
 
@@ -65,15 +271,18 @@ public class WeatherAdaptorService {
         normalizedData.setSourceId(sourceData.getSourceId());
         normalizedData.setTemperature(Optional.ofNullable(weatherData).map(WeatherData::getTemperature).orElse(0.0));
         normalizedData.setHumidity(Optional.ofNullable(weatherData).map(WeatherData::getHumidity).orElse(0.0));
-        normalizedData.setTimestamp(LocalDateTime.now());
+        // Тот же timestamp, что у сырых данных: связанные строки должны попасть в секции за одни сутки
+        normalizedData.setTimestamp(savedRawData.getTimestamp());
         normalizedData.setRawData(savedRawData);
         return normalizedData;
     }
 
     private void saveNormalizedData(NormalizedWeatherData normalizedData, SourceWeatherData sourceData) {
         try {
+            long startNanos = System.nanoTime();
             normalizedWeatherRepository.save(normalizedData);
-            log.info("Normalized data saved for sourceId: {} with linked rawData id: {}",
+            weatherMetrics.written("normalized", System.nanoTime() - startNanos);
+            log.debug("Normalized data saved for sourceId: {} with linked rawData id: {}",
                     sourceData.getSourceId(), normalizedData.getRawData().getId());
         } catch (Exception e) {
             log.error("Failed to save normalized data for sourceId {}: {}", sourceData.getSourceId(), e.getMessage(), e);
@@ -0,0 +1,152 @@
+package ru.grooz.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.grooz.dto.WeatherAggregateState;
+import ru.grooz.repository.WeatherAggregateRepository;
+import ru.grooz.repository.WeatherHistoryRepository;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Поддерживает бегущий агрегат (количество и суммы температуры/влажности) по всем сохраненным показаниям.
+ * Состояние хранится в памяти и дублируется в таблице weather_aggregate, поэтому средние значения
+ * вычисляются за O(1) без чтения истории. В таблице агрегат разложен на weather.aggregate.stripes строк:
+ * каждая запись инкрементирует случайную строку, поэтому параллельные пачки не выстраиваются в очередь
+ * за блокировкой одной строки, а сохраненный агрегат — сумма строк.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class WeatherAggregateService {
+
+    static final int AGGREGATE_ID = 1;
+
+    private final WeatherAggregateRepository weatherAggregateRepository;
+    private final WeatherHistoryRepository weatherHistoryRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${weather.aggregate.stripes}")
+    private int stripes;
+
+    private final AtomicReference<WeatherAggregateState> state = new AtomicReference<>(WeatherAggregateState.EMPTY);
+
+    /**
+     * Учитывает новое сохраненное показание: атомарно обновляет строку в БД, затем состояние в памяти.
+     *
+     * @param temperature Температура.
+     * @param humidity    Влажность.
+     */
+    public void record(double temperature, double humidity) {
+        record(1, temperature, humidity);
+    }
+
+    /**
+     * Учитывает пачку сохраненных показаний, заданную количеством и суммами.
+     * Если вызов выполняется внутри транзакции, строка в БД обновляется в ней же,
+     * а состояние в памяти — только после успешного коммита.
+     */
+    public void record(long count, double temperatureSum, double humiditySum) {
+        if (count == 0) {
+            return;
+        }
+        weatherAggregateRepository.increment(nextStripe(), count, temperatureSum, humiditySum);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    applyCommitted(count, temperatureSum, humiditySum);
+                }
+            });
+        } else {
+            applyCommitted(count, temperatureSum, humiditySum);
+        }
+    }
+
+    /**
+     * @return строка weather_aggregate для очередного инкремента.
+     */
+    public int nextStripe() {
+        return stripes <= 1 ? AGGREGATE_ID : AGGREGATE_ID + ThreadLocalRandom.current().nextInt(stripes);
+    }
+
+    /**
+     * Добавляет в состояние в памяти показания, которые уже зафиксированы в БД вместе со строкой агрегата.
+     */
+    public void applyCommitted(long count, double temperatureSum, double humiditySum) {
+        state.updateAndGet(current -> current.plus(count, temperatureSum, humiditySum));
+    }
+
+    /**
+     * @return текущее состояние бегущего агрегата.
+     */
+    public WeatherAggregateState current() {
+        return state.get();
+    }
+
+    /**
+     * Пересчитывает агрегат по всей истории (агрегация почасового роллапа выполняется в БД)
+     * и заменяет им состояние в памяти. Удаление полос и пересчет выполняются в одной транзакции,
+     * поэтому параллельная запись не попадает между ними; состояние в памяти заменяется только после коммита.
+     *
+     * @return пересчитанное состояние.
+     */
+    public WeatherAggregateState rebuild() {
+        WeatherAggregateState rebuilt = transactionTemplate.execute(status -> {
+            weatherAggregateRepository.deleteOtherStripes(AGGREGATE_ID);
+            weatherAggregateRepository.rebuildFromHistory(AGGREGATE_ID);
+            WeatherAggregateState sum = weatherAggregateRepository.sum();
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    state.set(sum);
+                }
+            });
+            return sum;
+        });
+        log.info("Weather aggregate rebuilt from history: {} readings", rebuilt.count());
+        return rebuilt;
+    }
+
+    /**
+     * Заменяет состояние в памяти сохраненным агрегатом. Нужно при шардировании (weather.sharding.enabled):
+     * строку weather_aggregate обновляют все экземпляры, а в памяти каждого учтены только его собственные записи.
+     *
+     * @return перечитанное состояние.
+     */
+    public WeatherAggregateState reload() {
+        WeatherAggregateState reloaded = weatherAggregateRepository.sum();
+        state.set(reloaded);
+        return reloaded;
+    }
+
+    /**
+     * Восстанавливает состояние после рестарта из сохраненного агрегата.
+     * Если количество показаний в нем не совпадает с почасовым роллапом, агрегат пересчитывается.
+     * Сверка идет с роллапом, а не с normalized_weather_data: показания удаленных секций в нем сохраняются.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void restore() {
+        WeatherAggregateState persisted = weatherAggregateRepository.sum();
+        long historyCount = weatherHistoryRepository.countAllReadings();
+
+        if (persisted.count() != historyCount) {
+            log.warn("Weather aggregate mismatch (persisted: {}, history: {}), rebuilding",
+                    persisted.count(), historyCount);
+            rebuild();
+            return;
+        }
+
+        state.set(persisted);
+        log.info("Weather aggregate restored: {} readings", persisted.count());
+    }
+}
@@ -0,0 +1,83 @@
+package ru.grooz.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import ru.grooz.dto.SourceWeatherData;
+import ru.grooz.dto.WeatherData;
+import ru.grooz.dto.WeatherDataBatch;
+import ru.grooz.model.NormalizedWeatherData;
+import ru.grooz.model.RawWeatherData;
+import ru.grooz.util.WeatherDataParser;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Построение несохраненных сущностей RawWeatherData / NormalizedWeatherData из ответов источников.
+ * Не обращается к базе, поэтому используется и {@link WeatherAdaptorService}, и бенчмарками.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class WeatherBatchPreparer {
+
+    private final WeatherDataParser weatherDataParser;
+
+    /**
+     * Строит сущности для пачки ответов: сырые данные для каждого ответа и связанные с ними
+     * нормализованные данные для ответов, которые удалось распарсить.
+     *
+     * @param batch Ответы источников.
+     * @return WeatherDataBatch с несохраненными сущностями.
+     */
+    public WeatherDataBatch prepare(List<SourceWeatherData> batch) {
+        return prepare(batch, null);
+    }
+
+    /**
+     * @param batch      Ответы источников.
+     * @param receivedAt Время получения ответов в порядке batch; null — текущее время.
+     * @see #prepare(List)
+     */
+    public WeatherDataBatch prepare(List<SourceWeatherData> batch, List<LocalDateTime> receivedAt) {
+        List<RawWeatherData> rawBatch = new ArrayList<>(batch.size());
+        List<NormalizedWeatherData> normalizedBatch = new ArrayList<>(batch.size());
+        LocalDateTime now = LocalDateTime.now();
+
+        for (int i = 0; i < batch.size(); i++) {
+            SourceWeatherData sourceData = batch.get(i);
+            RawWeatherData rawData = rawData(sourceData, receivedAt == null ? now : receivedAt.get(i));
+            rawBatch.add(rawData);
+            try {
+                WeatherData weatherData = weatherDataParser.parse(sourceData.getSourceId(), sourceData.getPayload());
+                normalizedBatch.add(normalizedData(rawData, weatherData));
+            } catch (Exception e) {
+                log.warn("Failed to parse weather data for sourceId {}: {}", sourceData.getSourceId(), e.getMessage());
+            }
+        }
+        return new WeatherDataBatch(rawBatch, normalizedBatch);
+    }
+
+    /**
+     * @return несохраненные сырые данные ответа с временем получения timestamp.
+     */
+    public RawWeatherData rawData(SourceWeatherData sourceData, LocalDateTime timestamp) {
+        RawWeatherData rawData = new RawWeatherData();
+        rawData.setSourceId(sourceData.getSourceId());
+        rawData.setPayload(sourceData.getPayload());
+        rawData.setTimestamp(timestamp);
+        return rawData;
+    }
+
+    private NormalizedWeatherData normalizedData(RawWeatherData rawData, WeatherData weatherData) {
+        NormalizedWeatherData normalizedData = new NormalizedWeatherData();
+        normalizedData.setSourceId(rawData.getSourceId());
+        normalizedData.setTemperature(weatherData.getTemperature());
+        normalizedData.setHumidity(weatherData.getHumidity());
+        normalizedData.setTimestamp(rawData.getTimestamp());
+        normalizedData.setRawData(rawData);
+        return normalizedData;
+    }
+}
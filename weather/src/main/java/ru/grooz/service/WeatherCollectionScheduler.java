@@ -0,0 +1,30 @@
+package ru.grooz.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Фоновый сбор данных по расписанию (weather.collection.mode=scheduled).
+ * Каждый цикл публикует новый снимок агрегата, из которого WeatherController отвечает клиентам.
+ */
+@Component
+@ConditionalOnProperty(name = "weather.collection.mode", havingValue = "scheduled")
+@RequiredArgsConstructor
+@Slf4j
+public class WeatherCollectionScheduler {
+
+    private final WeatherService weatherService;
+
+    @Scheduled(initialDelayString = "${weather.collection.initial-delay-ms:0}",
+            fixedDelayString = "${weather.collection.interval-ms}")
+    public void collect() {
+        try {
+            weatherService.refreshSnapshot().block();
+        } catch (Exception e) {
+            log.error("Scheduled weather collection failed: {}", e.getMessage(), e);
+        }
+    }
+}
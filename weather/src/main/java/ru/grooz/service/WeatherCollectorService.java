@@ -2,18 +2,39 @@ package ru.grooz.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.ClientResponse;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.Exceptions;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
-import reactor.core.scheduler.Schedulers;
+import reactor.core.publisher.SignalType;
+import reactor.core.scheduler.Scheduler;
 import reactor.util.retry.Retry;
 import ru.grooz.dto.SourceWeatherData;
+import ru.grooz.dto.WeatherSource;
+import ru.grooz.util.SourceCircuitBreakerRegistry;
+import ru.grooz.util.SourceLatencyTracker;
+import ru.grooz.util.SourceValidators;
+import ru.grooz.util.WeatherMetrics;
+import ru.grooz.util.WeatherMetrics.FetchOutcome;
 
 import java.time.Duration;
 import java.util.List;
-import java.util.stream.IntStream;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -22,66 +43,480 @@ public class WeatherCollectorService {
 
     private final WebClient webClient;
     private final WeatherAdaptorService weatherAdaptorService;
+    private final SourceCircuitBreakerRegistry circuitBreakers;
+    private final SourceLatencyTracker latencyTracker;
+    private final WeatherMetrics weatherMetrics;
+    private final Scheduler blockingScheduler;
+    private final ObjectProvider<WriteBehindService> writeBehindService;
+    private final ObjectProvider<SourceLeaseService> sourceLeaseService;
+    private final ObjectProvider<SourceRegistry> sourceRegistry;
+    private final WeatherAggregateService weatherAggregateService;
+    private final SourceValidators sourceValidators;
 
     @Value("${weather.sources.base-url}")
     private String baseUrl;
     @Value("${weather.sources.count}")
     private int sourceCount;
+    @Value("${weather.sources.fetch-concurrency}")
+    private int fetchConcurrency;
+    @Value("${weather.sources.processing-concurrency}")
+    private int processingConcurrency;
+    @Value("${weather.sources.deadline-ms}")
+    private long deadlineMs;
     @Value("${weather.sources.retry.max-attempts}")
     private long retryMaxAttempts;
-    @Value("${weather.sources.retry.delay-seconds}")
-    private long retryDelaySeconds;
+    @Value("${weather.sources.retry.min-backoff-ms}")
+    private long retryMinBackoffMs;
+    @Value("${weather.sources.retry.max-backoff-ms}")
+    private long retryMaxBackoffMs;
+    @Value("${weather.sources.retry.jitter}")
+    private double retryJitter;
+    @Value("${weather.sources.batch-fetch.enabled}")
+    private boolean batchFetchEnabled;
+    @Value("${weather.sources.batch-fetch.url}")
+    private String batchFetchUrl;
+    @Value("${weather.sources.batch-fetch.chunk-size}")
+    private int batchFetchChunkSize;
+    @Value("${weather.sources.hedging.enabled}")
+    private boolean hedgingEnabled;
+    @Value("${weather.sources.hedging.percentile}")
+    private double hedgingPercentile;
+    @Value("${weather.sources.hedging.max-ratio}")
+    private double hedgingMaxRatio;
+    @Value("${weather.sources.hedging.min-delay-ms}")
+    private long hedgingMinDelayMs;
+    @Value("${weather.sources.registry.enabled}")
+    private boolean registryEnabled;
+    @Value("${weather.sources.conditional-fetch.enabled}")
+    private boolean conditionalFetchEnabled;
+    @Value("${weather.persistence.mode}")
+    private PersistenceMode persistenceMode;
+    @Value("${weather.persistence.batch.enabled}")
+    private boolean batchEnabled;
+    @Value("${weather.persistence.batch.size}")
+    private int batchSize;
+    @Value("${weather.persistence.batch.window-ms}")
+    private long batchWindowMs;
+    @Value("${weather.sharding.enabled}")
+    private boolean shardingEnabled;
+    @Value("${weather.persistence.write-behind.enabled}")
+    private boolean writeBehindEnabled;
+    @Value("${weather.persistence.blocking-scheduler}")
+    private BlockingSchedulerMode blockingSchedulerMode;
+    @Value("${spring.datasource.hikari.maximum-pool-size}")
+    private int dbPoolSize;
 
     /**
      * Собирает и обрабатывает данные о погоде со всех сконфигурированных источников.
      * Запускает асинхронные запросы, обрабатывает ошибки и сохраняет данные.
+     * При включенном батчинге (weather.persistence.batch.enabled) ответы накапливаются
+     * до batch.size штук или batch.window-ms и сохраняются пачкой в одной транзакции.
+     * В режиме weather.persistence.mode=r2dbc запись выполняется без блокирующего пула потоков.
+     * В режиме weather.persistence.write-behind пачки дописываются в локальный WAL, а цикл в конце один раз
+     * дожидается сохранения своих показаний в базе (см. {@link WriteBehindService}).
+     * Одновременно выполняется не более fetch-concurrency запросов к источникам
+     * и не более processing-concurrency операций сохранения (с виртуальными потоками — не более размера пула
+     * соединений, см. {@link #processingConcurrency()}).
+     * При weather.sources.batch-fetch.enabled источники запрашиваются пачками по chunk-size
+     * через потоковый batch-эндпоинт (см. {@link #fetchChunks(CollectionProgress)}).
+     * При weather.sharding.enabled собираются только источники шардов, аренды которых держит экземпляр
+     * (см. {@link SourceLeaseService}).
+     * При weather.sources.registry.enabled собираются включенные источники реестра по убыванию приоритета
+     * (см. {@link SourceRegistry}).
+     * При weather.sources.conditional-fetch.enabled неизменившиеся показания (ответ 304 или тот же payload,
+     * что и в последнем сохраненном ответе) не разбираются и не сохраняются (см. {@link #isChanged}).
      *
      * @return Mono<Void>, сигнализирующий о завершении процесса.
      */
     public Mono<Void> collectAndProcessAllWeatherData() {
-        List<Mono<SourceWeatherData>> sourceRequests = IntStream.range(1, sourceCount + 1)
-                .mapToObj(this::buildSourceRequest)
-                .toList();
+        return collectAndProcessAllWeatherData(newProgress());
+    }
+
+    /**
+     * То же, что {@link #collectAndProcessAllWeatherData()}, но с отчетом о прогрессе:
+     * по мере сохранения ответов и ошибок источников обновляются счетчики progress.
+     *
+     * @param progress Прогресс цикла, созданный {@link #newProgress()}.
+     * @return Mono<Void>, сигнализирующий о завершении процесса.
+     */
+    public Mono<Void> collectAndProcessAllWeatherData(CollectionProgress progress) {
+        if (!shardingEnabled) {
+            return collectAndProcess(progress);
+        }
+        // Строку агрегата обновляют все экземпляры, поэтому после цикла состояние перечитывается из базы
+        return collectAndProcess(progress)
+                .then(Mono.fromRunnable(weatherAggregateService::reload).subscribeOn(blockingScheduler))
+                .then()
+                .doFinally(signal -> sourceLeaseService.getObject().end(progress.assignment()));
+    }
+
+    private Mono<Void> collectAndProcess(CollectionProgress progress) {
+        Flux<SourceWeatherData> fetched = batchFetchEnabled && progress.sources() == null
+                ? fetchChunks(progress)
+                : fetchEachSource(progress);
+        return persist(fetched, progress);
+    }
+
+    /**
+     * Непрерывный опрос источников реестра (weather.collection.mode=polling, см. {@link SourcePollScheduler}):
+     * каждый источник из dueSources запрашивается, как в цикле сбора, а ответы сохраняются тем же конвейером
+     * записи. Одновременно выполняется не более fetch-concurrency запросов, поэтому следующий источник
+     * запрашивается у dueSources только по завершении одного из текущих. Хеджирование не применяется:
+     * его бюджет рассчитан на цикл, а у опроса циклов нет.
+     *
+     * @param dueSources Источники, которым пора опроситься.
+     * @param polled     Вызывается по завершении запроса к источнику (успешного или нет).
+     * @return Mono<Void>, завершающийся вместе с dueSources.
+     */
+    public Mono<Void> pollSources(Flux<WeatherSource> dueSources, Consumer<WeatherSource> polled) {
+        SourceRegistry registry = sourceRegistry.getObject();
+        // Счетчики прогресса опросу не нужны: у него нет цикла, который мог бы их прочитать
+        CollectionProgress progress = new CollectionProgress(0);
+        AtomicInteger noHedging = new AtomicInteger();
+        Flux<SourceWeatherData> fetched = dueSources
+                .flatMap(source -> buildSourceRequest(source.sourceId(), registry.urlOf(source), noHedging, progress)
+                        .doFinally(signal -> polled.accept(source)), fetchConcurrency);
+        return persist(fetched, progress);
+    }
+
+    /**
+     * Отсеивает неизменившиеся показания и сохраняет ответы источников конвейером записи,
+     * выбранным конфигурацией (write-behind, R2DBC, пачки или по одному).
+     */
+    private Mono<Void> persist(Flux<SourceWeatherData> fetched, CollectionProgress progress) {
+        Flux<SourceWeatherData> responses = conditionalFetchEnabled
+                ? fetched.filter(sourceData -> isChanged(sourceData, progress))
+                : fetched;
 
-        return Flux.merge(sourceRequests)
-                .flatMap(this::processSourceResponse)
+        if (writeBehindEnabled) {
+            WriteBehindService writeBehind = writeBehindService.getObject();
+            AtomicLong lastLsn = new AtomicLong();
+            return batches(responses)
+                    .flatMap(batch -> enqueueSourceBatch(writeBehind, batch, progress, lastLsn), processingConcurrency())
+                    .then(Mono.defer(() -> lastLsn.get() == 0 ? Mono.empty() : writeBehind.awaitFlushed(lastLsn.get())));
+        }
+        if (persistenceMode == PersistenceMode.R2DBC) {
+            return batches(responses)
+                    .flatMap(batch -> processSourceBatchReactive(batch, progress), processingConcurrency())
+                    .then();
+        }
+        if (batchEnabled) {
+            return batches(responses)
+                    .flatMap(batch -> processSourceBatch(batch, progress), processingConcurrency())
+                    .then();
+        }
+        return responses
+                .flatMap(sourceData -> processSourceResponse(sourceData, progress), processingConcurrency())
                 .then();
     }
 
+    /**
+     * Отсеивает ответы, показание которых не изменилось с последнего сохраненного: 304 Not Modified
+     * на условный запрос или, для источников без валидаторов, совпадение хэша payload.
+     * Такие источники считаются учтенными в цикле: их последнее показание уже сохранено.
+     */
+    private boolean isChanged(SourceWeatherData sourceData, CollectionProgress progress) {
+        boolean notModified = sourceData.isNotModified();
+        if (!notModified && !sourceValidators.isDuplicate(sourceData)) {
+            return true;
+        }
+        // Валидаторы ответа с тем же payload могли смениться
+        sourceValidators.stored(sourceData);
+        progress.sourcesIncluded(1);
+        weatherMetrics.sourceUnchanged(notModified);
+        log.debug("Source {} reading is unchanged, skipping", sourceData.getSourceId());
+        return false;
+    }
+
+    /**
+     * Запоминает валидаторы ответов, показания которых сохранены.
+     */
+    private void markStored(List<SourceWeatherData> batch) {
+        if (conditionalFetchEnabled) {
+            batch.forEach(sourceValidators::stored);
+        }
+    }
+
+    /**
+     * Количество одновременных операций сохранения. Для boundedElastic — processing-concurrency,
+     * чтобы не занимать весь ограниченный пул потоков; с виртуальными потоками поток не ресурс,
+     * и единственным ограничением остается пул соединений с БД.
+     */
+    private int processingConcurrency() {
+        return blockingSchedulerMode == BlockingSchedulerMode.VIRTUAL ? dbPoolSize : processingConcurrency;
+    }
+
+    private Flux<SourceWeatherData> fetchEachSource(CollectionProgress progress) {
+        AtomicInteger hedgeBudget = new AtomicInteger((int) Math.ceil(progress.totalSources() * hedgingMaxRatio));
+        if (progress.sources() != null) {
+            SourceRegistry registry = sourceRegistry.getObject();
+            return Flux.fromIterable(progress.sources())
+                    .flatMap(source -> buildSourceRequest(source.sourceId(), registry.urlOf(source),
+                            hedgeBudget, progress), fetchConcurrency);
+        }
+        return Flux.fromIterable(progress.assignment().ranges())
+                .concatMap(range -> Flux.range(range.from(), range.size()))
+                .flatMap(sourceId -> buildSourceRequest(sourceId, baseUrl + sourceId, hedgeBudget, progress),
+                        fetchConcurrency);
+    }
+
+    /**
+     * Запрашивает источники пачками по chunk-size: один HTTP-обмен на пачку вместо одного на источник.
+     * Ответ читается как NDJSON-поток, и каждый элемент передается дальше по конвейеру сразу после получения,
+     * без буферизации всего тела. Пачка ограничена дедлайном deadline-ms; повтор выполняется, только если
+     * от пачки еще не пришло ни одного элемента, иначе источники были бы сохранены дважды.
+     * Не полученные источники пачки учитываются как неудачные. Выключатели и хеджирование
+     * работают на уровне отдельного источника и в этом режиме не применяются.
+     *
+     * @param progress Прогресс цикла.
+     * @return Flux ответов источников в порядке поступления.
+     */
+    private Flux<SourceWeatherData> fetchChunks(CollectionProgress progress) {
+        return Flux.fromIterable(progress.assignment().ranges())
+                .concatMap(range -> Flux.range(0, (range.size() + batchFetchChunkSize - 1) / batchFetchChunkSize)
+                        .map(chunk -> {
+                            int from = range.from() + chunk * batchFetchChunkSize;
+                            return new SourceAssignment.Range(from, Math.min(from + batchFetchChunkSize - 1, range.to()));
+                        }))
+                .flatMap(chunk -> fetchChunk(chunk.from(), chunk.to(), progress), fetchConcurrency);
+    }
+
+    private Flux<SourceWeatherData> fetchChunk(int from, int to, CollectionProgress progress) {
+        AtomicInteger received = new AtomicInteger();
+        long deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(deadlineMs);
+        return webClient.get()
+                .uri(batchFetchUrl + "?from={from}&to={to}", from, to)
+                .accept(MediaType.APPLICATION_NDJSON)
+                .retrieve()
+                .bodyToFlux(SourceWeatherData.class)
+                .doOnNext(sourceData -> received.incrementAndGet())
+                .retryWhen(retryPolicy(from + ".." + to, deadlineNanos, () -> received.get() == 0))
+                .take(Duration.ofMillis(deadlineMs))
+                .onErrorResume(e -> {
+                    log.error("Failed to fetch sources {}..{}: {}", from, to, e.getMessage());
+                    return Mono.empty();
+                })
+                .doOnComplete(() -> {
+                    int missing = to - from + 1 - received.get();
+                    if (missing > 0) {
+                        log.warn("Sources {}..{}: {} of {} not received", from, to, missing, to - from + 1);
+                        progress.sourcesFailed(missing);
+                        weatherMetrics.sourcesMissing(missing);
+                    }
+                });
+    }
+
+    /**
+     * @return пустой прогресс для цикла по всем сконфигурированным источникам (включенным источникам реестра)
+     * или, при шардировании, по источникам шардов этого экземпляра. Шарды остаются занятыми циклом до завершения
+     * {@link #collectAndProcessAllWeatherData(CollectionProgress)}, поэтому прогресс нужно передать в сбор.
+     */
+    public CollectionProgress newProgress() {
+        if (registryEnabled) {
+            return new CollectionProgress(sourceRegistry.getObject().enabledSources());
+        }
+        if (shardingEnabled) {
+            return new CollectionProgress(sourceLeaseService.getObject().begin());
+        }
+        return new CollectionProgress(sourceCount);
+    }
+
     /**
      * Создает Mono<String> для запроса данных от конкретного источника.
      * Включает логику ретрая и обработки ошибок на уровне сетевого запроса.
+     * Источники с открытым выключателем пропускаются без запроса; весь запрос вместе с ретраями
+     * ограничен дедлайном weather.sources.deadline-ms.
      *
-     * @param sourceId Идентификатор источника данных.
+     * @param sourceId    Идентификатор источника данных.
+     * @param url         Адрес источника.
+     * @param hedgeBudget Оставшееся в текущем цикле количество хеджирующих запросов.
+     * @param progress    Прогресс цикла.
      * @return Mono<String> с payload данных от источника, или Mono.empty() в случае неисправимой ошибки.
      */
-    private Mono<SourceWeatherData> buildSourceRequest(int sourceId) {
-        return fetchWeatherData(sourceId)
-                .retryWhen(Retry.fixedDelay(retryMaxAttempts, Duration.ofSeconds(retryDelaySeconds))
-                        .doBeforeRetry(retrySignal ->
-                                log.warn("Retrying source {} due to error: {}",
-                                        sourceId,
-                                        retrySignal.failure().getMessage()))
-                        // Исключаем повторные попытки для ошибок парсинга (если IllegalArgumentException)
-                        .filter(throwable -> !(throwable instanceof IllegalArgumentException)))
+    private Mono<SourceWeatherData> buildSourceRequest(int sourceId, String url, AtomicInteger hedgeBudget,
+                                                       CollectionProgress progress) {
+        if (!circuitBreakers.tryAcquire(sourceId)) {
+            log.debug("Skipping source {}: circuit breaker is open", sourceId);
+            progress.sourcesFailed(1);
+            weatherMetrics.sourcesSkipped(1);
+            return Mono.empty();
+        }
+
+        return Mono.defer(() -> {
+                    long deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(deadlineMs);
+                    return fetchHedged(sourceId, url, hedgeBudget)
+                            .retryWhen(retryPolicy(String.valueOf(sourceId), deadlineNanos, () -> true))
+                            .timeout(Duration.ofMillis(deadlineMs));
+                })
+                // Ответ без тела не дал показания: для выключателя и прогресса это такая же неудача, как ошибка
+                .switchIfEmpty(Mono.error(() -> new IllegalStateException("Empty response")))
+                .doOnNext(sourceData -> circuitBreakers.onSuccess(sourceId))
                 .onErrorResume(e -> {
-                    log.error("Failed to fetch data from source {}: {}", sourceId, e.getMessage());
+                    circuitBreakers.onFailure(sourceId);
+                    progress.sourcesFailed(1);
+                    weatherMetrics.sourcesFailed(1);
+                    log.error("Failed to fetch data from source {}: {}", sourceId, describe(e));
                     return Mono.empty();
+                })
+                // Отмененный запрос не дал исхода: пробный запрос полуоткрытого выключателя освобождается
+                .doFinally(signal -> {
+                    if (signal == SignalType.CANCEL) {
+                        circuitBreakers.release(sourceId);
+                    }
+                });
+    }
+
+    /**
+     * @return сообщения всех причин ошибки, в том числе каждого из упавших хеджированных запросов.
+     */
+    private static String describe(Throwable error) {
+        return Exceptions.unwrapMultiple(error).stream()
+                .map(Throwable::getMessage)
+                .collect(Collectors.joining("; "));
+    }
+
+    /**
+     * Экспоненциальный ретрай с джиттером. Повтор не выполняется, если до дедлайна запроса
+     * не остается даже минимальной паузы.
+     *
+     * @param sources       Источник или диапазон источников для логов, например "7" или "1..100".
+     * @param deadlineNanos Дедлайн запроса по System.nanoTime().
+     * @param retryable     Дополнительное условие, при котором повтор допустим.
+     */
+    private Retry retryPolicy(String sources, long deadlineNanos, BooleanSupplier retryable) {
+        long minBackoffNanos = TimeUnit.MILLISECONDS.toNanos(retryMinBackoffMs);
+        return Retry.backoff(retryMaxAttempts, Duration.ofMillis(retryMinBackoffMs))
+                .maxBackoff(Duration.ofMillis(retryMaxBackoffMs))
+                .jitter(retryJitter)
+                // Исключаем повторные попытки для ошибок парсинга (если IllegalArgumentException)
+                .filter(throwable -> !(throwable instanceof IllegalArgumentException)
+                        && retryable.getAsBoolean()
+                        && deadlineNanos - System.nanoTime() > minBackoffNanos)
+                .doBeforeRetry(retrySignal -> {
+                    weatherMetrics.sourceRetried();
+                    log.warn("Retrying source {} due to error: {}",
+                            sources,
+                            retrySignal.failure().getMessage());
                 });
     }
 
+    /**
+     * Запрос к источнику с хеджированием: если ответ не пришел за время, превышающее
+     * заданный перцентиль задержек этого источника (по умолчанию p95), отправляется дубликат запроса
+     * и используется первый успешный ответ. Количество дубликатов за цикл ограничено
+     * долей hedging.max-ratio от числа источников; без накопленной статистики хеджирование не применяется.
+     *
+     * @param sourceId    Идентификатор источника.
+     * @param url         Адрес источника.
+     * @param hedgeBudget Оставшееся в текущем цикле количество хеджирующих запросов.
+     */
+    private Mono<SourceWeatherData> fetchHedged(int sourceId, String url, AtomicInteger hedgeBudget) {
+        Mono<SourceWeatherData> primary = fetchTimed(sourceId, url);
+        if (!hedgingEnabled) {
+            return primary;
+        }
+        Duration percentile = latencyTracker.percentile(sourceId, hedgingPercentile);
+        if (percentile == null) {
+            return primary;
+        }
+
+        Duration hedgeDelay = percentile.compareTo(Duration.ofMillis(hedgingMinDelayMs)) < 0
+                ? Duration.ofMillis(hedgingMinDelayMs)
+                : percentile;
+        Mono<SourceWeatherData> hedge = Mono.delay(hedgeDelay)
+                .then(Mono.defer(() -> {
+                    if (hedgeBudget.getAndDecrement() <= 0) {
+                        return Mono.empty();
+                    }
+                    log.debug("Hedging request to source {} after {} ms", sourceId, hedgeDelay.toMillis());
+                    return fetchTimed(sourceId, url);
+                }));
+        return Mono.defer(() -> {
+            // Если не ответил ни один запрос, в ошибке должны остаться причины обоих, а не только последнего
+            Queue<Throwable> errors = new ConcurrentLinkedQueue<>();
+            return Mono.firstWithValue(primary.doOnError(errors::add), hedge.doOnError(errors::add))
+                    .onErrorMap(e -> errors.isEmpty() ? e
+                            : errors.size() == 1 ? errors.peek()
+                            : Exceptions.multiple(errors));
+        });
+    }
+
+    /**
+     * Запрос к источнику с записью задержки успешного ответа в {@link SourceLatencyTracker}
+     * и задержки каждой попытки в {@link WeatherMetrics}.
+     * Время отсчитывается заново при каждой подписке, в том числе при ретраях.
+     */
+    private Mono<SourceWeatherData> fetchTimed(int sourceId, String url) {
+        Mono<SourceWeatherData> request = fetchWeatherData(sourceId, url);
+        return Mono.defer(() -> {
+            long startNanos = System.nanoTime();
+            AtomicBoolean settled = new AtomicBoolean();
+            return request
+                    .doOnNext(sourceData -> {
+                        if (settled.compareAndSet(false, true)) {
+                            long elapsedNanos = System.nanoTime() - startNanos;
+                            latencyTracker.record(sourceId, TimeUnit.NANOSECONDS.toMillis(elapsedNanos));
+                            weatherMetrics.sourceFetched(elapsedNanos, FetchOutcome.SUCCESS);
+                        }
+                    })
+                    .doOnError(e -> {
+                        if (settled.compareAndSet(false, true)) {
+                            weatherMetrics.sourceFetched(System.nanoTime() - startNanos, FetchOutcome.ERROR);
+                        }
+                    })
+                    // Проигравший хеджирующий запрос или запрос, прерванный дедлайном цикла
+                    .doOnCancel(() -> {
+                        if (settled.compareAndSet(false, true)) {
+                            weatherMetrics.sourceFetched(System.nanoTime() - startNanos, FetchOutcome.CANCELLED);
+                        }
+                    });
+        });
+    }
+
     /**
      * Выполняет HTTP-запрос к указанному источнику данных.
+     * При weather.sources.conditional-fetch.enabled запрос условный: с If-None-Match и If-Modified-Since
+     * из последнего сохраненного ответа источника, а ответ 304 возвращается как
+     * {@link SourceWeatherData#notModified(int)} без тела.
      *
      * @param sourceId Идентификатор источника.
+     * @param url      Адрес источника.
      * @return Mono<String> содержащий ID источника и его payload (например, "1::json_payload").
      */
-    private Mono<SourceWeatherData> fetchWeatherData(int sourceId) {
+    private Mono<SourceWeatherData> fetchWeatherData(int sourceId, String url) {
+        if (!conditionalFetchEnabled) {
+            return webClient.get()
+                    .uri(url)
+                    .retrieve()
+                    .bodyToMono(String.class)
+                    .map(payload -> new SourceWeatherData(sourceId, payload));
+        }
+
+        SourceValidators.Validators known = sourceValidators.get(sourceId);
         return webClient.get()
-                .uri(baseUrl + sourceId)
-                .retrieve()
-                .bodyToMono(String.class)
-                .map(payload -> new SourceWeatherData(sourceId, payload));
+                .uri(url)
+                .headers(headers -> {
+                    if (known != null && known.eTag() != null) {
+                        headers.setIfNoneMatch(known.eTag());
+                    }
+                    if (known != null && known.lastModified() != null) {
+                        headers.set(HttpHeaders.IF_MODIFIED_SINCE, known.lastModified());
+                    }
+                })
+                .exchangeToMono(response -> conditionalResponse(sourceId, response));
+    }
+
+    private static Mono<SourceWeatherData> conditionalResponse(int sourceId, ClientResponse response) {
+        if (response.statusCode().value() == HttpStatus.NOT_MODIFIED.value()) {
+            return response.releaseBody().thenReturn(SourceWeatherData.notModified(sourceId));
+        }
+        if (response.statusCode().isError()) {
+            return response.createError();
+        }
+        HttpHeaders headers = response.headers().asHttpHeaders();
+        return response.bodyToMono(String.class)
+                .map(payload -> new SourceWeatherData(sourceId, payload,
+                        headers.getETag(), headers.getFirst(HttpHeaders.LAST_MODIFIED)));
     }
 
     /**
@@ -90,23 +525,119 @@ public class WeatherCollectorService {
      * Эта операция выполняется на отдельном пуле потоков, чтобы не блокировать реактивный евент луп.
      *
      * @param sourceData Объект, содержащий id источника и payload, разделенные "::".
+     * @param progress   Прогресс цикла.
      * @return Mono<Void>, сигнализирующий о завершении обработки данного ответа.
      */
-    private Mono<Void> processSourceResponse(SourceWeatherData sourceData) {
+    private Mono<Void> processSourceResponse(SourceWeatherData sourceData, CollectionProgress progress) {
         int sourceId = sourceData.getSourceId();
 
         return Mono.fromRunnable(() -> {
                     try {
-                        weatherAdaptorService.processAndSaveWeatherData(sourceData);
+                        boolean parsed = weatherAdaptorService.processAndSaveWeatherData(sourceData);
+                        markStored(List.of(sourceData));
+                        countSaved(1, parsed ? 1 : 0, progress);
                     } catch (Exception e) {
+                        progress.sourcesFailed(1);
                         log.error("Failed to process and save data for source {}: {}", sourceId, e.getMessage());
                     }
                 })
-                .subscribeOn(Schedulers.boundedElastic())
+                .subscribeOn(blockingScheduler)
                 .onErrorResume(e -> {
                     log.error("Error during processing and saving data for source {}: {}", sourceId, e.getMessage());
                     return Mono.empty();
                 })
                 .then();
     }
-}
\ No newline at end of file
+
+    /**
+     * Сохраняет пачку ответов источников одной транзакцией на отдельном пуле потоков.
+     *
+     * @param batch    Ответы источников, накопленные за окно батчинга.
+     * @param progress Прогресс цикла.
+     * @return Mono<Void>, сигнализирующий о завершении сохранения пачки.
+     */
+    private Mono<Void> processSourceBatch(List<SourceWeatherData> batch, CollectionProgress progress) {
+        return Mono.fromCallable(() -> weatherAdaptorService.processAndSaveWeatherDataBatch(batch))
+                .subscribeOn(blockingScheduler)
+                .doOnNext(parsed -> {
+                    markStored(batch);
+                    countSaved(batch.size(), parsed, progress);
+                })
+                .onErrorResume(e -> {
+                    progress.sourcesFailed(batch.size());
+                    log.error("Failed to process and save batch of {} source responses: {}", batch.size(), e.getMessage());
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    /**
+     * Сохраняет пачку ответов через R2DBC, не покидая реактивную цепочку.
+     *
+     * @param batch    Ответы источников.
+     * @param progress Прогресс цикла.
+     * @return Mono<Void>, сигнализирующий о завершении сохранения пачки.
+     */
+    private Mono<Void> processSourceBatchReactive(List<SourceWeatherData> batch, CollectionProgress progress) {
+        return weatherAdaptorService.processAndSaveWeatherDataReactive(batch)
+                .doOnNext(parsed -> {
+                    markStored(batch);
+                    countSaved(batch.size(), parsed, progress);
+                })
+                .onErrorResume(e -> {
+                    progress.sourcesFailed(batch.size());
+                    log.error("Failed to process and save batch of {} source responses: {}", batch.size(), e.getMessage());
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    /**
+     * Учитывает сохраненную пачку в прогрессе цикла: ответы, которые не удалось распарсить,
+     * сохранены только в сыром виде и в показания цикла не попали, поэтому считаются неудачными.
+     *
+     * @param batchSize Число ответов в пачке.
+     * @param parsed    Число ответов, сохраненных в виде нормализованных показаний.
+     * @param progress  Прогресс цикла.
+     */
+    private void countSaved(int batchSize, int parsed, CollectionProgress progress) {
+        progress.sourcesIncluded(parsed);
+        if (parsed < batchSize) {
+            progress.sourcesFailed(batchSize - parsed);
+        }
+    }
+
+    /**
+     * Дописывает пачку ответов в WAL и очередь write-behind. Вызов может заблокироваться на заполненной очереди,
+     * поэтому выполняется на пуле для блокирующей работы.
+     *
+     * @param writeBehind Сервис write-behind.
+     * @param batch       Ответы источников.
+     * @param progress    Прогресс цикла.
+     * @param lastLsn     Наибольшая позиция WAL среди пачек цикла.
+     * @return Mono<Void>, завершающийся после записи пачки в WAL.
+     */
+    private Mono<Void> enqueueSourceBatch(WriteBehindService writeBehind, List<SourceWeatherData> batch,
+                                          CollectionProgress progress, AtomicLong lastLsn) {
+        return Mono.fromCallable(() -> writeBehind.enqueue(batch))
+                .subscribeOn(blockingScheduler)
+                .doOnNext(lsn -> {
+                    lastLsn.accumulateAndGet(lsn, Math::max);
+                    markStored(batch);
+                    progress.sourcesIncluded(batch.size());
+                })
+                .onErrorResume(e -> {
+                    progress.sourcesFailed(batch.size());
+                    log.error("Failed to write batch of {} source responses to the WAL: {}", batch.size(), e.getMessage());
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    private Flux<List<SourceWeatherData>> batches(Flux<SourceWeatherData> responses) {
+        if (batchEnabled) {
+            return responses.bufferTimeout(batchSize, Duration.ofMillis(batchWindowMs));
+        }
+        return responses.map(List::of);
+    }
+}
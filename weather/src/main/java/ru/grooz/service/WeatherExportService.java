@@ -0,0 +1,81 @@
+package ru.grooz.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Scheduler;
+import ru.grooz.dto.ExportFormat;
+import ru.grooz.dto.ExportTable;
+import ru.grooz.repository.WeatherExportRepository;
+import ru.grooz.util.WeatherMetrics;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Выгрузка истории (/weather/export) для аналитики. Каждая выгрузка держит соединение пула на все время
+ * передачи, поэтому одновременных выгрузок не больше weather.export.max-concurrent: остальные соединения
+ * остаются сбору и запросам агрегатов.
+ */
+@Service
+@Slf4j
+public class WeatherExportService {
+
+    private final WeatherExportRepository weatherExportRepository;
+    private final WeatherMetrics weatherMetrics;
+    private final Scheduler blockingScheduler;
+    private final Semaphore exports;
+
+    public WeatherExportService(WeatherExportRepository weatherExportRepository,
+                                WeatherMetrics weatherMetrics,
+                                Scheduler blockingScheduler,
+                                @Value("${weather.export.max-concurrent}") int maxConcurrent) {
+        this.weatherExportRepository = weatherExportRepository;
+        this.weatherMetrics = weatherMetrics;
+        this.blockingScheduler = blockingScheduler;
+        this.exports = new Semaphore(maxConcurrent);
+    }
+
+    /**
+     * Выгрузка показаний за интервал [from, to) фрагментами текста в формате format.
+     * Курсор читается и закрывается на планировщике блокирующей работы, читается только по запросу подписчика.
+     *
+     * @param sourceId Источник или null для всех источников.
+     * @return Flux фрагментов, ошибка IllegalArgumentException при некорректном интервале
+     * или {@link ExportLimitExceededException}, если уже выполняется weather.export.max-concurrent выгрузок.
+     */
+    public Flux<String> export(ExportTable table,
+                               ExportFormat format,
+                               LocalDateTime from,
+                               LocalDateTime to,
+                               Integer sourceId) {
+        return Flux.defer(() -> {
+            if (!from.isBefore(to)) {
+                return Flux.error(new IllegalArgumentException("'from' must be before 'to'"));
+            }
+            if (!exports.tryAcquire()) {
+                return Flux.error(new ExportLimitExceededException());
+            }
+            long startNanos = System.nanoTime();
+            return weatherExportRepository.export(table, format, from, to, sourceId, rows -> {
+                        weatherMetrics.aggregated("export", System.nanoTime() - startNanos, rows);
+                        log.info("Exported {} {} rows for [{}, {})", rows, table.label(), from, to);
+                    })
+                    .subscribeOn(blockingScheduler)
+                    // Отмена (клиент закрыл соединение) закрывает курсор: rollback и close не выполняются на потоке Netty
+                    .cancelOn(blockingScheduler)
+                    .doFinally(signal -> exports.release());
+        });
+    }
+
+    /**
+     * Уже выполняется weather.export.max-concurrent выгрузок.
+     */
+    public static final class ExportLimitExceededException extends RuntimeException {
+
+        public ExportLimitExceededException() {
+            super("Too many concurrent exports");
+        }
+    }
+}
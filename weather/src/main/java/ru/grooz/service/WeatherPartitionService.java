@@ -0,0 +1,82 @@
+package ru.grooz.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import ru.grooz.repository.WeatherPartitionRepository;
+import ru.grooz.repository.WeatherPartitionRepository.TablePartition;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+import static ru.grooz.repository.WeatherPartitionRepository.NORMALIZED_TABLE;
+import static ru.grooz.repository.WeatherPartitionRepository.RAW_TABLE;
+
+/**
+ * Создание суточных секций raw_weather_data и normalized_weather_data. Работает всегда, независимо
+ * от weather.retention.enabled: секции создаются на days-ahead суток вперед, поэтому новые строки
+ * не попадают в секцию DEFAULT. Удаление старых секций выполняет {@link WeatherRetentionService}.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class WeatherPartitionService {
+
+    private final WeatherPartitionRepository weatherPartitionRepository;
+
+    @Value("${weather.partitions.days-ahead}")
+    private int daysAhead;
+
+    @Scheduled(initialDelayString = "${weather.partitions.initial-delay-ms:0}",
+            fixedDelayString = "${weather.partitions.interval-ms}")
+    public void maintain() {
+        try {
+            createUpcomingPartitions(LocalDate.now());
+        } catch (Exception e) {
+            log.error("Weather partition creation failed: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Создает недостающие суточные секции с today по today + days-ahead, а также секции за сутки, строки которых
+     * попали в секцию DEFAULT (например, показания с далекой меткой времени): строки переносятся в суточную секцию,
+     * поэтому DEFAULT не накапливает данные и они удаляются по keep-days вместе с остальными секциями.
+     * Сутки, уже покрытые какой-либо секцией (например, _legacy), пропускаются.
+     */
+    void createUpcomingPartitions(LocalDate today) {
+        for (String table : List.of(RAW_TABLE, NORMALIZED_TABLE)) {
+            List<TablePartition> partitions = weatherPartitionRepository.findPartitions(table);
+            TablePartition defaultPartition = partitions.stream()
+                    .filter(TablePartition::isDefault)
+                    .findFirst()
+                    .orElse(null);
+
+            SortedSet<LocalDate> days = new TreeSet<>();
+            if (defaultPartition != null) {
+                days.addAll(weatherPartitionRepository.findDefaultPartitionDays(defaultPartition));
+            }
+            for (LocalDate day = today; !day.isAfter(today.plusDays(daysAhead)); day = day.plusDays(1)) {
+                days.add(day);
+            }
+
+            for (LocalDate day : days) {
+                LocalDateTime from = day.atStartOfDay();
+                LocalDateTime to = from.plusDays(1);
+                if (partitions.stream().anyMatch(partition -> partition.overlaps(from, to))) {
+                    continue;
+                }
+                try {
+                    String created = weatherPartitionRepository.createDailyPartition(table, day, defaultPartition);
+                    log.info("Created partition {}", created);
+                } catch (Exception e) {
+                    log.error("Failed to create partition of {} for {}: {}", table, day, e.getMessage());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package ru.grooz.service;
+
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import ru.grooz.dto.WeatherReading;
+import ru.grooz.model.NormalizedWeatherData;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Горячий поток сохраненных показаний для /weather/stream.
+ * Адаптер публикует показания после коммита, одновременно с обновлением бегущего агрегата в памяти,
+ * поэтому подписчик видит агрегат, уже учитывающий полученные показания.
+ * Подписчики делят один multicast-поток; медленный подписчик пропускает события
+ * (directBestEffort), но не задерживает запись показаний.
+ */
+@Component
+public class WeatherReadingPublisher {
+
+    private final Sinks.Many<List<WeatherReading>> sink = Sinks.many().multicast().directBestEffort();
+
+    /**
+     * Публикует сохраненные показания. Без подписчиков ничего не делает.
+     */
+    public void publish(List<NormalizedWeatherData> saved) {
+        if (saved.isEmpty() || sink.currentSubscriberCount() == 0) {
+            return;
+        }
+        List<WeatherReading> readings = new ArrayList<>(saved.size());
+        for (NormalizedWeatherData data : saved) {
+            readings.add(WeatherReading.of(data));
+        }
+        // Показания сохраняются параллельно, а Sinks.Many требует последовательных вызовов emit
+        synchronized (sink) {
+            sink.tryEmitNext(readings);
+        }
+    }
+
+    /**
+     * @return поток пачек показаний, сохраненных после подписки.
+     */
+    public Flux<List<WeatherReading>> readings() {
+        return sink.asFlux();
+    }
+}
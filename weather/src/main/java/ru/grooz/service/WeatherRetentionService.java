@@ -0,0 +1,90 @@
+package ru.grooz.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import ru.grooz.repository.WeatherPartitionRepository;
+import ru.grooz.repository.WeatherPayloadRepository;
+import ru.grooz.repository.WeatherPartitionRepository.TablePartition;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+import static ru.grooz.repository.WeatherPartitionRepository.NORMALIZED_TABLE;
+import static ru.grooz.repository.WeatherPartitionRepository.RAW_TABLE;
+
+/**
+ * Удаление суточных секций raw_weather_data и normalized_weather_data (weather.retention.enabled):
+ * секции, целиком вышедшие за keep-days, удаляются командой DROP TABLE вместо построчного удаления. В режиме compaction нормализованные данные удаляемых
+ * секций предварительно сжимаются в почасовой роллап. Секции создает {@link WeatherPartitionService}.
+ */
+@Service
+@ConditionalOnProperty(name = "weather.retention.enabled", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class WeatherRetentionService {
+
+    private final WeatherPartitionRepository weatherPartitionRepository;
+    private final WeatherPayloadRepository weatherPayloadRepository;
+
+    @Value("${weather.retention.keep-days}")
+    private int keepDays;
+    @Value("${weather.retention.compaction}")
+    private boolean compaction;
+    @Value("${weather.persistence.payload-storage}")
+    private PayloadStorageMode payloadStorageMode;
+
+    @Scheduled(initialDelayString = "${weather.retention.initial-delay-ms:0}",
+            fixedDelayString = "${weather.retention.interval-ms}")
+    public void maintain() {
+        try {
+            dropExpiredPartitions(LocalDate.now().minusDays(keepDays).atStartOfDay());
+        } catch (Exception e) {
+            log.error("Weather partition maintenance failed: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Удаляет секции обеих таблиц, верхняя граница которых не позже cutoff.
+     * Секции с одинаковой верхней границей удаляются вместе в одной транзакции.
+     */
+    void dropExpiredPartitions(LocalDateTime cutoff) {
+        Map<LocalDateTime, List<TablePartition>> normalized = expiredByUpperBound(NORMALIZED_TABLE, cutoff);
+        Map<LocalDateTime, List<TablePartition>> raw = expiredByUpperBound(RAW_TABLE, cutoff);
+
+        SortedSet<LocalDateTime> upperBounds = new TreeSet<>(normalized.keySet());
+        upperBounds.addAll(raw.keySet());
+
+        for (LocalDateTime to : upperBounds) {
+            List<TablePartition> normalizedPartitions = normalized.getOrDefault(to, List.of());
+            List<TablePartition> rawPartitions = raw.getOrDefault(to, List.of());
+            weatherPartitionRepository.dropPartitions(normalizedPartitions, rawPartitions, compaction);
+            log.info("Dropped partitions up to {} (compaction: {}): {} {}",
+                    to, compaction, names(normalizedPartitions), names(rawPartitions));
+        }
+
+        // В режиме INLINE payload хранится в самих строках, и weather_payload не пополняется
+        if (!raw.isEmpty() && payloadStorageMode == PayloadStorageMode.DEDUP) {
+            int deleted = weatherPayloadRepository.deleteOrphans();
+            log.info("Deleted {} weather payloads no longer referenced by raw data", deleted);
+        }
+    }
+
+    private Map<LocalDateTime, List<TablePartition>> expiredByUpperBound(String table, LocalDateTime cutoff) {
+        return weatherPartitionRepository.findPartitions(table).stream()
+                .filter(partition -> !partition.isDefault() && partition.to() != null && !partition.to().isAfter(cutoff))
+                .collect(Collectors.groupingBy(TablePartition::to));
+    }
+
+    private static List<String> names(List<TablePartition> partitions) {
+        return partitions.stream().map(TablePartition::name).toList();
+    }
+}
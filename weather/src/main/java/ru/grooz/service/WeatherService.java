@@ -1,82 +1,452 @@
 package ru.grooz.service;
 
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Scheduler;
 import reactor.core.scheduler.Schedulers;
+import ru.grooz.dto.AggregateSnapshot;
 import ru.grooz.dto.AggregatedWeatherResponse;
-import ru.grooz.model.NormalizedWeatherData;
-import ru.grooz.repository.NormalizedWeatherRepository;
+import ru.grooz.dto.AggregationBucket;
+import ru.grooz.dto.PartialAggregatedWeatherResponse;
+import ru.grooz.dto.RecentWeatherResponse;
+import ru.grooz.dto.WeatherAggregateState;
+import ru.grooz.dto.WeatherBucketAggregate;
+import ru.grooz.dto.WeatherReading;
+import ru.grooz.dto.WeatherStatisticsResponse;
+import ru.grooz.dto.WeatherStreamEvent;
+import ru.grooz.dto.WeatherTimeSeriesResponse;
+import ru.grooz.repository.WeatherHistoryRepository;
+import ru.grooz.util.RecentWeatherStore;
+import ru.grooz.util.WeatherMetrics;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 
 @Service
-@RequiredArgsConstructor
+@Slf4j
 public class WeatherService {
 
+    /**
+     * Максимальное количество корзин в одном запросе агрегата по времени.
+     */
+    public static final int MAX_BUCKETS = 10_000;
+
     private final WeatherCollectorService weatherCollectorService;
-    private final NormalizedWeatherRepository normalizedWeatherRepository;
+    private final WeatherAggregateService weatherAggregateService;
+    private final WeatherStatisticsService weatherStatisticsService;
+    private final WeatherHistoryRepository weatherHistoryRepository;
+    private final WeatherMetrics weatherMetrics;
+    private final WeatherReadingPublisher weatherReadingPublisher;
+    private final RecentWeatherStore recentWeatherStore;
+    private final Scheduler blockingScheduler;
+
+    @Value("${weather.collection.mode}")
+    private CollectionMode collectionMode;
+
+    private final AtomicReference<AggregateSnapshot> latestSnapshot = new AtomicReference<>();
+    private final AtomicReference<InFlightCycle> inFlightCycle = new AtomicReference<>();
+    private final AtomicLong cycleSequence = new AtomicLong();
+
+    private final Counter startedCycles;
+    private final Counter leaderRequests;
+    private final Counter coalescedRequests;
+
+    public WeatherService(WeatherCollectorService weatherCollectorService,
+                          WeatherAggregateService weatherAggregateService,
+                          WeatherStatisticsService weatherStatisticsService,
+                          WeatherHistoryRepository weatherHistoryRepository,
+                          WeatherMetrics weatherMetrics,
+                          WeatherReadingPublisher weatherReadingPublisher,
+                          RecentWeatherStore recentWeatherStore,
+                          Scheduler blockingScheduler,
+                          MeterRegistry meterRegistry) {
+        this.weatherCollectorService = weatherCollectorService;
+        this.weatherAggregateService = weatherAggregateService;
+        this.weatherStatisticsService = weatherStatisticsService;
+        this.weatherHistoryRepository = weatherHistoryRepository;
+        this.weatherMetrics = weatherMetrics;
+        this.weatherReadingPublisher = weatherReadingPublisher;
+        this.recentWeatherStore = recentWeatherStore;
+        this.blockingScheduler = blockingScheduler;
+        this.startedCycles = Counter.builder("weather.aggregate.cycles")
+                .description("Collection cycles started for aggregate requests")
+                .register(meterRegistry);
+        this.leaderRequests = Counter.builder("weather.aggregate.requests")
+                .description("Aggregate requests that needed a collection cycle")
+                .tag("coalesced", "false")
+                .register(meterRegistry);
+        this.coalescedRequests = Counter.builder("weather.aggregate.requests")
+                .description("Aggregate requests that needed a collection cycle")
+                .tag("coalesced", "true")
+                .register(meterRegistry);
+    }
 
     /**
      * Агрегирует данные о погоде, выполняя следующие шаги:
      * 1. Запускает сбор и обработку новых данных от внешних источников.
-     * 2. После успешного завершения сбора, извлекает все нормализованные данные из базы данных.
-     * 3. Рассчитывает среднюю температуру и влажность на основе полученных данных.
+     * 2. После успешного завершения сбора берет бегущий агрегат, который обновляется при сохранении показаний.
+     * 3. Рассчитывает среднюю температуру и влажность по накопленным суммам за O(1).
      *
      * @return Mono<AggregatedWeatherResponse> содержащий среднюю температуру и влажность,
      * или дефолтные значения (0.0, 0.0), если данных нет.
      */
     public Mono<AggregatedWeatherResponse> getAggregatedWeatherData() {
-        return weatherCollectorService.collectAndProcessAllWeatherData()
-                .then(Mono.defer(this::fetchAllNormalizedData)
-                        .map(this::calculateAggregatedResponse)
-                );
+        return refreshSnapshot().map(AggregateSnapshot::response);
     }
 
     /**
-     * Извлекает все нормализованные данные о погоде из репозитория.
-     * Эта операция блокирующая (Spring Data JPA), поэтому выполняется на отдельном пуле потоков
-     * (Schedulers.boundedElastic), чтобы не блокировать основной Event Loop WebFlux.
+     * Агрегирует данные о погоде с ограничением по времени ответа.
+     * Если цикл сбора не завершился за deadline, агрегат рассчитывается по уже сохраненным показаниям,
+     * а оставшиеся источники досчитываются в фоне (цикл не отменяется и доступен следующим запросам).
      *
-     * @return Mono<List < NormalizedWeatherData>> список всех нормализованных данных.
+     * @param deadline Бюджет времени на ответ.
+     * @return Mono<PartialAggregatedWeatherResponse> со средними значениями и счетчиками источников.
+     */
+    public Mono<PartialAggregatedWeatherResponse> getAggregatedWeatherData(Duration deadline) {
+        return refreshSnapshot(deadline).map(snapshot -> (PartialAggregatedWeatherResponse) snapshot.response());
+    }
+
+    /**
+     * Возвращает снимок агрегата.
+     * В режиме SCHEDULED отдает последний опубликованный фоновым сбором снимок без обращения к источникам;
+     * сбор выполняется синхронно, только если снимка еще нет или запрошено принудительное обновление.
+     * В режиме POLLING источники опрашиваются непрерывно, и ответ строится по бегущему агрегату.
+     * В режиме ON_DEMAND каждый вызов запускает цикл сбора.
+     *
+     * @param refresh Принудительно выполнить цикл сбора перед ответом.
+     * @return Mono<AggregateSnapshot> со средними значениями и моментом сбора.
+     */
+    public Mono<AggregateSnapshot> getAggregatedWeatherSnapshot(boolean refresh) {
+        return getAggregatedWeatherSnapshot(refresh, null);
+    }
+
+    /**
+     * Вариант {@link #getAggregatedWeatherSnapshot(boolean)} с бюджетом времени на цикл сбора.
+     * Готовый снимок режима SCHEDULED и бегущий агрегат режима POLLING отдаются сразу; если же нужен цикл сбора,
+     * ответ строится не позже deadline (см. {@link #refreshSnapshot(Duration)}).
+     *
+     * @param refresh  Принудительно выполнить цикл сбора перед ответом.
+     * @param deadline Бюджет времени на ответ или null, если ждать завершения цикла.
+     */
+    public Mono<AggregateSnapshot> getAggregatedWeatherSnapshot(boolean refresh, Duration deadline) {
+        AggregateSnapshot snapshot = latestSnapshot.get();
+        if (collectionMode == CollectionMode.SCHEDULED && !refresh && snapshot != null) {
+            return Mono.just(snapshot);
+        }
+        if (collectionMode == CollectionMode.POLLING && !refresh) {
+            return Mono.just(new AggregateSnapshot(currentResponse(), Instant.now()));
+        }
+        return deadline == null ? refreshSnapshot() : refreshSnapshot(deadline);
+    }
+
+    /**
+     * Запускает цикл сбора и публикует новый снимок агрегата по его завершении.
+     * Если цикл уже выполняется, вызывающий не запускает новый, а получает результат текущего цикла
+     * (single-flight), поэтому всплеск одновременных запросов порождает один сбор, а не N.
+     *
+     * @return Mono<AggregateSnapshot> с опубликованным снимком.
+     */
+    public Mono<AggregateSnapshot> refreshSnapshot() {
+        return timedCycle(Mono.defer(() -> joinOrStartCycle().result()));
+    }
+
+    /**
+     * Как {@link #refreshSnapshot()}, но ждет цикл не дольше deadline.
+     * По истечении времени возвращает промежуточный снимок по текущему бегущему агрегату;
+     * он не публикуется как последний снимок. Ответ содержит {@link PartialAggregatedWeatherResponse}
+     * со счетчиками источников цикла.
+     *
+     * @param deadline Бюджет времени на ответ.
+     * @return Mono<AggregateSnapshot> с полным или промежуточным снимком.
+     */
+    public Mono<AggregateSnapshot> refreshSnapshot(Duration deadline) {
+        return timedCycle(Mono.defer(() -> {
+            InFlightCycle cycle = joinOrStartCycle();
+            return cycle.result()
+                    .map(snapshot -> new AggregateSnapshot(
+                            withProgress(snapshot.response(), cycle.progress(), false), snapshot.collectedAt()))
+                    .timeout(deadline, Mono.fromCallable(() -> partialSnapshot(cycle)));
+        }));
+    }
+
+    /**
+     * Замеряет ожидание вызывающим результата цикла сбора (метрика weather.aggregate.latency, kind=cycle).
+     * Сам агрегат берется из памяти, поэтому строки из базы не читаются.
+     */
+    private Mono<AggregateSnapshot> timedCycle(Mono<AggregateSnapshot> result) {
+        return Mono.defer(() -> {
+            long startNanos = System.nanoTime();
+            return result.doOnNext(snapshot -> weatherMetrics.aggregated("cycle", System.nanoTime() - startNanos, -1));
+        });
+    }
+
+    /**
+     * Поток обновлений агрегата по ходу цикла сбора. Подключается к выполняющемуся циклу или запускает новый
+     * (single-flight, как {@link #refreshSnapshot()}), поэтому любое количество подписчиков делит один цикл.
+     * Сразу отдает событие PROGRESS с текущим агрегатом, затем READINGS по мере сохранения показаний
+     * (с бегущим средним, уже учитывающим их) и COMPLETE после публикации снимка, после чего поток завершается.
+     *
+     * @return Flux<WeatherStreamEvent> событий цикла.
+     */
+    public Flux<WeatherStreamEvent> streamAggregatedWeather() {
+        return Flux.defer(() -> {
+            InFlightCycle cycle = joinOrStartCycle();
+            Mono<AggregateSnapshot> completed = cycle.result();
+            Flux<WeatherStreamEvent> updates = weatherReadingPublisher.readings()
+                    .takeUntilOther(completed.onErrorResume(e -> Mono.empty()))
+                    .map(readings -> streamEvent(WeatherStreamEvent.Type.READINGS, cycle,
+                            AggregatedWeatherResponse.of(weatherAggregateService.current()), readings));
+            return Flux.concat(
+                    Mono.fromSupplier(() -> streamEvent(WeatherStreamEvent.Type.PROGRESS, cycle,
+                            AggregatedWeatherResponse.of(weatherAggregateService.current()), List.of())),
+                    updates,
+                    completed.map(snapshot -> streamEvent(WeatherStreamEvent.Type.COMPLETE, cycle,
+                            snapshot.response(), List.of())));
+        });
+    }
+
+    private static WeatherStreamEvent streamEvent(WeatherStreamEvent.Type type,
+                                                  InFlightCycle cycle,
+                                                  AggregatedWeatherResponse aggregate,
+                                                  List<WeatherReading> readings) {
+        CollectionProgress progress = cycle.progress();
+        return new WeatherStreamEvent(type,
+                cycle.id(),
+                aggregate.getAverageTemperature(),
+                aggregate.getAverageHumidity(),
+                progress.includedSources(),
+                progress.pendingSources(),
+                progress.failedSources(),
+                readings);
+    }
+
+    private AggregateSnapshot partialSnapshot(InFlightCycle cycle) {
+        log.debug("Collection cycle {} missed the deadline, {} of {} sources pending",
+                cycle.id(), cycle.progress().pendingSources(), cycle.progress().totalSources());
+        return new AggregateSnapshot(withProgress(currentResponse(), cycle.progress(), true), Instant.now());
+    }
+
+    private static PartialAggregatedWeatherResponse withProgress(AggregatedWeatherResponse response,
+                                                                 CollectionProgress progress,
+                                                                 boolean partial) {
+        return new PartialAggregatedWeatherResponse(response,
+                partial,
+                progress.includedSources(),
+                progress.pendingSources(),
+                progress.failedSources());
+    }
+
+    private InFlightCycle joinOrStartCycle() {
+        InFlightCycle current = inFlightCycle.get();
+        if (current != null) {
+            coalescedRequests.increment();
+            return current;
+        }
+
+        InFlightCycle cycle;
+        Sinks.One<AggregateSnapshot> sink;
+        // Прогресс создается только победителем: с шардированием newProgress() занимает шарды до end()
+        synchronized (inFlightCycle) {
+            current = inFlightCycle.get();
+            if (current != null) {
+                coalescedRequests.increment();
+                return current;
+            }
+            sink = Sinks.one();
+            CollectionProgress progress = weatherCollectorService.newProgress();
+            cycle = new InFlightCycle(cycleSequence.incrementAndGet(), sink.asMono(), progress);
+            inFlightCycle.set(cycle);
+        }
+
+        leaderRequests.increment();
+        startedCycles.increment();
+        log.debug("Starting collection cycle {}", cycle.id());
+        // Цикл подписан независимо от вызывающих: отмена одного клиента не прерывает сбор для остальных.
+        // Запуск запросов к источникам уходит с потока вызывающего, чтобы не расходовать его дедлайн.
+        runCycle(cycle.progress())
+                .subscribeOn(Schedulers.parallel())
+                .doFinally(signal -> inFlightCycle.compareAndSet(cycle, null))
+                .subscribe(sink::tryEmitValue, sink::tryEmitError);
+        return cycle;
+    }
+
+    /**
+     * Средние по бегущему агрегату и расширенная статистика по всем сохраненным показаниям.
      */
-    private Mono<List<NormalizedWeatherData>> fetchAllNormalizedData() {
-        return Mono.fromCallable(normalizedWeatherRepository::findAll)
-                .subscribeOn(Schedulers.boundedElastic());
+    private AggregatedWeatherResponse currentResponse() {
+        return weatherStatisticsService.withStatistics(AggregatedWeatherResponse.of(weatherAggregateService.current()));
+    }
+
+    private Mono<AggregateSnapshot> runCycle(CollectionProgress progress) {
+        return weatherCollectorService.collectAndProcessAllWeatherData(progress)
+                .then(Mono.fromSupplier(this::currentResponse))
+                .map(response -> new AggregateSnapshot(response, Instant.now()))
+                .doOnNext(latestSnapshot::set);
     }
 
     /**
-     * Рассчитывает агрегированные средние значения температуры и влажности
-     * на основе списка нормализованных данных.
-     * Результаты округляются до двух знаков после запятой.
+     * Агрегат за интервал времени, при необходимости по одному источнику. Сбор данных не запускается.
+     * С заданной корзиной средние считаются по роллапам (начало интервала округляется вниз до корзины),
+     * без корзины — точной агрегацией нормализованных данных по индексу. Вся агрегация выполняется в БД,
+     * запрос блокирующий (JDBC), поэтому выполняется на планировщике блокирующей работы
+     * (weather.persistence.blocking-scheduler).
      *
-     * @param allNormalizedData Список нормализованных данных о погоде.
-     * @return AggregatedWeatherResponse с рассчитанными средними значениями.
-     * Возвращает дефолтный ответ (0.0, 0.0), если список пуст.
+     * @param from     Начало интервала (включительно).
+     * @param to       Конец интервала (не включительно).
+     * @param sourceId Источник или null для всех источников.
+     * @param bucket   Размер корзины или null для одного значения за весь интервал.
+     * @return Mono<WeatherTimeSeriesResponse> или ошибка IllegalArgumentException при некорректном интервале.
      */
-    private AggregatedWeatherResponse calculateAggregatedResponse(List<NormalizedWeatherData> allNormalizedData) {
-        if (allNormalizedData.isEmpty()) {
-            return new AggregatedWeatherResponse(0.0, 0.0);
+    public Mono<WeatherTimeSeriesResponse> getAggregatedWeatherRange(LocalDateTime from,
+                                                                     LocalDateTime to,
+                                                                     Integer sourceId,
+                                                                     AggregationBucket bucket) {
+        return Mono.fromCallable(() -> {
+                    if (!from.isBefore(to)) {
+                        throw new IllegalArgumentException("'from' must be before 'to'");
+                    }
+                    return bucket == null
+                            ? rangeAggregate(from, to, sourceId)
+                            : bucketedAggregate(bucket.truncate(from), to, sourceId, bucket);
+                })
+                .subscribeOn(blockingScheduler);
+    }
+
+    private WeatherTimeSeriesResponse rangeAggregate(LocalDateTime from, LocalDateTime to, Integer sourceId) {
+        long startNanos = System.nanoTime();
+        WeatherAggregateState total = weatherHistoryRepository.aggregateRange(from, to, sourceId);
+        weatherMetrics.aggregated("range", System.nanoTime() - startNanos, total.count());
+        return new WeatherTimeSeriesResponse(AggregatedWeatherResponse.of(total),
+                from, to, sourceId, null, total.count(), List.of());
+    }
+
+    private WeatherTimeSeriesResponse bucketedAggregate(LocalDateTime from,
+                                                        LocalDateTime to,
+                                                        Integer sourceId,
+                                                        AggregationBucket bucket) {
+        long bucketCount = Duration.between(from, to).dividedBy(bucket.duration());
+        if (bucketCount > MAX_BUCKETS) {
+            throw new IllegalArgumentException("Interval spans more than " + MAX_BUCKETS + " buckets");
         }
 
-        double totalTemperature = allNormalizedData.stream()
-                .mapToDouble(NormalizedWeatherData::getTemperature)
-                .sum();
-        double totalHumidity = allNormalizedData.stream()
-                .mapToDouble(NormalizedWeatherData::getHumidity)
-                .sum();
+        long startNanos = System.nanoTime();
+        Map<LocalDateTime, WeatherAggregateState> states = weatherHistoryRepository.findBuckets(bucket, from, to, sourceId);
+        weatherMetrics.aggregated("buckets", System.nanoTime() - startNanos, states.size());
+        List<WeatherBucketAggregate> buckets = new ArrayList<>(states.size());
+        WeatherAggregateState total = WeatherAggregateState.EMPTY;
+        for (Map.Entry<LocalDateTime, WeatherAggregateState> entry : states.entrySet()) {
+            WeatherAggregateState state = entry.getValue();
+            AggregatedWeatherResponse averages = AggregatedWeatherResponse.of(state);
+            buckets.add(new WeatherBucketAggregate(entry.getKey(), state.count(),
+                    averages.getAverageTemperature(), averages.getAverageHumidity()));
+            total = total.plus(state.count(), state.temperatureSum(), state.humiditySum());
+        }
+        return new WeatherTimeSeriesResponse(AggregatedWeatherResponse.of(total),
+                from, to, sourceId, bucket.unit(), total.count(), buckets);
+    }
 
-        double averageTemperature = totalTemperature / allNormalizedData.size();
-        double averageHumidity = totalHumidity / allNormalizedData.size();
+    /**
+     * Расширенная статистика по всем сохраненным показаниям: минимумы, максимумы, стандартные отклонения
+     * и квантили (p5, медиана, p95) температуры и влажности. Статистика обновляется при сохранении показаний
+     * (см. {@link WeatherStatisticsService}), поэтому история не читается.
+     *
+     * @param sourceId Источник или null для всех источников.
+     * @param bucket   Размер корзины (hour или day) или null без разбивки по времени.
+     * @param bySource Вернуть статистику каждого источника.
+     * @throws IllegalArgumentException если корзины недоступны (minute или вместе с sourceId).
+     */
+    public WeatherStatisticsResponse getWeatherStatistics(Integer sourceId,
+                                                          AggregationBucket bucket,
+                                                          boolean bySource) {
+        long startNanos = System.nanoTime();
+        WeatherStatisticsResponse response = weatherStatisticsService.statistics(sourceId, bucket, bySource);
+        weatherMetrics.aggregated("statistics", System.nanoTime() - startNanos, response.getReadingCount());
+        return response;
+    }
 
-        String formattedAvgTemp = String.format(Locale.ENGLISH, "%.2f", averageTemperature);
-        String formattedAvgHum = String.format(Locale.ENGLISH, "%.2f", averageHumidity);
+    /**
+     * Агрегат показаний за последние window из памяти (weather.hot-window), без запроса к базе и без сбора.
+     * Если окно длиннее, чем помещается в кольцо источника, complete = false.
+     *
+     * @param window   Длина окна до текущего момента.
+     * @param sourceId Источник или null для всех источников.
+     * @return RecentWeatherResponse со средними, минимумами и максимумами.
+     * @throws IllegalArgumentException если id источника не положительный.
+     */
+    public RecentWeatherResponse getRecentWeather(Duration window, Integer sourceId) {
+        checkRecentSource(sourceId);
+        LocalDateTime from = LocalDateTime.now().minus(window);
+        long startNanos = System.nanoTime();
+        RecentWeatherStore.WindowStats stats = recentWeatherStore.window(from, sourceId);
+        weatherMetrics.aggregated("recent", System.nanoTime() - startNanos, stats.count());
+        return new RecentWeatherResponse(AggregatedWeatherResponse.of(stats.state()),
+                from,
+                sourceId,
+                stats.count(),
+                stats.minTemperature(),
+                stats.maxTemperature(),
+                stats.minHumidity(),
+                stats.maxHumidity(),
+                stats.complete());
+    }
+
+    /**
+     * Последнее показание каждого источника из памяти (weather.hot-window).
+     *
+     * @param sourceId Источник или null для всех источников.
+     * @throws IllegalArgumentException если id источника не положительный.
+     */
+    public List<WeatherReading> getLatestReadings(Integer sourceId) {
+        checkRecentSource(sourceId);
+        return recentWeatherStore.latest(sourceId);
+    }
+
+    private void checkRecentSource(Integer sourceId) {
+        if (sourceId != null && sourceId < 1) {
+            throw new IllegalArgumentException("Source id must be positive: " + sourceId);
+        }
+    }
 
-        double roundedAverageTemperature = Double.parseDouble(formattedAvgTemp);
-        double roundedAverageHumidity = Double.parseDouble(formattedAvgHum);
+    /**
+     * Пересчитывает бегущий агрегат по всей истории.
+     * Операция блокирующая (Spring Data JPA), поэтому выполняется на планировщике блокирующей работы.
+     *
+     * @return Mono<AggregatedWeatherResponse> с пересчитанными средними значениями.
+     */
+    public Mono<AggregatedWeatherResponse> rebuildAggregatedWeatherData() {
+        return Mono.fromCallable(weatherAggregateService::rebuild)
+                .subscribeOn(blockingScheduler)
+                .map(AggregatedWeatherResponse::of);
+    }
 
-        return new AggregatedWeatherResponse(roundedAverageTemperature, roundedAverageHumidity);
+    /**
+     * Пересчитывает расширенную статистику проходом по всей истории. Операция блокирующая (JDBC),
+     * поэтому выполняется на планировщике блокирующей работы.
+     *
+     * @return Mono<WeatherStatisticsResponse> с пересчитанной статистикой по всем источникам.
+     */
+    public Mono<WeatherStatisticsResponse> rebuildWeatherStatistics() {
+        return Mono.fromRunnable(weatherStatisticsService::rebuild)
+                .subscribeOn(blockingScheduler)
+                .then(Mono.fromSupplier(() -> weatherStatisticsService.statistics(null, null, false)));
+    }
+
+    /**
+     * Выполняющийся цикл сбора, результат которого разделяют все присоединившиеся вызывающие.
+     */
+    private record InFlightCycle(long id, Mono<AggregateSnapshot> result, CollectionProgress progress) {
     }
-}
\ No newline at end of file
+}
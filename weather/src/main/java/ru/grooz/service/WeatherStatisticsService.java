@@ -0,0 +1,423 @@
+package ru.grooz.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import reactor.core.scheduler.Scheduler;
+import ru.grooz.dto.AggregatedWeatherResponse;
+import ru.grooz.dto.AggregationBucket;
+import ru.grooz.dto.MetricStatistics;
+import ru.grooz.dto.SourceWeatherStatistics;
+import ru.grooz.dto.WeatherBucketStatistics;
+import ru.grooz.dto.WeatherStatisticsResponse;
+import ru.grooz.model.NormalizedWeatherData;
+import ru.grooz.repository.WeatherHistoryRepository;
+import ru.grooz.repository.WeatherStatisticsCheckpointRepository;
+import ru.grooz.repository.WeatherStatisticsCheckpointRepository.StatisticsCheckpoint;
+import ru.grooz.util.WeatherStatistics;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Расширенная статистика (минимумы, максимумы, стандартные отклонения и квантили, см. {@link WeatherStatistics})
+ * по всем сохраненным показаниям. Как и бегущий агрегат {@link WeatherAggregateService}, состояние обновляется
+ * при сохранении каждого показания и хранится в памяти: итог, статистика каждого источника и почасовые корзины
+ * за последние weather.statistics.bucket-hours часов. Ответ строится из этого состояния без чтения истории.
+ * <p>
+ * Состояние раз в weather.statistics.checkpoint-ms и при остановке сохраняется контрольной точкой
+ * в weather_statistics_checkpoint вместе с наибольшим id учтенного показания. При старте загружается точка,
+ * а показания после нее дочитываются в фоне по id, поэтому старт не читает всю историю. Как и в бегущем агрегате,
+ * показания удаленных секций (weather.retention) остаются в статистике; {@link #rebuild()} пересчитывает ее
+ * только по сохраненным показаниям. После аварийной остановки показания, зафиксированные незадолго до точки
+ * с меньшим id, чем уже учтенные, могут не попасть в статистику до пересчета. При шардировании в памяти
+ * учтены показания истории на момент загрузки и собственные записи экземпляра.
+ */
+@Service
+@Slf4j
+public class WeatherStatisticsService {
+
+    /**
+     * Версия формата контрольной точки: точка другого формата не загружается, и статистика пересчитывается.
+     */
+    private static final int CHECKPOINT_FORMAT = 1;
+
+    private final WeatherHistoryRepository weatherHistoryRepository;
+    private final WeatherStatisticsCheckpointRepository weatherStatisticsCheckpointRepository;
+    private final TransactionTemplate snapshotTransaction;
+    private final Scheduler blockingScheduler;
+    private final double compression;
+    private final int bucketHours;
+
+    private final Object lock = new Object();
+    private State state;
+    /**
+     * Показания, учтенные во время пересчета; null, если пересчет не выполняется.
+     */
+    private List<NormalizedWeatherData> recordedDuringRebuild;
+    /**
+     * Состояние включает историю: контрольная точка загружена и показания после нее дочитаны.
+     */
+    private boolean complete;
+    /**
+     * Состояние изменилось после последней контрольной точки.
+     */
+    private boolean changed;
+
+    /**
+     * Статистика показаний; все поля изменяются только под lock.
+     */
+    private static final class State {
+        private final WeatherStatistics total;
+        private final Map<Integer, WeatherStatistics> sources = new TreeMap<>();
+        private final TreeMap<LocalDateTime, WeatherStatistics> hours = new TreeMap<>();
+        private long lastReadingId;
+
+        private State(WeatherStatistics total) {
+            this.total = total;
+        }
+    }
+
+    public WeatherStatisticsService(WeatherHistoryRepository weatherHistoryRepository,
+                                    WeatherStatisticsCheckpointRepository weatherStatisticsCheckpointRepository,
+                                    TransactionTemplate transactionTemplate,
+                                    Scheduler blockingScheduler,
+                                    @Value("${weather.statistics.compression}") double compression,
+                                    @Value("${weather.statistics.bucket-hours}") int bucketHours) {
+        this.weatherHistoryRepository = weatherHistoryRepository;
+        this.weatherStatisticsCheckpointRepository = weatherStatisticsCheckpointRepository;
+        // Проход пересчета и проверка показаний, записанных во время него, читают один снимок базы
+        this.snapshotTransaction = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        this.snapshotTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.snapshotTransaction.setReadOnly(true);
+        this.blockingScheduler = blockingScheduler;
+        this.compression = compression;
+        this.bucketHours = bucketHours;
+        this.state = emptyState();
+    }
+
+    /**
+     * Учитывает показания, зафиксированные в БД.
+     */
+    public void record(List<NormalizedWeatherData> saved) {
+        LocalDateTime oldestHour = oldestHour();
+        synchronized (lock) {
+            for (NormalizedWeatherData data : saved) {
+                add(state, data.getId(), data.getSourceId(), data.getTemperature(), data.getHumidity(),
+                        data.getTimestamp(), oldestHour);
+            }
+            state.hours.headMap(oldestHour).clear();
+            if (recordedDuringRebuild != null) {
+                recordedDuringRebuild.addAll(saved);
+            }
+            changed = true;
+        }
+    }
+
+    /**
+     * Статистика по всем показаниям или показаниям одного источника.
+     *
+     * @param sourceId Источник или null для всех источников.
+     * @param bucket   Размер корзины (hour или day) или null без разбивки по времени.
+     * @param bySource Вернуть статистику каждого источника.
+     * @throws IllegalArgumentException если запрошены минутные корзины или корзины одного источника:
+     *                                  в памяти хранятся только почасовые корзины по всем источникам.
+     */
+    public WeatherStatisticsResponse statistics(Integer sourceId, AggregationBucket bucket, boolean bySource) {
+        if (bucket == AggregationBucket.MINUTE) {
+            throw new IllegalArgumentException("Statistics are kept in hour buckets, use bucket=hour or bucket=day");
+        }
+        if (bucket != null && sourceId != null) {
+            throw new IllegalArgumentException("Statistics buckets are kept for all sources only");
+        }
+        synchronized (lock) {
+            WeatherStatistics selected = sourceId == null
+                    ? state.total
+                    : state.sources.getOrDefault(sourceId, new WeatherStatistics(compression));
+            List<WeatherBucketStatistics> buckets = bucket == null ? List.of() : bucketStatistics(bucket);
+            List<SourceWeatherStatistics> sources = !bySource ? List.of() : state.sources.entrySet().stream()
+                    .filter(entry -> sourceId == null || entry.getKey().equals(sourceId))
+                    .map(entry -> new SourceWeatherStatistics(entry.getKey(), entry.getValue().count(),
+                            MetricStatistics.of(entry.getValue().temperature()),
+                            MetricStatistics.of(entry.getValue().humidity())))
+                    .toList();
+            return new WeatherStatisticsResponse(sourceId, bucket == null ? null : bucket.unit(),
+                    selected.count(),
+                    MetricStatistics.of(selected.temperature()),
+                    MetricStatistics.of(selected.humidity()),
+                    buckets,
+                    sources);
+        }
+    }
+
+    /**
+     * Дополняет ответ статистикой температуры и влажности по всем показаниям.
+     */
+    public <T extends AggregatedWeatherResponse> T withStatistics(T response) {
+        synchronized (lock) {
+            response.setTemperature(MetricStatistics.of(state.total.temperature()));
+            response.setHumidity(MetricStatistics.of(state.total.humidity()));
+        }
+        return response;
+    }
+
+    /**
+     * Пересчитывает статистику одним проходом по сохраненным показаниям и заменяет ею состояние в памяти.
+     * Запрос блокирующий (JDBC).
+     *
+     * @return количество учтенных показаний.
+     * @throws IllegalStateException если пересчет уже выполняется.
+     */
+    public long rebuild() {
+        return rebuild(emptyState(), 0);
+    }
+
+    /**
+     * Восстанавливает состояние из контрольной точки и в фоне дочитывает показания после нее.
+     * Без точки (первый старт) в фоне выполняется полный пересчет; до его окончания в статистике
+     * только показания, сохраненные после старта.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void restore() {
+        State base = emptyState();
+        Optional<StatisticsCheckpoint> checkpoint = weatherStatisticsCheckpointRepository.find();
+        if (checkpoint.isPresent()) {
+            try {
+                base = decode(checkpoint.get());
+                State restored = decode(checkpoint.get());
+                synchronized (lock) {
+                    mergeInto(restored, state);
+                    state = restored;
+                }
+                log.info("Weather statistics restored from checkpoint: {} readings up to id {}",
+                        base.total.count(), base.lastReadingId);
+            } catch (IOException | RuntimeException e) {
+                log.warn("Weather statistics checkpoint is unreadable, rebuilding: {}", e.getMessage());
+                base = emptyState();
+            }
+        }
+        State catchUpBase = base;
+        blockingScheduler.schedule(() -> {
+            try {
+                rebuild(catchUpBase, catchUpBase.lastReadingId);
+            } catch (Exception e) {
+                log.error("Weather statistics catch-up failed: {}", e.getMessage(), e);
+            }
+        });
+    }
+
+    /**
+     * Сохраняет контрольную точку, если состояние изменилось. До окончания восстановления и во время пересчета
+     * точка не сохраняется, чтобы не заменить сохраненное состояние неполным.
+     */
+    @Scheduled(initialDelayString = "${weather.statistics.checkpoint-ms}",
+            fixedDelayString = "${weather.statistics.checkpoint-ms}")
+    public void checkpoint() {
+        try {
+            long lastReadingId;
+            byte[] data;
+            synchronized (lock) {
+                if (!complete || !changed || recordedDuringRebuild != null) {
+                    return;
+                }
+                lastReadingId = state.lastReadingId;
+                data = encode(state);
+                changed = false;
+            }
+            try {
+                weatherStatisticsCheckpointRepository.save(lastReadingId, data);
+            } catch (RuntimeException e) {
+                synchronized (lock) {
+                    changed = true;
+                }
+                throw e;
+            }
+            log.debug("Weather statistics checkpoint saved: {} bytes up to id {}", data.length, lastReadingId);
+        } catch (Exception e) {
+            log.error("Weather statistics checkpoint failed: {}", e.getMessage(), e);
+        }
+    }
+
+    @PreDestroy
+    void stop() {
+        checkpoint();
+    }
+
+    /**
+     * Добавляет к base показания с id больше afterId одним проходом по normalized_weather_data и заменяет
+     * результатом состояние в памяти. Проход выполняется в транзакции REPEATABLE READ, то есть по одному снимку
+     * базы. Показания, учтенные через {@link #record(List)} во время прохода, перед заменой добавляются к результату,
+     * если снимок их не содержит, поэтому замена их не теряет и не учитывает дважды.
+     */
+    private long rebuild(State base, long afterId) {
+        synchronized (lock) {
+            if (recordedDuringRebuild != null) {
+                throw new IllegalStateException("Weather statistics rebuild is already running");
+            }
+            recordedDuringRebuild = new ArrayList<>();
+        }
+        try {
+            long startNanos = System.nanoTime();
+            long countBefore = base.total.count();
+            LocalDateTime oldestHour = oldestHour();
+            snapshotTransaction.executeWithoutResult(status -> {
+                weatherHistoryRepository.forEachReadingAfter(afterId, (reading, id) -> add(base, id,
+                        reading.sourceId(), reading.temperature(), reading.humidity(), reading.timestamp(),
+                        oldestHour));
+                swapIn(base, afterId);
+            });
+            log.info("Weather statistics rebuilt from history after id {}: {} readings read in {} ms, {} in total",
+                    afterId, base.total.count() - countBefore,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos), base.total.count());
+            return base.total.count();
+        } finally {
+            synchronized (lock) {
+                recordedDuringRebuild = null;
+            }
+        }
+    }
+
+    /**
+     * Добавляет к rebuilt показания, записанные во время прохода и не попавшие в его снимок, и заменяет им
+     * состояние, как только под lock не остается непроверенных показаний.
+     */
+    private void swapIn(State rebuilt, long afterId) {
+        while (true) {
+            List<NormalizedWeatherData> recorded;
+            synchronized (lock) {
+                if (recordedDuringRebuild.isEmpty()) {
+                    rebuilt.hours.headMap(oldestHour()).clear();
+                    state = rebuilt;
+                    recordedDuringRebuild = null;
+                    complete = true;
+                    changed = true;
+                    return;
+                }
+                recorded = recordedDuringRebuild;
+                recordedDuringRebuild = new ArrayList<>();
+            }
+            Set<Long> scanned = weatherHistoryRepository.findReadingIds(afterId,
+                    recorded.stream().map(NormalizedWeatherData::getId).toList());
+            LocalDateTime oldestHour = oldestHour();
+            for (NormalizedWeatherData data : recorded) {
+                if (!scanned.contains(data.getId())) {
+                    add(rebuilt, data.getId(), data.getSourceId(), data.getTemperature(), data.getHumidity(),
+                            data.getTimestamp(), oldestHour);
+                }
+            }
+        }
+    }
+
+    private List<WeatherBucketStatistics> bucketStatistics(AggregationBucket bucket) {
+        Map<LocalDateTime, WeatherStatistics> merged = new TreeMap<>();
+        state.hours.forEach((hour, statistics) -> merged
+                .computeIfAbsent(bucket.truncate(hour), start -> new WeatherStatistics(compression))
+                .merge(statistics));
+        return merged.entrySet().stream()
+                .map(entry -> new WeatherBucketStatistics(entry.getKey(), entry.getValue().count(),
+                        MetricStatistics.of(entry.getValue().temperature()),
+                        MetricStatistics.of(entry.getValue().humidity())))
+                .toList();
+    }
+
+    private void add(State target,
+                     long id,
+                     int sourceId,
+                     double temperature,
+                     double humidity,
+                     LocalDateTime timestamp,
+                     LocalDateTime oldestHour) {
+        target.total.add(temperature, humidity);
+        target.sources.computeIfAbsent(sourceId, source -> new WeatherStatistics(compression))
+                .add(temperature, humidity);
+        LocalDateTime hour = timestamp.truncatedTo(ChronoUnit.HOURS);
+        if (!hour.isBefore(oldestHour)) {
+            target.hours.computeIfAbsent(hour, start -> new WeatherStatistics(compression))
+                    .add(temperature, humidity);
+        }
+        target.lastReadingId = Math.max(target.lastReadingId, id);
+    }
+
+    /**
+     * Вливает в target показания other (учтенные до загрузки контрольной точки).
+     */
+    private void mergeInto(State target, State other) {
+        target.total.merge(other.total);
+        other.sources.forEach((sourceId, statistics) -> target.sources
+                .computeIfAbsent(sourceId, source -> new WeatherStatistics(compression))
+                .merge(statistics));
+        other.hours.forEach((hour, statistics) -> target.hours
+                .computeIfAbsent(hour, start -> new WeatherStatistics(compression))
+                .merge(statistics));
+        target.lastReadingId = Math.max(target.lastReadingId, other.lastReadingId);
+    }
+
+    private byte[] encode(State source) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(CHECKPOINT_FORMAT);
+            source.total.writeTo(out);
+            out.writeInt(source.sources.size());
+            for (Map.Entry<Integer, WeatherStatistics> entry : source.sources.entrySet()) {
+                out.writeInt(entry.getKey());
+                entry.getValue().writeTo(out);
+            }
+            out.writeInt(source.hours.size());
+            for (Map.Entry<LocalDateTime, WeatherStatistics> entry : source.hours.entrySet()) {
+                out.writeLong(entry.getKey().toEpochSecond(ZoneOffset.UTC));
+                entry.getValue().writeTo(out);
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Читает состояние контрольной точки; корзины старше bucket-hours отбрасываются.
+     */
+    private State decode(StatisticsCheckpoint checkpoint) throws IOException {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(checkpoint.data()))) {
+            int format = in.readInt();
+            if (format != CHECKPOINT_FORMAT) {
+                throw new IOException("Unsupported checkpoint format " + format);
+            }
+            State decoded = new State(WeatherStatistics.readFrom(in));
+            for (int i = in.readInt(); i > 0; i--) {
+                decoded.sources.put(in.readInt(), WeatherStatistics.readFrom(in));
+            }
+            for (int i = in.readInt(); i > 0; i--) {
+                decoded.hours.put(LocalDateTime.ofEpochSecond(in.readLong(), 0, ZoneOffset.UTC),
+                        WeatherStatistics.readFrom(in));
+            }
+            decoded.hours.headMap(oldestHour()).clear();
+            decoded.lastReadingId = checkpoint.lastReadingId();
+            return decoded;
+        }
+    }
+
+    private State emptyState() {
+        return new State(new WeatherStatistics(compression));
+    }
+
+    private LocalDateTime oldestHour() {
+        return LocalDateTime.now().truncatedTo(ChronoUnit.HOURS).minusHours(bucketHours - 1L);
+    }
+}
@@ -0,0 +1,249 @@
+package ru.grooz.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import ru.grooz.dto.SourceWeatherData;
+import ru.grooz.repository.WeatherWalCheckpointRepository;
+import ru.grooz.util.WriteAheadLog;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Запись показаний в режиме write-behind (weather.persistence.write-behind.enabled): цикл сбора
+ * дописывает ответы источников в локальный {@link WriteAheadLog} и ограниченную очередь в памяти
+ * и не ждет коммита каждой пачки. Отдельный поток забирает из очереди все накопившееся (до batch-size)
+ * и сохраняет одной транзакцией через {@link WeatherAdaptorService#processAndSaveWeatherDataBatch(List, List)};
+ * пока идет коммит, в очереди набирается следующая пачка.
+ * <p>
+ * В той же транзакции сохраняется позиция журнала, до которой показания записаны (weather_wal_checkpoint).
+ * При старте записи журнала после этой позиции сохраняются до начала сбора, поэтому после падения процесса
+ * показания не теряются и не записываются дважды. Если база недоступна, пачка повторяется до успеха,
+ * очередь заполняется, и сбор замедляется до скорости записи.
+ */
+@Service
+@ConditionalOnProperty(name = "weather.persistence.write-behind.enabled", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class WriteBehindService {
+
+    private static final long POLL_TIMEOUT_MS = 100;
+    private static final long SHUTDOWN_TIMEOUT_MS = 10_000;
+
+    private final WeatherAdaptorService weatherAdaptorService;
+    private final WeatherWalCheckpointRepository checkpointRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${weather.persistence.write-behind.directory}")
+    private String directory;
+    @Value("${weather.persistence.write-behind.segment-size-bytes}")
+    private int segmentSizeBytes;
+    @Value("${weather.persistence.write-behind.queue-capacity}")
+    private int queueCapacity;
+    @Value("${weather.persistence.write-behind.batch-size}")
+    private int batchSize;
+    @Value("${weather.persistence.write-behind.fsync}")
+    private boolean fsync;
+    @Value("${weather.persistence.write-behind.retry-backoff-ms}")
+    private long retryBackoffMs;
+
+    /**
+     * Позиции журнала, до которых показания сохранены; последнее значение получают и новые подписчики.
+     */
+    private final Sinks.Many<Long> flushed = Sinks.many().replay().latest();
+
+    private WriteAheadLog wal;
+    private BlockingQueue<PendingReading> queue;
+    private Thread drainer;
+    private volatile boolean running;
+    private long flushedLsn;
+    private List<PendingReading> unsaved = List.of();
+
+    /**
+     * Ответ источника, записанный в журнал, но еще не сохраненный в базе.
+     */
+    private record PendingReading(SourceWeatherData sourceData, LocalDateTime receivedAt, long lsn) {
+    }
+
+    @PostConstruct
+    void start() throws IOException {
+        wal = WriteAheadLog.open(Path.of(directory), segmentSizeBytes, fsync);
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        Gauge.builder("weather.write_behind.queue", queue, Collection::size)
+                .description("Readings written to the local WAL but not yet committed to the database")
+                .register(meterRegistry);
+
+        replay();
+
+        running = true;
+        drainer = new Thread(this::drain, "weather-write-behind");
+        drainer.setDaemon(true);
+        drainer.start();
+        log.info("Write-behind enabled: WAL {} in {}, queue capacity {}, batch size {}, fsync {}",
+                wal.id(), directory, queueCapacity, batchSize, fsync);
+    }
+
+    /**
+     * Дописывает пачку ответов в журнал и ставит в очередь на запись в базу.
+     * Блокируется, если очередь заполнена.
+     *
+     * @param batch Ответы источников.
+     * @return позиция журнала последнего ответа пачки (для {@link #awaitFlushed(long)}).
+     */
+    public synchronized long enqueue(List<SourceWeatherData> batch) throws IOException, InterruptedException {
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        LocalDateTime receivedAt = LocalDateTime.now();
+        long[] lsns = wal.append(batch, receivedAt);
+        for (int i = 0; i < batch.size(); i++) {
+            queue.put(new PendingReading(batch.get(i), receivedAt, lsns[i]));
+        }
+        return lsns[lsns.length - 1];
+    }
+
+    /**
+     * @return Mono, завершающийся, когда показания до позиции lsn сохранены в базе.
+     */
+    public Mono<Void> awaitFlushed(long lsn) {
+        return flushed.asFlux()
+                .filter(flushedUpTo -> flushedUpTo >= lsn)
+                .next()
+                .then();
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        drainer.join(SHUTDOWN_TIMEOUT_MS);
+        if (drainer.isAlive()) {
+            log.warn("Write-behind drainer did not stop in {} ms, unsaved readings are left in the WAL",
+                    SHUTDOWN_TIMEOUT_MS);
+            wal.close();
+            return;
+        }
+
+        // Что не удалось сохранить, останется в журнале и будет записано при следующем старте
+        List<PendingReading> batch = new ArrayList<>(unsaved);
+        while (!batch.isEmpty() || queue.drainTo(batch, batchSize) > 0) {
+            try {
+                flush(batch);
+            } catch (Exception e) {
+                log.warn("Write-behind stopped with {} unsaved readings left in the WAL: {}",
+                        batch.size() + queue.size(), e.getMessage());
+                break;
+            }
+            batch.clear();
+        }
+        wal.close();
+    }
+
+    /**
+     * Сохраняет записи журнала, оставшиеся с прошлого запуска, пачками по batch-size
+     * и удаляет прочитанные сегменты.
+     */
+    private void replay() throws IOException {
+        long checkpoint = checkpointRepository.find(wal.id()).orElse(0L);
+        List<PendingReading> batch = new ArrayList<>(batchSize);
+        long replayed = wal.replay(checkpoint, entry -> {
+            batch.add(new PendingReading(new SourceWeatherData(entry.sourceId(), entry.payload()),
+                    entry.receivedAt(), entry.lsn()));
+            if (batch.size() == batchSize) {
+                flush(batch);
+                batch.clear();
+            }
+        });
+        if (!batch.isEmpty()) {
+            flush(batch);
+        }
+        if (replayed > 0) {
+            log.info("Replayed {} readings from the write-behind WAL", replayed);
+        }
+        wal.deleteSegmentsBefore(Long.MAX_VALUE);
+    }
+
+    private void drain() {
+        List<PendingReading> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                PendingReading first = queue.poll(POLL_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                if (flushWithRetry(batch)) {
+                    batch.clear();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        // Пачка, не сохраненная к остановке, сохраняется повторно в stop() раньше остальной очереди
+        unsaved = batch;
+    }
+
+    /**
+     * @return true, если пачка сохранена; false, если сервис остановлен раньше.
+     */
+    private boolean flushWithRetry(List<PendingReading> batch) throws InterruptedException {
+        while (true) {
+            try {
+                flush(batch);
+                return true;
+            } catch (Exception e) {
+                log.error("Failed to save {} write-behind readings, retrying in {} ms: {}",
+                        batch.size(), retryBackoffMs, e.getMessage());
+                if (!running) {
+                    return false;
+                }
+                Thread.sleep(retryBackoffMs);
+            }
+        }
+    }
+
+    private void flush(List<PendingReading> batch) {
+        List<SourceWeatherData> data = new ArrayList<>(batch.size());
+        List<LocalDateTime> receivedAt = new ArrayList<>(batch.size());
+        for (PendingReading reading : batch) {
+            data.add(reading.sourceData());
+            receivedAt.add(reading.receivedAt());
+        }
+        long lsn = batch.get(batch.size() - 1).lsn();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            weatherAdaptorService.processAndSaveWeatherDataBatch(data, receivedAt);
+            checkpointRepository.save(wal.id(), lsn);
+        });
+
+        long previous = flushedLsn;
+        flushedLsn = lsn;
+        flushed.tryEmitNext(lsn);
+        if (WriteAheadLog.segmentOf(lsn) != WriteAheadLog.segmentOf(previous)) {
+            try {
+                wal.deleteSegmentsBefore(lsn);
+            } catch (IOException e) {
+                log.warn("Failed to delete flushed WAL segments: {}", e.getMessage());
+            }
+        }
+    }
+}
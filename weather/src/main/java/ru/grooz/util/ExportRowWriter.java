@@ -0,0 +1,133 @@
+package ru.grooz.util;
+
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import ru.grooz.dto.ExportFormat;
+
+import java.time.LocalDateTime;
+
+/**
+ * Запись строк выгрузки в StringBuilder без промежуточных объектов: значения строки добавляются по порядку колонок
+ * между {@link #startRow()} и {@link #endRow()}. NDJSON — объект с именами колонок на строку,
+ * CSV — значения через запятую, текст в кавычках при необходимости (RFC 4180). Экземпляр не потокобезопасен.
+ */
+public final class ExportRowWriter {
+
+    private final ExportFormat format;
+    private final String[] columns;
+    private final StringBuilder out;
+    private int column;
+
+    public ExportRowWriter(ExportFormat format, String[] columns, StringBuilder out) {
+        this.format = format;
+        this.columns = columns.clone();
+        this.out = out;
+    }
+
+    /**
+     * Заголовок выгрузки: строка с именами колонок для CSV, для NDJSON — ничего.
+     */
+    public void header() {
+        if (format != ExportFormat.CSV) {
+            return;
+        }
+        for (int i = 0; i < columns.length; i++) {
+            if (i > 0) {
+                out.append(',');
+            }
+            out.append(columns[i]);
+        }
+        out.append('\n');
+    }
+
+    public void startRow() {
+        column = 0;
+        if (format == ExportFormat.NDJSON) {
+            out.append('{');
+        }
+    }
+
+    public void value(long value) {
+        name();
+        out.append(value);
+    }
+
+    /**
+     * Записывает число; null (NULL в базе), NaN и бесконечности — как отсутствующее значение.
+     */
+    public void value(Double value) {
+        name();
+        if (value != null && Double.isFinite(value)) {
+            out.append(value.doubleValue());
+        } else {
+            nullValue();
+        }
+    }
+
+    public void value(LocalDateTime value) {
+        name();
+        if (value == null) {
+            nullValue();
+        } else if (format == ExportFormat.NDJSON) {
+            out.append('"').append(value).append('"');
+        } else {
+            out.append(value);
+        }
+    }
+
+    public void value(String value) {
+        name();
+        if (value == null) {
+            nullValue();
+        } else if (format == ExportFormat.NDJSON) {
+            out.append('"');
+            JsonStringEncoder.getInstance().quoteAsString(value, out);
+            out.append('"');
+        } else {
+            appendCsvText(value);
+        }
+    }
+
+    public void endRow() {
+        if (format == ExportFormat.NDJSON) {
+            out.append('}');
+        }
+        out.append('\n');
+    }
+
+    private void name() {
+        if (column > 0) {
+            out.append(',');
+        }
+        if (format == ExportFormat.NDJSON) {
+            out.append('"').append(columns[column]).append("\":");
+        }
+        column++;
+    }
+
+    private void nullValue() {
+        if (format == ExportFormat.NDJSON) {
+            out.append("null");
+        }
+    }
+
+    private void appendCsvText(String value) {
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            out.append(value);
+            return;
+        }
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                out.append('"');
+            }
+            out.append(c);
+        }
+        out.append('"');
+    }
+}
@@ -0,0 +1,276 @@
+package ru.grooz.util;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.grooz.dto.WeatherAggregateState;
+import ru.grooz.dto.WeatherReading;
+
+import java.lang.invoke.VarHandle;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Последние показания каждого источника в памяти (weather.hot-window): для запросов за последние минуты
+ * без обращения к базе. Источнику при первом показании назначается плотный номер (id → номер), и ему отведено
+ * кольцо из capacity-per-source ячеек (округляется вверх до степени двойки) в общих плоских массивах
+ * long[] / double[], поэтому идентификаторы источников могут быть любыми, в том числе добавленными в реестр
+ * без перезапуска, память фиксирована (max-sources колец) и не зависит от потока показаний, а запись
+ * не создает объектов. Номера не освобождаются; показания источников сверх max-sources не хранятся.
+ * <p>
+ * Чтение не блокирует запись: у каждой ячейки есть штамп с номером записанного показания, писатель
+ * на время записи помечает ячейку как изменяемую, а читатель перечитывает ячейку, если штамп изменился
+ * за время чтения (seqlock).
+ */
+@Component
+@Slf4j
+public class RecentWeatherStore {
+
+    private static final long EMPTY = 0;
+    private static final long WRITING = -1;
+
+    private final int maxSources;
+    private final int capacity;
+    private final int mask;
+
+    private final long[] timestamps;
+    private final double[] temperatures;
+    private final double[] humidities;
+    /**
+     * Штамп ячейки: номер показания источника + 1, EMPTY или WRITING.
+     */
+    private final AtomicLongArray stamps;
+    /**
+     * Номер следующего показания каждого источника.
+     */
+    private final AtomicLongArray sequences;
+    /**
+     * Плотный номер источника по его id.
+     */
+    private final Map<Integer, Integer> sourceSlots = new ConcurrentHashMap<>();
+    /**
+     * id источника по плотному номеру; номера 0..assignedSources - 1 заняты.
+     */
+    private final int[] sourceIds;
+    /**
+     * Количество назначенных номеров. Запись после sourceIds публикует id для читателей.
+     */
+    private volatile int assignedSources;
+    private boolean fullReported;
+
+    public RecentWeatherStore(@Value("${weather.hot-window.max-sources}") int maxSources,
+                              @Value("${weather.hot-window.capacity-per-source}") int capacityPerSource) {
+        this.maxSources = maxSources;
+        this.capacity = capacityPerSource <= 1 ? 1 : Integer.highestOneBit(capacityPerSource - 1) << 1;
+        this.mask = capacity - 1;
+        int slots = Math.multiplyExact(maxSources, capacity);
+        this.timestamps = new long[slots];
+        this.temperatures = new double[slots];
+        this.humidities = new double[slots];
+        this.stamps = new AtomicLongArray(slots);
+        this.sequences = new AtomicLongArray(maxSources);
+        this.sourceIds = new int[maxSources];
+    }
+
+    /**
+     * Статистика показаний окна.
+     *
+     * @param complete false, если у какого-то источника в окно попадает больше показаний, чем помещается в кольцо,
+     *                 и самые старые показания окна уже вытеснены.
+     */
+    public record WindowStats(long count,
+                              double temperatureSum,
+                              double humiditySum,
+                              double minTemperature,
+                              double maxTemperature,
+                              double minHumidity,
+                              double maxHumidity,
+                              boolean complete) {
+
+        public WeatherAggregateState state() {
+            return new WeatherAggregateState(count, temperatureSum, humiditySum);
+        }
+    }
+
+    public int maxSources() {
+        return maxSources;
+    }
+
+    public int capacityPerSource() {
+        return capacity;
+    }
+
+    public void record(int sourceId, double temperature, double humidity, LocalDateTime timestamp) {
+        Integer assigned = sourceSlots.get(sourceId);
+        int source = assigned != null ? assigned : assignedSources < maxSources ? assign(sourceId) : -1;
+        if (source < 0) {
+            reportFull(sourceId);
+            return;
+        }
+        long sequence = sequences.getAndIncrement(source);
+        int slot = source * capacity + (int) (sequence & mask);
+
+        stamps.set(slot, WRITING);
+        // Данные ячейки не должны стать видны раньше пометки WRITING
+        VarHandle.storeStoreFence();
+        timestamps[slot] = toMillis(timestamp);
+        temperatures[slot] = temperature;
+        humidities[slot] = humidity;
+        stamps.set(slot, sequence + 1);
+    }
+
+    /**
+     * Статистика показаний с временем не раньше since.
+     *
+     * @param since    Начало окна.
+     * @param sourceId Источник или null для всех источников.
+     */
+    public WindowStats window(LocalDateTime since, Integer sourceId) {
+        long from = toMillis(since);
+        long count = 0;
+        double temperatureSum = 0.0;
+        double humiditySum = 0.0;
+        double minTemperature = Double.POSITIVE_INFINITY;
+        double maxTemperature = Double.NEGATIVE_INFINITY;
+        double minHumidity = Double.POSITIVE_INFINITY;
+        double maxHumidity = Double.NEGATIVE_INFINITY;
+        boolean complete = true;
+
+        int ring = ringOf(sourceId);
+        int firstSource = ring < 0 ? 0 : ring;
+        int lastSource = ring == -1 ? assignedSources - 1 : ring == -2 ? -1 : ring;
+        for (int source = firstSource; source <= lastSource; source++) {
+            int inWindow = 0;
+            for (int slot = source * capacity, end = slot + capacity; slot < end; slot++) {
+                long stamp;
+                long timestamp;
+                double temperature;
+                double humidity;
+                do {
+                    stamp = stamps.get(slot);
+                    timestamp = timestamps[slot];
+                    temperature = temperatures[slot];
+                    humidity = humidities[slot];
+                    // Данные должны быть прочитаны до повторной проверки штампа
+                    VarHandle.loadLoadFence();
+                } while (stamp > EMPTY && stamps.get(slot) != stamp);
+
+                if (stamp <= EMPTY || timestamp < from) {
+                    continue;
+                }
+                inWindow++;
+                temperatureSum += temperature;
+                humiditySum += humidity;
+                minTemperature = Math.min(minTemperature, temperature);
+                maxTemperature = Math.max(maxTemperature, temperature);
+                minHumidity = Math.min(minHumidity, humidity);
+                maxHumidity = Math.max(maxHumidity, humidity);
+            }
+            // Все ячейки кольца в окне: более старые показания окна могли быть вытеснены
+            if (inWindow == capacity) {
+                complete = false;
+            }
+            count += inWindow;
+        }
+
+        if (count == 0) {
+            return new WindowStats(0, 0.0, 0.0, 0.0, 0.0, 0.0, 0.0, true);
+        }
+        return new WindowStats(count, temperatureSum, humiditySum,
+                minTemperature, maxTemperature, minHumidity, maxHumidity, complete);
+    }
+
+    /**
+     * Последнее по времени показание каждого источника.
+     *
+     * @param sourceId Источник или null для всех источников.
+     */
+    public List<WeatherReading> latest(Integer sourceId) {
+        int ring = ringOf(sourceId);
+        int firstSource = ring < 0 ? 0 : ring;
+        int lastSource = ring == -1 ? assignedSources - 1 : ring == -2 ? -1 : ring;
+        List<WeatherReading> readings = new ArrayList<>();
+        for (int source = firstSource; source <= lastSource; source++) {
+            long latestTimestamp = Long.MIN_VALUE;
+            double latestTemperature = 0.0;
+            double latestHumidity = 0.0;
+            for (int slot = source * capacity, end = slot + capacity; slot < end; slot++) {
+                long stamp;
+                long timestamp;
+                double temperature;
+                double humidity;
+                do {
+                    stamp = stamps.get(slot);
+                    timestamp = timestamps[slot];
+                    temperature = temperatures[slot];
+                    humidity = humidities[slot];
+                    VarHandle.loadLoadFence();
+                } while (stamp > EMPTY && stamps.get(slot) != stamp);
+
+                if (stamp > EMPTY && timestamp > latestTimestamp) {
+                    latestTimestamp = timestamp;
+                    latestTemperature = temperature;
+                    latestHumidity = humidity;
+                }
+            }
+            if (latestTimestamp != Long.MIN_VALUE) {
+                readings.add(new WeatherReading(sourceIds[source], latestTemperature, latestHumidity,
+                        fromMillis(latestTimestamp)));
+            }
+        }
+        return readings;
+    }
+
+    /**
+     * Назначает источнику следующий свободный номер. Вызывается только при первом показании источника.
+     *
+     * @return номер или -1, если все max-sources номеров заняты.
+     */
+    private synchronized int assign(int sourceId) {
+        Integer assigned = sourceSlots.get(sourceId);
+        if (assigned != null) {
+            return assigned;
+        }
+        int source = assignedSources;
+        if (source == maxSources) {
+            return -1;
+        }
+        sourceIds[source] = sourceId;
+        assignedSources = source + 1;
+        sourceSlots.put(sourceId, source);
+        return source;
+    }
+
+    private synchronized void reportFull(int sourceId) {
+        if (!fullReported) {
+            fullReported = true;
+            log.warn("Recent weather store is full ({} sources, weather.hot-window.max-sources), "
+                    + "readings of source {} and later new sources are not kept", maxSources, sourceId);
+        }
+    }
+
+    /**
+     * @return номер кольца источника, -1 для всех источников или -2, если у источника нет кольца.
+     */
+    private int ringOf(Integer sourceId) {
+        if (sourceId == null) {
+            return -1;
+        }
+        Integer source = sourceSlots.get(sourceId);
+        return source == null ? -2 : source;
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    private static LocalDateTime fromMillis(long millis) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(millis, 1000L),
+                (int) Math.floorMod(millis, 1000L) * 1_000_000, ZoneOffset.UTC);
+    }
+}
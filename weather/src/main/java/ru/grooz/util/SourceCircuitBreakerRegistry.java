@@ -0,0 +1,108 @@
+package ru.grooz.util;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Автоматические выключатели (circuit breaker) для источников данных.
+ * После failure-threshold неудачных запросов подряд источник пропускается в течение open-duration-ms,
+ * затем допускается один пробный запрос: успех закрывает выключатель, неудача снова открывает его.
+ * Каждый разрешенный запрос должен завершиться вызовом {@link #onSuccess}, {@link #onFailure} или {@link #release},
+ * иначе пробный запрос считается выполняющимся и следующие не допускаются.
+ */
+@Component
+public class SourceCircuitBreakerRegistry {
+
+    private final int failureThreshold;
+    private final long openDurationNanos;
+    private final Map<Integer, SourceCircuitBreaker> breakers = new ConcurrentHashMap<>();
+
+    public SourceCircuitBreakerRegistry(
+            @Value("${weather.sources.circuit-breaker.failure-threshold}") int failureThreshold,
+            @Value("${weather.sources.circuit-breaker.open-duration-ms}") long openDurationMs) {
+        this.failureThreshold = failureThreshold;
+        this.openDurationNanos = TimeUnit.MILLISECONDS.toNanos(openDurationMs);
+    }
+
+    /**
+     * @return true, если запрос к источнику разрешен (выключатель закрыт или пришло время пробного запроса).
+     */
+    public boolean tryAcquire(int sourceId) {
+        SourceCircuitBreaker breaker = breakers.get(sourceId);
+        return breaker == null || breaker.tryAcquire(System.nanoTime());
+    }
+
+    public void onSuccess(int sourceId) {
+        SourceCircuitBreaker breaker = breakers.get(sourceId);
+        if (breaker != null) {
+            breaker.onSuccess();
+        }
+    }
+
+    public void onFailure(int sourceId) {
+        breakers.computeIfAbsent(sourceId, id -> new SourceCircuitBreaker())
+                .onFailure(System.nanoTime());
+    }
+
+    /**
+     * Запрос завершился без исхода (отменен): состояние выключателя не меняется,
+     * а следующий пробный запрос снова допускается.
+     */
+    public void release(int sourceId) {
+        SourceCircuitBreaker breaker = breakers.get(sourceId);
+        if (breaker != null) {
+            breaker.trialInFlight.set(false);
+        }
+    }
+
+    /**
+     * @return количество источников с открытым выключателем.
+     */
+    public long openCount() {
+        long now = System.nanoTime();
+        return breakers.values().stream().filter(breaker -> breaker.isOpen(now)).count();
+    }
+
+    private final class SourceCircuitBreaker {
+
+        private final AtomicInteger consecutiveFailures = new AtomicInteger();
+        private final AtomicBoolean trialInFlight = new AtomicBoolean();
+        private volatile long openUntilNanos;
+        private volatile boolean open;
+
+        boolean tryAcquire(long now) {
+            if (!open) {
+                return true;
+            }
+            if (now - openUntilNanos < 0) {
+                return false;
+            }
+            // Полуоткрытое состояние: пропускаем ровно один пробный запрос
+            return trialInFlight.compareAndSet(false, true);
+        }
+
+        void onSuccess() {
+            consecutiveFailures.set(0);
+            open = false;
+            trialInFlight.set(false);
+        }
+
+        void onFailure(long now) {
+            if (consecutiveFailures.incrementAndGet() >= failureThreshold || open) {
+                openUntilNanos = now + openDurationNanos;
+                open = true;
+            }
+            trialInFlight.set(false);
+        }
+
+        boolean isOpen(long now) {
+            return open && now - openUntilNanos < 0;
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package ru.grooz.util;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Отслеживает задержки ответов каждого источника в компактных гистограммах
+ * с логарифмическими корзинами (4 корзины на каждую степень двойки, точность около 25%).
+ * Гистограмма занимает фиксированную память, а старые замеры постепенно теряют вес:
+ * при накоплении max-samples замеров все счетчики делятся пополам.
+ */
+@Component
+public class SourceLatencyTracker {
+
+    private static final int SUB_BUCKETS = 4;
+    private static final int MAX_EXPONENT = 17;
+    private static final int BUCKETS = MAX_EXPONENT * SUB_BUCKETS + 1;
+
+    private final int minSamples;
+    private final int maxSamples;
+    private final Map<Integer, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+
+    public SourceLatencyTracker(@Value("${weather.sources.hedging.min-samples}") int minSamples,
+                                @Value("${weather.sources.hedging.max-samples}") int maxSamples) {
+        this.minSamples = minSamples;
+        this.maxSamples = maxSamples;
+    }
+
+    /**
+     * Записывает задержку успешного ответа источника.
+     */
+    public void record(int sourceId, long latencyMillis) {
+        histograms.computeIfAbsent(sourceId, id -> new LatencyHistogram())
+                .record(latencyMillis);
+    }
+
+    /**
+     * @return оценку перцентиля задержки источника или null, если замеров меньше min-samples.
+     */
+    public Duration percentile(int sourceId, double percentile) {
+        LatencyHistogram histogram = histograms.get(sourceId);
+        if (histogram == null) {
+            return null;
+        }
+        long millis = histogram.percentile(percentile, minSamples);
+        return millis < 0 ? null : Duration.ofMillis(millis);
+    }
+
+    static int bucketIndex(long millis) {
+        if (millis < 1) {
+            return 0;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(millis);
+        if (exponent >= MAX_EXPONENT) {
+            return BUCKETS - 1;
+        }
+        // Положение внутри [2^e, 2^(e+1)) делится на SUB_BUCKETS равных частей
+        int subBucket = exponent < 2
+                ? (int) ((millis - (1L << exponent)) * SUB_BUCKETS >> exponent)
+                : (int) ((millis >> (exponent - 2)) & (SUB_BUCKETS - 1));
+        return 1 + exponent * SUB_BUCKETS + subBucket;
+    }
+
+    static long bucketUpperBound(int index) {
+        if (index == 0) {
+            return 1;
+        }
+        int exponent = (index - 1) / SUB_BUCKETS;
+        int subBucket = (index - 1) % SUB_BUCKETS;
+        long base = 1L << exponent;
+        return base + (base * (subBucket + 1) + SUB_BUCKETS - 1) / SUB_BUCKETS;
+    }
+
+    private final class LatencyHistogram {
+
+        private final long[] counts = new long[BUCKETS];
+        private long total;
+
+        synchronized void record(long millis) {
+            counts[bucketIndex(millis)]++;
+            if (++total >= maxSamples) {
+                total = 0;
+                for (int i = 0; i < counts.length; i++) {
+                    counts[i] >>= 1;
+                    total += counts[i];
+                }
+            }
+        }
+
+        synchronized long percentile(double percentile, int requiredSamples) {
+            if (total < requiredSamples || total == 0) {
+                return -1;
+            }
+            long rank = (long) Math.ceil(total * percentile);
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return bucketUpperBound(i);
+                }
+            }
+            return bucketUpperBound(counts.length - 1);
+        }
+    }
+}
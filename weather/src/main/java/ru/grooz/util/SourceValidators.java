@@ -0,0 +1,69 @@
+package ru.grooz.util;
+
+import org.springframework.stereotype.Component;
+import ru.grooz.dto.SourceWeatherData;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Сведения о последнем сохраненном ответе каждого источника для условных запросов
+ * (weather.sources.conditional-fetch.enabled): ETag и Last-Modified, которые источник вернул вместе с ним,
+ * и 64-битный хэш payload (FNV-1a) для источников без валидаторов. Запоминается только ответ,
+ * показание которого сохранено (или записано в WAL), поэтому неудачная запись не подавляет повтор.
+ * Хранится в памяти: после перезапуска первый цикл сохраняет показание каждого источника заново.
+ */
+@Component
+public class SourceValidators {
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final Map<Integer, Validators> bySource = new ConcurrentHashMap<>();
+
+    /**
+     * @param eTag         ETag сохраненного ответа или null.
+     * @param lastModified Last-Modified сохраненного ответа или null.
+     * @param payloadHash  Хэш payload сохраненного ответа.
+     */
+    public record Validators(String eTag, String lastModified, long payloadHash) {
+    }
+
+    /**
+     * @return сведения о последнем сохраненном ответе источника или null.
+     */
+    public Validators get(int sourceId) {
+        return bySource.get(sourceId);
+    }
+
+    /**
+     * @return true, если payload совпадает с последним сохраненным ответом источника;
+     * ответ без payload считается изменившимся.
+     */
+    public boolean isDuplicate(SourceWeatherData sourceData) {
+        if (sourceData.getPayload() == null) {
+            return false;
+        }
+        Validators known = bySource.get(sourceData.getSourceId());
+        return known != null && known.payloadHash() == hash(sourceData.getPayload());
+    }
+
+    /**
+     * Запоминает ответ, показание которого сохранено.
+     */
+    public void stored(SourceWeatherData sourceData) {
+        if (sourceData.isNotModified() || sourceData.getPayload() == null) {
+            return;
+        }
+        bySource.put(sourceData.getSourceId(), new Validators(sourceData.getETag(), sourceData.getLastModified(),
+                hash(sourceData.getPayload())));
+    }
+
+    static long hash(String payload) {
+        long hash = FNV_OFFSET_BASIS;
+        for (int i = 0; i < payload.length(); i++) {
+            hash = (hash ^ payload.charAt(i)) * FNV_PRIME;
+        }
+        return hash;
+    }
+}
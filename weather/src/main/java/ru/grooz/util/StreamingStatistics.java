@@ -0,0 +1,128 @@
+package ru.grooz.util;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Статистика одного показателя за один проход: количество, минимум и максимум, среднее и дисперсия по Уэлфорду
+ * (без накопления сумм квадратов, которое теряет точность на больших рядах) и квантили по {@link TDigest}.
+ * Значения не сохраняются, память не зависит от их количества. Два экземпляра сливаются через
+ * {@link #merge(StreamingStatistics)} (формула Чана для дисперсии), поэтому статистику можно собирать
+ * по источникам и корзинам времени отдельно. Экземпляр не потокобезопасен.
+ */
+public final class StreamingStatistics {
+
+    public static final double DEFAULT_COMPRESSION = 100;
+
+    private final TDigest digest;
+    private long count;
+    private double mean;
+    private double squaredDeviations;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    public StreamingStatistics() {
+        this(DEFAULT_COMPRESSION);
+    }
+
+    public StreamingStatistics(double compression) {
+        this(new TDigest(compression));
+    }
+
+    private StreamingStatistics(TDigest digest) {
+        this.digest = digest;
+    }
+
+    public void add(double value) {
+        count++;
+        double delta = value - mean;
+        mean += delta / count;
+        squaredDeviations += delta * (value - mean);
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+        digest.add(value);
+    }
+
+    public void merge(StreamingStatistics other) {
+        if (other.count == 0) {
+            return;
+        }
+        long total = count + other.count;
+        double delta = other.mean - mean;
+        mean += delta * other.count / total;
+        squaredDeviations += other.squaredDeviations + delta * delta * count * other.count / total;
+        count = total;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+        digest.merge(other.digest);
+    }
+
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeLong(count);
+        out.writeDouble(mean);
+        out.writeDouble(squaredDeviations);
+        out.writeDouble(min);
+        out.writeDouble(max);
+        digest.writeTo(out);
+    }
+
+    /**
+     * Читает статистику, записанную {@link #writeTo(DataOutput)}.
+     */
+    public static StreamingStatistics readFrom(DataInput in) throws IOException {
+        long count = in.readLong();
+        double mean = in.readDouble();
+        double squaredDeviations = in.readDouble();
+        double min = in.readDouble();
+        double max = in.readDouble();
+        StreamingStatistics statistics = new StreamingStatistics(TDigest.readFrom(in));
+        statistics.count = count;
+        statistics.mean = mean;
+        statistics.squaredDeviations = squaredDeviations;
+        statistics.min = min;
+        statistics.max = max;
+        return statistics;
+    }
+
+    public long count() {
+        return count;
+    }
+
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    /**
+     * @return среднее или 0.0, если значений нет.
+     */
+    public double mean() {
+        return mean;
+    }
+
+    /**
+     * @return дисперсия генеральной совокупности (деление на count) или 0.0, если значений нет.
+     */
+    public double variance() {
+        return count == 0 ? 0.0 : squaredDeviations / count;
+    }
+
+    public double standardDeviation() {
+        return Math.sqrt(variance());
+    }
+
+    public double min() {
+        return count == 0 ? 0.0 : min;
+    }
+
+    public double max() {
+        return count == 0 ? 0.0 : max;
+    }
+
+    /**
+     * @return оценка квантиля q в [0, 1] или 0.0, если значений нет.
+     */
+    public double quantile(double q) {
+        return count == 0 ? 0.0 : digest.quantile(q);
+    }
+}
@@ -0,0 +1,242 @@
+package ru.grooz.util;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Скетч квантилей t-digest (вариант merging digest с функцией масштаба k1): распределение хранится как
+ * упорядоченные центроиды (среднее и вес), причем у хвостов центроиды мельче, чем у медианы, поэтому
+ * p5 / p95 оцениваются точнее середины. Количество центроидов ограничено примерно compression и не зависит
+ * от количества значений; два скетча объединяются в один без потери точности сверх обычной для скетча,
+ * поэтому скетчи источников и корзин времени можно считать отдельно и сливать.
+ * <p>
+ * Новые значения копятся в буфере и вливаются в центроиды при его заполнении. Экземпляр не потокобезопасен.
+ * Скетч сохраняется через {@link #writeTo(DataOutput)} и восстанавливается через {@link #readFrom(DataInput)}.
+ */
+public final class TDigest {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final double compression;
+    private final int bufferLimit;
+
+    private double[] means = new double[INITIAL_CAPACITY];
+    private double[] weights = new double[INITIAL_CAPACITY];
+    private int centroids;
+    private double centroidWeight;
+
+    private double[] buffer = new double[INITIAL_CAPACITY];
+    private int buffered;
+
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    /**
+     * @param compression Параметр точности: чем больше, тем больше центроидов и точнее квантили (обычно 100).
+     */
+    public TDigest(double compression) {
+        if (compression < 10) {
+            throw new IllegalArgumentException("Compression must be at least 10");
+        }
+        this.compression = compression;
+        this.bufferLimit = (int) (compression * 5);
+    }
+
+    public void add(double value) {
+        if (buffered == bufferLimit) {
+            flush();
+        }
+        if (buffered == buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.min(buffer.length * 2, bufferLimit));
+        }
+        buffer[buffered++] = value;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    /**
+     * Вливает в скетч все значения other. Сам other не меняется, кроме сброса его буфера в центроиды.
+     */
+    public void merge(TDigest other) {
+        if (other.isEmpty()) {
+            return;
+        }
+        other.flush();
+        flush();
+        double[] mergedMeans = new double[centroids + other.centroids];
+        double[] mergedWeights = new double[mergedMeans.length];
+        int i = 0;
+        int j = 0;
+        int k = 0;
+        while (i < centroids || j < other.centroids) {
+            if (j == other.centroids || (i < centroids && means[i] <= other.means[j])) {
+                mergedMeans[k] = means[i];
+                mergedWeights[k++] = weights[i++];
+            } else {
+                mergedMeans[k] = other.means[j];
+                mergedWeights[k++] = other.weights[j++];
+            }
+        }
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+        compress(mergedMeans, mergedWeights, k, centroidWeight + other.centroidWeight);
+    }
+
+    /**
+     * Записывает скетч: буфер предварительно вливается в центроиды, поэтому записываются только центроиды.
+     */
+    public void writeTo(DataOutput out) throws IOException {
+        flush();
+        out.writeDouble(compression);
+        out.writeDouble(min);
+        out.writeDouble(max);
+        out.writeDouble(centroidWeight);
+        out.writeInt(centroids);
+        for (int i = 0; i < centroids; i++) {
+            out.writeDouble(means[i]);
+            out.writeDouble(weights[i]);
+        }
+    }
+
+    /**
+     * Читает скетч, записанный {@link #writeTo(DataOutput)}, с его собственным compression.
+     */
+    public static TDigest readFrom(DataInput in) throws IOException {
+        TDigest digest = new TDigest(in.readDouble());
+        digest.min = in.readDouble();
+        digest.max = in.readDouble();
+        digest.centroidWeight = in.readDouble();
+        int centroids = in.readInt();
+        if (centroids < 0) {
+            throw new IOException("Negative centroid count: " + centroids);
+        }
+        digest.means = new double[centroids];
+        digest.weights = new double[centroids];
+        for (int i = 0; i < centroids; i++) {
+            digest.means[i] = in.readDouble();
+            digest.weights[i] = in.readDouble();
+        }
+        digest.centroids = centroids;
+        return digest;
+    }
+
+    public long count() {
+        return Math.round(centroidWeight) + buffered;
+    }
+
+    public boolean isEmpty() {
+        return count() == 0;
+    }
+
+    /**
+     * Оценка квантиля q в [0, 1]: линейная интерполяция между центрами соседних центроидов,
+     * у краев — до точных минимума и максимума.
+     *
+     * @return оценка или NaN, если значений нет.
+     */
+    public double quantile(double q) {
+        if (q < 0 || q > 1) {
+            throw new IllegalArgumentException("Quantile must be in [0, 1]: " + q);
+        }
+        flush();
+        if (centroids == 0) {
+            return Double.NaN;
+        }
+        if (centroids == 1) {
+            return means[0];
+        }
+
+        double index = q * centroidWeight;
+        double firstHalf = weights[0] / 2;
+        if (index < firstHalf) {
+            return min + (means[0] - min) * index / firstHalf;
+        }
+        double lastHalf = weights[centroids - 1] / 2;
+        if (index > centroidWeight - lastHalf) {
+            return max - (max - means[centroids - 1]) * (centroidWeight - index) / lastHalf;
+        }
+
+        double weightSoFar = firstHalf;
+        for (int i = 0; i < centroids - 1; i++) {
+            double gap = (weights[i] + weights[i + 1]) / 2;
+            if (weightSoFar + gap >= index) {
+                return means[i] + (means[i + 1] - means[i]) * (index - weightSoFar) / gap;
+            }
+            weightSoFar += gap;
+        }
+        return means[centroids - 1];
+    }
+
+    /**
+     * Вливает буфер в центроиды: буфер сортируется и сливается с уже упорядоченными центроидами.
+     */
+    private void flush() {
+        if (buffered == 0) {
+            return;
+        }
+        Arrays.sort(buffer, 0, buffered);
+        double[] mergedMeans = new double[centroids + buffered];
+        double[] mergedWeights = new double[mergedMeans.length];
+        int i = 0;
+        int j = 0;
+        int k = 0;
+        while (i < centroids || j < buffered) {
+            if (j == buffered || (i < centroids && means[i] <= buffer[j])) {
+                mergedMeans[k] = means[i];
+                mergedWeights[k++] = weights[i++];
+            } else {
+                mergedMeans[k] = buffer[j++];
+                mergedWeights[k++] = 1;
+            }
+        }
+        double totalWeight = centroidWeight + buffered;
+        buffered = 0;
+        compress(mergedMeans, mergedWeights, k, totalWeight);
+    }
+
+    /**
+     * Жадно объединяет упорядоченные центроиды, пока вес центроида укладывается в единицу шкалы k1.
+     */
+    private void compress(double[] sortedMeans, double[] sortedWeights, int count, double totalWeight) {
+        int out = 0;
+        double weightSoFar = 0;
+        double currentMean = sortedMeans[0];
+        double currentWeight = sortedWeights[0];
+        double limit = totalWeight * quantileOf(scaleOf(0) + 1);
+        for (int i = 1; i < count; i++) {
+            double proposed = currentWeight + sortedWeights[i];
+            if (weightSoFar + proposed <= limit) {
+                currentMean += (sortedMeans[i] - currentMean) * sortedWeights[i] / proposed;
+                currentWeight = proposed;
+            } else {
+                sortedMeans[out] = currentMean;
+                sortedWeights[out++] = currentWeight;
+                weightSoFar += currentWeight;
+                limit = totalWeight * quantileOf(scaleOf(weightSoFar / totalWeight) + 1);
+                currentMean = sortedMeans[i];
+                currentWeight = sortedWeights[i];
+            }
+        }
+        sortedMeans[out] = currentMean;
+        sortedWeights[out++] = currentWeight;
+
+        // Массивы слияния переиспользуются, если не слишком велики для оставшихся центроидов
+        means = out * 4 < count ? Arrays.copyOf(sortedMeans, out) : sortedMeans;
+        weights = out * 4 < count ? Arrays.copyOf(sortedWeights, out) : sortedWeights;
+        centroids = out;
+        centroidWeight = totalWeight;
+    }
+
+    private double scaleOf(double q) {
+        return compression / (2 * Math.PI) * Math.asin(2 * Math.min(q, 1) - 1);
+    }
+
+    private double quantileOf(double k) {
+        if (k >= compression / 4) {
+            return 1;
+        }
+        return (Math.sin(k * 2 * Math.PI / compression) + 1) / 2;
+    }
+}
@@ -1,55 +1,226 @@
 package ru.grooz.util;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.StreamReadFeature;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import ru.grooz.dto.WeatherData;
 
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Потоковый парсер ответов источников.
+ * Читает payload токенами через {@link JsonParser}, не строя дерево JsonNode, и извлекает только
+ * температуру и влажность по путям из {@link WeatherFormatRegistry}.
+ * Последний распознанный формат запоминается для каждого источника: на быстром пути парсер ищет
+ * только его поля и прекращает чтение, как только оба значения найдены.
+ */
 @Component
 @Slf4j
 public class WeatherDataParser {
 
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final JsonFactory jsonFactory = JsonFactory.builder()
+            .enable(StreamReadFeature.USE_FAST_DOUBLE_PARSER)
+            .build();
+
+    private final WeatherFormatRegistry formatRegistry;
+    private final WeatherMetrics metrics;
+    private final Map<Integer, WeatherFormat> lastFormatBySource = new ConcurrentHashMap<>();
+
+    public WeatherDataParser(WeatherFormatRegistry formatRegistry) {
+        this(formatRegistry, WeatherMetrics.disabled());
+    }
 
+    @Autowired
+    public WeatherDataParser(WeatherFormatRegistry formatRegistry, WeatherMetrics metrics) {
+        this.formatRegistry = formatRegistry;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Парсит payload без привязки к источнику (формат определяется каждый раз).
+     */
     public WeatherData parse(String jsonPayload) {
+        return parse(-1, jsonPayload);
+    }
+
+    /**
+     * Парсит payload источника. Сначала пробует последний распознанный для него формат,
+     * при неудаче определяет формат заново и запоминает результат.
+     * Распознанный формат и путь парсера учитываются в {@link WeatherMetrics}.
+     *
+     * @param sourceId    Идентификатор источника.
+     * @param jsonPayload Ответ источника.
+     * @return WeatherData с температурой и влажностью.
+     * @throws IllegalArgumentException если payload не является JSON-объектом известного формата.
+     */
+    public WeatherData parse(int sourceId, String jsonPayload) {
+        // Время парсинга (сотни наносекунд) замеряется только в режиме detailed
+        long startNanos = metrics.isDetailed() ? System.nanoTime() : 0;
         try {
-            JsonNode rootNode = objectMapper.readTree(jsonPayload);
-
-            // Пример 1: { "temp": 20.1, "hum": 55 }
-            if (rootNode.has("temp") && rootNode.has("hum")) {
-                return new WeatherData(
-                        rootNode.get("temp").asDouble(),
-                        rootNode.get("hum").asDouble()
-                );
+            WeatherFormat known = sourceId < 0 ? null : lastFormatBySource.get(sourceId);
+            if (known != null) {
+                WeatherData data = parseKnownFormat(jsonPayload, known);
+                if (data != null) {
+                    metrics.payloadParsed(known, true, elapsedSince(startNanos));
+                    return data;
+                }
+            }
+
+            WeatherFormat[] formats = formatRegistry.formats();
+            double[] values = new double[formats.length * 2];
+            int detected = detectFormat(jsonPayload, formats, formatRegistry.maxDepth(), values);
+            if (detected < 0) {
+                throw new IllegalArgumentException("Unknown weather data format");
             }
+            if (sourceId >= 0) {
+                lastFormatBySource.put(sourceId, formats[detected]);
+            }
+            metrics.payloadParsed(formats[detected], false, elapsedSince(startNanos));
+            return new WeatherData(values[detected * 2], values[detected * 2 + 1]);
+        } catch (IOException | IllegalArgumentException e) {
+            metrics.payloadRejected();
+            // Payload пишем только на debug: на горячем пути он может быть большим и частым
+            log.debug("Unparsable weather payload from source {}: {}", sourceId, jsonPayload);
+            throw new IllegalArgumentException("Failed to parse weather data: " + e.getMessage(), e);
+        }
+    }
 
-            // Пример 2: { "temperature": "21.7", "humidity": "58" }
-            if (rootNode.has("temperature") && rootNode.has("humidity")) {
-                return new WeatherData(
-                        Double.parseDouble(rootNode.get("temperature").asText()),
-                        Double.parseDouble(rootNode.get("humidity").asText())
-                );
+    /**
+     * Быстрый путь: ищет поля одного формата и останавливается, как только найдены оба.
+     *
+     * @return WeatherData или null, если payload не соответствует формату.
+     */
+    private WeatherData parseKnownFormat(String jsonPayload, WeatherFormat format) throws IOException {
+        String[] path = new String[format.depth()];
+        double temperature = Double.NaN;
+        double humidity = Double.NaN;
+
+        try (JsonParser parser = jsonFactory.createParser(jsonPayload)) {
+            expectObject(parser);
+            int depth = 0;
+            JsonToken token;
+            while ((token = parser.nextToken()) != null) {
+                switch (token) {
+                    case FIELD_NAME -> path[depth] = parser.currentName();
+                    case START_OBJECT -> {
+                        if (depth + 1 < path.length) {
+                            depth++;
+                        } else {
+                            parser.skipChildren();
+                        }
+                    }
+                    case START_ARRAY -> parser.skipChildren();
+                    case END_OBJECT -> {
+                        if (depth == 0) {
+                            return null;
+                        }
+                        depth--;
+                    }
+                    case VALUE_NUMBER_INT, VALUE_NUMBER_FLOAT, VALUE_STRING -> {
+                        if (format.isTemperature(path, depth + 1)) {
+                            temperature = readDouble(parser);
+                        } else if (format.isHumidity(path, depth + 1)) {
+                            humidity = readDouble(parser);
+                        }
+                        if (!Double.isNaN(temperature) && !Double.isNaN(humidity)) {
+                            return new WeatherData(temperature, humidity);
+                        }
+                    }
+                    default -> {
+                        // true / false / null не участвуют ни в одном формате
+                    }
+                }
             }
+        }
+        return null;
+    }
 
-            // Пример 3: { "weather": { "t": 22.5, "h": 53.3 } }
-            if (rootNode.has("weather")) {
-                JsonNode weatherNode = rootNode.get("weather");
-                if (weatherNode.has("t") && weatherNode.has("h")) {
-                    return new WeatherData(
-                            weatherNode.get("t").asDouble(),
-                            weatherNode.get("h").asDouble()
-                    );
+    /**
+     * Определение формата за один проход: значения собираются сразу для всех форматов реестра,
+     * затем выбирается первый формат, для которого найдены оба поля.
+     *
+     * @param values Массив [температура, влажность] для каждого формата.
+     * @return индекс распознанного формата или -1.
+     */
+    private int detectFormat(String jsonPayload, WeatherFormat[] formats, int maxDepth, double[] values)
+            throws IOException {
+        String[] path = new String[Math.max(maxDepth, 1)];
+        long temperatureFound = 0;
+        long humidityFound = 0;
+
+        try (JsonParser parser = jsonFactory.createParser(jsonPayload)) {
+            expectObject(parser);
+            int depth = 0;
+            JsonToken token;
+            while ((token = parser.nextToken()) != null) {
+                switch (token) {
+                    case FIELD_NAME -> path[depth] = parser.currentName();
+                    case START_OBJECT -> {
+                        if (depth + 1 < path.length) {
+                            depth++;
+                        } else {
+                            parser.skipChildren();
+                        }
+                    }
+                    case START_ARRAY -> parser.skipChildren();
+                    case END_OBJECT -> {
+                        if (depth == 0) {
+                            return firstComplete(temperatureFound, humidityFound);
+                        }
+                        depth--;
+                    }
+                    case VALUE_NUMBER_INT, VALUE_NUMBER_FLOAT, VALUE_STRING -> {
+                        for (int i = 0; i < formats.length; i++) {
+                            if (formats[i].isTemperature(path, depth + 1)) {
+                                values[i * 2] = readDouble(parser);
+                                temperatureFound |= 1L << i;
+                            } else if (formats[i].isHumidity(path, depth + 1)) {
+                                values[i * 2 + 1] = readDouble(parser);
+                                humidityFound |= 1L << i;
+                            }
+                        }
+                    }
+                    default -> {
+                        // true / false / null не участвуют ни в одном формате
+                    }
                 }
             }
+        }
+        return firstComplete(temperatureFound, humidityFound);
+    }
 
-            // Если ни один формат не подходит, можно выбросить исключение или вернуть null
-            throw new IllegalArgumentException("Unknown weather data format: " + jsonPayload);
+    private long elapsedSince(long startNanos) {
+        return metrics.isDetailed() ? System.nanoTime() - startNanos : 0;
+    }
+
+    private static int firstComplete(long temperatureFound, long humidityFound) {
+        long complete = temperatureFound & humidityFound;
+        return complete == 0 ? -1 : Long.numberOfTrailingZeros(complete);
+    }
 
-        } catch (Exception e) {
-            // Логирование ошибки парсинга
-            log.error("Error parsing weather data: " + jsonPayload + " - " + e.getMessage());
-            throw new RuntimeException("Failed to parse weather data", e);
+    private static void expectObject(JsonParser parser) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new IllegalArgumentException("Weather payload is not a JSON object");
+        }
+    }
+
+    /**
+     * Читает число или строку с числом (формат 2 присылает значения строками) без промежуточного JsonNode.
+     */
+    private static double readDouble(JsonParser parser) throws IOException {
+        if (parser.currentToken() == JsonToken.VALUE_STRING) {
+            double value = parser.getValueAsDouble(Double.NaN);
+            if (Double.isNaN(value)) {
+                throw new IllegalArgumentException("Field '" + parser.currentName() + "' is not a number");
+            }
+            return value;
         }
+        return parser.getDoubleValue();
     }
 }
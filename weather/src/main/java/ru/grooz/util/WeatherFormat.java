@@ -0,0 +1,83 @@
+package ru.grooz.util;
+
+import java.util.Arrays;
+
+/**
+ * Описание формата ответа провайдера: пути к полям температуры и влажности внутри JSON-объекта.
+ * Путь задается именами полей через точку, например "weather.t".
+ */
+public final class WeatherFormat {
+
+    private final String name;
+    private final String[] temperaturePath;
+    private final String[] humidityPath;
+
+    private WeatherFormat(String name, String[] temperaturePath, String[] humidityPath) {
+        this.name = name;
+        this.temperaturePath = temperaturePath;
+        this.humidityPath = humidityPath;
+    }
+
+    /**
+     * @param name            Имя формата (для логов и метрик).
+     * @param temperaturePath Путь к температуре, например "temp" или "weather.t".
+     * @param humidityPath    Путь к влажности.
+     */
+    public static WeatherFormat of(String name, String temperaturePath, String humidityPath) {
+        return new WeatherFormat(name, temperaturePath.split("\\."), humidityPath.split("\\."));
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    int depth() {
+        return Math.max(temperaturePath.length, humidityPath.length);
+    }
+
+    boolean isTemperature(String[] path, int length) {
+        return matches(temperaturePath, path, length);
+    }
+
+    boolean isHumidity(String[] path, int length) {
+        return matches(humidityPath, path, length);
+    }
+
+    private static boolean matches(String[] expected, String[] path, int length) {
+        if (expected.length != length) {
+            return false;
+        }
+        for (int i = length - 1; i >= 0; i--) {
+            if (!expected[i].equals(path[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return "WeatherFormat{name=" + name
+                + ", temperature=" + String.join(".", temperaturePath)
+                + ", humidity=" + String.join(".", humidityPath)
+                + "}";
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof WeatherFormat that)) {
+            return false;
+        }
+        return name.equals(that.name)
+                && Arrays.equals(temperaturePath, that.temperaturePath)
+                && Arrays.equals(humidityPath, that.humidityPath);
+    }
+
+    @Override
+    public int hashCode() {
+        return name.hashCode();
+    }
+}
@@ -0,0 +1,61 @@
+package ru.grooz.util;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Реестр известных форматов ответов провайдеров.
+ * Порядок регистрации задает приоритет: если payload подходит под несколько форматов, выбирается первый.
+ * Новые форматы добавляются через {@link #register(WeatherFormat)} без изменения парсера.
+ */
+@Component
+public class WeatherFormatRegistry {
+
+    private volatile WeatherFormat[] formats = new WeatherFormat[0];
+    private volatile int maxDepth;
+
+    public WeatherFormatRegistry() {
+        // Пример 1: { "temp": 20.1, "hum": 55 }
+        register(WeatherFormat.of("flat-short", "temp", "hum"));
+        // Пример 2: { "temperature": "21.7", "humidity": "58" }
+        register(WeatherFormat.of("flat-long", "temperature", "humidity"));
+        // Пример 3: { "weather": { "t": 22.5, "h": 53.3 } }
+        register(WeatherFormat.of("nested", "weather.t", "weather.h"));
+    }
+
+    /**
+     * Регистрирует формат с наименьшим приоритетом. Поддерживается до 64 форматов.
+     */
+    public synchronized void register(WeatherFormat format) {
+        if (formats.length == Long.SIZE) {
+            throw new IllegalStateException("Too many weather formats registered: " + formats.length);
+        }
+        WeatherFormat[] updated = Arrays.copyOf(formats, formats.length + 1);
+        updated[formats.length] = format;
+        maxDepth = Math.max(maxDepth, format.depth());
+        formats = updated;
+    }
+
+    /**
+     * @return зарегистрированные форматы в порядке приоритета.
+     */
+    public List<WeatherFormat> getFormats() {
+        return List.of(formats);
+    }
+
+    /**
+     * Массив форматов без копирования для горячего пути парсера; изменять его нельзя.
+     */
+    WeatherFormat[] formats() {
+        return formats;
+    }
+
+    /**
+     * @return максимальная глубина вложенности полей среди зарегистрированных форматов.
+     */
+    int maxDepth() {
+        return maxDepth;
+    }
+}
@@ -0,0 +1,225 @@
+package ru.grooz.util;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Метрики конвейера сбора: запросы к источникам, парсинг, запись в базу и расчет агрегатов.
+ * <p>
+ * Режим weather.metrics.mode:
+ * <ul>
+ *     <li>basic — только счетчики и таймеры (count / sum / max), без гистограмм; время парсинга не замеряется.
+ *     Подходит для production: каждое измерение — несколько атомарных сложений.</li>
+ *     <li>detailed — дополнительно публикуются гистограммы перцентилей (для histogram_quantile в Prometheus)
+ *     и время каждого вызова парсера.</li>
+ * </ul>
+ * Идентификатор источника в теги не попадает: при тысячах источников это взорвало бы кардинальность.
+ * Задержки по отдельным источникам хранит {@link SourceLatencyTracker}.
+ */
+@Component
+public class WeatherMetrics {
+
+    private final MeterRegistry registry;
+    private final boolean detailed;
+
+    private final Map<FetchOutcome, Timer> fetchTimers = new EnumMap<>(FetchOutcome.class);
+    private final Counter retries;
+    private final Counter failedCircuitOpen;
+    private final Counter failedError;
+    private final Counter failedMissing;
+    private final Counter unchangedNotModified;
+    private final Counter unchangedDuplicate;
+
+    private final Timer parseTime;
+    private final Counter parseFailures;
+    private final Map<String, Counter> knownFormatHits = new ConcurrentHashMap<>();
+    private final Map<String, Counter> detectedFormatHits = new ConcurrentHashMap<>();
+
+    private final Map<String, Timer> writeTimers = new ConcurrentHashMap<>();
+    private final Map<String, Timer> aggregateTimers = new ConcurrentHashMap<>();
+    private final Map<String, DistributionSummary> aggregateRows = new ConcurrentHashMap<>();
+
+    public WeatherMetrics(MeterRegistry registry, @Value("${weather.metrics.mode}") Mode mode) {
+        this.registry = registry;
+        this.detailed = mode == Mode.DETAILED;
+
+        for (FetchOutcome outcome : FetchOutcome.values()) {
+            fetchTimers.put(outcome, fetchTimer(outcome.name().toLowerCase(Locale.ROOT)));
+        }
+        this.retries = Counter.builder("weather.source.retries")
+                .description("Retried source requests")
+                .register(registry);
+        this.failedCircuitOpen = failureCounter("circuit-open");
+        this.failedError = failureCounter("error");
+        this.failedMissing = failureCounter("missing");
+        this.unchangedNotModified = unchangedCounter("not-modified");
+        this.unchangedDuplicate = unchangedCounter("duplicate");
+
+        this.parseTime = Timer.builder("weather.parser.time")
+                .description("Time to parse one source payload (detailed mode only)")
+                .publishPercentileHistogram(detailed)
+                .register(registry);
+        this.parseFailures = Counter.builder("weather.parser.failures")
+                .description("Payloads that matched no known format")
+                .register(registry);
+    }
+
+    /**
+     * Метрики без публикации: для тестов и бенчмарков, где реестр не нужен.
+     */
+    public static WeatherMetrics disabled() {
+        return new WeatherMetrics(new CompositeMeterRegistry(), Mode.BASIC);
+    }
+
+    /**
+     * @return true, если включен режим detailed и стоит замерять время дешевых операций (парсинга).
+     */
+    public boolean isDetailed() {
+        return detailed;
+    }
+
+    /**
+     * Одна попытка запроса к источнику (ретраи и хеджирующие запросы учитываются отдельно).
+     * Отмененные попытки (проигравший хеджирующий запрос, дедлайн цикла) учитываются с outcome=cancelled.
+     */
+    public void sourceFetched(long nanos, FetchOutcome outcome) {
+        fetchTimers.get(outcome).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void sourceRetried() {
+        retries.increment();
+    }
+
+    /**
+     * Источник пропущен в цикле, потому что его выключатель разомкнут.
+     */
+    public void sourcesSkipped(int count) {
+        failedCircuitOpen.increment(count);
+    }
+
+    /**
+     * Запрос к источнику не удался после всех ретраев.
+     */
+    public void sourcesFailed(int count) {
+        failedError.increment(count);
+    }
+
+    /**
+     * Источники, не вернувшиеся в ответе batch-эндпоинта до дедлайна.
+     */
+    public void sourcesMissing(int count) {
+        failedMissing.increment(count);
+    }
+
+    /**
+     * Источник ответил 304 или вернул тот же payload, что и в последнем сохраненном ответе:
+     * разбор и запись пропущены.
+     *
+     * @param notModified true для ответа 304, false для совпадения хэша payload.
+     */
+    public void sourceUnchanged(boolean notModified) {
+        (notModified ? unchangedNotModified : unchangedDuplicate).increment();
+    }
+
+    public void payloadParsed(WeatherFormat format, boolean knownFormat, long nanos) {
+        Map<String, Counter> hits = knownFormat ? knownFormatHits : detectedFormatHits;
+        hits.computeIfAbsent(format.getName(), name -> Counter.builder("weather.parser.formats")
+                        .description("Parsed payloads by format and parser path")
+                        .tag("format", name)
+                        .tag("path", knownFormat ? "known" : "detected")
+                        .register(registry))
+                .increment();
+        if (detailed) {
+            parseTime.record(nanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    public void payloadRejected() {
+        parseFailures.increment();
+    }
+
+    /**
+     * Время записи в базу.
+     *
+     * @param stage raw / normalized — отдельные вызовы JPA, batch — общая транзакция R2DBC.
+     */
+    public void written(String stage, long nanos) {
+        writeTimers.computeIfAbsent(stage, key -> Timer.builder("weather.persistence.write")
+                        .description("Time to write collected readings")
+                        .tag("stage", key)
+                        .publishPercentileHistogram(detailed)
+                        .register(registry))
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Время расчета агрегата.
+     *
+     * @param kind cycle / range / buckets / statistics / recent / export.
+     * @param rows Для range — количество агрегированных показаний, для buckets — количество корзин;
+     *             отрицательное значение — количество не учитывается (cycle).
+     */
+    public void aggregated(String kind, long nanos, long rows) {
+        aggregateTimers.computeIfAbsent(kind, key -> Timer.builder("weather.aggregate.latency")
+                        .description("Time to compute an aggregate response")
+                        .tag("kind", key)
+                        .publishPercentileHistogram(detailed)
+                        .register(registry))
+                .record(nanos, TimeUnit.NANOSECONDS);
+        if (rows >= 0) {
+            aggregateRows.computeIfAbsent(kind, key -> DistributionSummary.builder("weather.aggregate.rows")
+                            .description("Readings aggregated (range) or buckets read (buckets) per aggregate request")
+                            .tag("kind", key)
+                            .publishPercentileHistogram(detailed)
+                            .register(registry))
+                    .record(rows);
+        }
+    }
+
+    private Timer fetchTimer(String outcome) {
+        return Timer.builder("weather.source.fetch")
+                .description("Source request latency per attempt")
+                .tag("outcome", outcome)
+                .publishPercentileHistogram(detailed)
+                .register(registry);
+    }
+
+    private Counter failureCounter(String reason) {
+        return Counter.builder("weather.source.failures")
+                .description("Sources that contributed no reading to a cycle")
+                .tag("reason", reason)
+                .register(registry);
+    }
+
+    private Counter unchangedCounter(String reason) {
+        return Counter.builder("weather.source.unchanged")
+                .description("Source responses skipped because the reading did not change")
+                .tag("reason", reason)
+                .register(registry);
+    }
+
+    public enum Mode {
+        BASIC,
+        DETAILED
+    }
+
+    /**
+     * Исход попытки запроса к источнику (тег outcome метрики weather.source.fetch).
+     */
+    public enum FetchOutcome {
+        SUCCESS,
+        ERROR,
+        CANCELLED
+    }
+}
@@ -0,0 +1,110 @@
+package ru.grooz.util;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Кодирование payload для хранения в weather_payload: ключ — SHA-256 от UTF-8 байтов payload,
+ * данные — первый байт с форматом и далее сами байты. Сжатие (deflate) применяется, только если
+ * payload достаточно длинный и действительно уменьшается: короткие JSON-ответы deflate не сжимает.
+ */
+public final class WeatherPayloadCodec {
+
+    private static final byte FORMAT_PLAIN = 0;
+    private static final byte FORMAT_DEFLATE = 1;
+    private static final int MIN_COMPRESSIBLE_LENGTH = 128;
+
+    private WeatherPayloadCodec() {
+    }
+
+    /**
+     * Закодированный payload.
+     *
+     * @param hash SHA-256 от исходного payload.
+     * @param data Байт формата и содержимое.
+     */
+    public record EncodedPayload(byte[] hash, byte[] data) {
+    }
+
+    public static EncodedPayload encode(String payload) {
+        byte[] bytes = payload.getBytes(StandardCharsets.UTF_8);
+        return new EncodedPayload(sha256(bytes), compress(bytes));
+    }
+
+    public static String decode(byte[] data) {
+        byte[] body = Arrays.copyOfRange(data, 1, data.length);
+        return switch (data[0]) {
+            case FORMAT_PLAIN -> new String(body, StandardCharsets.UTF_8);
+            case FORMAT_DEFLATE -> new String(inflate(body), StandardCharsets.UTF_8);
+            default -> throw new IllegalArgumentException("Unknown payload format: " + data[0]);
+        };
+    }
+
+    private static byte[] compress(byte[] bytes) {
+        if (bytes.length >= MIN_COMPRESSIBLE_LENGTH) {
+            byte[] deflated = deflate(bytes);
+            if (deflated.length < bytes.length) {
+                return withFormat(FORMAT_DEFLATE, deflated);
+            }
+        }
+        return withFormat(FORMAT_PLAIN, bytes);
+    }
+
+    private static byte[] withFormat(byte format, byte[] body) {
+        byte[] data = new byte[body.length + 1];
+        data[0] = format;
+        System.arraycopy(body, 0, data, 1, body.length);
+        return data;
+    }
+
+    private static byte[] deflate(byte[] bytes) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED, true);
+        try {
+            deflater.setInput(bytes);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length);
+            byte[] buffer = new byte[Math.max(64, bytes.length)];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] bytes) {
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(bytes);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length * 4);
+            byte[] buffer = new byte[Math.max(256, bytes.length * 4)];
+            while (!inflater.finished()) {
+                int inflated = inflater.inflate(buffer);
+                if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IllegalArgumentException("Truncated compressed payload");
+                }
+                out.write(buffer, 0, inflated);
+            }
+            return out.toByteArray();
+        } catch (DataFormatException e) {
+            throw new IllegalArgumentException("Corrupted compressed payload", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static byte[] sha256(byte[] bytes) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(bytes);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package ru.grooz.util;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Статистика температуры и влажности набора показаний за один проход (см. {@link StreamingStatistics}).
+ * Экземпляры по источникам и корзинам времени сливаются через {@link #merge(WeatherStatistics)}.
+ * Экземпляр не потокобезопасен.
+ */
+public final class WeatherStatistics {
+
+    private final StreamingStatistics temperature;
+    private final StreamingStatistics humidity;
+
+    public WeatherStatistics(double compression) {
+        this(new StreamingStatistics(compression), new StreamingStatistics(compression));
+    }
+
+    private WeatherStatistics(StreamingStatistics temperature, StreamingStatistics humidity) {
+        this.temperature = temperature;
+        this.humidity = humidity;
+    }
+
+    public void add(double temperature, double humidity) {
+        this.temperature.add(temperature);
+        this.humidity.add(humidity);
+    }
+
+    public WeatherStatistics merge(WeatherStatistics other) {
+        temperature.merge(other.temperature);
+        humidity.merge(other.humidity);
+        return this;
+    }
+
+    public void writeTo(DataOutput out) throws IOException {
+        temperature.writeTo(out);
+        humidity.writeTo(out);
+    }
+
+    /**
+     * Читает статистику, записанную {@link #writeTo(DataOutput)}.
+     */
+    public static WeatherStatistics readFrom(DataInput in) throws IOException {
+        StreamingStatistics temperature = StreamingStatistics.readFrom(in);
+        return new WeatherStatistics(temperature, StreamingStatistics.readFrom(in));
+    }
+
+    public long count() {
+        return temperature.count();
+    }
+
+    public StreamingStatistics temperature() {
+        return temperature;
+    }
+
+    public StreamingStatistics humidity() {
+        return humidity;
+    }
+}
@@ -0,0 +1,287 @@
+package ru.grooz.util;
+
+import lombok.extern.slf4j.Slf4j;
+import ru.grooz.dto.SourceWeatherData;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Локальный журнал упреждающей записи (WAL) для режима write-behind: ответы источников дописываются
+ * в конец сегментов фиксированного размера, отображенных в память, и переживают падение процесса
+ * до записи в базу. Запись в отображенную память не требует системного вызова; при fsync после каждой пачки
+ * выполняется force(), и пачка переживает также падение ОС.
+ * <p>
+ * Формат записи: длина тела (int), CRC32C тела (int), тело — sourceId (int), время получения
+ * в микросекундах UTC (long), длина payload в байтах (int, -1 для null) и payload в UTF-8.
+ * Новый сегмент заполнен нулями, поэтому нулевая длина означает конец записей; запись с неверной длиной
+ * или CRC считается оборванной, и чтение сегмента на ней останавливается.
+ * <p>
+ * Позиция в журнале (LSN) — номер сегмента в старших 32 битах и смещение конца записи в младших;
+ * позиции растут монотонно. После открытия журнал всегда пишет в новый сегмент, существующие только читаются.
+ */
+@Slf4j
+public final class WriteAheadLog implements Closeable {
+
+    private static final String ID_FILE = "wal.id";
+    private static final String SEGMENT_PREFIX = "wal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final int HEADER_SIZE = 8;
+    private static final int BODY_FIXED_SIZE = 16;
+
+    private final Path directory;
+    private final String id;
+    private final int segmentSize;
+    private final boolean fsync;
+
+    private long segment;
+    private MappedByteBuffer buffer;
+
+    /**
+     * Запись журнала.
+     *
+     * @param lsn        Позиция конца записи.
+     * @param sourceId   Идентификатор источника.
+     * @param receivedAt Время получения ответа.
+     * @param payload    Payload ответа.
+     */
+    public record Entry(long lsn, int sourceId, LocalDateTime receivedAt, String payload) {
+    }
+
+    private WriteAheadLog(Path directory, String id, int segmentSize, boolean fsync) {
+        this.directory = directory;
+        this.id = id;
+        this.segmentSize = segmentSize;
+        this.fsync = fsync;
+    }
+
+    /**
+     * Открывает журнал в каталоге (создает каталог и идентификатор журнала при первом запуске)
+     * и начинает новый сегмент для записи.
+     *
+     * @param directory   Каталог журнала.
+     * @param segmentSize Размер сегмента в байтах.
+     * @param fsync       Выполнять force() после каждой пачки.
+     */
+    public static WriteAheadLog open(Path directory, int segmentSize, boolean fsync) throws IOException {
+        if (segmentSize < HEADER_SIZE + BODY_FIXED_SIZE) {
+            throw new IllegalArgumentException("WAL segment size is too small: " + segmentSize);
+        }
+        Files.createDirectories(directory);
+        Path idFile = directory.resolve(ID_FILE);
+        if (!Files.exists(idFile)) {
+            Files.writeString(idFile, UUID.randomUUID().toString());
+        }
+        String id = Files.readString(idFile).trim();
+
+        WriteAheadLog wal = new WriteAheadLog(directory, id, segmentSize, fsync);
+        List<Long> segments = wal.segments();
+        wal.openSegment(segments.isEmpty() ? 1 : segments.get(segments.size() - 1) + 1);
+        return wal;
+    }
+
+    /**
+     * Идентификатор журнала: по нему хранится позиция, до которой записи уже сохранены в базе.
+     * Пересоздание каталога дает новый журнал, и чужая позиция к нему не применяется.
+     */
+    public String id() {
+        return id;
+    }
+
+    /**
+     * Дописывает пачку ответов в журнал.
+     *
+     * @param batch      Ответы источников.
+     * @param receivedAt Время получения пачки.
+     * @return LSN каждой записи в порядке пачки.
+     */
+    public synchronized long[] append(List<SourceWeatherData> batch, LocalDateTime receivedAt) throws IOException {
+        long[] lsns = new long[batch.size()];
+        long micros = toMicros(receivedAt);
+        for (int i = 0; i < batch.size(); i++) {
+            SourceWeatherData sourceData = batch.get(i);
+            lsns[i] = append(sourceData.getSourceId(), micros, sourceData.getPayload());
+        }
+        if (fsync) {
+            buffer.force();
+        }
+        return lsns;
+    }
+
+    /**
+     * Читает записи, расположенные после позиции fromLsn, во всех сегментах, кроме текущего.
+     *
+     * @param fromLsn  Позиция, до которой записи уже обработаны (0 — читать все).
+     * @param consumer Обработчик записей в порядке журнала.
+     * @return количество прочитанных записей.
+     */
+    public long replay(long fromLsn, Consumer<Entry> consumer) throws IOException {
+        long fromSegment = segmentOf(fromLsn);
+        long count = 0;
+        for (long replayed : segments()) {
+            if (replayed < fromSegment || replayed == currentSegment()) {
+                continue;
+            }
+            int offset = replayed == fromSegment ? offsetOf(fromLsn) : 0;
+            try (FileChannel channel = FileChannel.open(segmentPath(replayed), StandardOpenOption.READ)) {
+                ByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                count += replaySegment(replayed, data, offset, consumer);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Удаляет сегменты, целиком расположенные до позиции lsn (текущий сегмент не удаляется).
+     *
+     * @return количество удаленных сегментов.
+     */
+    public int deleteSegmentsBefore(long lsn) throws IOException {
+        long before = Math.min(segmentOf(lsn), currentSegment());
+        int deleted = 0;
+        for (long existing : segments()) {
+            if (existing < before && Files.deleteIfExists(segmentPath(existing))) {
+                deleted++;
+            }
+        }
+        return deleted;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (buffer != null) {
+            buffer.force();
+            buffer = null;
+        }
+    }
+
+    public static long segmentOf(long lsn) {
+        return lsn >>> 32;
+    }
+
+    private static int offsetOf(long lsn) {
+        return (int) lsn;
+    }
+
+    private static long lsn(long segment, int offset) {
+        return segment << 32 | offset;
+    }
+
+    private long append(int sourceId, long receivedAtMicros, String payload) throws IOException {
+        byte[] bytes = payload == null ? null : payload.getBytes(StandardCharsets.UTF_8);
+        int bodyLength = BODY_FIXED_SIZE + (bytes == null ? 0 : bytes.length);
+        int recordLength = HEADER_SIZE + bodyLength;
+        if (recordLength > segmentSize) {
+            throw new IllegalArgumentException("Payload of source " + sourceId + " does not fit into a WAL segment");
+        }
+        if (buffer.remaining() < recordLength) {
+            openSegment(segment + 1);
+        }
+
+        int start = buffer.position();
+        buffer.position(start + HEADER_SIZE);
+        buffer.putInt(sourceId);
+        buffer.putLong(receivedAtMicros);
+        buffer.putInt(bytes == null ? -1 : bytes.length);
+        if (bytes != null) {
+            buffer.put(bytes);
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.slice(start + HEADER_SIZE, bodyLength));
+        // Длина пишется последней: пока ее нет, запись не видна при чтении
+        buffer.putInt(start + 4, (int) crc.getValue());
+        buffer.putInt(start, bodyLength);
+        return lsn(segment, buffer.position());
+    }
+
+    private long replaySegment(long replayed, ByteBuffer data, int offset, Consumer<Entry> consumer) {
+        long count = 0;
+        while (offset + HEADER_SIZE <= data.limit()) {
+            int bodyLength = data.getInt(offset);
+            if (bodyLength == 0) {
+                break;
+            }
+            int bodyStart = offset + HEADER_SIZE;
+            if (bodyLength < BODY_FIXED_SIZE || bodyLength > data.limit() - bodyStart) {
+                log.warn("WAL segment {} has a torn record at offset {}, ignoring the rest", replayed, offset);
+                break;
+            }
+            CRC32C crc = new CRC32C();
+            crc.update(data.slice(bodyStart, bodyLength));
+            if ((int) crc.getValue() != data.getInt(offset + 4)) {
+                log.warn("WAL segment {} has a corrupted record at offset {}, ignoring the rest", replayed, offset);
+                break;
+            }
+
+            int sourceId = data.getInt(bodyStart);
+            long micros = data.getLong(bodyStart + 4);
+            int payloadLength = data.getInt(bodyStart + 12);
+            String payload = null;
+            if (payloadLength >= 0) {
+                byte[] bytes = new byte[payloadLength];
+                data.get(bodyStart + BODY_FIXED_SIZE, bytes);
+                payload = new String(bytes, StandardCharsets.UTF_8);
+            }
+            offset = bodyStart + bodyLength;
+            consumer.accept(new Entry(lsn(replayed, offset), sourceId, fromMicros(micros), payload));
+            count++;
+        }
+        return count;
+    }
+
+    private void openSegment(long next) throws IOException {
+        if (buffer != null) {
+            buffer.force();
+        }
+        try (FileChannel channel = FileChannel.open(segmentPath(next),
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // Отображение остается действительным и после закрытия канала
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        }
+        segment = next;
+    }
+
+    private synchronized long currentSegment() {
+        return segment;
+    }
+
+    private List<Long> segments() throws IOException {
+        List<Long> segments = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX))
+                    .forEach(name -> segments.add(Long.parseLong(
+                            name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()))));
+        }
+        segments.sort(null);
+        return segments;
+    }
+
+    private Path segmentPath(long number) {
+        return directory.resolve(String.format("%s%016d%s", SEGMENT_PREFIX, number, SEGMENT_SUFFIX));
+    }
+
+    private static long toMicros(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + time.getNano() / 1_000;
+    }
+
+    private static LocalDateTime fromMicros(long micros) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000L),
+                (int) Math.floorMod(micros, 1_000_000L) * 1_000, ZoneOffset.UTC);
+    }
+}
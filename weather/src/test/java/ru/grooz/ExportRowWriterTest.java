@@ -0,0 +1,74 @@
+package ru.grooz;
+
+import org.junit.jupiter.api.Test;
+import ru.grooz.dto.ExportFormat;
+import ru.grooz.util.ExportRowWriter;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ExportRowWriterTest {
+
+    private static final String[] COLUMNS = {"id", "timestamp", "temperature", "payload"};
+    private static final LocalDateTime TIMESTAMP = LocalDateTime.of(2024, 3, 1, 12, 30, 15);
+
+    @Test
+    void testNdjson_WritesObjectPerRowAndEscapesText() {
+        StringBuilder out = new StringBuilder();
+        ExportRowWriter writer = new ExportRowWriter(ExportFormat.NDJSON, COLUMNS, out);
+
+        writer.header();
+        writeRow(writer, "{\"temp\": 20.5}\n");
+        writeRow(writer, null);
+
+        assertEquals("""
+                {"id":1,"timestamp":"2024-03-01T12:30:15","temperature":-3.5,"payload":"{\\"temp\\": 20.5}\\n"}
+                {"id":1,"timestamp":"2024-03-01T12:30:15","temperature":-3.5,"payload":null}
+                """, out.toString());
+    }
+
+    @Test
+    void testCsv_WritesHeaderAndQuotesOnlyWhenNeeded() {
+        StringBuilder out = new StringBuilder();
+        ExportRowWriter writer = new ExportRowWriter(ExportFormat.CSV, COLUMNS, out);
+
+        writer.header();
+        writeRow(writer, "temp=20.5");
+        writeRow(writer, "{\"temp\": 20.5, \"hum\": 40}");
+
+        assertEquals("""
+                id,timestamp,temperature,payload
+                1,2024-03-01T12:30:15,-3.5,temp=20.5
+                1,2024-03-01T12:30:15,-3.5,"{""temp"": 20.5, ""hum"": 40}"
+                """, out.toString());
+    }
+
+    @Test
+    void testNullNumbers_WrittenAsMissingValues() {
+        StringBuilder ndjson = new StringBuilder();
+        StringBuilder csv = new StringBuilder();
+        String[] columns = {"id", "temperature", "humidity"};
+        for (ExportRowWriter writer : new ExportRowWriter[]{
+                new ExportRowWriter(ExportFormat.NDJSON, columns, ndjson),
+                new ExportRowWriter(ExportFormat.CSV, columns, csv)}) {
+            writer.startRow();
+            writer.value(1L);
+            writer.value((Double) null);
+            writer.value(0.0);
+            writer.endRow();
+        }
+
+        assertEquals("{\"id\":1,\"temperature\":null,\"humidity\":0.0}\n", ndjson.toString());
+        assertEquals("1,,0.0\n", csv.toString());
+    }
+
+    private static void writeRow(ExportRowWriter writer, String payload) {
+        writer.startRow();
+        writer.value(1L);
+        writer.value(TIMESTAMP);
+        writer.value(-3.5);
+        writer.value(payload);
+        writer.endRow();
+    }
+}
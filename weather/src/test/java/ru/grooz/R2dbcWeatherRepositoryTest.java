@@ -0,0 +1,59 @@
+package ru.grooz;
+
+import io.r2dbc.spi.Statement;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import ru.grooz.model.RawWeatherData;
+import ru.grooz.repository.R2dbcWeatherRepository;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.RETURNS_SELF;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class R2dbcWeatherRepositoryTest {
+
+    @Test
+    void testBindRawData_BindsNullPayload() {
+        Statement statement = mock(Statement.class, RETURNS_SELF);
+
+        ReflectionTestUtils.invokeMethod(R2dbcWeatherRepository.class, "bindRawData", statement, rawData(null, null));
+
+        verify(statement).bindNull(2, String.class);
+        verify(statement).bindNull(4, ByteBuffer.class);
+        verify(statement, never()).bind(eq(2), any());
+    }
+
+    @Test
+    void testBindRawData_BindsTextOrReference() {
+        Statement text = mock(Statement.class, RETURNS_SELF);
+        ReflectionTestUtils.invokeMethod(R2dbcWeatherRepository.class, "bindRawData", text, rawData("{}", null));
+        verify(text).bind(2, "{}");
+        verify(text).bindNull(4, ByteBuffer.class);
+
+        Statement reference = mock(Statement.class, RETURNS_SELF);
+        RawWeatherData data = rawData("{}", null);
+        data.storeAsReference(new byte[]{1, 2});
+        ReflectionTestUtils.invokeMethod(R2dbcWeatherRepository.class, "bindRawData", reference, data);
+        verify(reference).bindNull(2, String.class);
+        verify(reference).bind(4, ByteBuffer.wrap(new byte[]{1, 2}));
+        verify(reference, never()).bindNull(eq(4), any());
+        verify(reference, never()).bind(anyInt(), eq("{}"));
+    }
+
+    private static RawWeatherData rawData(String payload, byte[] payloadHash) {
+        RawWeatherData data = new RawWeatherData();
+        data.setId(1L);
+        data.setSourceId(1);
+        data.setPayload(payload);
+        data.setPayloadHash(payloadHash);
+        data.setTimestamp(LocalDateTime.now());
+        return data;
+    }
+}
@@ -0,0 +1,68 @@
+package ru.grooz;
+
+import org.junit.jupiter.api.Test;
+import ru.grooz.dto.WeatherReading;
+import ru.grooz.util.RecentWeatherStore;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RecentWeatherStoreTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 3, 1, 12, 0);
+
+    @Test
+    void testWindow_CountsOnlyReadingsSinceStart() {
+        RecentWeatherStore store = new RecentWeatherStore(2, 4);
+        store.record(1, 10.0, 50.0, NOW.minusMinutes(30));
+        store.record(1, 20.0, 60.0, NOW.minusMinutes(5));
+        store.record(2, 30.0, 40.0, NOW.minusMinutes(1));
+
+        RecentWeatherStore.WindowStats stats = store.window(NOW.minusMinutes(10), null);
+
+        assertEquals(2, stats.count());
+        assertEquals(50.0, stats.temperatureSum());
+        assertEquals(20.0, stats.minTemperature());
+        assertEquals(30.0, stats.maxTemperature());
+        assertEquals(40.0, stats.minHumidity());
+        assertEquals(60.0, stats.maxHumidity());
+        assertTrue(stats.complete());
+        assertEquals(1, store.window(NOW.minusMinutes(10), 2).count());
+    }
+
+    @Test
+    void testRecord_OverwritesOldestAndMarksWindowIncomplete() {
+        RecentWeatherStore store = new RecentWeatherStore(1, 3);
+        assertEquals(4, store.capacityPerSource());
+        for (int i = 0; i < 6; i++) {
+            store.record(1, i, i, NOW.plusMinutes(i));
+        }
+        store.record(5, 99.0, 99.0, NOW);
+
+        RecentWeatherStore.WindowStats stats = store.window(NOW, null);
+        assertEquals(4, stats.count());
+        assertEquals(2.0, stats.minTemperature());
+        assertFalse(stats.complete());
+        assertEquals(List.of(new WeatherReading(1, 5.0, 5.0, NOW.plusMinutes(5))), store.latest(null));
+    }
+
+    @Test
+    void testRecord_AssignsRingsToArbitrarySourceIds() {
+        RecentWeatherStore store = new RecentWeatherStore(2, 2);
+        store.record(100_000, 10.0, 40.0, NOW.minusMinutes(2));
+        store.record(7, 20.0, 50.0, NOW.minusMinutes(1));
+        store.record(100_000, 30.0, 60.0, NOW);
+        // Все номера заняты: показания нового источника не хранятся
+        store.record(8, 99.0, 99.0, NOW);
+
+        assertEquals(List.of(new WeatherReading(100_000, 30.0, 60.0, NOW),
+                new WeatherReading(7, 20.0, 50.0, NOW.minusMinutes(1))), store.latest(null));
+        assertEquals(2, store.window(NOW.minusMinutes(5), 100_000).count());
+        assertEquals(0, store.window(NOW.minusMinutes(5), 8).count());
+        assertEquals(List.of(), store.latest(8));
+    }
+}
@@ -0,0 +1,30 @@
+package ru.grooz;
+
+import org.junit.jupiter.api.Test;
+import ru.grooz.service.SourceAssignment;
+import ru.grooz.service.SourceAssignment.Range;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SourceAssignmentTest {
+
+    @Test
+    void testOfShards_MergesAdjacentShards() {
+        SourceAssignment assignment = SourceAssignment.ofShards(List.of(0, 1, 3), 4, 100);
+
+        assertEquals(List.of(new Range(1, 50), new Range(76, 100)), assignment.ranges());
+        assertEquals(75, assignment.sourceCount());
+    }
+
+    @Test
+    void testOfShards_LastShardIsTruncatedAndEmptyShardsAreSkipped() {
+        // 10 источников на 4 шарда: по 3 источника, последний шард — один источник
+        SourceAssignment assignment = SourceAssignment.ofShards(List.of(2, 3), 4, 10);
+        assertEquals(List.of(new Range(7, 10)), assignment.ranges());
+
+        // 3 источника на 4 шарда: шард 3 пуст
+        assertEquals(List.of(), SourceAssignment.ofShards(List.of(3), 4, 3).ranges());
+    }
+}
@@ -0,0 +1,40 @@
+package ru.grooz;
+
+import org.junit.jupiter.api.Test;
+import ru.grooz.util.SourceCircuitBreakerRegistry;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SourceCircuitBreakerRegistryTest {
+
+    @Test
+    void testHalfOpen_AllowsSingleTrialUntilItSettles() {
+        // Нулевая длительность: выключатель сразу переходит в полуоткрытое состояние
+        SourceCircuitBreakerRegistry breakers = new SourceCircuitBreakerRegistry(2, 0);
+        breakers.onFailure(1);
+        assertTrue(breakers.tryAcquire(1));
+        breakers.onFailure(1);
+
+        assertTrue(breakers.tryAcquire(1));
+        assertFalse(breakers.tryAcquire(1));
+
+        breakers.onSuccess(1);
+        assertTrue(breakers.tryAcquire(1));
+        assertTrue(breakers.tryAcquire(1));
+    }
+
+    @Test
+    void testRelease_CancelledTrialDoesNotBlockSource() {
+        SourceCircuitBreakerRegistry breakers = new SourceCircuitBreakerRegistry(1, 0);
+        breakers.onFailure(1);
+
+        assertTrue(breakers.tryAcquire(1));
+        breakers.release(1);
+
+        assertTrue(breakers.tryAcquire(1));
+        assertFalse(breakers.tryAcquire(1));
+        assertEquals(0, breakers.openCount());
+    }
+}
@@ -0,0 +1,52 @@
+package ru.grooz;
+
+import org.junit.jupiter.api.Test;
+import ru.grooz.util.SourceLatencyTracker;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SourceLatencyTrackerTest {
+
+    @Test
+    void testPercentile_RequiresMinSamples() {
+        SourceLatencyTracker tracker = new SourceLatencyTracker(10, 1000);
+        for (int i = 0; i < 9; i++) {
+            tracker.record(1, 50);
+        }
+
+        assertNull(tracker.percentile(1, 0.95));
+        assertNull(tracker.percentile(2, 0.95));
+    }
+
+    @Test
+    void testPercentile_EstimatesTailWithinBucketPrecision() {
+        SourceLatencyTracker tracker = new SourceLatencyTracker(10, 10_000);
+        for (int latency = 1; latency <= 1000; latency++) {
+            tracker.record(1, latency);
+        }
+
+        long p50 = tracker.percentile(1, 0.50).toMillis();
+        long p95 = tracker.percentile(1, 0.95).toMillis();
+
+        assertTrue(p50 >= 500 && p50 <= 625, "p50 = " + p50);
+        assertTrue(p95 >= 950 && p95 <= 1190, "p95 = " + p95);
+    }
+
+    @Test
+    void testPercentile_OldSamplesDecay() {
+        SourceLatencyTracker tracker = new SourceLatencyTracker(10, 100);
+        for (int i = 0; i < 100; i++) {
+            tracker.record(1, 2000);
+        }
+        for (int i = 0; i < 500; i++) {
+            tracker.record(1, 10);
+        }
+
+        Duration p95 = tracker.percentile(1, 0.95);
+
+        assertTrue(p95.toMillis() <= 12, "p95 = " + p95);
+    }
+}
@@ -0,0 +1,93 @@
+package ru.grooz;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import ru.grooz.repository.WeatherSourceLeaseRepository;
+import ru.grooz.service.SourceAssignment;
+import ru.grooz.service.SourceLeaseService;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class SourceLeaseServiceTest {
+
+    private static final String INSTANCE = "weather-1";
+    private static final long LEASE_TTL_MS = 60_000;
+
+    @Mock
+    private WeatherSourceLeaseRepository leaseRepository;
+
+    private SourceLeaseService sourceLeaseService;
+
+    @BeforeEach
+    void setUp() {
+        sourceLeaseService = new SourceLeaseService(leaseRepository, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(sourceLeaseService, "sourceCount", 100);
+        ReflectionTestUtils.setField(sourceLeaseService, "shardCount", 4);
+        ReflectionTestUtils.setField(sourceLeaseService, "leaseTtlMs", LEASE_TTL_MS);
+        ReflectionTestUtils.setField(sourceLeaseService, "instanceId", INSTANCE);
+    }
+
+    @Test
+    void testBegin_ReturnsAcquiredShards() {
+        when(leaseRepository.renew(INSTANCE, LEASE_TTL_MS)).thenReturn(List.of());
+        when(leaseRepository.countLiveInstances(LEASE_TTL_MS)).thenReturn(1);
+        when(leaseRepository.acquire(INSTANCE, 4, LEASE_TTL_MS)).thenReturn(List.of(0, 1, 2, 3));
+
+        heartbeat();
+        SourceAssignment assignment = sourceLeaseService.begin();
+
+        assertEquals(List.of(0, 1, 2, 3), assignment.shards());
+        assertEquals(List.of(new SourceAssignment.Range(1, 100)), assignment.ranges());
+    }
+
+    @Test
+    void testBegin_ExpiredLeasesGiveEmptyAssignment() {
+        ReflectionTestUtils.setField(sourceLeaseService, "leaseTtlMs", 0L);
+        when(leaseRepository.renew(INSTANCE, 0L)).thenReturn(List.of(0, 1));
+        when(leaseRepository.countLiveInstances(0L)).thenReturn(2);
+
+        heartbeat();
+        SourceAssignment assignment = sourceLeaseService.begin();
+
+        assertTrue(assignment.shards().isEmpty());
+        assertEquals(0, assignment.sourceCount());
+    }
+
+    @Test
+    void testRebalance_ReleasesDrainingShardsOnlyAfterCyclesEnd() {
+        when(leaseRepository.renew(INSTANCE, LEASE_TTL_MS)).thenReturn(List.of(0, 1, 2, 3));
+        when(leaseRepository.countLiveInstances(LEASE_TTL_MS)).thenReturn(1, 2);
+
+        heartbeat();
+        SourceAssignment running = sourceLeaseService.begin();
+        assertEquals(List.of(0, 1, 2, 3), running.shards());
+
+        // Второй экземпляр: шарды 2 и 3 отдаются, но их еще собирает выполняющийся цикл
+        heartbeat();
+        assertEquals(List.of(0, 1), sourceLeaseService.begin().shards());
+        heartbeat();
+        verify(leaseRepository, never()).release(anyString(), anyList());
+
+        sourceLeaseService.end(running);
+        heartbeat();
+        verify(leaseRepository).release(INSTANCE, List.of(2, 3));
+    }
+
+    private void heartbeat() {
+        ReflectionTestUtils.invokeMethod(sourceLeaseService, "heartbeat");
+    }
+}
@@ -0,0 +1,221 @@
+package ru.grooz;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.reactivestreams.Subscription;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.BaseSubscriber;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ru.grooz.dto.WeatherSource;
+import ru.grooz.service.SourcePollScheduler;
+import ru.grooz.service.SourceRegistry;
+import ru.grooz.service.WeatherCollectorService;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class SourcePollSchedulerTest {
+
+    /**
+     * Тик длиннее любого теста: фоновый поток планировщика не успевает сработать, время задает сам тест.
+     */
+    private static final long TICK_MS = 60_000;
+    private static final int WHEEL_SIZE = 8;
+
+    @Mock
+    private SourceRegistry sourceRegistry;
+    @Mock
+    private ObjectProvider<SourceRegistry> sourceRegistryProvider;
+    @Mock
+    private WeatherCollectorService weatherCollectorService;
+
+    private final Map<Integer, WeatherSource> registered = new ConcurrentHashMap<>();
+    private final DueSubscriber due = new DueSubscriber();
+    private Consumer<WeatherSource> registryListener;
+    private Consumer<WeatherSource> polled;
+    private SourcePollScheduler scheduler;
+    private long startNanos;
+
+    @BeforeEach
+    void setUp() {
+        when(sourceRegistryProvider.getIfAvailable()).thenReturn(sourceRegistry);
+        when(sourceRegistry.get(any(Integer.class))).thenAnswer(invocation -> registered.get(invocation.getArgument(0)));
+        when(sourceRegistry.pollIntervalOf(any())).thenAnswer(invocation ->
+                ((WeatherSource) invocation.getArgument(0)).pollIntervalMs());
+        when(sourceRegistry.enabledSources()).thenAnswer(invocation -> List.copyOf(registered.values()));
+        doAnswer(invocation -> registryListener = invocation.getArgument(0)).when(sourceRegistry).addListener(any());
+        when(weatherCollectorService.pollSources(any(), any())).thenAnswer(invocation -> {
+            Flux<WeatherSource> dueSources = invocation.getArgument(0);
+            polled = invocation.getArgument(1);
+            dueSources.subscribe(due);
+            return Mono.never();
+        });
+        scheduler = new SourcePollScheduler(sourceRegistryProvider, weatherCollectorService, new SimpleMeterRegistry(),
+                TICK_MS, WHEEL_SIZE);
+    }
+
+    @AfterEach
+    void tearDown() {
+        ReflectionTestUtils.invokeMethod(scheduler, "stop");
+        due.dispose();
+    }
+
+    @Test
+    void testTick_PollsOnSourceGridAcrossWheelRounds() {
+        // Интервал в 20 тиков больше колеса из 8 ячеек: запись проходит ячейку дважды до своего срока
+        WeatherSource source = register(new WeatherSource(1, null, 20 * TICK_MS, 0, true));
+        start();
+        due.request(Long.MAX_VALUE);
+
+        int firstPoll = advanceUntilPolled(20);
+        assertTrue(firstPoll >= 1 && firstPoll <= 20, "first poll within one interval, was tick " + firstPoll);
+        assertEquals(List.of(source), due.received);
+
+        // Следующий срок — ближайший тик сетки не раньше чем через половину интервала, то есть через интервал
+        polled.accept(source);
+        advanceTo(firstPoll + 19);
+        assertEquals(1, due.received.size());
+        advanceTo(firstPoll + 20);
+        assertEquals(List.of(source, source), due.received);
+    }
+
+    @Test
+    void testTick_CatchesUpMissedTicks() {
+        WeatherSource source = register(new WeatherSource(1, null, 20 * TICK_MS, 0, true));
+        start();
+        due.request(Long.MAX_VALUE);
+
+        // Один вызов продвигает колесо на 45 тиков: срок не теряется и источник опрашивается один раз
+        advanceTo(45);
+
+        assertEquals(List.of(source), due.received);
+    }
+
+    @Test
+    void testDrain_PassesHigherPriorityFirst() {
+        WeatherSource low = register(new WeatherSource(1, null, TICK_MS, 0, true));
+        WeatherSource high = register(new WeatherSource(2, null, TICK_MS, 10, true));
+        WeatherSource middle = register(new WeatherSource(3, null, TICK_MS, 5, true));
+        start();
+
+        advanceTo(1);
+        assertTrue(due.received.isEmpty());
+        due.request(1);
+        due.request(1);
+        due.request(1);
+
+        assertEquals(List.of(high, middle, low), due.received);
+    }
+
+    @Test
+    void testTick_DropsReplacedAndRemovedSources() {
+        WeatherSource replaced = register(new WeatherSource(1, null, TICK_MS, 0, true));
+        WeatherSource removed = register(new WeatherSource(2, null, TICK_MS, 0, true));
+        start();
+        due.request(Long.MAX_VALUE);
+
+        WeatherSource replacement = register(new WeatherSource(1, "http://localhost:8081/source/1", TICK_MS, 0, true));
+        registryListener.accept(replacement);
+        registered.remove(removed.sourceId());
+        advanceTo(1);
+
+        assertEquals(List.of(replacement), due.received);
+        assertFalse(due.received.contains(replaced));
+    }
+
+    @Test
+    void testStart_ResubscribesAfterPollingError() throws InterruptedException {
+        WeatherSource source = register(new WeatherSource(1, null, TICK_MS, 0, true));
+        doReturn(Mono.error(new IllegalStateException("Polling pipeline failed")))
+                .doAnswer(invocation -> {
+                    Flux<WeatherSource> dueSources = invocation.getArgument(0);
+                    dueSources.subscribe(due);
+                    return Mono.never();
+                })
+                .when(weatherCollectorService).pollSources(any(), any());
+        start();
+
+        // Перезапуск через секунду после ошибки
+        assertTrue(due.subscribed.await(5, TimeUnit.SECONDS));
+        due.request(Long.MAX_VALUE);
+        advanceTo(1);
+
+        // onSubscribe приходит до того, как Flux.create сохранит sink: источник может уйти уже из onRequest
+        assertTrue(due.firstReceived.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of(source), due.received);
+    }
+
+    private WeatherSource register(WeatherSource source) {
+        registered.put(source.sourceId(), source);
+        return source;
+    }
+
+    private void start() {
+        ReflectionTestUtils.invokeMethod(scheduler, "start");
+        startNanos = (long) ReflectionTestUtils.getField(scheduler, "startNanos");
+    }
+
+    /**
+     * Сдвигает начало отсчета так, будто с запуска прошло tick тиков, и выполняет тик.
+     */
+    private void advanceTo(long tick) {
+        ReflectionTestUtils.setField(scheduler, "startNanos",
+                startNanos - TimeUnit.MILLISECONDS.toNanos(tick * TICK_MS + TICK_MS / 2));
+        ReflectionTestUtils.invokeMethod(scheduler, "tick");
+    }
+
+    private int advanceUntilPolled(int maxTick) {
+        for (int tick = 1; tick <= maxTick; tick++) {
+            advanceTo(tick);
+            if (!due.received.isEmpty()) {
+                return tick;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Конвейер опроса с явным спросом: источники передаются только после request.
+     */
+    private static final class DueSubscriber extends BaseSubscriber<WeatherSource> {
+
+        private final List<WeatherSource> received = new CopyOnWriteArrayList<>();
+        private final CountDownLatch subscribed = new CountDownLatch(1);
+        private final CountDownLatch firstReceived = new CountDownLatch(1);
+
+        @Override
+        protected void hookOnSubscribe(Subscription subscription) {
+            subscribed.countDown();
+        }
+
+        @Override
+        protected void hookOnNext(WeatherSource source) {
+            received.add(source);
+            firstReceived.countDown();
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package ru.grooz;
+
+import org.junit.jupiter.api.Test;
+import ru.grooz.dto.SourceWeatherData;
+import ru.grooz.util.SourceValidators;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SourceValidatorsTest {
+
+    private static final String PAYLOAD = "{ \"temp\": 20.5, \"hum\": 40 }";
+
+    @Test
+    void testIsDuplicate_SamePayloadAfterStored() {
+        SourceValidators sourceValidators = new SourceValidators();
+        assertFalse(sourceValidators.isDuplicate(new SourceWeatherData(1, PAYLOAD)));
+
+        sourceValidators.stored(new SourceWeatherData(1, PAYLOAD));
+
+        assertTrue(sourceValidators.isDuplicate(new SourceWeatherData(1, PAYLOAD)));
+        assertFalse(sourceValidators.isDuplicate(new SourceWeatherData(2, PAYLOAD)));
+    }
+
+    @Test
+    void testIsDuplicate_NullPayloadIsChanged() {
+        SourceValidators sourceValidators = new SourceValidators();
+        sourceValidators.stored(new SourceWeatherData(1, PAYLOAD));
+
+        assertFalse(sourceValidators.isDuplicate(new SourceWeatherData(1, null)));
+    }
+}
@@ -0,0 +1,75 @@
+package ru.grooz;
+
+import org.junit.jupiter.api.Test;
+import ru.grooz.dto.AggregatedWeatherResponse;
+import ru.grooz.util.StreamingStatistics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class StreamingStatisticsTest {
+
+    @Test
+    void testQuantiles_AreCloseToExactOnShuffledValues() {
+        List<Double> values = new ArrayList<>();
+        for (int i = 1; i <= 100_000; i++) {
+            values.add((double) i);
+        }
+        Collections.shuffle(values, new Random(42));
+
+        StreamingStatistics statistics = new StreamingStatistics();
+        values.forEach(statistics::add);
+
+        assertEquals(1.0, statistics.min());
+        assertEquals(100_000.0, statistics.max());
+        assertEquals(50_000.5, statistics.mean(), 1e-6);
+        assertEquals(50_000, statistics.quantile(0.5), 500);
+        assertEquals(95_000, statistics.quantile(0.95), 200);
+        assertEquals(5_000, statistics.quantile(0.05), 200);
+    }
+
+    @Test
+    void testMerge_MatchesSinglePassOverAllValues() {
+        Random random = new Random(7);
+        StreamingStatistics all = new StreamingStatistics();
+        StreamingStatistics first = new StreamingStatistics();
+        StreamingStatistics second = new StreamingStatistics();
+        for (int i = 0; i < 20_000; i++) {
+            double value = i % 2 == 0 ? 20 + random.nextGaussian() * 3 : 25 + random.nextGaussian();
+            all.add(value);
+            (i % 2 == 0 ? first : second).add(value);
+        }
+
+        first.merge(second);
+
+        assertEquals(all.count(), first.count());
+        assertEquals(all.mean(), first.mean(), 1e-9);
+        assertEquals(all.standardDeviation(), first.standardDeviation(), 1e-9);
+        assertEquals(all.min(), first.min());
+        assertEquals(all.max(), first.max());
+        assertEquals(all.quantile(0.5), first.quantile(0.5), 0.1);
+        assertEquals(all.quantile(0.95), first.quantile(0.95), 0.1);
+    }
+
+    @Test
+    void testRound_RoundsHalfAwayFromZero() {
+        assertEquals(21.13, AggregatedWeatherResponse.round(21.125));
+        assertEquals(-21.13, AggregatedWeatherResponse.round(-21.125));
+        assertEquals(0.0, AggregatedWeatherResponse.round(0.004));
+    }
+
+    @Test
+    void testRound_MatchesFormattedRounding() {
+        for (double value : new double[]{20.815, -34.675, 1.005, 2.675, -0.125, 1234.5649}) {
+            assertEquals(Double.parseDouble(String.format(Locale.ROOT, "%.2f", value)),
+                    AggregatedWeatherResponse.round(value), () -> "value " + value);
+        }
+        assertEquals(-34.68, AggregatedWeatherResponse.round(-34.675));
+        assertEquals(1.01, AggregatedWeatherResponse.round(1.005));
+    }
+}
@@ -0,0 +1,91 @@
+package ru.grooz;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.grooz.dto.WeatherAggregateState;
+import ru.grooz.repository.WeatherAggregateRepository;
+import ru.grooz.repository.WeatherHistoryRepository;
+import ru.grooz.service.WeatherAggregateService;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class WeatherAggregateServiceTest {
+
+    @Mock
+    private WeatherAggregateRepository weatherAggregateRepository;
+    @Mock
+    private WeatherHistoryRepository weatherHistoryRepository;
+
+    private final RecordingTransactionManager transactionManager = new RecordingTransactionManager();
+    private WeatherAggregateService weatherAggregateService;
+
+    @BeforeEach
+    void setUp() {
+        weatherAggregateService = new WeatherAggregateService(weatherAggregateRepository, weatherHistoryRepository,
+                new TransactionTemplate(transactionManager));
+    }
+
+    @Test
+    void testRebuild_PublishesStateAfterCommit() {
+        WeatherAggregateState rebuilt = new WeatherAggregateState(3, 60.0, 120.0);
+        when(weatherAggregateRepository.sum()).thenAnswer(invocation -> {
+            // До коммита состояние в памяти остается прежним
+            assertEquals(WeatherAggregateState.EMPTY, weatherAggregateService.current());
+            return rebuilt;
+        });
+
+        assertEquals(rebuilt, weatherAggregateService.rebuild());
+
+        assertEquals(1, transactionManager.commits);
+        assertEquals(rebuilt, weatherAggregateService.current());
+    }
+
+    @Test
+    void testRebuild_RollbackKeepsState() {
+        when(weatherAggregateRepository.rebuildFromHistory(anyInt())).thenThrow(new IllegalStateException("Rebuild failed"));
+
+        assertThrows(IllegalStateException.class, () -> weatherAggregateService.rebuild());
+
+        assertEquals(1, transactionManager.rollbacks);
+        assertEquals(WeatherAggregateState.EMPTY, weatherAggregateService.current());
+    }
+
+    /**
+     * Менеджер транзакций без базы: только синхронизации и счетчики коммитов и откатов.
+     */
+    private static final class RecordingTransactionManager extends AbstractPlatformTransactionManager {
+
+        private int commits;
+        private int rollbacks;
+
+        @Override
+        protected Object doGetTransaction() {
+            return new Object();
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+        }
+
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+            commits++;
+        }
+
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {
+            rollbacks++;
+        }
+    }
+}
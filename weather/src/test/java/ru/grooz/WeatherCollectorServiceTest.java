@@ -1,19 +1,38 @@
 package ru.grooz;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.reactive.function.client.ClientResponse;
 import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
 import ru.grooz.dto.SourceWeatherData;
+import ru.grooz.service.CollectionProgress;
 import ru.grooz.service.WeatherAdaptorService;
 import ru.grooz.service.WeatherCollectorService;
+import ru.grooz.util.SourceCircuitBreakerRegistry;
+import ru.grooz.util.SourceLatencyTracker;
+import ru.grooz.util.SourceValidators;
+import ru.grooz.util.WeatherMetrics;
 
+import java.util.List;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
@@ -32,6 +51,17 @@ class WeatherCollectorServiceTest {
     private WebClient.RequestHeadersSpec requestHeadersSpec;
     @Mock
     private WebClient.ResponseSpec responseSpec;
+    @Spy
+    private SourceCircuitBreakerRegistry circuitBreakers = new SourceCircuitBreakerRegistry(1, 60_000);
+    @Spy
+    private SourceLatencyTracker latencyTracker = new SourceLatencyTracker(20, 1000);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    @Spy
+    private WeatherMetrics weatherMetrics = new WeatherMetrics(meterRegistry, WeatherMetrics.Mode.BASIC);
+    @Spy
+    private Scheduler blockingScheduler = Schedulers.boundedElastic();
+    @Spy
+    private SourceValidators sourceValidators = new SourceValidators();
 
     @InjectMocks
     private WeatherCollectorService weatherCollectorService;
@@ -40,17 +70,22 @@ class WeatherCollectorServiceTest {
     private static final String MOCK_SOURCE_RESPONSE_FORMAT_2 = "{\"temp\":20.1,\"hum\":55}";
 
     private long retryMaxAttempts;
-    private long retryDelaySeconds;
+    private long retryMinBackoffMs;
 
     @BeforeEach
     void setUp() {
         ReflectionTestUtils.setField(weatherCollectorService, "baseUrl", "http://mock-source-service:8081/source/");
         ReflectionTestUtils.setField(weatherCollectorService, "sourceCount", 2);
+        ReflectionTestUtils.setField(weatherCollectorService, "fetchConcurrency", 4);
+        ReflectionTestUtils.setField(weatherCollectorService, "processingConcurrency", 2);
+        ReflectionTestUtils.setField(weatherCollectorService, "deadlineMs", 5_000L);
 
         retryMaxAttempts = 2L;
-        retryDelaySeconds = 1L;
+        retryMinBackoffMs = 10L;
         ReflectionTestUtils.setField(weatherCollectorService, "retryMaxAttempts", retryMaxAttempts);
-        ReflectionTestUtils.setField(weatherCollectorService, "retryDelaySeconds", retryDelaySeconds);
+        ReflectionTestUtils.setField(weatherCollectorService, "retryMinBackoffMs", retryMinBackoffMs);
+        ReflectionTestUtils.setField(weatherCollectorService, "retryMaxBackoffMs", 100L);
+        ReflectionTestUtils.setField(weatherCollectorService, "retryJitter", 0.5);
     }
 
     @Test
@@ -64,7 +99,7 @@ class WeatherCollectorServiceTest {
                 .thenReturn(Mono.just(MOCK_SOURCE_RESPONSE_FORMAT_1))
                 .thenReturn(Mono.just(MOCK_SOURCE_RESPONSE_FORMAT_2));
 
-        doNothing().when(weatherAdaptorService).processAndSaveWeatherData(any(SourceWeatherData.class));
+        when(weatherAdaptorService.processAndSaveWeatherData(any(SourceWeatherData.class))).thenReturn(true);
 
         weatherCollectorService.collectAndProcessAllWeatherData().block();
 
@@ -90,7 +125,7 @@ class WeatherCollectorServiceTest {
                 .thenReturn(Mono.just(MOCK_SOURCE_RESPONSE_FORMAT_1))
                 .thenReturn(Mono.error(new RuntimeException("Simulated network error for source 2")));
 
-        doNothing().when(weatherAdaptorService).processAndSaveWeatherData(any(SourceWeatherData.class));
+        when(weatherAdaptorService.processAndSaveWeatherData(any(SourceWeatherData.class))).thenReturn(true);
 
         weatherCollectorService.collectAndProcessAllWeatherData().block();
 
@@ -103,4 +138,199 @@ class WeatherCollectorServiceTest {
         verify(weatherAdaptorService, never()).processAndSaveWeatherData(
                 argThat(data -> data.getSourceId() == 2));
     }
-}
\ No newline at end of file
+
+    @Test
+    void testCollectAndProcessAllWeatherData_BatchesResponsesIntoOneSave() {
+        ReflectionTestUtils.setField(weatherCollectorService, "batchEnabled", true);
+        ReflectionTestUtils.setField(weatherCollectorService, "batchSize", 10);
+        ReflectionTestUtils.setField(weatherCollectorService, "batchWindowMs", 1000L);
+
+        when(webClient.get()).thenReturn(requestHeadersUriSpec);
+        when(requestHeadersUriSpec.uri(anyString())).thenReturn(requestHeadersSpec);
+        when(requestHeadersSpec.retrieve()).thenReturn(responseSpec);
+        when(responseSpec.bodyToMono(String.class))
+                .thenReturn(Mono.just(MOCK_SOURCE_RESPONSE_FORMAT_1))
+                .thenReturn(Mono.just(MOCK_SOURCE_RESPONSE_FORMAT_2));
+
+        when(weatherAdaptorService.processAndSaveWeatherDataBatch(anyList())).thenReturn(2);
+
+        weatherCollectorService.collectAndProcessAllWeatherData().block();
+
+        verify(weatherAdaptorService, times(1)).processAndSaveWeatherDataBatch(
+                argThat((List<SourceWeatherData> batch) -> batch.size() == 2));
+        verify(weatherAdaptorService, never()).processAndSaveWeatherData(any(SourceWeatherData.class));
+    }
+
+    @Test
+    void testCollectAndProcessAllWeatherData_UnparsedBatchResponsesCountAsFailure() {
+        ReflectionTestUtils.setField(weatherCollectorService, "batchEnabled", true);
+        ReflectionTestUtils.setField(weatherCollectorService, "batchSize", 10);
+        ReflectionTestUtils.setField(weatherCollectorService, "batchWindowMs", 1000L);
+
+        when(webClient.get()).thenReturn(requestHeadersUriSpec);
+        when(requestHeadersUriSpec.uri(anyString())).thenReturn(requestHeadersSpec);
+        when(requestHeadersSpec.retrieve()).thenReturn(responseSpec);
+        when(responseSpec.bodyToMono(String.class))
+                .thenReturn(Mono.just(MOCK_SOURCE_RESPONSE_FORMAT_1))
+                .thenReturn(Mono.just("not a weather payload"));
+
+        // Второй ответ не распарсился и сохранен только в сыром виде
+        when(weatherAdaptorService.processAndSaveWeatherDataBatch(anyList())).thenReturn(1);
+
+        CollectionProgress progress = weatherCollectorService.newProgress();
+        weatherCollectorService.collectAndProcessAllWeatherData(progress).block();
+
+        assertEquals(1, progress.includedSources());
+        assertEquals(1, progress.failedSources());
+        assertEquals(0, progress.pendingSources());
+    }
+
+    @Test
+    void testCollectAndProcessAllWeatherData_SkipsSourceWithOpenCircuit() {
+        circuitBreakers.onFailure(2);
+
+        when(webClient.get()).thenReturn(requestHeadersUriSpec);
+        when(requestHeadersUriSpec.uri("http://mock-source-service:8081/source/1")).thenReturn(requestHeadersSpec);
+        when(requestHeadersSpec.retrieve()).thenReturn(responseSpec);
+        when(responseSpec.bodyToMono(String.class)).thenReturn(Mono.just(MOCK_SOURCE_RESPONSE_FORMAT_1));
+
+        when(weatherAdaptorService.processAndSaveWeatherData(any(SourceWeatherData.class))).thenReturn(true);
+
+        weatherCollectorService.collectAndProcessAllWeatherData().block();
+
+        verify(webClient, times(1)).get();
+        verify(requestHeadersUriSpec, never()).uri("http://mock-source-service:8081/source/2");
+        verify(weatherAdaptorService, times(1)).processAndSaveWeatherData(
+                argThat(data -> data.getSourceId() == 1));
+        assertEquals(1.0, meterRegistry.counter("weather.source.failures", "reason", "circuit-open").count());
+        assertEquals(1L, meterRegistry.timer("weather.source.fetch", "outcome", "success").count());
+    }
+
+    @Test
+    void testCollectAndProcessAllWeatherData_RecordsCancelledHedgeLoser() {
+        ReflectionTestUtils.setField(weatherCollectorService, "sourceCount", 1);
+        ReflectionTestUtils.setField(weatherCollectorService, "hedgingEnabled", true);
+        ReflectionTestUtils.setField(weatherCollectorService, "hedgingPercentile", 0.95);
+        ReflectionTestUtils.setField(weatherCollectorService, "hedgingMaxRatio", 1.0);
+        ReflectionTestUtils.setField(weatherCollectorService, "hedgingMinDelayMs", 10L);
+        for (int i = 0; i < 20; i++) {
+            latencyTracker.record(1, 5);
+        }
+
+        when(webClient.get()).thenReturn(requestHeadersUriSpec);
+        when(requestHeadersUriSpec.uri(anyString())).thenReturn(requestHeadersSpec);
+        when(requestHeadersSpec.retrieve()).thenReturn(responseSpec);
+        // Основной запрос зависает, хеджирующий отвечает сразу
+        when(responseSpec.bodyToMono(String.class))
+                .thenReturn(Mono.never())
+                .thenReturn(Mono.just(MOCK_SOURCE_RESPONSE_FORMAT_1));
+
+        when(weatherAdaptorService.processAndSaveWeatherData(any(SourceWeatherData.class))).thenReturn(true);
+
+        weatherCollectorService.collectAndProcessAllWeatherData().block();
+
+        assertEquals(1L, meterRegistry.timer("weather.source.fetch", "outcome", "success").count());
+        assertEquals(1L, meterRegistry.timer("weather.source.fetch", "outcome", "cancelled").count());
+        assertEquals(0L, meterRegistry.timer("weather.source.fetch", "outcome", "error").count());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testCollectAndProcessAllWeatherData_SkipsUnchangedReadings() {
+        ReflectionTestUtils.setField(weatherCollectorService, "conditionalFetchEnabled", true);
+
+        when(webClient.get()).thenReturn(requestHeadersUriSpec);
+        when(requestHeadersUriSpec.uri(anyString())).thenReturn(requestHeadersSpec);
+        when(requestHeadersSpec.headers(any())).thenReturn(requestHeadersSpec);
+        // Источник 1 поддерживает ETag и во втором цикле отвечает 304, источник 2 повторяет тот же payload
+        List<ClientResponse> responses = List.of(
+                ClientResponse.create(HttpStatus.OK).header(HttpHeaders.ETAG, "\"v1\"")
+                        .body(MOCK_SOURCE_RESPONSE_FORMAT_1).build(),
+                ClientResponse.create(HttpStatus.OK).body(MOCK_SOURCE_RESPONSE_FORMAT_2).build(),
+                ClientResponse.create(HttpStatus.NOT_MODIFIED).build(),
+                ClientResponse.create(HttpStatus.OK).body(MOCK_SOURCE_RESPONSE_FORMAT_2).build());
+        int[] call = {0};
+        when(requestHeadersSpec.exchangeToMono(any())).thenAnswer(invocation -> {
+            Function<ClientResponse, Mono<SourceWeatherData>> handler = invocation.getArgument(0);
+            return handler.apply(responses.get(call[0]++));
+        });
+        ReflectionTestUtils.setField(weatherCollectorService, "fetchConcurrency", 1);
+
+        when(weatherAdaptorService.processAndSaveWeatherData(any(SourceWeatherData.class))).thenReturn(true);
+
+        weatherCollectorService.collectAndProcessAllWeatherData().block();
+        CollectionProgress progress = weatherCollectorService.newProgress();
+        weatherCollectorService.collectAndProcessAllWeatherData(progress).block();
+
+        verify(weatherAdaptorService, times(2)).processAndSaveWeatherData(any(SourceWeatherData.class));
+        assertEquals("\"v1\"", sourceValidators.get(1).eTag());
+        assertEquals(2, progress.includedSources());
+        assertEquals(1.0, meterRegistry.counter("weather.source.unchanged", "reason", "not-modified").count());
+        assertEquals(1.0, meterRegistry.counter("weather.source.unchanged", "reason", "duplicate").count());
+    }
+
+    @Test
+    void testCollectAndProcessAllWeatherData_ReportsProgress() {
+        when(webClient.get()).thenReturn(requestHeadersUriSpec);
+        when(requestHeadersUriSpec.uri(anyString())).thenReturn(requestHeadersSpec);
+        when(requestHeadersSpec.retrieve()).thenReturn(responseSpec);
+        when(responseSpec.bodyToMono(String.class))
+                .thenReturn(Mono.just(MOCK_SOURCE_RESPONSE_FORMAT_1))
+                .thenReturn(Mono.error(new RuntimeException("Simulated network error for source 2")));
+
+        when(weatherAdaptorService.processAndSaveWeatherData(any(SourceWeatherData.class))).thenReturn(true);
+
+        CollectionProgress progress = weatherCollectorService.newProgress();
+        weatherCollectorService.collectAndProcessAllWeatherData(progress).block();
+
+        assertEquals(2, progress.totalSources());
+        assertEquals(1, progress.includedSources());
+        assertEquals(1, progress.failedSources());
+        assertEquals(0, progress.pendingSources());
+    }
+
+    @Test
+    void testCollectAndProcessAllWeatherData_EmptyResponseCountsAsFailure() {
+        when(webClient.get()).thenReturn(requestHeadersUriSpec);
+        when(requestHeadersUriSpec.uri(anyString())).thenReturn(requestHeadersSpec);
+        when(requestHeadersSpec.retrieve()).thenReturn(responseSpec);
+        when(responseSpec.bodyToMono(String.class))
+                .thenReturn(Mono.just(MOCK_SOURCE_RESPONSE_FORMAT_1))
+                .thenReturn(Mono.empty());
+
+        when(weatherAdaptorService.processAndSaveWeatherData(any(SourceWeatherData.class))).thenReturn(true);
+
+        CollectionProgress progress = weatherCollectorService.newProgress();
+        weatherCollectorService.collectAndProcessAllWeatherData(progress).block();
+
+        assertEquals(1, progress.includedSources());
+        assertEquals(1, progress.failedSources());
+        verify(circuitBreakers).onFailure(2);
+    }
+
+    @Test
+    void testCollectAndProcessAllWeatherData_FetchesSourcesInChunks() {
+        ReflectionTestUtils.setField(weatherCollectorService, "batchFetchEnabled", true);
+        ReflectionTestUtils.setField(weatherCollectorService, "batchFetchUrl", "http://mock-source-service:8081/source/batch");
+        ReflectionTestUtils.setField(weatherCollectorService, "batchFetchChunkSize", 10);
+
+        when(webClient.get()).thenReturn(requestHeadersUriSpec);
+        when(requestHeadersUriSpec.uri("http://mock-source-service:8081/source/batch?from={from}&to={to}", 1, 2))
+                .thenReturn(requestHeadersSpec);
+        when(requestHeadersSpec.accept(MediaType.APPLICATION_NDJSON)).thenReturn(requestHeadersSpec);
+        when(requestHeadersSpec.retrieve()).thenReturn(responseSpec);
+        when(responseSpec.bodyToFlux(SourceWeatherData.class)).thenReturn(Flux.just(
+                new SourceWeatherData(1, MOCK_SOURCE_RESPONSE_FORMAT_1),
+                new SourceWeatherData(2, MOCK_SOURCE_RESPONSE_FORMAT_2)));
+
+        when(weatherAdaptorService.processAndSaveWeatherData(any(SourceWeatherData.class))).thenReturn(true);
+
+        CollectionProgress progress = weatherCollectorService.newProgress();
+        weatherCollectorService.collectAndProcessAllWeatherData(progress).block();
+
+        verify(webClient, times(1)).get();
+        verify(weatherAdaptorService, times(2)).processAndSaveWeatherData(any(SourceWeatherData.class));
+        assertEquals(2, progress.includedSources());
+        assertEquals(0, progress.failedSources());
+    }
+}
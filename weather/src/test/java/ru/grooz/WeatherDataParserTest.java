@@ -0,0 +1,62 @@
+package ru.grooz;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.grooz.dto.WeatherData;
+import ru.grooz.util.WeatherDataParser;
+import ru.grooz.util.WeatherFormat;
+import ru.grooz.util.WeatherFormatRegistry;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class WeatherDataParserTest {
+
+    private WeatherFormatRegistry formatRegistry;
+    private WeatherDataParser parser;
+
+    @BeforeEach
+    void setUp() {
+        formatRegistry = new WeatherFormatRegistry();
+        parser = new WeatherDataParser(formatRegistry);
+    }
+
+    @Test
+    void testParse_AllBuiltInFormats() {
+        assertEquals(new WeatherData(20.1, 55.0), parser.parse("{ \"temp\": 20.1, \"hum\": 55 }"));
+        assertEquals(new WeatherData(21.7, 58.0), parser.parse("{ \"temperature\": \"21.7\", \"humidity\": \"58\" }"));
+        assertEquals(new WeatherData(22.5, 53.3), parser.parse("{ \"weather\": { \"t\": 22.5, \"h\": 53.3 } }"));
+    }
+
+    @Test
+    void testParse_IgnoresUnrelatedFieldsAndNesting() {
+        String payload = "{ \"meta\": { \"tags\": [1, 2, {\"temp\": 99}] }, \"ok\": true, \"hum\": 40, \"temp\": -3.5 }";
+
+        assertEquals(new WeatherData(-3.5, 40.0), parser.parse(payload));
+    }
+
+    @Test
+    void testParse_RemembersFormatPerSourceAndRedetectsOnChange() {
+        assertEquals(new WeatherData(20.1, 55.0), parser.parse(7, "{ \"temp\": 20.1, \"hum\": 55 }"));
+        assertEquals(new WeatherData(19.0, 50.0), parser.parse(7, "{ \"temp\": 19, \"hum\": 50 }"));
+        assertEquals(new WeatherData(22.5, 53.3), parser.parse(7, "{ \"weather\": { \"t\": 22.5, \"h\": 53.3 } }"));
+    }
+
+    @Test
+    void testParse_RegisteredFormat() {
+        formatRegistry.register(WeatherFormat.of("provider-x", "data.air.temperature", "data.air.humidity"));
+
+        WeatherData data = parser.parse(1, "{ \"data\": { \"air\": { \"temperature\": 18.2, \"humidity\": 61 } } }");
+
+        assertEquals(new WeatherData(18.2, 61.0), data);
+    }
+
+    @Test
+    void testParse_InvalidPayloads() {
+        assertThrows(IllegalArgumentException.class, () -> parser.parse("{ \"pressure\": 1013 }"));
+        assertThrows(IllegalArgumentException.class, () -> parser.parse("{ \"temp\": 20.1 }"));
+        assertThrows(IllegalArgumentException.class, () -> parser.parse("{ \"temperature\": \"warm\", \"humidity\": \"58\" }"));
+        assertThrows(IllegalArgumentException.class, () -> parser.parse("[1, 2]"));
+        assertThrows(IllegalArgumentException.class, () -> parser.parse("{ \"temp\": 20.1, "));
+    }
+}
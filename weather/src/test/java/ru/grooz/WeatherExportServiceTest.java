@@ -0,0 +1,59 @@
+package ru.grooz;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+import ru.grooz.dto.ExportFormat;
+import ru.grooz.dto.ExportTable;
+import ru.grooz.repository.WeatherExportRepository;
+import ru.grooz.service.WeatherExportService;
+import ru.grooz.service.WeatherExportService.ExportLimitExceededException;
+import ru.grooz.util.WeatherMetrics;
+
+import java.time.LocalDateTime;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class WeatherExportServiceTest {
+
+    private static final LocalDateTime TO = LocalDateTime.of(2024, 3, 1, 12, 0);
+    private static final LocalDateTime FROM = TO.minusHours(1);
+
+    @Mock
+    private WeatherExportRepository weatherExportRepository;
+
+    @Test
+    void testExport_RejectsExportsOverLimitUntilOneFinishes() {
+        WeatherExportService service = new WeatherExportService(weatherExportRepository,
+                new WeatherMetrics(new SimpleMeterRegistry(), WeatherMetrics.Mode.BASIC), Schedulers.immediate(), 1);
+        Sinks.Many<String> running = Sinks.many().unicast().onBackpressureBuffer();
+        when(weatherExportRepository.export(eq(ExportTable.NORMALIZED), eq(ExportFormat.NDJSON), eq(FROM), eq(TO),
+                isNull(), any()))
+                .thenReturn(running.asFlux(), Flux.just("row\n"));
+
+        StepVerifier.create(export(service))
+                .then(() -> StepVerifier.create(export(service))
+                        .expectError(ExportLimitExceededException.class)
+                        .verify())
+                .then(running::tryEmitComplete)
+                .verifyComplete();
+
+        StepVerifier.create(export(service))
+                .expectNext("row\n")
+                .verifyComplete();
+    }
+
+    private static Flux<String> export(WeatherExportService service) {
+        return service.export(ExportTable.NORMALIZED, ExportFormat.NDJSON, FROM, TO, null);
+    }
+}
@@ -0,0 +1,51 @@
+package ru.grooz;
+
+import org.junit.jupiter.api.Test;
+import ru.grooz.repository.WeatherPartitionRepository;
+import ru.grooz.repository.WeatherPartitionRepository.TablePartition;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WeatherPartitionRepositoryTest {
+
+    private static final LocalDateTime MARCH_1 = LocalDateTime.of(2024, 3, 1, 0, 0);
+
+    @Test
+    void testDailyPartitionName() {
+        assertEquals("normalized_weather_data_p20240301", WeatherPartitionRepository.dailyPartitionName(
+                WeatherPartitionRepository.NORMALIZED_TABLE, LocalDate.of(2024, 3, 1)));
+        assertEquals("raw_weather_data_p20241231", WeatherPartitionRepository.dailyPartitionName(
+                WeatherPartitionRepository.RAW_TABLE, LocalDate.of(2024, 12, 31)));
+    }
+
+    @Test
+    void testOf_ParsesRangeMinValueAndDefaultBounds() {
+        TablePartition daily = TablePartition.of("normalized_weather_data_p20240301",
+                "FOR VALUES FROM ('2024-03-01 00:00:00') TO ('2024-03-02 00:00:00')");
+        assertEquals(new TablePartition("normalized_weather_data_p20240301", MARCH_1, MARCH_1.plusDays(1), false),
+                daily);
+
+        TablePartition legacy = TablePartition.of("normalized_weather_data_legacy",
+                "FOR VALUES FROM (MINVALUE) TO ('2024-03-01 00:00:00')");
+        assertEquals(new TablePartition("normalized_weather_data_legacy", null, MARCH_1, false), legacy);
+
+        TablePartition defaultPartition = TablePartition.of("normalized_weather_data_default", "DEFAULT");
+        assertTrue(defaultPartition.isDefault());
+
+        assertThrows(IllegalStateException.class, () -> TablePartition.of("broken", "FOR VALUES IN (1)"));
+    }
+
+    @Test
+    void testOverlaps_IgnoresDefaultPartition() {
+        TablePartition legacy = new TablePartition("legacy", null, MARCH_1, false);
+        assertTrue(legacy.overlaps(MARCH_1.minusDays(1), MARCH_1));
+        assertFalse(legacy.overlaps(MARCH_1, MARCH_1.plusDays(1)));
+        assertFalse(new TablePartition("default", null, null, true).overlaps(MARCH_1, MARCH_1.plusDays(1)));
+    }
+}
@@ -0,0 +1,64 @@
+package ru.grooz;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import ru.grooz.repository.WeatherPartitionRepository;
+import ru.grooz.repository.WeatherPartitionRepository.TablePartition;
+import ru.grooz.service.WeatherPartitionService;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static ru.grooz.repository.WeatherPartitionRepository.NORMALIZED_TABLE;
+import static ru.grooz.repository.WeatherPartitionRepository.RAW_TABLE;
+
+@ExtendWith(MockitoExtension.class)
+class WeatherPartitionServiceTest {
+
+    private static final LocalDate TODAY = LocalDate.now();
+
+    @Mock
+    private WeatherPartitionRepository weatherPartitionRepository;
+
+    @InjectMocks
+    private WeatherPartitionService weatherPartitionService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(weatherPartitionService, "daysAhead", 1);
+    }
+
+    @Test
+    void testMaintain_CreatesMissingDaysAndDrainsDefaultPartition() {
+        TablePartition normalizedDefault = new TablePartition("normalized_weather_data_default", null, null, true);
+        LocalDate expiredDay = TODAY.minusDays(40);
+        when(weatherPartitionRepository.findPartitions(RAW_TABLE)).thenReturn(List.of(
+                daily(RAW_TABLE, TODAY)));
+        when(weatherPartitionRepository.findPartitions(NORMALIZED_TABLE)).thenReturn(List.of(
+                daily(NORMALIZED_TABLE, TODAY), normalizedDefault));
+        when(weatherPartitionRepository.findDefaultPartitionDays(normalizedDefault)).thenReturn(List.of(expiredDay));
+
+        weatherPartitionService.maintain();
+
+        verify(weatherPartitionRepository).createDailyPartition(RAW_TABLE, TODAY.plusDays(1), null);
+        verify(weatherPartitionRepository).createDailyPartition(NORMALIZED_TABLE, TODAY.plusDays(1), normalizedDefault);
+        verify(weatherPartitionRepository).createDailyPartition(NORMALIZED_TABLE, expiredDay, normalizedDefault);
+        verify(weatherPartitionRepository, never()).createDailyPartition(any(), eq(TODAY), any());
+    }
+
+    private static TablePartition daily(String table, LocalDate day) {
+        LocalDateTime from = day.atStartOfDay();
+        return new TablePartition(WeatherPartitionRepository.dailyPartitionName(table, day), from, from.plusDays(1), false);
+    }
+}
@@ -0,0 +1,45 @@
+package ru.grooz;
+
+import org.junit.jupiter.api.Test;
+import ru.grooz.util.WeatherPayloadCodec;
+import ru.grooz.util.WeatherPayloadCodec.EncodedPayload;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WeatherPayloadCodecTest {
+
+    private static final String SHORT_PAYLOAD = "{ \"temp\": 20.1, \"hum\": 55 }";
+
+    @Test
+    void testEncode_ShortPayloadRoundTripsWithoutCompression() {
+        EncodedPayload encoded = WeatherPayloadCodec.encode(SHORT_PAYLOAD);
+
+        assertEquals(32, encoded.hash().length);
+        assertEquals(SHORT_PAYLOAD.length() + 1, encoded.data().length);
+        assertEquals(SHORT_PAYLOAD, WeatherPayloadCodec.decode(encoded.data()));
+    }
+
+    @Test
+    void testEncode_RepetitivePayloadIsCompressed() {
+        String payload = "{ \"weather\": { \"t\": 21.5, \"h\": 40.0 }, \"note\": \""
+                + "очень длинное описание погоды ".repeat(20) + "\" }";
+
+        EncodedPayload encoded = WeatherPayloadCodec.encode(payload);
+
+        assertTrue(encoded.data().length < payload.length() / 2, "size = " + encoded.data().length);
+        assertEquals(payload, WeatherPayloadCodec.decode(encoded.data()));
+    }
+
+    @Test
+    void testEncode_HashDependsOnlyOnContent() {
+        assertArrayEquals(WeatherPayloadCodec.encode(SHORT_PAYLOAD).hash(),
+                WeatherPayloadCodec.encode(new String(SHORT_PAYLOAD.toCharArray())).hash());
+        assertFalse(Arrays.equals(WeatherPayloadCodec.encode(SHORT_PAYLOAD).hash(),
+                WeatherPayloadCodec.encode(SHORT_PAYLOAD + " ").hash()));
+    }
+}
@@ -0,0 +1,86 @@
+package ru.grooz;
+
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Subscription;
+import reactor.core.publisher.BaseSubscriber;
+import reactor.test.StepVerifier;
+import ru.grooz.dto.WeatherReading;
+import ru.grooz.model.NormalizedWeatherData;
+import ru.grooz.service.WeatherReadingPublisher;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class WeatherReadingPublisherTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 3, 1, 12, 0);
+
+    @Test
+    void testPublish_DropsReadingsForSlowSubscriberOnly() {
+        WeatherReadingPublisher publisher = new WeatherReadingPublisher();
+        SlowSubscriber slow = new SlowSubscriber();
+
+        // Медленный подписчик запросил одну пачку: вторая и третья для него отбрасываются,
+        // а быстрый подписчик получает все
+        StepVerifier.create(publisher.readings().map(readings -> readings.get(0).sourceId()))
+                .then(() -> {
+                    publisher.readings().subscribe(slow);
+                    publisher.publish(List.of(reading(1)));
+                    publisher.publish(List.of(reading(2)));
+                    publisher.publish(List.of(reading(3)));
+                })
+                .expectNext(1, 2, 3)
+                .then(() -> {
+                    slow.request(1);
+                    publisher.publish(List.of(reading(4)));
+                })
+                .expectNext(4)
+                .thenCancel()
+                .verify();
+
+        assertEquals(List.of(1, 4), slow.received);
+        slow.dispose();
+    }
+
+    @Test
+    void testPublish_WithoutSubscribersDoesNothing() {
+        WeatherReadingPublisher publisher = new WeatherReadingPublisher();
+        publisher.publish(List.of(reading(1)));
+
+        StepVerifier.create(publisher.readings())
+                .then(() -> publisher.publish(List.of(reading(2))))
+                .assertNext(readings -> assertEquals(2, readings.get(0).sourceId()))
+                .thenCancel()
+                .verify();
+    }
+
+    /**
+     * Подписчик, запрашивающий пачки по одной только по явному request.
+     */
+    private static final class SlowSubscriber extends BaseSubscriber<List<WeatherReading>> {
+
+        private final List<Integer> received = new CopyOnWriteArrayList<>();
+
+        @Override
+        protected void hookOnSubscribe(Subscription subscription) {
+            subscription.request(1);
+        }
+
+        @Override
+        protected void hookOnNext(List<WeatherReading> readings) {
+            received.add(readings.get(0).sourceId());
+        }
+    }
+
+    private static NormalizedWeatherData reading(int sourceId) {
+        NormalizedWeatherData data = new NormalizedWeatherData();
+        data.setSourceId(sourceId);
+        data.setTemperature(20.0);
+        data.setHumidity(50.0);
+        data.setTimestamp(NOW);
+        return data;
+    }
+}
@@ -0,0 +1,90 @@
+package ru.grooz;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import ru.grooz.repository.WeatherPartitionRepository;
+import ru.grooz.repository.WeatherPartitionRepository.TablePartition;
+import ru.grooz.repository.WeatherPayloadRepository;
+import ru.grooz.service.PayloadStorageMode;
+import ru.grooz.service.WeatherRetentionService;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static ru.grooz.repository.WeatherPartitionRepository.NORMALIZED_TABLE;
+import static ru.grooz.repository.WeatherPartitionRepository.RAW_TABLE;
+
+@ExtendWith(MockitoExtension.class)
+class WeatherRetentionServiceTest {
+
+    private static final LocalDate TODAY = LocalDate.now();
+
+    @Mock
+    private WeatherPartitionRepository weatherPartitionRepository;
+    @Mock
+    private WeatherPayloadRepository weatherPayloadRepository;
+
+    @InjectMocks
+    private WeatherRetentionService weatherRetentionService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(weatherRetentionService, "keepDays", 30);
+        ReflectionTestUtils.setField(weatherRetentionService, "compaction", true);
+        ReflectionTestUtils.setField(weatherRetentionService, "payloadStorageMode", PayloadStorageMode.DEDUP);
+    }
+
+    @Test
+    void testMaintain_DropsExpiredPartitionsTogetherAndKeepsDefault() {
+        LocalDate expiredDay = TODAY.minusDays(31);
+        TablePartition rawLegacy = new TablePartition("raw_weather_data_legacy", null,
+                expiredDay.atStartOfDay(), false);
+        TablePartition normalizedLegacy = new TablePartition("normalized_weather_data_legacy", null,
+                expiredDay.atStartOfDay(), false);
+        TablePartition rawExpired = daily(RAW_TABLE, expiredDay);
+        TablePartition normalizedExpired = daily(NORMALIZED_TABLE, expiredDay);
+        when(weatherPartitionRepository.findPartitions(RAW_TABLE)).thenReturn(List.of(
+                rawLegacy, rawExpired, daily(RAW_TABLE, TODAY.minusDays(29)), daily(RAW_TABLE, TODAY),
+                daily(RAW_TABLE, TODAY.plusDays(1)), new TablePartition("raw_weather_data_default", null, null, true)));
+        when(weatherPartitionRepository.findPartitions(NORMALIZED_TABLE)).thenReturn(List.of(
+                normalizedLegacy, normalizedExpired, daily(NORMALIZED_TABLE, TODAY),
+                daily(NORMALIZED_TABLE, TODAY.plusDays(1))));
+
+        weatherRetentionService.maintain();
+
+        verify(weatherPartitionRepository).dropPartitions(List.of(normalizedLegacy), List.of(rawLegacy), true);
+        verify(weatherPartitionRepository).dropPartitions(List.of(normalizedExpired), List.of(rawExpired), true);
+        verify(weatherPartitionRepository, times(2)).dropPartitions(anyList(), anyList(), anyBoolean());
+        verify(weatherPayloadRepository).deleteOrphans();
+    }
+
+    @Test
+    void testMaintain_SkipsPayloadCleanupForInlineStorage() {
+        ReflectionTestUtils.setField(weatherRetentionService, "payloadStorageMode", PayloadStorageMode.INLINE);
+        LocalDate expiredDay = TODAY.minusDays(31);
+        when(weatherPartitionRepository.findPartitions(RAW_TABLE)).thenReturn(List.of(daily(RAW_TABLE, expiredDay)));
+        when(weatherPartitionRepository.findPartitions(NORMALIZED_TABLE)).thenReturn(List.of());
+
+        weatherRetentionService.maintain();
+
+        verify(weatherPartitionRepository).dropPartitions(List.of(), List.of(daily(RAW_TABLE, expiredDay)), true);
+        verify(weatherPayloadRepository, never()).deleteOrphans();
+    }
+
+    private static TablePartition daily(String table, LocalDate day) {
+        LocalDateTime from = day.atStartOfDay();
+        return new TablePartition(WeatherPartitionRepository.dailyPartitionName(table, day), from, from.plusDays(1), false);
+    }
+}
@@ -0,0 +1,53 @@
+package ru.grooz;
+
+import org.junit.jupiter.api.Test;
+import ru.grooz.dto.AggregationBucket;
+import ru.grooz.dto.WeatherRollupIncrement;
+import ru.grooz.model.NormalizedWeatherData;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class WeatherRollupIncrementTest {
+
+    private static final LocalDateTime NOON = LocalDateTime.of(2024, 3, 1, 12, 0);
+
+    @Test
+    void testOf_GroupsReadingsByBucketAndSource() {
+        List<WeatherRollupIncrement> increments = WeatherRollupIncrement.of(List.of(
+                reading(1, NOON.plusSeconds(10), 10.0, 50.0),
+                reading(1, NOON.plusSeconds(50), 20.0, 60.0),
+                reading(2, NOON.plusSeconds(20), 30.0, 40.0),
+                reading(1, NOON.plusMinutes(1), 5.0, 70.0)), AggregationBucket.MINUTE);
+
+        assertEquals(List.of(
+                new WeatherRollupIncrement(NOON, 1, 2, 30.0, 110.0),
+                new WeatherRollupIncrement(NOON, 2, 1, 30.0, 40.0),
+                new WeatherRollupIncrement(NOON.plusMinutes(1), 1, 1, 5.0, 70.0)), increments);
+    }
+
+    @Test
+    void testOf_SortsIncrementsInLockOrder() {
+        List<WeatherRollupIncrement> increments = WeatherRollupIncrement.of(List.of(
+                reading(3, NOON.plusHours(1), 1.0, 1.0),
+                reading(2, NOON.plusMinutes(59), 1.0, 1.0),
+                reading(1, NOON.plusHours(1).plusMinutes(30), 1.0, 1.0)), AggregationBucket.HOUR);
+
+        assertEquals(List.of(NOON, NOON.plusHours(1), NOON.plusHours(1)),
+                increments.stream().map(WeatherRollupIncrement::bucketStart).toList());
+        assertEquals(List.of(2, 1, 3),
+                increments.stream().map(WeatherRollupIncrement::sourceId).toList());
+    }
+
+    private static NormalizedWeatherData reading(int sourceId, LocalDateTime timestamp,
+                                                 double temperature, double humidity) {
+        NormalizedWeatherData data = new NormalizedWeatherData();
+        data.setSourceId(sourceId);
+        data.setTimestamp(timestamp);
+        data.setTemperature(temperature);
+        data.setHumidity(humidity);
+        return data;
+    }
+}
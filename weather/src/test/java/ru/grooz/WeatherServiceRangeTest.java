@@ -0,0 +1,113 @@
+package ru.grooz;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionTemplate;
+import reactor.core.scheduler.Schedulers;
+import ru.grooz.dto.AggregationBucket;
+import ru.grooz.dto.WeatherAggregateState;
+import ru.grooz.dto.WeatherBucketAggregate;
+import ru.grooz.dto.WeatherTimeSeriesResponse;
+import ru.grooz.repository.WeatherHistoryRepository;
+import ru.grooz.repository.WeatherStatisticsCheckpointRepository;
+import ru.grooz.service.WeatherAggregateService;
+import ru.grooz.service.WeatherCollectorService;
+import ru.grooz.service.WeatherReadingPublisher;
+import ru.grooz.service.WeatherService;
+import ru.grooz.service.WeatherStatisticsService;
+import ru.grooz.util.RecentWeatherStore;
+import ru.grooz.util.WeatherMetrics;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class WeatherServiceRangeTest {
+
+    private static final LocalDateTime FROM = LocalDateTime.of(2024, 3, 1, 10, 17);
+    private static final LocalDateTime TO = LocalDateTime.of(2024, 3, 1, 12, 0);
+
+    @Mock
+    private WeatherCollectorService weatherCollectorService;
+    @Mock
+    private WeatherAggregateService weatherAggregateService;
+    @Mock
+    private WeatherHistoryRepository weatherHistoryRepository;
+    @Mock
+    private WeatherStatisticsCheckpointRepository weatherStatisticsCheckpointRepository;
+    @Mock
+    private WeatherReadingPublisher weatherReadingPublisher;
+
+    private WeatherService weatherService;
+
+    @BeforeEach
+    void setUp() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        weatherService = new WeatherService(weatherCollectorService, weatherAggregateService,
+                new WeatherStatisticsService(weatherHistoryRepository, weatherStatisticsCheckpointRepository,
+                        new TransactionTemplate(), Schedulers.immediate(), 100, 48), weatherHistoryRepository,
+                new WeatherMetrics(meterRegistry, WeatherMetrics.Mode.BASIC), weatherReadingPublisher,
+                new RecentWeatherStore(1, 1), Schedulers.immediate(), meterRegistry);
+    }
+
+    @Test
+    void testRange_AveragesWholeIntervalWithoutBuckets() {
+        when(weatherHistoryRepository.aggregateRange(FROM, TO, 7))
+                .thenReturn(new WeatherAggregateState(4, 81.0, 202.0));
+
+        WeatherTimeSeriesResponse response = weatherService.getAggregatedWeatherRange(FROM, TO, 7, null).block();
+
+        assertEquals(20.25, response.getAverageTemperature());
+        assertEquals(50.5, response.getAverageHumidity());
+        assertEquals(4, response.getReadingCount());
+        assertEquals(FROM, response.getFrom());
+        assertNull(response.getBucket());
+        assertEquals(List.of(), response.getBuckets());
+        verify(weatherCollectorService, never()).collectAndProcessAllWeatherData();
+    }
+
+    @Test
+    void testBuckets_AlignsStartAndSumsBucketsIntoTotal() {
+        LocalDateTime aligned = LocalDateTime.of(2024, 3, 1, 10, 0);
+        Map<LocalDateTime, WeatherAggregateState> states = new LinkedHashMap<>();
+        states.put(aligned, new WeatherAggregateState(2, 20.0, 100.0));
+        states.put(aligned.plusHours(1), new WeatherAggregateState(3, 45.0, 120.0));
+        when(weatherHistoryRepository.findBuckets(AggregationBucket.HOUR, aligned, TO, null)).thenReturn(states);
+
+        WeatherTimeSeriesResponse response = weatherService
+                .getAggregatedWeatherRange(FROM, TO, null, AggregationBucket.HOUR).block();
+
+        assertEquals(aligned, response.getFrom());
+        assertEquals("hour", response.getBucket());
+        assertEquals(5, response.getReadingCount());
+        assertEquals(13.0, response.getAverageTemperature());
+        assertEquals(44.0, response.getAverageHumidity());
+        assertEquals(List.of(
+                new WeatherBucketAggregate(aligned, 2, 10.0, 50.0),
+                new WeatherBucketAggregate(aligned.plusHours(1), 3, 15.0, 40.0)), response.getBuckets());
+    }
+
+    @Test
+    void testRange_RejectsEmptyIntervalAndTooManyBuckets() {
+        assertThrows(IllegalArgumentException.class,
+                () -> weatherService.getAggregatedWeatherRange(TO, FROM, null, null).block());
+        assertThrows(IllegalArgumentException.class,
+                () -> weatherService.getAggregatedWeatherRange(TO.minusMinutes(WeatherService.MAX_BUCKETS + 1), TO,
+                        null, AggregationBucket.MINUTE).block());
+        verify(weatherHistoryRepository, never()).findBuckets(any(), any(), any(), any());
+    }
+}
@@ -0,0 +1,121 @@
+package ru.grooz;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionTemplate;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+import ru.grooz.dto.WeatherAggregateState;
+import ru.grooz.dto.WeatherStreamEvent;
+import ru.grooz.model.NormalizedWeatherData;
+import ru.grooz.repository.WeatherHistoryRepository;
+import ru.grooz.repository.WeatherStatisticsCheckpointRepository;
+import ru.grooz.service.CollectionProgress;
+import ru.grooz.service.WeatherAggregateService;
+import ru.grooz.service.WeatherCollectorService;
+import ru.grooz.service.WeatherReadingPublisher;
+import ru.grooz.service.WeatherService;
+import ru.grooz.service.WeatherStatisticsService;
+import ru.grooz.util.RecentWeatherStore;
+import ru.grooz.util.WeatherMetrics;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class WeatherServiceStreamTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    @Mock
+    private WeatherCollectorService weatherCollectorService;
+    @Mock
+    private WeatherAggregateService weatherAggregateService;
+    @Mock
+    private WeatherHistoryRepository weatherHistoryRepository;
+    @Mock
+    private WeatherStatisticsCheckpointRepository weatherStatisticsCheckpointRepository;
+
+    private final WeatherReadingPublisher weatherReadingPublisher = new WeatherReadingPublisher();
+    private final Sinks.Empty<Void> cycleDone = Sinks.empty();
+    private WeatherService weatherService;
+
+    @BeforeEach
+    void setUp() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        weatherService = new WeatherService(weatherCollectorService, weatherAggregateService,
+                new WeatherStatisticsService(weatherHistoryRepository, weatherStatisticsCheckpointRepository,
+                        new TransactionTemplate(), Schedulers.immediate(), 100, 48), weatherHistoryRepository,
+                new WeatherMetrics(meterRegistry, WeatherMetrics.Mode.BASIC), weatherReadingPublisher,
+                new RecentWeatherStore(1, 1), Schedulers.immediate(), meterRegistry);
+        when(weatherCollectorService.newProgress()).thenReturn(new CollectionProgress(2));
+        when(weatherCollectorService.collectAndProcessAllWeatherData(any(CollectionProgress.class)))
+                .thenReturn(cycleDone.asMono());
+    }
+
+    @Test
+    void testStream_EmitsProgressReadingsAndComplete() {
+        when(weatherAggregateService.current())
+                .thenReturn(WeatherAggregateState.EMPTY)
+                .thenReturn(new WeatherAggregateState(1, 21.0, 55.0));
+
+        StepVerifier.create(weatherService.streamAggregatedWeather())
+                .assertNext(event -> {
+                    assertEquals(WeatherStreamEvent.Type.PROGRESS, event.type());
+                    assertEquals(2, event.sourcesPending());
+                })
+                // Публикация с задержкой: поток подписывается на показания после отправки PROGRESS
+                .then(() -> Schedulers.parallel().schedule(
+                        () -> weatherReadingPublisher.publish(List.of(reading(1, 21.0, 55.0))), 50, TimeUnit.MILLISECONDS))
+                .assertNext(event -> {
+                    assertEquals(WeatherStreamEvent.Type.READINGS, event.type());
+                    assertEquals(21.0, event.averageTemperature());
+                    assertEquals(1, event.readings().size());
+                })
+                .then(cycleDone::tryEmitEmpty)
+                .assertNext(event -> {
+                    assertEquals(WeatherStreamEvent.Type.COMPLETE, event.type());
+                    assertEquals(55.0, event.averageHumidity());
+                })
+                .expectComplete()
+                .verify(TIMEOUT);
+    }
+
+    @Test
+    void testStream_SubscribersShareOneCycle() {
+        when(weatherAggregateService.current()).thenReturn(WeatherAggregateState.EMPTY);
+
+        StepVerifier.create(weatherService.streamAggregatedWeather().map(WeatherStreamEvent::type)
+                        .mergeWith(weatherService.streamAggregatedWeather().map(WeatherStreamEvent::type)))
+                .expectNext(WeatherStreamEvent.Type.PROGRESS, WeatherStreamEvent.Type.PROGRESS)
+                .then(cycleDone::tryEmitEmpty)
+                .expectNext(WeatherStreamEvent.Type.COMPLETE, WeatherStreamEvent.Type.COMPLETE)
+                .expectComplete()
+                .verify(TIMEOUT);
+
+        verify(weatherCollectorService, times(1)).newProgress();
+        verify(weatherCollectorService, times(1)).collectAndProcessAllWeatherData(any(CollectionProgress.class));
+    }
+
+    private static NormalizedWeatherData reading(int sourceId, double temperature, double humidity) {
+        NormalizedWeatherData data = new NormalizedWeatherData();
+        data.setSourceId(sourceId);
+        data.setTemperature(temperature);
+        data.setHumidity(humidity);
+        data.setTimestamp(LocalDateTime.of(2024, 3, 1, 12, 0));
+        return data;
+    }
+}
@@ -0,0 +1,193 @@
+package ru.grooz;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import reactor.core.scheduler.Schedulers;
+import ru.grooz.dto.AggregatedWeatherResponse;
+import ru.grooz.dto.AggregationBucket;
+import ru.grooz.dto.WeatherReading;
+import ru.grooz.dto.WeatherStatisticsResponse;
+import ru.grooz.model.NormalizedWeatherData;
+import ru.grooz.repository.WeatherHistoryRepository;
+import ru.grooz.repository.WeatherStatisticsCheckpointRepository;
+import ru.grooz.repository.WeatherStatisticsCheckpointRepository.StatisticsCheckpoint;
+import ru.grooz.service.WeatherStatisticsService;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.ObjLongConsumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class WeatherStatisticsServiceTest {
+
+    private static final LocalDateTime HOUR = LocalDateTime.now().truncatedTo(ChronoUnit.HOURS);
+
+    @Mock
+    private WeatherHistoryRepository weatherHistoryRepository;
+    @Mock
+    private WeatherStatisticsCheckpointRepository weatherStatisticsCheckpointRepository;
+
+    @Test
+    void testRecord_ServesStatisticsWithoutReadingHistory() {
+        WeatherStatisticsService service = service(48);
+        service.record(List.of(reading(1, 1, 10.0, 40.0, HOUR), reading(2, 1, 20.0, 50.0, HOUR),
+                reading(3, 2, 30.0, 60.0, HOUR.minusHours(1))));
+
+        WeatherStatisticsResponse response = service.statistics(null, AggregationBucket.HOUR, true);
+
+        assertEquals(3, response.getReadingCount());
+        assertEquals(20.0, response.getAverageTemperature());
+        assertEquals(10.0, response.getTemperature().min());
+        assertEquals(60.0, response.getHumidity().max());
+        assertEquals(List.of(HOUR.minusHours(1), HOUR),
+                response.getBuckets().stream().map(bucket -> bucket.bucketStart()).toList());
+        assertEquals(List.of(1, 2), response.getSources().stream().map(source -> source.sourceId()).toList());
+        assertEquals(15.0, service.statistics(1, null, false).getTemperature().mean());
+        verifyNoInteractions(weatherHistoryRepository);
+    }
+
+    @Test
+    void testRecord_KeepsOnlyRecentHourBuckets() {
+        WeatherStatisticsService service = service(2);
+        service.record(List.of(reading(1, 1, 10.0, 40.0, HOUR.minusHours(5)), reading(2, 1, 20.0, 50.0, HOUR)));
+
+        WeatherStatisticsResponse response = service.statistics(null, AggregationBucket.DAY, false);
+
+        assertEquals(2, response.getReadingCount());
+        assertEquals(1, response.getBuckets().size());
+        assertEquals(1, response.getBuckets().get(0).readingCount());
+    }
+
+    @Test
+    void testStatistics_RejectsBucketsThatAreNotKept() {
+        WeatherStatisticsService service = service(48);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> service.statistics(null, AggregationBucket.MINUTE, false));
+        assertThrows(IllegalArgumentException.class,
+                () -> service.statistics(1, AggregationBucket.HOUR, false));
+    }
+
+    @Test
+    void testRebuild_ReplacesStateWithHistoryScan() {
+        WeatherStatisticsService service = service(48);
+        service.record(List.of(reading(1, 1, 99.0, 99.0, HOUR)));
+        scan(0, new WeatherReading(1, 10.0, 40.0, HOUR), new WeatherReading(2, 30.0, 60.0, HOUR));
+
+        assertEquals(2, service.rebuild());
+
+        AggregatedWeatherResponse response = service.withStatistics(new AggregatedWeatherResponse(20.0, 50.0));
+        assertEquals(30.0, response.getTemperature().max());
+        assertEquals(40.0, response.getHumidity().min());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testRebuild_KeepsReadingsRecordedDuringScan() {
+        WeatherStatisticsService service = service(48);
+        // Показание 10 зафиксировано до снимка прохода и прочитано им, показание 11 — после снимка
+        doAnswer(invocation -> {
+            ObjLongConsumer<WeatherReading> consumer = invocation.getArgument(1);
+            consumer.accept(new WeatherReading(1, 10.0, 40.0, HOUR), 1);
+            consumer.accept(new WeatherReading(1, 20.0, 50.0, HOUR), 10);
+            service.record(List.of(reading(10, 1, 20.0, 50.0, HOUR), reading(11, 2, 30.0, 60.0, HOUR)));
+            return null;
+        }).when(weatherHistoryRepository).forEachReadingAfter(eq(0L), any(ObjLongConsumer.class));
+        when(weatherHistoryRepository.findReadingIds(0, List.of(10L, 11L))).thenReturn(Set.of(10L));
+
+        assertEquals(3, service.rebuild());
+
+        WeatherStatisticsResponse response = service.statistics(null, null, true);
+        assertEquals(3, response.getReadingCount());
+        assertEquals(30.0, response.getTemperature().max());
+        assertEquals(List.of(2L, 1L), response.getSources().stream().map(source -> source.readingCount()).toList());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testRestore_LoadsCheckpointAndReadsOnlyLaterReadings() {
+        WeatherStatisticsService saving = service(48);
+        when(weatherStatisticsCheckpointRepository.find()).thenReturn(Optional.empty());
+        scan(0);
+        saving.restore();
+        saving.record(List.of(reading(1, 1, 10.0, 40.0, HOUR), reading(2, 2, 30.0, 60.0, HOUR.minusHours(1))));
+        saving.checkpoint();
+
+        ArgumentCaptor<byte[]> data = ArgumentCaptor.forClass(byte[].class);
+        verify(weatherStatisticsCheckpointRepository).save(eq(2L), data.capture());
+
+        WeatherStatisticsService restored = service(48);
+        when(weatherStatisticsCheckpointRepository.find()).thenReturn(Optional.of(new StatisticsCheckpoint(2, data.getValue())));
+        scan(2, new WeatherReading(1, 20.0, 50.0, HOUR));
+        restored.restore();
+
+        WeatherStatisticsResponse response = restored.statistics(null, AggregationBucket.HOUR, true);
+        assertEquals(3, response.getReadingCount());
+        assertEquals(10.0, response.getTemperature().min());
+        assertEquals(60.0, response.getHumidity().max());
+        assertEquals(2, response.getBuckets().size());
+        assertEquals(List.of(2L, 1L), response.getSources().stream().map(source -> source.readingCount()).toList());
+        verify(weatherHistoryRepository).forEachReadingAfter(eq(2L), any(ObjLongConsumer.class));
+    }
+
+    @Test
+    void testCheckpoint_SkipsUntilRestoreCompletes() {
+        WeatherStatisticsService service = service(48);
+        service.record(List.of(reading(1, 1, 10.0, 40.0, HOUR)));
+
+        service.checkpoint();
+
+        verify(weatherStatisticsCheckpointRepository, never()).save(anyLong(), any());
+    }
+
+    private WeatherStatisticsService service(int bucketHours) {
+        return new WeatherStatisticsService(weatherHistoryRepository, weatherStatisticsCheckpointRepository,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)), Schedulers.immediate(),
+                100, bucketHours);
+    }
+
+    /**
+     * Проход по истории после afterId возвращает readings с id afterId + 1, afterId + 2, ...
+     */
+    @SuppressWarnings("unchecked")
+    private void scan(long afterId, WeatherReading... readings) {
+        doAnswer(invocation -> {
+            ObjLongConsumer<WeatherReading> consumer = invocation.getArgument(1);
+            for (int i = 0; i < readings.length; i++) {
+                consumer.accept(readings[i], afterId + i + 1);
+            }
+            return null;
+        }).when(weatherHistoryRepository).forEachReadingAfter(eq(afterId), any(ObjLongConsumer.class));
+    }
+
+    private static NormalizedWeatherData reading(long id, int sourceId, double temperature, double humidity,
+                                                 LocalDateTime timestamp) {
+        NormalizedWeatherData data = new NormalizedWeatherData();
+        data.setId(id);
+        data.setSourceId(sourceId);
+        data.setTemperature(temperature);
+        data.setHumidity(humidity);
+        data.setTimestamp(timestamp);
+        return data;
+    }
+}
@@ -0,0 +1,98 @@
+package ru.grooz;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.grooz.dto.SourceWeatherData;
+import ru.grooz.util.WriteAheadLog;
+import ru.grooz.util.WriteAheadLog.Entry;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class WriteAheadLogTest {
+
+    private static final LocalDateTime RECEIVED_AT = LocalDateTime.of(2024, 3, 1, 12, 30, 15, 123_456_000);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testReplay_ReturnsEntriesOfPreviousRunAcrossSegments() throws IOException {
+        WriteAheadLog wal = WriteAheadLog.open(directory, 128, false);
+        for (int i = 1; i <= 10; i++) {
+            wal.append(List.of(new SourceWeatherData(i, "{ \"temp\": " + i + " }")), RECEIVED_AT);
+        }
+        wal.append(List.of(new SourceWeatherData(11, null)), RECEIVED_AT);
+        wal.close();
+
+        List<Entry> entries = replayAll(WriteAheadLog.open(directory, 128, false), 0);
+
+        assertEquals(11, entries.size());
+        assertEquals(1, entries.get(0).sourceId());
+        assertEquals("{ \"temp\": 1 }", entries.get(0).payload());
+        assertEquals(RECEIVED_AT, entries.get(0).receivedAt());
+        assertNull(entries.get(10).payload());
+    }
+
+    @Test
+    void testReplay_SkipsEntriesUpToCheckpoint() throws IOException {
+        WriteAheadLog wal = WriteAheadLog.open(directory, 1024, false);
+        long[] lsns = wal.append(List.of(
+                new SourceWeatherData(1, "a"), new SourceWeatherData(2, "b"), new SourceWeatherData(3, "c")),
+                RECEIVED_AT);
+        wal.close();
+
+        List<Entry> entries = replayAll(WriteAheadLog.open(directory, 1024, false), lsns[1]);
+
+        assertEquals(1, entries.size());
+        assertEquals(3, entries.get(0).sourceId());
+        assertEquals(lsns[2], entries.get(0).lsn());
+    }
+
+    @Test
+    void testReplay_StopsAtCorruptedRecord() throws IOException {
+        WriteAheadLog wal = WriteAheadLog.open(directory, 1024, false);
+        long[] lsns = wal.append(List.of(new SourceWeatherData(1, "a"), new SourceWeatherData(2, "b")), RECEIVED_AT);
+        wal.close();
+        try (Stream<Path> files = Files.list(directory);
+             RandomAccessFile segment = new RandomAccessFile(
+                     files.filter(path -> path.toString().endsWith(".log")).findFirst().orElseThrow().toFile(), "rw")) {
+            // Последний байт payload второй записи
+            segment.seek((int) lsns[1] - 1);
+            segment.write('x');
+        }
+
+        List<Entry> entries = replayAll(WriteAheadLog.open(directory, 1024, false), 0);
+
+        assertEquals(1, entries.size());
+        assertEquals(1, entries.get(0).sourceId());
+    }
+
+    @Test
+    void testDeleteSegmentsBefore_KeepsCurrentSegment() throws IOException {
+        WriteAheadLog.open(directory, 1024, false).close();
+        WriteAheadLog.open(directory, 1024, false).close();
+        WriteAheadLog wal = WriteAheadLog.open(directory, 1024, false);
+
+        assertEquals(2, wal.deleteSegmentsBefore(Long.MAX_VALUE));
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(1, files.filter(path -> path.toString().endsWith(".log")).count());
+        }
+    }
+
+    private static List<Entry> replayAll(WriteAheadLog wal, long fromLsn) throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        wal.replay(fromLsn, entries::add);
+        wal.close();
+        return entries;
+    }
+}